@@ -3,6 +3,9 @@ package com.automation.application.runtime;
 import android.app.Instrumentation;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.test.platform.app.InstrumentationRegistry;
@@ -14,74 +17,203 @@ import com.automation.infrastructure.system.ScreenshotHelper;
 import com.automation.infrastructure.vision.ImageRecognition;
 import com.automation.domain.command.CommandContext;
 import com.automation.domain.command.CommandResult;
+import com.automation.domain.command.ExecutionLane;
 import com.automation.infrastructure.network.AutomationMessage;
 import com.automation.infrastructure.network.AutomationWebSocketClient;
 import com.automation.infrastructure.network.AuthService;
 import com.automation.application.scenario.TemplateAssetManager;
+import com.automation.shared.util.CancellationToken;
+import com.automation.shared.util.MetricsRegistry;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.automation.domain.scenario.ScriptRunGuard;
 
 /**
- * Coordinates automation lifecycle: initializes device services, maintains
- * websocket connection, dispatches incoming commands and reports results.
+ * Coordinates automation lifecycle: connects the websocket first while device
+ * services initialize in the background, dispatches incoming commands and reports results.
  */
 public final class AutomationController implements AutomationWebSocketClient.MessageCallback,
         AutomationWebSocketClient.ConnectionCallback {
 
     private static final String TAG = "AutomationController";
     private static final String PREFS_NAME = "AutomationConfig";
+    /** 后台启动阶段的最长等待时间，超时后指令直接失败而不是无限阻塞。 */
+    private static final long STARTUP_TIMEOUT_SECONDS = 60L;
+    /** 设备端排队上限，超出时直接拒绝，由服务端决定是否重发。 */
+    private static final int COMMAND_QUEUE_CAPACITY = 32;
+    /** 只读与后台通道各自的线程数和等待上限，脚本运行期间也能响应诊断类指令。 */
+    private static final int LANE_THREADS = 2;
+    private static final int LANE_QUEUE_CAPACITY = 8;
+    private static final String QUEUE_WAIT_METRIC = "queue.wait";
 
     private final Context context;
     private final Instrumentation instrumentation;
     private final SharedPreferences preferences;
-    private final UiDevice uiDevice;
-    private final ScreenshotHelper screenshotHelper;
-    private final AppManager appManager;
-    private final ClipboardHelper clipboardHelper;
-    private final ImageRecognition imageRecognition;
     private final AutomationWebSocketClient webSocketClient;
-    private final CommandExecutionEngine commandEngine;
+    private final StartupTimeline startupTimeline = new StartupTimeline();
+    private final ExecutorService startupExecutor = Executors.newFixedThreadPool(2, new StartupThreadFactory());
+    private final Future<ImageRecognition> imageRecognitionFuture;
+    private final Future<CommandExecutionEngine> engineFuture;
+    private final Object engineLock = new Object();
+    private CommandExecutionEngine commandEngine;
+    private TemplateAssetManager assetManager;
     private AuthService authService;
     private String deviceId;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean scriptSyncStarted = new AtomicBoolean(false);
     private final ScriptRunGuard scriptRunGuard = new ScriptRunGuard();
     private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(new CommandThreadFactory());
     private final Object taskLock = new Object();
     private final AtomicReference<RunningCommand> currentCommand = new AtomicReference<>();
-
-    public AutomationController() throws Exception {
+    private final CommandQueue<RunningCommand> commandQueue = new CommandQueue<>(COMMAND_QUEUE_CAPACITY);
+    /** 按最早截止时间触发排队过期检查，执行中的指令长时间不结束时排队指令也能按时回报超时。 */
+    private final Handler queueTimer = new Handler(Looper.getMainLooper());
+    private final Runnable queueExpiryTask = this::onQueueExpiryTimer;
+    /** 已安排的过期检查时刻（elapsedRealtime），0 表示未安排；受 taskLock 保护。 */
+    private long expiryCheckAt;
+    private final ExecutorService readOnlyExecutor = newLaneExecutor("automation-readonly-");
+    private final ExecutorService backgroundExecutor = newLaneExecutor("automation-background-");
+    /** 在非独占通道上执行中的指令，按 command_id 索引，供 stop_task 定点取消。 */
+    private final Map<String, RunningCommand> laneCommands = new ConcurrentHashMap<>();
+    /** 上次推送指标时的样本总数，没有新样本时跳过推送。 */
+    private long lastPushedMetricsCount = -1L;
+
+    /**
+     * 只创建连接所需的对象；OpenCV 原生库加载与指令引擎（含脚本目录解析）在后台并行初始化，
+     * 调用方随后即可 {@link #start(String)} 建立连接，连接握手与初始化同时进行。
+     * session_init 在引擎构建结束后由启动线程发送，不阻塞 WebSocket 读线程。
+     */
+    public AutomationController() {
         this.instrumentation = InstrumentationRegistry.getInstrumentation();
         this.context = instrumentation.getTargetContext().getApplicationContext();
         this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        this.uiDevice = UiDevice.getInstance(instrumentation);
-        this.screenshotHelper = new ScreenshotHelper(uiDevice);
-        this.appManager = new AppManager(context, uiDevice);
-        this.clipboardHelper = new ClipboardHelper(context);
-        this.imageRecognition = new ImageRecognition();
         this.webSocketClient = new AutomationWebSocketClient(context);
-        this.commandEngine = new CommandExecutionEngine(context, instrumentation.getContext(), uiDevice, appManager,
-                clipboardHelper, screenshotHelper, imageRecognition);
-        this.webSocketClient.setCapabilitiesProvider(() -> commandEngine.getCapabilitiesJson());
+        this.webSocketClient.holdSessionInit();
+        this.imageRecognitionFuture = startupExecutor.submit(
+                () -> startupTimeline.measure("vision_native", ImageRecognition::new));
+        this.engineFuture = startupExecutor.submit(this::buildEngine);
+        startupExecutor.shutdown();
+        this.webSocketClient.setCapabilitiesProvider(this::currentCapabilities);
+        this.webSocketClient.setStartupReportProvider(startupTimeline::toJson);
+        this.webSocketClient.setMetricsProvider(this::metricsForPush);
+    }
+
+    private CommandExecutionEngine buildEngine() throws Exception {
+        try {
+            UiDevice uiDevice = startupTimeline.measure("ui_device", () -> UiDevice.getInstance(instrumentation));
+            CommandExecutionEngine engine = startupTimeline.measure("command_engine", () -> new CommandExecutionEngine(
+                    context,
+                    instrumentation.getContext(),
+                    uiDevice,
+                    new AppManager(context, uiDevice),
+                    new ClipboardHelper(context),
+                    new ScreenshotHelper(uiDevice),
+                    () -> awaitStartup(imageRecognitionFuture, "vision_native"),
+                    webSocketClient,
+                    startupTimeline));
+            synchronized (engineLock) {
+                commandEngine = engine;
+                if (assetManager != null) {
+                    engine.setAssetManager(assetManager);
+                }
+                if (authService != null) {
+                    engine.setAuthService(authService);
+                    startScriptSync(engine);
+                }
+            }
+            startupTimeline.markReady();
+            Log.i(TAG, "指令引擎就绪: " + startupTimeline);
+            return engine;
+        } finally {
+            // 引擎构建失败时也放行，session_init 不带能力列表，由服务端照常建立会话
+            webSocketClient.releaseSessionInit();
+        }
+    }
+
+    /**
+     * 发送 session_init 时调用，此时引擎构建已结束，直接返回能力列表，不等待。
+     */
+    private JSONArray currentCapabilities() {
+        CommandExecutionEngine engine;
+        synchronized (engineLock) {
+            engine = commandEngine;
+        }
+        return engine != null ? engine.getCapabilitiesJson() : new JSONArray();
+    }
+
+    /**
+     * 心跳线程调用：引擎未就绪或自上次推送以来没有新样本时返回 null。
+     */
+    private JSONObject metricsForPush() {
+        if (!engineFuture.isDone()) {
+            return null;
+        }
+        try {
+            MetricsRegistry metrics = engine().metrics();
+            long total = metrics.totalCount();
+            if (total == lastPushedMetricsCount) {
+                return null;
+            }
+            lastPushedMetricsCount = total;
+            return metrics.toCompactJson();
+        } catch (Exception e) {
+            Log.w(TAG, "构建指标推送失败", e);
+            return null;
+        }
+    }
+
+    private CommandExecutionEngine engine() {
+        return awaitStartup(engineFuture, "command_engine");
+    }
+
+    private static <T> T awaitStartup(Future<T> future, String stage) {
+        try {
+            return future.get(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待启动阶段被中断: " + stage, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("启动阶段失败: " + stage, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("启动阶段超时: " + stage, e);
+        }
     }
 
     public void setAuthService(AuthService authService) {
-        this.authService = authService;
         this.webSocketClient.setAuthService(authService);
-        if (authService != null) {
-            this.commandEngine.setAssetManager(new TemplateAssetManager(authService));
+        synchronized (engineLock) {
+            this.authService = authService;
+            if (authService != null) {
+                assetManager = new TemplateAssetManager(authService);
+                if (commandEngine != null) {
+                    commandEngine.setAssetManager(assetManager);
+                    commandEngine.setAuthService(authService);
+                    startScriptSync(commandEngine);
+                }
+            }
         }
         if (authService != null) {
             String saved = authService.getSavedDeviceId();
@@ -91,6 +223,27 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
         }
     }
 
+    /**
+     * 引擎与认证服务都就绪后在后台同步一次脚本缓存，只执行一次；失败时继续使用已有缓存或 assets。
+     */
+    private void startScriptSync(CommandExecutionEngine engine) {
+        if (!scriptSyncStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            startupTimeline.begin("script_sync");
+            try {
+                engine.syncScripts();
+                startupTimeline.end("script_sync", null);
+            } catch (Exception e) {
+                startupTimeline.end("script_sync", e);
+                Log.w(TAG, "启动时同步脚本失败，沿用本地脚本", e);
+            }
+        }, "automation-script-sync");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public void setDeviceId(String deviceId) {
         this.deviceId = deviceId;
         webSocketClient.setDeviceId(deviceId);
@@ -112,6 +265,7 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
 
         webSocketClient.setMessageCallback(this);
         webSocketClient.setDeviceId(deviceId);
+        startupTimeline.begin("websocket_connect");
         webSocketClient.connect(wsUrl, this);
 
         Log.i(TAG, "AutomationController 启动完成，等待指令...");
@@ -126,15 +280,24 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
     public void stop() {
         running.set(false);
         webSocketClient.disconnect();
+        queueTimer.removeCallbacks(queueExpiryTask);
+        commandQueue.drain();
         RunningCommand active = currentCommand.getAndSet(null);
         if (active != null) {
             active.cancel();
         }
+        for (RunningCommand laneCommand : laneCommands.values()) {
+            laneCommand.cancel();
+        }
         commandExecutor.shutdownNow();
+        readOnlyExecutor.shutdownNow();
+        backgroundExecutor.shutdownNow();
+        startupExecutor.shutdownNow();
     }
 
     @Override
     public void onConnected() {
+        startupTimeline.end("websocket_connect", null);
         Log.i(TAG, "✓ WebSocket 已连接");
     }
 
@@ -160,12 +323,13 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
     }
 
     @Override
-    public void onCommand(String commandId, String action, JSONObject payload, String userId) {
+    public void onCommand(String commandId, String action, JSONObject payload, String userId,
+            int priority, long ttlMs) {
         String safeCommandId = commandId != null ? commandId : UUID.randomUUID().toString();
         Log.i(TAG, "执行指令: " + action + " (id=" + safeCommandId + ")");
 
         if ("stop_task".equals(action)) {
-            handleStopRequest(safeCommandId, userId, action);
+            handleStopRequest(safeCommandId, payload, userId, action);
             return;
         }
 
@@ -174,31 +338,165 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
             return;
         }
 
+        ExecutionLane lane = laneOf(action);
+        if (lane != ExecutionLane.EXCLUSIVE_UI) {
+            submitToLane(lane, new RunningCommand(safeCommandId, action, userId, payload, null));
+            return;
+        }
+
+        long deadlineAt = ttlMs > 0 ? SystemClock.elapsedRealtime() + ttlMs : 0L;
+        RunningCommand session = new RunningCommand(safeCommandId, action, userId, payload, safeCommandId);
         synchronized (taskLock) {
-            RunningCommand active = currentCommand.get();
-            if (active != null && !active.isCompleted()) {
-                Log.w(TAG, "设备忙，拒绝新指令: " + action);
-                sendCommandResult(safeCommandId, false, null, "device busy", userId, action);
+            // 先移出已过期的条目，避免它们占着容量导致新指令被拒
+            expireQueuedLocked();
+            CommandQueue.OfferResult offer = commandQueue.offer(safeCommandId, priority, deadlineAt, session);
+            if (offer == CommandQueue.OfferResult.DUPLICATE) {
+                Log.w(TAG, "重复的指令 id，忽略: " + safeCommandId);
                 return;
             }
-
-            String guardToken = safeCommandId;
-            if (!scriptRunGuard.tryAcquire(guardToken)) {
-                Log.w(TAG, "脚本互斥锁占用，拒绝新指令");
-                sendCommandResult(safeCommandId, false, null, "device busy", userId, action);
+            if (offer == CommandQueue.OfferResult.FULL) {
+                Log.w(TAG, "指令队列已满，拒绝新指令: " + action);
+                sendCommandResult(safeCommandId, false, null, "command queue full", userId, action);
                 return;
             }
+            if (!dispatchNextLocked()) {
+                reportQueuePositionsLocked();
+            }
+            scheduleExpiryLocked();
+        }
+    }
 
-            RunningCommand session = new RunningCommand(safeCommandId, action, userId, payload, guardToken);
+    /**
+     * 引擎尚未就绪时无法得知通道，按独占处理进入队列，由执行线程等待引擎。
+     */
+    private ExecutionLane laneOf(String action) {
+        if (!engineFuture.isDone()) {
+            return ExecutionLane.EXCLUSIVE_UI;
+        }
+        try {
+            return engine().laneOf(action);
+        } catch (IllegalStateException e) {
+            return ExecutionLane.EXCLUSIVE_UI;
+        }
+    }
+
+    /**
+     * 非独占指令不排队、不占用脚本互斥锁，直接提交到对应通道的线程池；通道积压已满时拒绝。
+     */
+    private void submitToLane(ExecutionLane lane, RunningCommand session) {
+        if (!commandQueue.markSeen(session.commandId)) {
+            Log.w(TAG, "重复的指令 id，忽略: " + session.commandId);
+            return;
+        }
+        ExecutorService executor = lane == ExecutionLane.READ_ONLY ? readOnlyExecutor : backgroundExecutor;
+        laneCommands.put(session.commandId, session);
+        try {
+            session.attachFuture(executor.submit(() -> executeCommand(session)));
+        } catch (RejectedExecutionException rex) {
+            laneCommands.remove(session.commandId, session);
+            Log.w(TAG, "执行通道已满，拒绝指令: " + session.action + " (lane=" + lane.wireName() + ")");
+            sendCommandResult(session.commandId, false, null, "lane busy: " + lane.wireName(),
+                    session.userId, session.action);
+        }
+    }
+
+    /**
+     * 当前没有执行中的指令时取出队首并提交；上一条指令结束时在执行线程上调用，队列中的指令首尾相接执行。
+     *
+     * @return 是否提交了新指令
+     */
+    private boolean dispatchNextLocked() {
+        RunningCommand active = currentCommand.get();
+        if (active != null && !active.isCompleted()) {
+            return false;
+        }
+        expireQueuedLocked();
+        CommandQueue.Entry<RunningCommand> entry;
+        while ((entry = commandQueue.poll()) != null) {
+            RunningCommand session = entry.item();
+            if (!scriptRunGuard.tryAcquire(session.guardToken)) {
+                Log.w(TAG, "脚本互斥锁占用，拒绝指令: " + session.action);
+                sendCommandResult(session.commandId, false, null, "device busy", session.userId, session.action);
+                continue;
+            }
             try {
+                currentCommand.set(session);
                 Future<?> future = commandExecutor.submit(() -> executeCommand(session));
                 session.attachFuture(future);
-                currentCommand.set(session);
             } catch (RejectedExecutionException rex) {
-                Log.e(TAG, "指令提交失败: " + action, rex);
-                scriptRunGuard.release(guardToken);
-                sendCommandResult(safeCommandId, false, null, "executor rejected command", userId, action);
+                Log.e(TAG, "指令提交失败: " + session.action, rex);
+                currentCommand.set(null);
+                scriptRunGuard.release(session.guardToken);
+                sendCommandResult(session.commandId, false, null, "executor rejected command",
+                        session.userId, session.action);
+                continue;
             }
+            reportQueuePositionsLocked();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移出已过期的排队指令并回报失败。
+     *
+     * @return 是否有条目过期被移出
+     */
+    private boolean expireQueuedLocked() {
+        List<CommandQueue.Entry<RunningCommand>> expiredEntries = commandQueue.removeExpired(SystemClock.elapsedRealtime());
+        for (CommandQueue.Entry<RunningCommand> expired : expiredEntries) {
+            RunningCommand session = expired.item();
+            Log.w(TAG, "指令排队超时: " + session.action + " (id=" + session.commandId + ")");
+            session.reportProgress("expired", "指令排队超时", null, null);
+            sendCommandResult(session.commandId, false, null, "command expired", session.userId, session.action);
+        }
+        return !expiredEntries.isEmpty();
+    }
+
+    /**
+     * 按队列中最早的截止时间安排过期检查；已安排的检查不晚于该时刻时保持不变。
+     */
+    private void scheduleExpiryLocked() {
+        long deadline = commandQueue.earliestDeadline();
+        if (deadline <= 0 || (expiryCheckAt > 0 && expiryCheckAt <= deadline)) {
+            return;
+        }
+        queueTimer.removeCallbacks(queueExpiryTask);
+        expiryCheckAt = deadline;
+        queueTimer.postDelayed(queueExpiryTask, Math.max(0L, deadline - SystemClock.elapsedRealtime()));
+    }
+
+    private void onQueueExpiryTimer() {
+        synchronized (taskLock) {
+            expiryCheckAt = 0L;
+            if (expireQueuedLocked()) {
+                reportQueuePositionsLocked();
+            }
+            scheduleExpiryLocked();
+        }
+    }
+
+    /**
+     * 向位置发生变化的排队指令上报当前位置与队列深度，位置不变的不重复推送。
+     */
+    private void reportQueuePositionsLocked() {
+        List<CommandQueue.Entry<RunningCommand>> queued = commandQueue.snapshot();
+        for (int i = 0; i < queued.size(); i++) {
+            CommandQueue.Entry<RunningCommand> entry = queued.get(i);
+            RunningCommand session = entry.item();
+            if (session.reportedPosition == i + 1) {
+                continue;
+            }
+            session.reportedPosition = i + 1;
+            JSONObject extra = new JSONObject();
+            try {
+                extra.put("position", i + 1);
+                extra.put("queue_depth", queued.size());
+                extra.put("priority", entry.priority());
+            } catch (Exception ignore) {
+                // ignore json errors
+            }
+            session.reportProgress("queued", "排队中，第 " + (i + 1) + " 位", null, extra);
         }
     }
 
@@ -207,9 +505,15 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
     }
 
     private void executeCommand(RunningCommand session) {
-        try {
+        session.attachWorker(Thread.currentThread());
+        try (CancellationToken.Scope ignored = session.cancellation.bind()) {
+            long queuedMs = SystemClock.elapsedRealtime() - session.receivedAt;
+            CommandExecutionEngine engine = engine();
+            if (session.guardToken != null) {
+                engine.metrics().record(QUEUE_WAIT_METRIC, queuedMs, true);
+            }
             session.reportProgress("start", "开始执行指令", 0, null);
-            CommandResult result = commandEngine.execute(session, session.action, session.payload);
+            CommandResult result = engine.execute(session, session.action, session.payload);
             boolean success = result == null || result.isSuccess();
             Object payload = result != null ? result.payload() : null;
             String rendered = result != null ? result.renderPayload() : null;
@@ -230,6 +534,10 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
                 session.reportProgress("error", errorMessage, null, progressExtra);
                 sendCommandResult(session.commandId, false, rendered, errorMessage, session.userId, session.action);
             }
+        } catch (CancellationException cancelled) {
+            Log.w(TAG, "指令已取消: " + session.action);
+            sendCommandResult(session.commandId, false, stopLatencyJson(session).toString(), "command cancelled",
+                    session.userId, session.action);
         } catch (InterruptedException interrupted) {
             Thread.currentThread().interrupt();
             Log.w(TAG, "指令被中断: " + session.action);
@@ -247,9 +555,29 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
             session.reportProgress("error", "指令执行失败", null, extra);
             sendCommandResult(session.commandId, false, null, e.getMessage(), session.userId, session.action);
         } finally {
-            scriptRunGuard.release(session.guardToken);
-            clearCurrentCommand(session);
+            if (session.cancellation.isCancelled()) {
+                long latency = session.cancellation.elapsedSinceCancelMs();
+                Log.i(TAG, "指令停止耗时 " + latency + "ms: " + session.action);
+                session.reportProgress("cancelled", "指令已停止", null, stopLatencyJson(session));
+            }
+            session.detachWorker();
+            if (session.guardToken == null) {
+                laneCommands.remove(session.commandId, session);
+            } else {
+                scriptRunGuard.release(session.guardToken);
+                clearCurrentCommand(session);
+            }
+        }
+    }
+
+    private JSONObject stopLatencyJson(RunningCommand session) {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("stop_latency_ms", session.cancellation.elapsedSinceCancelMs());
+        } catch (Exception ignore) {
+            // ignore json errors
         }
+        return json;
     }
 
     private JSONObject toJsonObject(Object payload) {
@@ -263,9 +591,39 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
         return null;
     }
 
-    private void handleStopRequest(String commandId, String userId, String action) {
-        RunningCommand active = currentCommand.get();
-        if (active == null || active.isCompleted()) {
+    /**
+     * 停止指令：params.command_id 指定目标时取消该条（排队中直接移出，执行中包括非独占通道上的指令则置位取消令牌），
+     * 否则取消当前执行的指令；params.clear_queue 为 true 时同时清空队列。
+     */
+    private void handleStopRequest(String commandId, JSONObject params, String userId, String action) {
+        String targetId = params != null ? params.optString("command_id", null) : null;
+        boolean clearQueue = params != null && params.optBoolean("clear_queue", false);
+        int dropped = 0;
+        synchronized (taskLock) {
+            if (clearQueue) {
+                for (CommandQueue.Entry<RunningCommand> entry : commandQueue.drain()) {
+                    failQueued(entry.item(), "command cancelled");
+                    dropped++;
+                }
+            } else if (targetId != null) {
+                CommandQueue.Entry<RunningCommand> removed = commandQueue.remove(targetId);
+                if (removed != null) {
+                    failQueued(removed.item(), "command cancelled");
+                    reportQueuePositionsLocked();
+                    sendCommandResult(commandId, true, "cancelled queued command", null, userId, action);
+                    return;
+                }
+            }
+        }
+
+        RunningCommand laneTarget = targetId != null ? laneCommands.get(targetId) : null;
+        RunningCommand active = laneTarget != null ? laneTarget : currentCommand.get();
+        if (active == null || active.isCompleted()
+                || (targetId != null && !targetId.equals(active.commandId))) {
+            if (dropped > 0) {
+                sendCommandResult(commandId, true, "cleared " + dropped + " queued commands", null, userId, action);
+                return;
+            }
             Log.w(TAG, "停止请求但当前无执行中的任务");
             sendCommandResult(commandId, false, null, "no running task", userId, action);
             return;
@@ -273,7 +631,7 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
 
         boolean cancelled = active.cancel();
         if (cancelled) {
-            Log.i(TAG, "已发送中断信号给任务: " + active.action);
+            Log.i(TAG, "已发送取消信号给任务: " + active.action);
             sendCommandResult(commandId, true, "cancel requested", null, userId, action);
         } else {
             Log.w(TAG, "取消任务失败，可能已完成");
@@ -281,11 +639,20 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
         }
     }
 
+    private void failQueued(RunningCommand session, String error) {
+        Log.i(TAG, "移出排队指令: " + session.action + " (id=" + session.commandId + ")");
+        session.reportProgress("error", "指令已取消", null, null);
+        sendCommandResult(session.commandId, false, null, error, session.userId, session.action);
+    }
+
     private void clearCurrentCommand(RunningCommand session) {
         synchronized (taskLock) {
             RunningCommand active = currentCommand.get();
             if (active == session) {
                 currentCommand.set(null);
+                if (running.get()) {
+                    dispatchNextLocked();
+                }
             }
         }
     }
@@ -320,7 +687,13 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
         final String userId;
         final JSONObject payload;
         final String guardToken;
+        final CancellationToken cancellation = new CancellationToken();
+        final long receivedAt = SystemClock.elapsedRealtime();
+        /** 最近一次上报的排队位置，0 表示尚未上报；受 taskLock 保护。 */
+        int reportedPosition;
         private final AtomicReference<Future<?>> futureRef = new AtomicReference<>();
+        /** 执行线程，仅用于取消时中断仍阻塞在 Thread.sleep / IO 中的旧代码。 */
+        private Thread worker;
 
         final String deviceId;
 
@@ -342,12 +715,35 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
             return future == null || future.isDone();
         }
 
+        synchronized void attachWorker(Thread thread) {
+            worker = thread;
+        }
+
+        synchronized void detachWorker() {
+            worker = null;
+            // 清除取消时可能残留的中断标记，避免影响执行线程上的下一条指令
+            Thread.interrupted();
+        }
+
+        /**
+         * 置位取消令牌，引擎与等待原语在下一个检查点退出；不取消 Future，
+         * 指令真正结束前仍视为执行中，避免新指令与尚未退出的旧指令并发操作设备。
+         */
         boolean cancel() {
-            Future<?> future = futureRef.get();
-            if (future == null) {
+            if (isCompleted() || !cancellation.cancel()) {
                 return false;
             }
-            return future.cancel(true);
+            synchronized (this) {
+                if (worker != null) {
+                    worker.interrupt();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public CancellationToken cancellationToken() {
+            return cancellation;
         }
 
         @Override
@@ -386,7 +782,28 @@ public final class AutomationController implements AutomationWebSocketClient.Mes
         }
 
         com.automation.domain.scenario.ScenarioContext.Builder newScenarioContextBuilder() {
-            return commandEngine.newScenarioContextBuilder(this);
+            return engine().newScenarioContextBuilder(this);
+        }
+    }
+
+    private static ExecutorService newLaneExecutor(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(LANE_THREADS, LANE_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LANE_QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, namePrefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private static final class StartupThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "automation-startup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
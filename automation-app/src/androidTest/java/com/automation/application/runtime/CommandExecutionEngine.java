@@ -5,6 +5,8 @@ import android.content.Context;
 import androidx.annotation.Nullable;
 import androidx.test.uiautomator.UiDevice;
 
+import com.automation.infrastructure.network.AuthService;
+import com.automation.infrastructure.network.BinaryChannel;
 import com.automation.infrastructure.system.AppManager;
 import com.automation.infrastructure.system.ClipboardHelper;
 import com.automation.infrastructure.system.ScreenshotHelper;
@@ -13,17 +15,21 @@ import com.automation.domain.command.CommandBus;
 import com.automation.domain.command.CommandContext;
 import com.automation.domain.command.CommandModule;
 import com.automation.domain.command.CommandRegistry;
+import com.automation.domain.command.ExecutionLane;
 import com.automation.domain.command.CommandResult;
 import com.automation.domain.command.CommandInterceptor;
 import com.automation.application.runtime.interceptors.CommandLoggingInterceptor;
+import com.automation.application.runtime.interceptors.CommandMetricsInterceptor;
 import com.automation.domain.command.ScenarioContextFactory;
 import com.automation.application.runtime.modules.AppCommandModule;
+import com.automation.application.runtime.modules.BatchCommandModule;
 import com.automation.application.runtime.modules.ClipboardCommandModule;
 import com.automation.application.runtime.modules.DeviceInteractionModule;
 import com.automation.application.runtime.modules.DiagnosticsCommandModule;
 import com.automation.application.runtime.modules.ScenarioCommandModule;
 import com.automation.application.runtime.modules.TextInputModule;
 import com.automation.application.runtime.modules.VisionCommandModule;
+import com.automation.application.scenario.RemoteScriptRepository;
 import com.automation.application.scenario.ScenarioCatalog;
 import com.automation.application.scenario.ScenarioParameterBinder;
 import com.automation.application.scenario.ScenarioRunCoordinator;
@@ -35,14 +41,16 @@ import com.automation.domain.scenario.ScenarioRunner;
 import com.automation.domain.scenario.device.DeviceActions;
 import com.automation.domain.scenario.script.AssetScriptRepository;
 import com.automation.domain.scenario.script.ScriptHandlerRegistry;
-import com.automation.domain.scenario.script.ScriptRepository;
 import com.automation.domain.scenario.vision.VisionToolkit;
 import com.automation.feature.scripts.dhgate.DhgateOrderV2Handlers;
+import com.automation.shared.util.MetricsRegistry;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * 新的指令执行引擎，负责模块注册与调度。
@@ -55,10 +63,11 @@ public final class CommandExecutionEngine {
     private final AppManager appManager;
     private final ClipboardHelper clipboardHelper;
     private final ScreenshotHelper screenshotHelper;
-    private final ImageRecognition imageRecognition;
+    private final Supplier<ImageRecognition> imageRecognition;
+    private final BinaryChannel frameChannel;
     private final DeviceActions deviceActions;
     private final VisionToolkit visionToolkit;
-    private final ScriptRepository scriptRepository;
+    private final RemoteScriptRepository scriptRepository;
     private final ScriptHandlerRegistry scriptHandlerRegistry;
     private final ScenarioRunner scenarioRunner;
     private final ScenarioCatalog scenarioCatalog;
@@ -67,6 +76,7 @@ public final class CommandExecutionEngine {
     private final ScenarioTaskService scenarioTaskService;
     private final CommandBus commandBus = new CommandBus();
     private final CommandRegistry commandRegistry = new CommandRegistry(commandBus);
+    private final MetricsRegistry metrics = new MetricsRegistry();
     private TemplateAssetManager assetManager;
 
     public CommandExecutionEngine(Context appContext,
@@ -75,7 +85,9 @@ public final class CommandExecutionEngine {
                                   AppManager appManager,
                                   ClipboardHelper clipboardHelper,
                                   ScreenshotHelper screenshotHelper,
-                                  ImageRecognition imageRecognition) {
+                                  Supplier<ImageRecognition> imageRecognition,
+                                  @Nullable BinaryChannel frameChannel,
+                                  @Nullable StartupTimeline timeline) {
         this.appContext = appContext.getApplicationContext();
         this.assetContext = instrumentationContext != null ? instrumentationContext : this.appContext;
         this.uiDevice = uiDevice;
@@ -83,9 +95,11 @@ public final class CommandExecutionEngine {
         this.clipboardHelper = clipboardHelper;
         this.screenshotHelper = screenshotHelper;
         this.imageRecognition = imageRecognition;
+        this.frameChannel = frameChannel;
         this.deviceActions = new DeviceActions(uiDevice);
         this.visionToolkit = new VisionToolkit(this.appContext, screenshotHelper, imageRecognition);
-        this.scriptRepository = new AssetScriptRepository(this.assetContext);
+        this.deviceActions.addGestureListener(visionToolkit::invalidateFrame);
+        this.scriptRepository = new RemoteScriptRepository(this.appContext, new AssetScriptRepository(this.assetContext));
         this.scriptHandlerRegistry = new ScriptHandlerRegistry(List.of(new DhgateOrderV2Handlers()));
         this.scenarioRunner = new ScenarioRunner(new ScriptRunGuard());
         ScenarioContextFactory contextFactory = this::newScenarioContextBuilder;
@@ -98,7 +112,7 @@ public final class CommandExecutionEngine {
                 scenarioRunCoordinator
         );
         registerInterceptors();
-        registerModules();
+        registerModules(timeline);
     }
 
     public void setAssetManager(@Nullable TemplateAssetManager manager) {
@@ -106,10 +120,31 @@ public final class CommandExecutionEngine {
         this.scenarioParameterBinder.setAssetManager(manager);
     }
 
+    public void setAuthService(@Nullable AuthService authService) {
+        this.scriptRepository.setAuthService(authService);
+    }
+
+    /**
+     * 从服务端同步脚本缓存并刷新 {@code start_task:<name>} 声明，与 sync_scripts 指令一致；可在任意线程调用。
+     */
+    public JSONObject syncScripts() throws IOException {
+        JSONObject report = scriptRepository.sync();
+        scenarioTaskService.registerScriptCapabilities(commandRegistry);
+        return report;
+    }
+
     public CommandResult execute(CommandContext context, String action, JSONObject params) throws Exception {
         return commandBus.dispatch(context, action, params);
     }
 
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    public ExecutionLane laneOf(String action) {
+        return commandBus.laneOf(action);
+    }
+
     public JSONArray getCapabilitiesJson() {
         return commandRegistry.capabilitiesAsJson();
     }
@@ -119,25 +154,39 @@ public final class CommandExecutionEngine {
                 .appContext(appContext)
                 .uiDevice(uiDevice)
                 .deviceActions(deviceActions)
-                .visionToolkit(visionToolkit);
+                .visionToolkit(visionToolkit)
+                .cancellationToken(commandContext.cancellationToken())
+                .metrics(metrics);
     }
 
-    private void registerModules() {
+    /**
+     * 模块构造只保存依赖引用，在此同步注册以便能力列表完整；OpenCV 经 {@code imageRecognition} 首次使用时加载。
+     */
+    private void registerModules(@Nullable StartupTimeline timeline) {
         List<CommandModule> modules = List.of(
                 new DeviceInteractionModule(uiDevice),
                 new AppCommandModule(appManager),
                 new ClipboardCommandModule(clipboardHelper),
-                new DiagnosticsCommandModule(appContext, uiDevice, screenshotHelper),
+                new DiagnosticsCommandModule(appContext, uiDevice, screenshotHelper,
+                        () -> imageRecognition.get().matPool(), frameChannel, metrics),
                 new VisionCommandModule(imageRecognition, visionToolkit),
                 new TextInputModule(appContext, uiDevice),
-                new ScenarioCommandModule(scenarioTaskService)
+                new BatchCommandModule(commandBus)
         );
         for (CommandModule module : modules) {
             module.register(commandRegistry);
         }
+        // 脚本任务的能力声明需要解析全部脚本，单独计时
+        CommandModule scenarioModule = new ScenarioCommandModule(scenarioTaskService, scriptRepository);
+        if (timeline != null) {
+            timeline.run("script_catalog", () -> scenarioModule.register(commandRegistry));
+        } else {
+            scenarioModule.register(commandRegistry);
+        }
     }
 
     private void registerInterceptors() {
+        commandRegistry.addInterceptor(new CommandMetricsInterceptor(metrics));
         commandRegistry.addInterceptor(new CommandLoggingInterceptor());
     }
 
@@ -0,0 +1,176 @@
+package com.automation.application.runtime;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 设备端有界指令队列：优先级高者先出队，同优先级先进先出。
+ * <p>
+ * 按 command_id 去重：已入队、已出队执行或已取消的 id 在最近 {@link #SEEN_ID_LIMIT} 条内再次到达时直接忽略，
+ * 避免服务端重发导致重复执行。条目可带截止时间（{@code SystemClock.elapsedRealtime} 毫秒），过期条目由调用方取出后回报失败。
+ */
+public final class CommandQueue<T> {
+
+    static final int SEEN_ID_LIMIT = 256;
+
+    public enum OfferResult {
+        QUEUED,
+        DUPLICATE,
+        FULL
+    }
+
+    private final int capacity;
+    /** 按出队顺序排列，容量很小，插入时线性查找位置即可。 */
+    private final List<Entry<T>> entries = new ArrayList<>();
+    private final Map<String, Boolean> seenIds = new LinkedHashMap<>(64, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_ID_LIMIT;
+        }
+    };
+
+    public CommandQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 入队。
+     *
+     * @param deadlineAt 截止时间，0 表示不过期
+     */
+    public synchronized OfferResult offer(String id, int priority, long deadlineAt, T item) {
+        Objects.requireNonNull(id, "id");
+        if (seenIds.containsKey(id)) {
+            return OfferResult.DUPLICATE;
+        }
+        if (entries.size() >= capacity) {
+            return OfferResult.FULL;
+        }
+        seenIds.put(id, Boolean.TRUE);
+        Entry<T> entry = new Entry<>(id, priority, deadlineAt, item);
+        int index = entries.size();
+        while (index > 0 && entries.get(index - 1).priority < priority) {
+            index--;
+        }
+        entries.add(index, entry);
+        return OfferResult.QUEUED;
+    }
+
+    /**
+     * 登记不经过队列直接执行的指令 id，使其重发同样被去重。
+     */
+    public synchronized boolean markSeen(String id) {
+        return seenIds.put(id, Boolean.TRUE) == null;
+    }
+
+    /**
+     * 取出队首条目，队列为空返回 null。
+     */
+    @Nullable
+    public synchronized Entry<T> poll() {
+        return entries.isEmpty() ? null : entries.remove(0);
+    }
+
+    /**
+     * 移除并返回所有已过期的条目。
+     */
+    public synchronized List<Entry<T>> removeExpired(long now) {
+        List<Entry<T>> expired = null;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).isExpired(now)) {
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(0, entries.remove(i));
+            }
+        }
+        return expired != null ? expired : Collections.emptyList();
+    }
+
+    /**
+     * 排队条目中最早的截止时间，没有带截止时间的条目时返回 0。
+     */
+    public synchronized long earliestDeadline() {
+        long earliest = 0L;
+        for (Entry<T> entry : entries) {
+            if (entry.deadlineAt > 0 && (earliest == 0L || entry.deadlineAt < earliest)) {
+                earliest = entry.deadlineAt;
+            }
+        }
+        return earliest;
+    }
+
+    @Nullable
+    public synchronized Entry<T> remove(String id) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).id.equals(id)) {
+                return entries.remove(i);
+            }
+        }
+        return null;
+    }
+
+    public synchronized List<Entry<T>> drain() {
+        List<Entry<T>> drained = new ArrayList<>(entries);
+        entries.clear();
+        return drained;
+    }
+
+    /**
+     * 当前排队条目的快照，顺序即出队顺序。
+     */
+    public synchronized List<Entry<T>> snapshot() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public static final class Entry<T> {
+        private final String id;
+        private final int priority;
+        private final long deadlineAt;
+        private final T item;
+
+        private Entry(String id, int priority, long deadlineAt, T item) {
+            this.id = id;
+            this.priority = priority;
+            this.deadlineAt = deadlineAt;
+            this.item = item;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public int priority() {
+            return priority;
+        }
+
+        public long deadlineAt() {
+            return deadlineAt;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public boolean isExpired(long now) {
+            return deadlineAt > 0 && now >= deadlineAt;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.automation.application.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * 验证指令队列的优先级顺序、去重、容量与过期处理。
+ */
+@RunWith(AndroidJUnit4.class)
+public class CommandQueueTest {
+
+    @Test
+    public void pollsByPriorityThenArrivalOrder() {
+        CommandQueue<String> queue = new CommandQueue<>(8);
+        queue.offer("a", 0, 0, "a");
+        queue.offer("b", 5, 0, "b");
+        queue.offer("c", 0, 0, "c");
+        queue.offer("d", 5, 0, "d");
+
+        assertEquals("b", queue.poll().item());
+        assertEquals("d", queue.poll().item());
+        assertEquals("a", queue.poll().item());
+        assertEquals("c", queue.poll().item());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void rejectsDuplicatesAndOverflow() {
+        CommandQueue<String> queue = new CommandQueue<>(2);
+        assertEquals(CommandQueue.OfferResult.QUEUED, queue.offer("a", 0, 0, "a"));
+        assertEquals(CommandQueue.OfferResult.DUPLICATE, queue.offer("a", 0, 0, "a"));
+        assertEquals(CommandQueue.OfferResult.QUEUED, queue.offer("b", 0, 0, "b"));
+        assertEquals(CommandQueue.OfferResult.FULL, queue.offer("c", 0, 0, "c"));
+
+        // 已出队或已取消的 id 重发时同样视为重复
+        queue.poll();
+        queue.remove("b");
+        assertEquals(CommandQueue.OfferResult.DUPLICATE, queue.offer("a", 0, 0, "a"));
+        assertEquals(CommandQueue.OfferResult.DUPLICATE, queue.offer("b", 0, 0, "b"));
+        assertEquals(CommandQueue.OfferResult.QUEUED, queue.offer("c", 0, 0, "c"));
+    }
+
+    @Test
+    public void removesExpiredEntriesOnly() {
+        CommandQueue<String> queue = new CommandQueue<>(8);
+        queue.offer("forever", 0, 0, "forever");
+        queue.offer("short", 0, 1_000, "short");
+        queue.offer("long", 0, 5_000, "long");
+
+        List<CommandQueue.Entry<String>> expired = queue.removeExpired(2_000);
+
+        assertEquals(1, expired.size());
+        assertEquals("short", expired.get(0).id());
+        assertEquals(2, queue.size());
+        assertEquals("forever", queue.poll().id());
+        assertEquals("long", queue.poll().id());
+    }
+
+    @Test
+    public void reportsEarliestDeadline() {
+        CommandQueue<String> queue = new CommandQueue<>(8);
+        assertEquals(0L, queue.earliestDeadline());
+        queue.offer("forever", 0, 0, "forever");
+        queue.offer("long", 5, 5_000, "long");
+        queue.offer("short", 0, 1_000, "short");
+
+        assertEquals(1_000L, queue.earliestDeadline());
+        queue.remove("short");
+        assertEquals(5_000L, queue.earliestDeadline());
+    }
+}
@@ -0,0 +1,131 @@
+package com.automation.application.runtime;
+
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 记录控制器启动各阶段的起止时间，随 session_init 上报，用于统计设备从启动到可接收指令的耗时。
+ * <p>
+ * 时间均为相对控制器创建时刻的毫秒数；阶段可并行，{@code ready_ms} 为指令引擎可用的时刻。
+ */
+public final class StartupTimeline {
+
+    private final long origin = SystemClock.elapsedRealtime();
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private long readyAt = -1;
+
+    /**
+     * 在当前线程执行并记录一个阶段，异常会记入阶段后原样抛出。
+     */
+    public <T> T measure(String name, Callable<T> body) throws Exception {
+        begin(name);
+        try {
+            T value = body.call();
+            end(name, null);
+            return value;
+        } catch (Exception e) {
+            end(name, e);
+            throw e;
+        }
+    }
+
+    public void run(String name, Runnable body) {
+        begin(name);
+        try {
+            body.run();
+            end(name, null);
+        } catch (RuntimeException e) {
+            end(name, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 开始一个跨线程或异步结束的阶段；同名阶段已存在时忽略，重连不会覆盖首次记录。
+     */
+    public synchronized void begin(String name) {
+        if (!stages.containsKey(name)) {
+            stages.put(name, new Stage(name, now(), Thread.currentThread().getName()));
+        }
+    }
+
+    public synchronized void end(String name, Throwable error) {
+        Stage stage = stages.get(name);
+        if (stage != null && stage.durationMs < 0) {
+            stage.durationMs = now() - stage.startMs;
+            stage.error = error != null ? error.getClass().getSimpleName() + ": " + error.getMessage() : null;
+        }
+    }
+
+    public synchronized void markReady() {
+        if (readyAt < 0) {
+            readyAt = now();
+        }
+    }
+
+    public synchronized JSONObject toJson() {
+        JSONObject root = new JSONObject();
+        try {
+            root.put("started_at", startedAt);
+            if (readyAt >= 0) {
+                root.put("ready_ms", readyAt);
+            }
+            JSONArray array = new JSONArray();
+            List<String> pending = new ArrayList<>();
+            for (Stage stage : stages.values()) {
+                JSONObject json = new JSONObject();
+                json.put("name", stage.name);
+                json.put("start_ms", stage.startMs);
+                json.put("thread", stage.thread);
+                if (stage.durationMs >= 0) {
+                    json.put("duration_ms", stage.durationMs);
+                } else {
+                    pending.add(stage.name);
+                }
+                if (stage.error != null) {
+                    json.put("error", stage.error);
+                }
+                array.put(json);
+            }
+            root.put("stages", array);
+            if (!pending.isEmpty()) {
+                root.put("pending", new JSONArray(pending));
+            }
+        } catch (JSONException ignored) {
+        }
+        return root;
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+
+    private long now() {
+        return SystemClock.elapsedRealtime() - origin;
+    }
+
+    private static final class Stage {
+        final String name;
+        final long startMs;
+        final String thread;
+        long durationMs = -1;
+        String error;
+
+        Stage(String name, long startMs, String thread) {
+            this.name = name;
+            this.startMs = startMs;
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.automation.application.runtime.interceptors;
+
+import android.os.SystemClock;
+
+import com.automation.domain.command.CommandInterceptor;
+import com.automation.domain.command.CommandInvocation;
+import com.automation.domain.command.CommandResult;
+import com.automation.shared.util.MetricsRegistry;
+
+import java.util.Objects;
+
+/**
+ * 按指令记录耗时直方图与成功/失败次数，指标名为 {@code cmd.<action>}。
+ */
+public final class CommandMetricsInterceptor implements CommandInterceptor {
+
+    static final String PREFIX = "cmd.";
+
+    private final MetricsRegistry metrics;
+
+    public CommandMetricsInterceptor(MetricsRegistry metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    @Override
+    public CommandResult intercept(CommandInvocation invocation) throws Exception {
+        long start = SystemClock.elapsedRealtime();
+        boolean success = false;
+        try {
+            CommandResult result = invocation.proceed();
+            success = result == null || result.isSuccess();
+            return result;
+        } finally {
+            metrics.record(PREFIX + invocation.descriptor().action(), SystemClock.elapsedRealtime() - start, success);
+        }
+    }
+}
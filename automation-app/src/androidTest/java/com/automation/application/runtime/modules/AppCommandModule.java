@@ -6,6 +6,7 @@ import com.automation.domain.command.CommandModule;
 import com.automation.domain.command.CommandParameter;
 import com.automation.domain.command.CommandRegistry;
 import com.automation.domain.command.CommandResult;
+import com.automation.domain.command.ExecutionLane;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -35,7 +36,8 @@ public final class AppCommandModule implements CommandModule {
         registry.register("launch_app", "启动应用", PACKAGE_PARAM, this::launchApp);
         registry.register("stop_app", "停止应用", PACKAGE_PARAM, this::stopApp);
         registry.register("clear_app", "清除应用数据", PACKAGE_PARAM, this::clearAppData);
-        registry.register("list_apps", "获取已安装应用列表", LIST_APPS_PARAMS, this::listInstalledApps);
+        registry.register("list_apps", "获取已安装应用列表", LIST_APPS_PARAMS, ExecutionLane.BACKGROUND,
+                this::listInstalledApps);
     }
 
     private CommandResult launchApp(CommandContext ctx, JSONObject params) throws JSONException {
@@ -0,0 +1,219 @@
+package com.automation.application.runtime.modules;
+
+import android.os.SystemClock;
+
+import com.automation.domain.command.CommandBus;
+import com.automation.domain.command.CommandContext;
+import com.automation.domain.command.CommandModule;
+import com.automation.domain.command.CommandParameter;
+import com.automation.domain.command.CommandRegistry;
+import com.automation.domain.command.CommandResult;
+import com.automation.shared.util.CancellationToken;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 批量指令：一次往返按顺序执行多条子指令，汇总每步结果。
+ * <p>
+ * 子指令重新经过 {@link CommandBus#dispatch} 路由，参数校验与拦截器照常生效；
+ * 执行前先校验整批结构，任何一步不合法则整批不执行。
+ */
+public final class BatchCommandModule implements CommandModule {
+
+    static final String ACTION = "batch";
+    static final int MAX_STEPS = 100;
+
+    private static final List<CommandParameter> BATCH_PARAMS = List.of(
+            CommandParameter.required("steps", "array",
+                    "子指令列表，每项 {action, params?, wait_ms?}，wait_ms 覆盖该步之后的等待"),
+            CommandParameter.optional("wait_ms", "int", "相邻两步之间的默认等待（毫秒）", 0),
+            CommandParameter.optional("stop_on_failure", "bool", "某步失败后是否跳过剩余步骤", true)
+    );
+
+    private final CommandBus commandBus;
+
+    public BatchCommandModule(CommandBus commandBus) {
+        this.commandBus = Objects.requireNonNull(commandBus, "commandBus");
+    }
+
+    @Override
+    public void register(CommandRegistry registry) {
+        registry.register(ACTION, "按顺序批量执行多条指令并汇总结果", BATCH_PARAMS, this::runBatch);
+    }
+
+    private CommandResult runBatch(CommandContext context, JSONObject params) throws Exception {
+        List<Step> steps = parseSteps(params.getJSONArray("steps"), Math.max(0L, params.optLong("wait_ms", 0L)));
+        boolean stopOnFailure = params.optBoolean("stop_on_failure", true);
+        CancellationToken cancellation = context.cancellationToken();
+
+        JSONArray results = new JSONArray();
+        int succeeded = 0;
+        String firstError = null;
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            cancellation.throwIfCancelled();
+            context.reportProgress(ACTION, "执行第 " + (i + 1) + "/" + steps.size() + " 步: " + step.action,
+                    i * 100 / steps.size(), null);
+            JSONObject stepResult = runStep(context, i, step);
+            results.put(stepResult);
+            if (stepResult.getBoolean("success")) {
+                succeeded++;
+            } else {
+                if (firstError == null) {
+                    firstError = "第 " + (i + 1) + " 步 " + step.action + " 失败: " + stepResult.optString("error");
+                }
+                if (stopOnFailure) {
+                    break;
+                }
+            }
+            if (i < steps.size() - 1 && step.waitAfterMs > 0) {
+                cancellation.sleep(step.waitAfterMs);
+            }
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("total", steps.size());
+        response.put("executed", results.length());
+        response.put("succeeded", succeeded);
+        response.put("failed", results.length() - succeeded);
+        response.put("steps", results);
+        return firstError == null ? CommandResult.success(response) : CommandResult.failure(response, firstError);
+    }
+
+    private JSONObject runStep(CommandContext parent, int index, Step step) throws Exception {
+        JSONObject stepResult = new JSONObject();
+        stepResult.put("index", index);
+        stepResult.put("action", step.action);
+        long start = SystemClock.elapsedRealtime();
+        try {
+            CommandResult result = commandBus.dispatch(new StepContext(parent, step), step.action, step.params);
+            stepResult.put("success", result.isSuccess());
+            if (result.payload() != null) {
+                stepResult.put("result", JSONObject.wrap(result.payload()));
+            }
+            if (!result.isSuccess()) {
+                stepResult.put("error", result.message() != null ? result.message() : "指令执行失败");
+            }
+        } catch (CancellationException | InterruptedException e) {
+            // 取消与中断终止整批，其余异常只记为该步失败
+            throw e;
+        } catch (Exception e) {
+            stepResult.put("success", false);
+            stepResult.put("error", describe(e));
+        }
+        stepResult.put("elapsed_ms", SystemClock.elapsedRealtime() - start);
+        return stepResult;
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private List<Step> parseSteps(JSONArray rawSteps, long defaultWaitMs) throws JSONException {
+        if (rawSteps.length() == 0) {
+            throw new IllegalArgumentException("steps 不能为空");
+        }
+        if (rawSteps.length() > MAX_STEPS) {
+            throw new IllegalArgumentException("steps 最多 " + MAX_STEPS + " 项");
+        }
+        List<Step> steps = new ArrayList<>(rawSteps.length());
+        for (int i = 0; i < rawSteps.length(); i++) {
+            JSONObject raw = rawSteps.optJSONObject(i);
+            if (raw == null) {
+                throw new IllegalArgumentException("steps[" + i + "] 需为对象");
+            }
+            String action = raw.optString("action", "").trim();
+            if (action.isEmpty()) {
+                throw new IllegalArgumentException("steps[" + i + "].action 不能为空");
+            }
+            if (ACTION.equals(action)) {
+                throw new IllegalArgumentException("steps[" + i + "] 不支持嵌套 batch");
+            }
+            if (!commandBus.contains(action)) {
+                throw new IllegalArgumentException("steps[" + i + "] 未知指令: " + action);
+            }
+            Object rawParams = raw.opt("params");
+            if (rawParams != null && !(rawParams instanceof JSONObject)) {
+                throw new IllegalArgumentException("steps[" + i + "].params 需为对象");
+            }
+            long waitMs = raw.has("wait_ms") ? raw.getLong("wait_ms") : defaultWaitMs;
+            if (waitMs < 0) {
+                throw new IllegalArgumentException("steps[" + i + "].wait_ms 不能为负数");
+            }
+            steps.add(new Step(action, (JSONObject) rawParams, waitMs));
+        }
+        return steps;
+    }
+
+    private static final class Step {
+        final String action;
+        final JSONObject params;
+        final long waitAfterMs;
+
+        Step(String action, JSONObject params, long waitAfterMs) {
+            this.action = action;
+            this.params = params;
+            this.waitAfterMs = waitAfterMs;
+        }
+    }
+
+    /**
+     * 子指令上下文：沿用父指令的 id、用户与取消令牌，进度仍归属整批指令。
+     */
+    private static final class StepContext implements CommandContext {
+        private final CommandContext parent;
+        private final Step step;
+
+        StepContext(CommandContext parent, Step step) {
+            this.parent = parent;
+            this.step = step;
+        }
+
+        @Override
+        public String commandId() {
+            return parent.commandId();
+        }
+
+        @Override
+        public String action() {
+            return step.action;
+        }
+
+        @Override
+        public JSONObject params() {
+            return step.params;
+        }
+
+        @Override
+        public String userId() {
+            return parent.userId();
+        }
+
+        @Override
+        public String deviceId() {
+            return parent.deviceId();
+        }
+
+        @Override
+        public void reportProgress(String stage, String message, Integer percent, JSONObject extra) {
+            parent.reportProgress(stage, message, percent, extra);
+        }
+
+        @Override
+        public void reportLog(String level, String message, JSONObject extra) {
+            parent.reportLog(level, message, extra);
+        }
+
+        @Override
+        public CancellationToken cancellationToken() {
+            return parent.cancellationToken();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.automation.application.runtime.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.automation.domain.command.CommandBus;
+import com.automation.domain.command.CommandContext;
+import com.automation.domain.command.CommandParameter;
+import com.automation.domain.command.CommandRegistry;
+import com.automation.domain.command.CommandResult;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 验证批量指令按顺序执行、失败策略，以及子指令仍经过参数校验与拦截器。
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatchCommandModuleTest {
+
+    private final List<String> intercepted = new ArrayList<>();
+    private CommandBus bus;
+
+    @Before
+    public void setUp() {
+        bus = new CommandBus();
+        CommandRegistry registry = new CommandRegistry(bus);
+        registry.register("echo", "回显", List.of(CommandParameter.required("text", "string", "文本")),
+                (ctx, params) -> CommandResult.success(new JSONObject().put("text", params.getString("text"))));
+        registry.register("fail", "总是失败", List.of(), (ctx, params) -> CommandResult.failure("boom"));
+        registry.addInterceptor(invocation -> {
+            intercepted.add(invocation.descriptor().action());
+            return invocation.proceed();
+        });
+        new BatchCommandModule(bus).register(registry);
+    }
+
+    @Test
+    public void stopsOnFirstFailureByDefault() throws Exception {
+        JSONObject params = new JSONObject().put("steps", new JSONArray()
+                .put(step("echo", new JSONObject().put("text", "a")))
+                .put(step("fail", null))
+                .put(step("echo", new JSONObject().put("text", "b"))));
+
+        CommandResult result = bus.dispatch(context(), "batch", params);
+
+        assertFalse(result.isSuccess());
+        JSONObject payload = (JSONObject) result.payload();
+        assertEquals(2, payload.getInt("executed"));
+        assertEquals(1, payload.getInt("succeeded"));
+        assertEquals("a", payload.getJSONArray("steps").getJSONObject(0).getJSONObject("result").getString("text"));
+        assertEquals("boom", payload.getJSONArray("steps").getJSONObject(1).getString("error"));
+        assertEquals(List.of("batch", "echo", "fail"), intercepted);
+    }
+
+    @Test
+    public void continuesAndReportsValidationErrorsPerStep() throws Exception {
+        JSONObject params = new JSONObject()
+                .put("stop_on_failure", false)
+                .put("steps", new JSONArray()
+                        .put(step("echo", null))
+                        .put(step("echo", new JSONObject().put("text", "b"))));
+
+        CommandResult result = bus.dispatch(context(), "batch", params);
+
+        JSONObject payload = (JSONObject) result.payload();
+        assertFalse(result.isSuccess());
+        assertEquals(2, payload.getInt("executed"));
+        JSONObject first = payload.getJSONArray("steps").getJSONObject(0);
+        assertFalse(first.getBoolean("success"));
+        assertTrue(first.has("error"));
+        assertTrue(payload.getJSONArray("steps").getJSONObject(1).getBoolean("success"));
+    }
+
+    @Test
+    public void rejectsMalformedBatchBeforeRunningAnyStep() throws Exception {
+        JSONObject params = new JSONObject().put("steps", new JSONArray()
+                .put(step("echo", new JSONObject().put("text", "a")))
+                .put(step("missing", null)));
+        try {
+            bus.dispatch(context(), "batch", params);
+            fail("unknown action should reject the batch");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertEquals(List.of("batch"), intercepted);
+    }
+
+    private static JSONObject step(String action, JSONObject params) throws Exception {
+        JSONObject step = new JSONObject().put("action", action);
+        if (params != null) {
+            step.put("params", params);
+        }
+        return step;
+    }
+
+    private static CommandContext context() {
+        return new CommandContext() {
+            @Override
+            public String commandId() {
+                return "cmd";
+            }
+
+            @Override
+            public String action() {
+                return "batch";
+            }
+
+            @Override
+            public JSONObject params() {
+                return new JSONObject();
+            }
+
+            @Override
+            public String userId() {
+                return null;
+            }
+
+            @Override
+            public String deviceId() {
+                return null;
+            }
+
+            @Override
+            public void reportProgress(String stage, String message, Integer percent, JSONObject extra) {
+            }
+
+            @Override
+            public void reportLog(String level, String message, JSONObject extra) {
+            }
+        };
+    }
+}
@@ -3,55 +3,111 @@ package com.automation.application.runtime.modules;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.graphics.Bitmap;
 import android.os.BatteryManager;
+import android.os.Debug;
 
 import androidx.test.uiautomator.UiDevice;
 
+import com.automation.infrastructure.network.BinaryChannel;
+import com.automation.infrastructure.system.ScreenStreamer;
 import com.automation.infrastructure.system.ScreenshotHelper;
+import com.automation.infrastructure.system.TileDeltaEncoder;
+import com.automation.infrastructure.vision.MatPool;
 import com.automation.domain.command.CommandContext;
 import com.automation.domain.command.CommandModule;
 import com.automation.domain.command.CommandParameter;
 import com.automation.domain.command.CommandRegistry;
 import com.automation.domain.command.CommandResult;
+import com.automation.domain.command.ExecutionLane;
 import com.automation.shared.util.CompressionUtils;
 import com.automation.shared.util.EncodingUtils;
+import com.automation.shared.util.MetricsRegistry;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
- * 诊断类指令：截图、导出层级、查询电量等。
+ * 诊断类指令：截图、实时投屏、导出层级、查询电量、耗时指标等。
  */
 public final class DiagnosticsCommandModule implements CommandModule {
 
-    private static final List<CommandParameter> SCREENSHOT_PARAMS =
-            List.of(CommandParameter.optional("quality", "int", "JPEG质量(0-100)", 80));
+    private static final List<CommandParameter> SCREENSHOT_PARAMS = List.of(
+            CommandParameter.optional("quality", "int", "JPEG质量(0-100)", 80),
+            CommandParameter.optional("delta", "bool", "增量模式：仅返回相对 base_frame_id 变化的分块", false),
+            CommandParameter.optional("base_frame_id", "string", "客户端持有的基准帧 ID，缺失或过期时返回整帧"),
+            CommandParameter.optional("tile_size", "int", "增量分块边长（像素）", TileDeltaEncoder.DEFAULT_TILE_SIZE)
+    );
 
     private static final List<CommandParameter> HIERARCHY_PARAMS =
             List.of(CommandParameter.optional("compress", "bool", "是否压缩", true));
 
+    private static final List<CommandParameter> NATIVE_STATS_PARAMS =
+            List.of(CommandParameter.optional("trim", "bool", "是否先释放缓冲池中的空闲 Mat", false));
+
+    private static final List<CommandParameter> METRICS_PARAMS = List.of(
+            CommandParameter.optional("prefix", "string", "只返回以此开头的指标，如 cmd. / stage. / queue."),
+            CommandParameter.optional("buckets", "bool", "是否附带直方图非空桶", false),
+            CommandParameter.optional("compact", "bool", "返回与周期推送相同的紧凑格式", false),
+            CommandParameter.optional("reset", "bool", "读取后清零", false)
+    );
+
+    private static final List<CommandParameter> STREAM_PARAMS = List.of(
+            CommandParameter.optional("fps", "int", "最大帧率", 5),
+            CommandParameter.optional("max_width", "int", "最大帧宽（像素），拥塞时自动下调", 720),
+            CommandParameter.optional("quality", "int", "JPEG质量上限(30-95)", 60),
+            CommandParameter.optional("change_threshold", "float", "画面平均灰度差低于该值时跳过发送", 1.0),
+            CommandParameter.optional("max_queue_kb", "int", "发送积压超过该值时丢帧", 256)
+    );
+
     private final Context context;
     private final UiDevice uiDevice;
     private final ScreenshotHelper screenshotHelper;
+    private final Supplier<MatPool> matPool;
+    private final ScreenStreamer screenStreamer;
+    private final TileDeltaEncoder deltaEncoder = new TileDeltaEncoder();
+    private final MetricsRegistry metrics;
 
-    public DiagnosticsCommandModule(Context context, UiDevice uiDevice, ScreenshotHelper screenshotHelper) {
+    public DiagnosticsCommandModule(Context context,
+                                    UiDevice uiDevice,
+                                    ScreenshotHelper screenshotHelper,
+                                    Supplier<MatPool> matPool,
+                                    BinaryChannel frameChannel,
+                                    MetricsRegistry metrics) {
         this.context = context.getApplicationContext();
         this.uiDevice = uiDevice;
         this.screenshotHelper = screenshotHelper;
+        this.matPool = matPool;
+        this.screenStreamer = new ScreenStreamer(screenshotHelper, frameChannel);
+        this.metrics = metrics != null ? metrics : MetricsRegistry.DISABLED;
     }
 
     @Override
     public void register(CommandRegistry registry) {
-        registry.register("screenshot", "截取屏幕", SCREENSHOT_PARAMS, this::screenshot);
-        registry.register("dump_hierarchy", "导出当前界面层级", HIERARCHY_PARAMS, this::dumpHierarchy);
-        registry.register("get_battery", "查询电量状态", List.of(), this::getBatteryInfo);
+        registry.register("screenshot", "截取屏幕", SCREENSHOT_PARAMS, ExecutionLane.READ_ONLY, this::screenshot);
+        registry.register("start_screen_stream", "开始通过二进制帧推送实时画面", STREAM_PARAMS,
+                ExecutionLane.BACKGROUND, this::startScreenStream);
+        registry.register("stop_screen_stream", "停止实时画面推送", List.of(), ExecutionLane.BACKGROUND,
+                this::stopScreenStream);
+        registry.register("dump_hierarchy", "导出当前界面层级", HIERARCHY_PARAMS, ExecutionLane.READ_ONLY,
+                this::dumpHierarchy);
+        registry.register("get_battery", "查询电量状态", List.of(), ExecutionLane.BACKGROUND, this::getBatteryInfo);
+        registry.register("native_stats", "查询原生内存与 Mat 分配统计", NATIVE_STATS_PARAMS,
+                ExecutionLane.BACKGROUND, this::nativeStats);
+        registry.register("get_metrics", "查询指令、排队与场景阶段的耗时分位数", METRICS_PARAMS,
+                ExecutionLane.BACKGROUND, this::getMetrics);
     }
 
     private CommandResult screenshot(CommandContext context, JSONObject params) throws Exception {
         int quality = params.optInt("quality", 80);
+        if (params.optBoolean("delta", false)) {
+            return deltaScreenshot(params, quality);
+        }
         byte[] jpegData = screenshotHelper.captureToJpegBytes(quality);
         if (jpegData == null) {
             throw new IllegalStateException("截图失败");
@@ -69,6 +125,85 @@ public final class DiagnosticsCommandModule implements CommandModule {
         return CommandResult.success(result);
     }
 
+    private CommandResult deltaScreenshot(JSONObject params, int quality) throws Exception {
+        String baseFrameId = params.optString("base_frame_id", "").trim();
+        int tileSize = params.optInt("tile_size", TileDeltaEncoder.DEFAULT_TILE_SIZE);
+        Bitmap bitmap = screenshotHelper.captureBitmap();
+        if (bitmap == null) {
+            throw new IllegalStateException("截图失败");
+        }
+        TileDeltaEncoder.Frame frame;
+        try {
+            frame = deltaEncoder.encode(bitmap, baseFrameId.isEmpty() ? null : baseFrameId, tileSize, quality);
+        } finally {
+            bitmap.recycle();
+        }
+        JSONObject result = new JSONObject();
+        result.put("frame_id", frame.frameId());
+        result.put("delta", frame.isDelta());
+        result.put("width", frame.width());
+        result.put("height", frame.height());
+        result.put("tile_size", frame.tileSize());
+        result.put("changed_tiles", frame.changedTiles());
+        result.put("total_tiles", frame.totalTiles());
+        result.put("quality", quality);
+        result.put("format", "jpeg");
+        if (frame.isDelta()) {
+            // JPEG 分块再 gzip 几乎没有收益，直接 base64
+            result.put("base_frame_id", frame.baseFrameId());
+            result.put("gzipped", false);
+            JSONArray tiles = new JSONArray();
+            int encodedSize = 0;
+            for (TileDeltaEncoder.Tile tile : frame.tiles()) {
+                JSONObject item = new JSONObject();
+                item.put("x", tile.x());
+                item.put("y", tile.y());
+                item.put("width", tile.width());
+                item.put("height", tile.height());
+                item.put("image", EncodingUtils.encodeBase64(tile.jpeg()));
+                encodedSize += tile.jpeg().length;
+                tiles.put(item);
+            }
+            result.put("tiles", tiles);
+            result.put("original_size", encodedSize);
+        } else {
+            byte[] gzipData = CompressionUtils.gzip(frame.fullJpeg());
+            result.put("image", EncodingUtils.encodeBase64(gzipData));
+            result.put("original_size", frame.fullJpeg().length);
+            result.put("compressed_size", gzipData.length);
+            result.put("gzipped", true);
+        }
+        return CommandResult.success(result);
+    }
+
+    private CommandResult startScreenStream(CommandContext context, JSONObject params) throws JSONException {
+        ScreenStreamer.Config config = new ScreenStreamer.Config(
+                params.optInt("fps", 5),
+                params.optInt("max_width", 720),
+                params.optInt("quality", 60),
+                params.optDouble("change_threshold", 1.0),
+                params.optLong("max_queue_kb", 256) * 1024L
+        );
+        String streamId;
+        try {
+            streamId = screenStreamer.start(config);
+        } catch (IllegalStateException e) {
+            return CommandResult.failure("投屏通道不可用: " + e.getMessage());
+        }
+        JSONObject result = new JSONObject();
+        result.put("stream_id", streamId);
+        result.put("format", "jpeg");
+        return CommandResult.success(result);
+    }
+
+    private CommandResult stopScreenStream(CommandContext context, JSONObject params) throws JSONException {
+        ScreenStreamer.Stats stats = screenStreamer.stop();
+        if (stats == null) {
+            return CommandResult.failure("当前没有进行中的投屏");
+        }
+        return CommandResult.success(stats.toJson());
+    }
+
     private CommandResult dumpHierarchy(CommandContext context, JSONObject params) throws Exception {
         context.reportProgress("dump_hierarchy", "开始获取UI层级", null, null);
         boolean compress = params.optBoolean("compress", true);
@@ -89,6 +224,39 @@ public final class DiagnosticsCommandModule implements CommandModule {
         return CommandResult.success(result);
     }
 
+    private CommandResult nativeStats(CommandContext commandContext, JSONObject params) throws JSONException {
+        MatPool pool = matPool.get();
+        if (params.optBoolean("trim", false)) {
+            pool.trim();
+        }
+        MatPool.Stats stats = pool.stats();
+        JSONObject mats = new JSONObject();
+        mats.put("allocated", stats.allocated());
+        mats.put("reused", stats.reused());
+        mats.put("released", stats.released());
+        mats.put("stale", stats.stale());
+        mats.put("live", stats.live());
+        mats.put("idle_count", stats.idleCount());
+        mats.put("idle_bytes", stats.idleBytes());
+        JSONObject result = new JSONObject();
+        result.put("mat_pool", mats);
+        result.put("native_heap_allocated", Debug.getNativeHeapAllocatedSize());
+        result.put("native_heap_size", Debug.getNativeHeapSize());
+        result.put("java_heap_used", Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        return CommandResult.success(result);
+    }
+
+    private CommandResult getMetrics(CommandContext commandContext, JSONObject params) throws JSONException {
+        String prefix = params.optString("prefix", "").trim();
+        JSONObject result = params.optBoolean("compact", false)
+                ? metrics.toCompactJson()
+                : metrics.toJson(prefix.isEmpty() ? null : prefix, params.optBoolean("buckets", false));
+        if (params.optBoolean("reset", false)) {
+            metrics.reset();
+        }
+        return CommandResult.success(result);
+    }
+
     private CommandResult getBatteryInfo(CommandContext commandContext, JSONObject params) throws JSONException {
         IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
         Intent batteryStatus = context.registerReceiver(null, filter);
@@ -1,19 +1,29 @@
 package com.automation.application.runtime.modules;
 
+import androidx.annotation.Nullable;
+
 import com.automation.domain.command.CommandDescriptor;
 import com.automation.domain.command.CommandModule;
 import com.automation.domain.command.CommandRegistry;
+import com.automation.domain.command.CommandResult;
+import com.automation.application.scenario.RemoteScriptRepository;
 import com.automation.application.scenario.ScenarioTaskService;
 
+import org.json.JSONObject;
+
+import java.util.List;
+
 /**
  * 场景任务指令模块，委托 {@link ScenarioTaskService} 完成实际执行与声明。
  */
 public final class ScenarioCommandModule implements CommandModule {
 
     private final ScenarioTaskService taskService;
+    private final RemoteScriptRepository remoteScripts;
 
-    public ScenarioCommandModule(ScenarioTaskService taskService) {
+    public ScenarioCommandModule(ScenarioTaskService taskService, @Nullable RemoteScriptRepository remoteScripts) {
         this.taskService = taskService;
+        this.remoteScripts = remoteScripts;
     }
 
     @Override
@@ -25,5 +35,13 @@ public final class ScenarioCommandModule implements CommandModule {
                 .build();
         registry.register(descriptor, taskService::startTask);
         taskService.registerScriptCapabilities(registry);
+        if (remoteScripts != null) {
+            // 同步后在指令线程内刷新 start_task:<name> 声明，新脚本随下次 session_init 上报
+            registry.register("sync_scripts", "从服务端同步脚本", List.of(), (ctx, params) -> {
+                JSONObject report = remoteScripts.sync();
+                taskService.registerScriptCapabilities(registry);
+                return CommandResult.success(report);
+            });
+        }
     }
 }
@@ -1,19 +1,30 @@
 package com.automation.application.runtime.modules;
 
+import android.graphics.Rect;
+
 import com.automation.infrastructure.vision.ImageRecognition;
+import com.automation.infrastructure.vision.MatchMode;
+import com.automation.infrastructure.vision.PerceptualHash;
+import com.automation.infrastructure.vision.TemplateMatch;
 import com.automation.domain.command.CommandContext;
 import com.automation.domain.command.CommandModule;
 import com.automation.domain.command.CommandParameter;
 import com.automation.domain.command.CommandRegistry;
 import com.automation.domain.command.CommandResult;
+import com.automation.domain.command.ExecutionLane;
 import com.automation.domain.scenario.vision.VisionToolkit;
+import com.automation.shared.util.EncodingUtils;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.opencv.core.Mat;
 import org.opencv.imgcodecs.Imgcodecs;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
 
 /**
  * 图像相关指令：模板匹配、图片比对。
@@ -25,7 +36,24 @@ public final class VisionCommandModule implements CommandModule {
             CommandParameter.optional("screenshot", "string", "截图文件路径", ""),
             CommandParameter.optional("screenshot_base64", "string", "截图Base64 数据", ""),
             CommandParameter.optional("template", "string", "模板文件路径", ""),
-            CommandParameter.optional("template_base64", "string", "模板Base64 数据", "")
+            CommandParameter.optional("template_base64", "string", "模板Base64 数据", ""),
+            CommandParameter.optional("max_results", "int", "最多返回的命中数(大于1时返回全部命中)", 1),
+            CommandParameter.optional("max_overlap", "float", "多目标去重的IoU阈值(0-1)",
+                    ImageRecognition.DEFAULT_NMS_OVERLAP),
+            CommandParameter.optional("mode", "string", "匹配方式: template/feature/auto", "template")
+    );
+
+    private static final List<CommandParameter> IMAGE_HASH_PARAMS = Arrays.asList(
+            CommandParameter.optional("region", "array", "屏幕比例区域 [left, top, right, bottom]，缺省为整屏"),
+            CommandParameter.optional("algorithm", "string", "哈希算法: dhash/phash", "dhash")
+    );
+
+    private static final List<CommandParameter> SETTLE_PARAMS = Arrays.asList(
+            CommandParameter.optional("region", "array", "屏幕像素区域 [left, top, right, bottom]，缺省为整屏"),
+            CommandParameter.optional("threshold", "float", "相邻帧平均灰度差阈值(0-255)",
+                    VisionToolkit.DEFAULT_SETTLE_THRESHOLD),
+            CommandParameter.optional("stable_frames", "int", "连续稳定帧数", VisionToolkit.DEFAULT_SETTLE_FRAMES),
+            CommandParameter.optional("timeout", "int", "超时时间(毫秒)", 5000)
     );
 
     private static final List<CommandParameter> COMPARE_PARAMS = Arrays.asList(
@@ -33,23 +61,40 @@ public final class VisionCommandModule implements CommandModule {
             CommandParameter.required("image2", "string", "要比较的第二张图片路径", "")
     );
 
-    private final ImageRecognition imageRecognition;
+    private final Supplier<ImageRecognition> recognitionSupplier;
     private final VisionToolkit visionToolkit;
 
-    public VisionCommandModule(ImageRecognition imageRecognition, VisionToolkit visionToolkit) {
-        this.imageRecognition = imageRecognition;
+    /**
+     * @param recognitionSupplier 首条视觉指令执行时才取用，原生库未加载完成时在此等待
+     */
+    public VisionCommandModule(Supplier<ImageRecognition> recognitionSupplier, VisionToolkit visionToolkit) {
+        this.recognitionSupplier = recognitionSupplier;
         this.visionToolkit = visionToolkit;
     }
 
+    private ImageRecognition imageRecognition() {
+        return recognitionSupplier.get();
+    }
+
     @Override
     public void register(CommandRegistry registry) {
-        registry.register("find_template", "模板匹配", FIND_TEMPLATE_PARAMS, this::findTemplate);
-        registry.register("compare_images", "比较两张图片相似度", COMPARE_PARAMS, this::compareImages);
+        // 模板匹配与图片比较只处理调用方给出的图像，不访问屏幕
+        registry.register("find_template", "模板匹配", FIND_TEMPLATE_PARAMS, ExecutionLane.BACKGROUND,
+                this::findTemplate);
+        registry.register("compare_images", "比较两张图片相似度", COMPARE_PARAMS, ExecutionLane.BACKGROUND,
+                this::compareImages);
+        registry.register("wait_screen_settled", "等待屏幕画面稳定(动画/图片加载完成)", SETTLE_PARAMS,
+                this::waitScreenSettled);
+        registry.register("image_hash", "计算当前屏幕区域的感知哈希(用于场景图像签名)", IMAGE_HASH_PARAMS,
+                ExecutionLane.READ_ONLY, this::imageHash);
     }
 
     private CommandResult findTemplate(CommandContext context, JSONObject params) throws Exception {
         double threshold = params.optDouble("threshold", 0.8);
-        org.opencv.core.Point match;
+        int maxResults = params.optInt("max_results", 1);
+        double maxOverlap = params.optDouble("max_overlap", ImageRecognition.DEFAULT_NMS_OVERLAP);
+        MatchMode mode = MatchMode.fromRaw(params.optString("mode", null), MatchMode.TEMPLATE);
+        List<TemplateMatch> matches;
         Mat screenshotMat = null;
         Mat templateMat = null;
         context.reportProgress("find_template", "开始模板匹配", null, null);
@@ -59,14 +104,23 @@ public final class VisionCommandModule implements CommandModule {
             if (screenshotMat == null || screenshotMat.empty() || templateMat == null || templateMat.empty()) {
                 throw new IllegalArgumentException("无法获取截图或模板图像数据");
             }
-            match = imageRecognition.findTemplate(screenshotMat, templateMat, threshold);
+            // max_results=1 时等价于原先的单点匹配（取全局最大值）
+            matches = mode == MatchMode.FEATURE
+                    ? List.of()
+                    : imageRecognition().findAllTemplates(screenshotMat, templateMat, threshold,
+                            Math.max(1, maxResults), maxOverlap);
+            if (matches.isEmpty() && mode != MatchMode.TEMPLATE) {
+                TemplateMatch featureMatch = imageRecognition().findTemplateByFeatures(screenshotMat, templateMat);
+                matches = featureMatch != null ? List.of(featureMatch) : List.of();
+            }
             JSONObject extra = new JSONObject();
-            if (match != null) {
-                extra.put("x", (int) match.x);
-                extra.put("y", (int) match.y);
+            if (!matches.isEmpty()) {
+                extra.put("x", matches.get(0).centerX());
+                extra.put("y", matches.get(0).centerY());
+                extra.put("count", matches.size());
             }
-            context.reportProgress("find_template", match != null ? "匹配成功" : "未匹配到模板",
-                    match != null ? 100 : null, extra);
+            context.reportProgress("find_template", !matches.isEmpty() ? "匹配成功" : "未匹配到模板",
+                    !matches.isEmpty() ? 100 : null, extra);
         } finally {
             if (screenshotMat != null) {
                 screenshotMat.release();
@@ -76,19 +130,42 @@ public final class VisionCommandModule implements CommandModule {
             }
         }
         JSONObject response = new JSONObject();
-        if (match != null) {
+        if (!matches.isEmpty()) {
             response.put("found", true);
-            response.put("x", (int) match.x);
-            response.put("y", (int) match.y);
+            response.put("x", matches.get(0).centerX());
+            response.put("y", matches.get(0).centerY());
+            response.put("score", matches.get(0).score());
+            if (maxResults > 1) {
+                response.put("matches", toJson(matches));
+            }
         } else {
             response.put("found", false);
+            if (maxResults > 1) {
+                response.put("matches", new JSONArray());
+            }
         }
         return CommandResult.success(response);
     }
 
+    private JSONArray toJson(List<TemplateMatch> matches) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (TemplateMatch match : matches) {
+            JSONObject item = new JSONObject();
+            item.put("x", match.centerX());
+            item.put("y", match.centerY());
+            item.put("left", match.left());
+            item.put("top", match.top());
+            item.put("width", match.width());
+            item.put("height", match.height());
+            item.put("score", match.score());
+            array.put(item);
+        }
+        return array;
+    }
+
     private Mat resolveMat(JSONObject params, String base64Key, String pathKey) throws Exception {
         if (params.has(base64Key)) {
-            return imageRecognition.decodeBase64(params.getString(base64Key));
+            return imageRecognition().decodeImageBytes(EncodingUtils.decodeBase64(params.getString(base64Key)));
         }
         String path = params.optString(pathKey, null);
         if (path != null) {
@@ -97,12 +174,54 @@ public final class VisionCommandModule implements CommandModule {
         return null;
     }
 
+    private CommandResult imageHash(CommandContext context, JSONObject params) throws Exception {
+        PerceptualHash.Algorithm algorithm = PerceptualHash.Algorithm.fromRaw(params.optString("algorithm", null));
+        float[] region = {0f, 0f, 1f, 1f};
+        JSONArray rawRegion = params.optJSONArray("region");
+        if (rawRegion != null) {
+            if (rawRegion.length() != 4) {
+                throw new IllegalArgumentException("region 需为 [left, top, right, bottom]");
+            }
+            for (int i = 0; i < 4; i++) {
+                region[i] = (float) rawRegion.getDouble(i);
+            }
+        }
+        // 远程调用之间界面可能已变化，强制重新截图；可能与场景并发，不解除场景的帧绑定
+        visionToolkit.refreshFrame();
+        long hash = visionToolkit.regionHash(region[0], region[1], region[2], region[3], algorithm);
+        JSONObject response = new JSONObject();
+        response.put("hash", PerceptualHash.toHex(hash));
+        response.put("algorithm", algorithm.name().toLowerCase(Locale.ROOT));
+        response.put("region", new JSONArray(region));
+        return CommandResult.success(response);
+    }
+
+    private CommandResult waitScreenSettled(CommandContext context, JSONObject params) throws Exception {
+        Rect region = null;
+        JSONArray rawRegion = params.optJSONArray("region");
+        if (rawRegion != null) {
+            if (rawRegion.length() != 4) {
+                throw new IllegalArgumentException("region 需为 [left, top, right, bottom]");
+            }
+            region = new Rect(rawRegion.getInt(0), rawRegion.getInt(1), rawRegion.getInt(2), rawRegion.getInt(3));
+        }
+        long start = System.currentTimeMillis();
+        boolean settled = visionToolkit.waitForScreenSettled(region,
+                params.optDouble("threshold", VisionToolkit.DEFAULT_SETTLE_THRESHOLD),
+                params.optInt("stable_frames", VisionToolkit.DEFAULT_SETTLE_FRAMES),
+                params.optLong("timeout", 5000L));
+        JSONObject response = new JSONObject();
+        response.put("settled", settled);
+        response.put("elapsed_ms", System.currentTimeMillis() - start);
+        return CommandResult.success(response);
+    }
+
     private CommandResult compareImages(CommandContext context, JSONObject params) throws Exception {
         String image1 = params.getString("image1");
         String image2 = params.getString("image2");
         double similarity = visionToolkit != null
                 ? visionToolkit.compareImages(image1, image2)
-                : imageRecognition.compareImages(image1, image2);
+                : imageRecognition().compareImages(image1, image2);
         JSONObject response = new JSONObject();
         response.put("similarity", similarity);
         response.put("is_similar", similarity >= 0.9);
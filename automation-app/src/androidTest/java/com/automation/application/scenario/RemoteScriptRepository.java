@@ -0,0 +1,460 @@
+package com.automation.application.scenario;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.automation.domain.scenario.script.ScenarioScript;
+import com.automation.domain.scenario.script.ScriptDefinitionParser;
+import com.automation.domain.scenario.script.ScriptRepository;
+import com.automation.domain.scenario.script.bundle.ScriptBundle;
+import com.automation.domain.scenario.script.bundle.ScriptBundleFormat;
+import com.automation.domain.scenario.script.bundle.ScriptBundleReader;
+import com.automation.infrastructure.network.AuthService;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 服务端下发的脚本仓库：按服务端清单把脚本文件同步到本地内容寻址缓存，未下发或缓存损坏的脚本回退到 assets。
+ * <p>
+ * 缓存目录为 {@code files/script_bundles}，文件按 SHA-256 存于 {@code objects/}，{@code manifest.json} 记录每个脚本的版本与文件摘要。
+ * 同步时只下载本地没有的对象并校验摘要，写完清单后整体替换快照；{@link #contentHash} 随文件摘要变化，
+ * {@link ScenarioCatalog} 据此在下次加载时重新编译，无需重启。
+ */
+public final class RemoteScriptRepository implements ScriptRepository {
+
+    private static final String TAG = "RemoteScriptRepository";
+    private static final String CACHE_DIR = "script_bundles";
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final String PROJECT_FILE = "project.yaml";
+    private static final String SCENES_FILE = "scenes.yaml";
+    private static final Set<String> SCRIPT_FILES = Set.of(PROJECT_FILE, SCENES_FILE, ScriptBundleFormat.FILE_NAME);
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final long MAX_OBJECT_BYTES = 4L * 1024 * 1024;
+
+    private final ScriptRepository fallback;
+    private final File objectsDir;
+    private final File manifestFile;
+    private final OkHttpClient httpClient;
+    private final Object syncLock = new Object();
+    private volatile Map<String, Release> releases;
+    private volatile AuthService authService;
+
+    public RemoteScriptRepository(Context context, ScriptRepository fallback) {
+        this.fallback = Objects.requireNonNull(fallback, "fallback");
+        File root = new File(Objects.requireNonNull(context, "context").getFilesDir(), CACHE_DIR);
+        this.objectsDir = new File(root, "objects");
+        this.manifestFile = new File(root, MANIFEST_FILE);
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+        this.releases = readLocalManifest();
+    }
+
+    public void setAuthService(@Nullable AuthService authService) {
+        this.authService = authService;
+    }
+
+    @Override
+    public ScenarioScript load(String scriptName) throws IOException {
+        Objects.requireNonNull(scriptName, "scriptName");
+        Release release = releases.get(scriptName);
+        if (release != null) {
+            try {
+                return loadCached(scriptName, release);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "缓存脚本加载失败，回退 assets: " + scriptName, e);
+            }
+        }
+        return fallback.load(scriptName);
+    }
+
+    /**
+     * 缓存脚本直接由清单中的文件摘要拼出，不读文件；服务端更新文件后摘要随之变化。
+     */
+    @Override
+    public String contentHash(String scriptName) throws IOException {
+        Release release = releases.get(scriptName);
+        if (release == null) {
+            return fallback.contentHash(scriptName);
+        }
+        StringBuilder hash = new StringBuilder("remote");
+        for (String path : List.of(PROJECT_FILE, SCENES_FILE, ScriptBundleFormat.FILE_NAME)) {
+            String sha = release.files.get(path);
+            hash.append(':').append(sha != null ? sha : "-");
+        }
+        return hash.toString();
+    }
+
+    @Override
+    public List<String> listScriptNames() throws IOException {
+        Set<String> names = new TreeSet<>(fallback.listScriptNames());
+        names.addAll(releases.keySet());
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * 拉取服务端清单并同步缓存。单个脚本下载或校验失败时保留其旧版本，不影响其他脚本。
+     *
+     * @return 同步结果：更新、移除、失败的脚本，以及下载与复用的对象数
+     * @throws IOException 未登录或清单获取失败时抛出，本地缓存保持不变
+     */
+    public JSONObject sync() throws IOException {
+        synchronized (syncLock) {
+            AuthService auth = authService;
+            if (auth == null) {
+                throw new IOException("未配置认证服务，无法同步脚本");
+            }
+            String token = auth.getSavedToken();
+            String baseUrl = auth.getServerUrl();
+            if (TextUtils.isEmpty(token) || TextUtils.isEmpty(baseUrl)) {
+                throw new IOException("缺少设备令牌或服务器地址，无法同步脚本");
+            }
+            if (baseUrl.endsWith("/")) {
+                baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+            }
+            Map<String, Release> remote;
+            try {
+                remote = parseManifest(new JSONObject(
+                        new String(download(baseUrl + "/api/scripts/manifest", token), StandardCharsets.UTF_8)));
+            } catch (JSONException e) {
+                throw new IOException("脚本清单格式错误", e);
+            }
+
+            if (!objectsDir.isDirectory() && !objectsDir.mkdirs()) {
+                throw new IOException("无法创建脚本缓存目录: " + objectsDir);
+            }
+            Map<String, Release> previous = releases;
+            Map<String, Release> next = new LinkedHashMap<>();
+            List<String> updated = new ArrayList<>();
+            JSONArray failed = new JSONArray();
+            int downloaded = 0;
+            int reused = 0;
+            long downloadedBytes = 0;
+            for (Release release : remote.values()) {
+                Release old = previous.get(release.name);
+                if (old != null && old.files.equals(release.files) && old.objectsPresent(objectsDir)) {
+                    next.put(release.name, release);
+                    reused += release.files.size();
+                    continue;
+                }
+                try {
+                    for (String sha : release.files.values()) {
+                        File target = new File(objectsDir, sha);
+                        if (target.isFile()) {
+                            reused++;
+                            continue;
+                        }
+                        byte[] content = download(baseUrl + "/api/scripts/objects/" + sha, token);
+                        writeObject(target, sha, content);
+                        downloaded++;
+                        downloadedBytes += content.length;
+                    }
+                    next.put(release.name, release);
+                    updated.add(release.name);
+                } catch (IOException e) {
+                    Log.w(TAG, "脚本同步失败，保留旧版本: " + release.name, e);
+                    if (old != null) {
+                        next.put(old.name, old);
+                    }
+                    failed.put(failure(release.name, e));
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            for (String name : previous.keySet()) {
+                if (!next.containsKey(name)) {
+                    removed.add(name);
+                }
+            }
+
+            Map<String, Release> snapshot = Collections.unmodifiableMap(next);
+            writeLocalManifest(snapshot);
+            releases = snapshot;
+            int deleted = collectGarbage(snapshot, previous);
+
+            JSONObject report = new JSONObject();
+            try {
+                report.put("scripts", snapshot.size());
+                report.put("updated", new JSONArray(updated));
+                report.put("removed", new JSONArray(removed));
+                report.put("failed", failed);
+                report.put("downloaded_objects", downloaded);
+                report.put("downloaded_bytes", downloadedBytes);
+                report.put("reused_objects", reused);
+                report.put("deleted_objects", deleted);
+            } catch (JSONException ignored) {
+            }
+            Log.i(TAG, "脚本同步完成: " + report);
+            return report;
+        }
+    }
+
+    private ScenarioScript loadCached(String scriptName, Release release) throws IOException {
+        String bundleSha = release.files.get(ScriptBundleFormat.FILE_NAME);
+        if (bundleSha != null) {
+            try (InputStream in = new FileInputStream(new File(objectsDir, bundleSha))) {
+                ScriptBundle bundle = ScriptBundleReader.read(in);
+                return ScriptDefinitionParser.parse(scriptName, bundle.project(), bundle.scenes());
+            } catch (IOException e) {
+                Log.w(TAG, "缓存脚本包读取失败，改用 YAML: " + scriptName, e);
+            }
+        }
+        // 缓存内容来自服务端，只构造标准类型，不允许 YAML 标签实例化任意类
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+        return ScriptDefinitionParser.parse(scriptName,
+                loadYaml(yaml, release.files.get(PROJECT_FILE)),
+                loadYaml(yaml, release.files.get(SCENES_FILE)));
+    }
+
+    private Map<String, Object> loadYaml(Yaml yaml, String sha) throws IOException {
+        try (InputStream in = new FileInputStream(new File(objectsDir, sha))) {
+            return ScriptDefinitionParser.rootMap(yaml.load(in));
+        }
+    }
+
+    private byte[] download(String url, String token) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Authorization", "Bearer " + token)
+                .get()
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("脚本下载失败: HTTP " + response.code() + " " + url);
+            }
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new IOException("脚本响应为空: " + url);
+            }
+            if (body.contentLength() > MAX_OBJECT_BYTES) {
+                throw new IOException("脚本文件过大: " + url);
+            }
+            return body.bytes();
+        }
+    }
+
+    /**
+     * 校验摘要后先写临时文件再重命名，中途失败不会留下内容错误的对象。
+     */
+    private void writeObject(File target, String expectedSha, byte[] content) throws IOException {
+        String actual = sha256(content);
+        if (!expectedSha.equals(actual)) {
+            throw new IOException("脚本文件摘要不一致: 期望 " + expectedSha + "，实际 " + actual);
+        }
+        File temp = new File(target.getParentFile(), expectedSha + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(content);
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("写入脚本缓存失败: " + target);
+        }
+    }
+
+    /**
+     * 删除新旧两份清单都不再引用的对象。上一份清单的对象保留一代，换清单前已取到旧 Release 的 load 仍能读完，
+     * 下次同步时再清理。
+     */
+    private int collectGarbage(Map<String, Release> snapshot, Map<String, Release> previous) {
+        Set<String> live = new HashSet<>();
+        for (Release release : snapshot.values()) {
+            live.addAll(release.files.values());
+        }
+        for (Release release : previous.values()) {
+            live.addAll(release.files.values());
+        }
+        File[] files = objectsDir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (File file : files) {
+            if (!live.contains(file.getName()) && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private Map<String, Release> readLocalManifest() {
+        if (!manifestFile.isFile()) {
+            return Map.of();
+        }
+        try (InputStream in = new FileInputStream(manifestFile)) {
+            byte[] data = new byte[(int) manifestFile.length()];
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = in.read(data, offset, data.length - offset)) != -1) {
+                offset += read;
+            }
+            Map<String, Release> local = parseManifest(new JSONObject(new String(data, 0, offset, StandardCharsets.UTF_8)));
+            Map<String, Release> present = new LinkedHashMap<>();
+            for (Release release : local.values()) {
+                if (release.objectsPresent(objectsDir)) {
+                    present.put(release.name, release);
+                }
+            }
+            return Collections.unmodifiableMap(present);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "本地脚本清单损坏，忽略缓存", e);
+            return Map.of();
+        }
+    }
+
+    private void writeLocalManifest(Map<String, Release> snapshot) throws IOException {
+        JSONArray scripts = new JSONArray();
+        try {
+            for (Release release : snapshot.values()) {
+                scripts.put(release.toJson());
+            }
+            byte[] data = new JSONObject().put("scripts", scripts).toString().getBytes(StandardCharsets.UTF_8);
+            File temp = new File(manifestFile.getParentFile(), MANIFEST_FILE + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                out.write(data);
+            }
+            if (!temp.renameTo(manifestFile)) {
+                temp.delete();
+                throw new IOException("写入脚本清单失败: " + manifestFile);
+            }
+        } catch (JSONException e) {
+            throw new IOException("脚本清单序列化失败", e);
+        }
+    }
+
+    private static Map<String, Release> parseManifest(JSONObject root) throws IOException {
+        JSONArray scripts = root.optJSONArray("scripts");
+        if (scripts == null) {
+            throw new IOException("脚本清单缺少 scripts 字段");
+        }
+        Map<String, Release> result = new LinkedHashMap<>();
+        for (int i = 0; i < scripts.length(); i++) {
+            JSONObject entry = scripts.optJSONObject(i);
+            Release release = entry != null ? Release.fromJson(entry) : null;
+            if (release != null) {
+                result.put(release.name, release);
+            }
+        }
+        return result;
+    }
+
+    private static JSONObject failure(String name, Exception error) {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("name", name);
+            json.put("error", error.getMessage());
+        } catch (JSONException ignored) {
+        }
+        return json;
+    }
+
+    private static String sha256(byte[] content) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 不可用", e);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest(content)) {
+            hex.append(String.format(Locale.US, "%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 单个脚本的发布版本：文件路径到 SHA-256 的映射。
+     */
+    private static final class Release {
+        final String name;
+        final int version;
+        final Map<String, String> files;
+
+        Release(String name, int version, Map<String, String> files) {
+            this.name = name;
+            this.version = version;
+            this.files = files;
+        }
+
+        /**
+         * 解析清单条目；文件名或摘要不合法、缺少 project / scenes 时返回 null，该脚本视为未下发。
+         */
+        @Nullable
+        static Release fromJson(JSONObject json) {
+            String name = json.optString("name");
+            JSONArray array = json.optJSONArray("files");
+            if (TextUtils.isEmpty(name) || name.contains("/") || array == null) {
+                return null;
+            }
+            Map<String, String> files = new LinkedHashMap<>();
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject file = array.optJSONObject(i);
+                String path = file != null ? file.optString("path") : "";
+                String sha = file != null ? file.optString("sha256").toLowerCase(Locale.ROOT) : "";
+                if (!SCRIPT_FILES.contains(path) || !SHA256.matcher(sha).matches()) {
+                    Log.w(TAG, "忽略非法脚本文件条目: " + name + "/" + path);
+                    return null;
+                }
+                files.put(path, sha);
+            }
+            if (!files.containsKey(PROJECT_FILE) || !files.containsKey(SCENES_FILE)) {
+                return null;
+            }
+            return new Release(name, json.optInt("version"), Collections.unmodifiableMap(files));
+        }
+
+        boolean objectsPresent(File objectsDir) {
+            for (String sha : files.values()) {
+                if (!new File(objectsDir, sha).isFile()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONArray array = new JSONArray();
+            for (Map.Entry<String, String> entry : files.entrySet()) {
+                array.put(new JSONObject().put("path", entry.getKey()).put("sha256", entry.getValue()));
+            }
+            return new JSONObject()
+                    .put("name", name)
+                    .put("version", version)
+                    .put("files", array);
+        }
+    }
+}
@@ -16,16 +16,22 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 负责脚本的读取、枚举以及元数据构建。
+ * <p>
+ * 已编译的 {@link ScenarioScript}（含预编译的场景签名与选择器）按脚本路径缓存，并记录内容摘要；
+ * 摘要不变时直接复用，任务启动与能力声明都不再重复解析 YAML。
  */
 public final class ScenarioCatalog {
 
     private static final String TAG = "ScenarioCatalog";
 
     private final ScriptRepository scriptRepository;
+    private final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
 
     public ScenarioCatalog(ScriptRepository scriptRepository) {
         this.scriptRepository = Objects.requireNonNull(scriptRepository, "scriptRepository");
@@ -33,7 +39,17 @@ public final class ScenarioCatalog {
 
     public ScenarioScript requireScript(String taskName) {
         try {
-            return scriptRepository.load(taskName);
+            String hash = scriptRepository.contentHash(taskName);
+            CompiledScript cached = compiledScripts.get(taskName);
+            if (hash != null && cached != null && cached.contentHash.equals(hash)) {
+                return cached.script;
+            }
+            ScenarioScript script = scriptRepository.load(taskName);
+            if (hash != null) {
+                compiledScripts.put(taskName, new CompiledScript(hash, script));
+                Log.d(TAG, "脚本已编译并缓存: " + taskName + " (" + hash + ")");
+            }
+            return script;
         } catch (IOException ex) {
             throw new IllegalStateException("加载脚本失败: " + taskName, ex);
         }
@@ -93,6 +109,20 @@ public final class ScenarioCatalog {
                 paramsArray.put(specJson);
             }
             scriptJson.put("parameters", paramsArray);
+            List<String[]> overlaps = script.sceneOverlaps().overlappingPairs();
+            if (!overlaps.isEmpty()) {
+                // 签名无法证明互斥的场景对，运行时可能触发场景冲突；按前一个场景分组上报，提示作者收紧签名
+                JSONObject overlapJson = new JSONObject();
+                for (String[] pair : overlaps) {
+                    JSONArray others = overlapJson.optJSONArray(pair[0]);
+                    if (others == null) {
+                        others = new JSONArray();
+                        overlapJson.put(pair[0], others);
+                    }
+                    others.put(pair[1]);
+                }
+                scriptJson.put("scene_overlaps", overlapJson);
+            }
         } catch (JSONException ex) {
             Log.w(TAG, "脚本元数据构建异常: " + script.name(), ex);
         }
@@ -142,4 +172,14 @@ public final class ScenarioCatalog {
         }
         return type;
     }
+
+    private static final class CompiledScript {
+        final String contentHash;
+        final ScenarioScript script;
+
+        CompiledScript(String contentHash, ScenarioScript script) {
+            this.contentHash = contentHash;
+            this.script = script;
+        }
+    }
 }
@@ -73,7 +73,8 @@ public final class ScenarioParameterBinder {
         payload.put("task_name", taskName);
         JSONObject configJson = params.optJSONObject("config");
         if (configJson != null) {
-            payload.put("config", new JSONObject(configJson.toString()));
+            // 校验器只复制被改写的路径，无需预先深拷贝
+            payload.put("config", configJson);
         } else {
             payload.put("config", new JSONObject());
         }
@@ -16,6 +16,8 @@ import com.automation.domain.scenario.SceneHandler;
 import com.automation.domain.scenario.script.SceneConfig;
 import com.automation.domain.scenario.script.ScriptHandlerRegistry;
 import com.automation.domain.scenario.script.ScenarioScript;
+import com.automation.domain.scenario.vision.VisionProfile;
+import com.automation.domain.scenario.vision.VisionToolkit;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -50,15 +52,31 @@ public final class ScenarioRunCoordinator {
         List<Scene> scenes = materializeScenes(request.script());
         ScenarioEngineOptions options = ScenarioEngineOptions.builder()
                 .initSceneId(request.script().initSceneId())
+                .overlapAnalysis(request.script().sceneOverlaps())
+                .stateMachine(request.script().stateMachine())
                 .build();
         commandContext.reportProgress("task.start", "开始执行任务: " + request.taskName(), 0, null);
-        ScenarioRunResult runResult = scenarioRunner.run(request.taskName(), scenes, scenarioContext, options);
+        VisionToolkit vision = scenarioContext.getVisionToolkit();
+        VisionProfile previousProfile = vision != null ? vision.setProfile(request.script().visionProfile()) : null;
+        ScenarioRunResult runResult;
+        try {
+            runResult = scenarioRunner.run(request.taskName(), scenes, scenarioContext, options);
+        } finally {
+            if (vision != null) {
+                vision.setProfile(previousProfile);
+            }
+        }
         telemetry.finalizeResult(runResult);
 
         JSONObject summary = buildSummary(request, runResult, telemetry);
+        long stopLatencyMs = commandContext.cancellationToken().elapsedSinceCancelMs();
+        if (stopLatencyMs >= 0) {
+            summary.put("stop_latency_ms", stopLatencyMs);
+        }
         CommandResult result = switch (runResult.status()) {
             case SUCCESS -> CommandResult.success(summary, "任务已完成");
             case STOPPED -> CommandResult.failure(summary, "任务被停止");
+            case CANCELLED -> CommandResult.failure(summary, "任务已取消");
             case TIMEOUT -> CommandResult.failure(summary, "任务超时");
             case FAILED -> CommandResult.failure(summary, "任务失败");
             case EMPTY -> CommandResult.failure(summary, "未加载到任何场景");
@@ -71,6 +89,8 @@ public final class ScenarioRunCoordinator {
         switch (runResult.status()) {
             case SUCCESS -> commandContext.reportProgress("task.finish", "任务已完成", 100, summary);
             case STOPPED -> commandContext.reportProgress("task.stop", "任务被停止", null, summary);
+            case CANCELLED -> commandContext.reportProgress("task.cancel",
+                    "任务已取消，停止耗时 " + stopLatencyMs + "ms", null, summary);
             case TIMEOUT -> commandContext.reportProgress("task.timeout", "任务超时", null, summary);
             case FAILED, EMPTY -> commandContext.reportProgress("task.error",
                     result.message() != null ? result.message() : "任务失败", null, summary);
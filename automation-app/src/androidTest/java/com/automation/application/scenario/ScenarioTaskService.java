@@ -11,8 +11,10 @@ import com.automation.domain.scenario.script.ScenarioScript;
 
 import org.json.JSONObject;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * 高层脚本任务服务，负责 orchestrate 参数绑定、执行与能力发布。
@@ -24,6 +26,7 @@ public final class ScenarioTaskService {
     private final ScenarioCatalog catalog;
     private final ScenarioParameterBinder parameterBinder;
     private final ScenarioRunCoordinator runCoordinator;
+    private final Set<String> registeredScripts = new HashSet<>();
 
     public ScenarioTaskService(ScenarioCatalog catalog,
                                ScenarioParameterBinder parameterBinder,
@@ -50,9 +53,15 @@ public final class ScenarioTaskService {
         return parameterBinder.baseParameters();
     }
 
-    public void registerScriptCapabilities(CommandRegistry registry) {
+    /**
+     * 按当前脚本目录刷新 {@code start_task:<name>} 声明，并撤下上次注册后已不存在的脚本。
+     * 启动同步线程与 sync_scripts 指令都会调用，串行执行。
+     */
+    public synchronized void registerScriptCapabilities(CommandRegistry registry) {
+        Set<String> current = new HashSet<>();
         for (String name : catalog.listScriptNames()) {
             ScenarioScript script = catalog.requireScript(name);
+            current.add(script.name());
             CommandDescriptor descriptor = CommandDescriptor.builder("start_task:" + script.name())
                     .description(script.description().isEmpty()
                             ? ("脚本任务: " + script.name())
@@ -62,5 +71,13 @@ public final class ScenarioTaskService {
                     .build();
             registry.registerDescriptor(descriptor);
         }
+        for (String name : registeredScripts) {
+            if (!current.contains(name)) {
+                registry.unregister("start_task:" + name);
+                Log.i(TAG, "脚本已移除，撤下声明: " + name);
+            }
+        }
+        registeredScripts.clear();
+        registeredScripts.addAll(current);
     }
 }
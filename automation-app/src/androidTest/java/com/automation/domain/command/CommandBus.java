@@ -25,14 +25,44 @@ public final class CommandBus {
     private final List<CommandInterceptor> interceptors = new CopyOnWriteArrayList<>();
 
     public void register(CommandDescriptor descriptor, CommandHandler handler) {
-        descriptors.put(descriptor.action(), descriptor);
-        if (handler != null) {
-            handlers.put(descriptor.action(), handler);
+        synchronized (descriptors) {
+            descriptors.put(descriptor.action(), descriptor);
+            if (handler != null) {
+                handlers.put(descriptor.action(), handler);
+            }
         }
     }
 
     public void registerDescriptor(CommandDescriptor descriptor) {
-        descriptors.put(descriptor.action(), descriptor);
+        synchronized (descriptors) {
+            descriptors.put(descriptor.action(), descriptor);
+        }
+    }
+
+    public void unregister(String action) {
+        synchronized (descriptors) {
+            descriptors.remove(action);
+            handlers.remove(action);
+        }
+    }
+
+    /**
+     * 指令是否已注册且带处理器。
+     */
+    public boolean contains(String action) {
+        synchronized (descriptors) {
+            return handlers.containsKey(action);
+        }
+    }
+
+    /**
+     * 查询指令的执行通道；未注册的指令按独占处理，由后续分发报告未知指令。
+     */
+    public ExecutionLane laneOf(String action) {
+        synchronized (descriptors) {
+            CommandDescriptor descriptor = descriptors.get(action);
+            return descriptor != null ? descriptor.lane() : ExecutionLane.EXCLUSIVE_UI;
+        }
     }
 
     public void addInterceptor(CommandInterceptor interceptor) {
@@ -40,12 +70,16 @@ public final class CommandBus {
     }
 
     public CommandResult dispatch(CommandContext context, String action, JSONObject rawParams) throws Exception {
-
-        CommandDescriptor descriptor = descriptors.get(action);
+        CommandDescriptor descriptor;
+        CommandHandler handler;
+        // 只读通道的指令可能与 sync_scripts 刷新声明并发
+        synchronized (descriptors) {
+            descriptor = descriptors.get(action);
+            handler = handlers.get(action);
+        }
         if (descriptor == null) {
             throw new IllegalArgumentException("未知指令: " + action);
         }
-        CommandHandler handler = handlers.get(action);
         if (handler == null) {
             throw new IllegalStateException("指令未提供处理器: " + action);
         }
@@ -62,8 +96,12 @@ public final class CommandBus {
     }
 
     public JSONArray capabilitiesAsJson() {
+        List<CommandDescriptor> snapshot;
+        synchronized (descriptors) {
+            snapshot = new ArrayList<>(descriptors.values());
+        }
         JSONArray array = new JSONArray();
-        for (CommandDescriptor descriptor : descriptors.values()) {
+        for (CommandDescriptor descriptor : snapshot) {
             JSONObject object = new JSONObject();
             try {
                 object.put("action", descriptor.action());
@@ -75,6 +113,7 @@ public final class CommandBus {
                     paramsArray.put(parameter.toJson());
                 }
                 object.put("params", paramsArray);
+                object.put("lane", descriptor.lane().wireName());
                 JSONObject meta = descriptor.metadata();
                 if (meta != null) {
                     object.put("meta", meta);
@@ -87,13 +126,7 @@ public final class CommandBus {
     }
 
     private JSONObject normalizeParameters(CommandDescriptor descriptor, JSONObject params) throws JSONException {
-        List<CommandParameter> definitions = descriptor.parameters();
-        if (definitions == null || definitions.isEmpty()) {
-            return params != null ? new JSONObject(params.toString()) : new JSONObject();
-        }
-        ParameterValidator validator = new ParameterValidator(definitions);
-        JSONObject payload = params != null ? params : new JSONObject();
-        return validator.validate(payload);
+        return descriptor.validator().validate(params);
     }
 
     private static final class InvocationChain implements CommandInvocation {
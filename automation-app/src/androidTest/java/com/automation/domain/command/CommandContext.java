@@ -1,5 +1,7 @@
 package com.automation.domain.command;
 
+import com.automation.shared.util.CancellationToken;
+
 import org.json.JSONObject;
 
 /**
@@ -20,4 +22,11 @@ public interface CommandContext {
     void reportProgress(String stage, String message, Integer percent, JSONObject extra);
 
     void reportLog(String level, String message, JSONObject extra);
+
+    /**
+     * 本次指令的取消令牌，{@code stop_task} 时置位；不支持取消的上下文返回 {@link CancellationToken#NONE}。
+     */
+    default CancellationToken cancellationToken() {
+        return CancellationToken.NONE;
+    }
 }
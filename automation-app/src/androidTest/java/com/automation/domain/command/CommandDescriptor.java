@@ -17,6 +17,9 @@ public final class CommandDescriptor {
     private final String description;
     private final List<CommandParameter> parameters;
     private final Supplier<JSONObject> metadataSupplier;
+    private final ExecutionLane lane;
+    /** 注册时编译一次，分发时复用。 */
+    private final ParameterValidator validator;
 
     private CommandDescriptor(Builder builder) {
         this.action = Objects.requireNonNull(builder.action, "action");
@@ -25,6 +28,8 @@ public final class CommandDescriptor {
                 ? Collections.unmodifiableList(new ArrayList<>(builder.parameters))
                 : List.of();
         this.metadataSupplier = builder.metadataSupplier;
+        this.lane = builder.lane != null ? builder.lane : ExecutionLane.EXCLUSIVE_UI;
+        this.validator = new ParameterValidator(parameters);
     }
 
     public static Builder builder(String action) {
@@ -47,6 +52,14 @@ public final class CommandDescriptor {
         return metadataSupplier;
     }
 
+    public ParameterValidator validator() {
+        return validator;
+    }
+
+    public ExecutionLane lane() {
+        return lane;
+    }
+
     public JSONObject metadata() {
         if (metadataSupplier == null) {
             return null;
@@ -59,6 +72,7 @@ public final class CommandDescriptor {
         private String description;
         private List<CommandParameter> parameters = new ArrayList<>();
         private Supplier<JSONObject> metadataSupplier;
+        private ExecutionLane lane = ExecutionLane.EXCLUSIVE_UI;
 
         private Builder(String action) {
             this.action = action;
@@ -79,6 +93,14 @@ public final class CommandDescriptor {
             return this;
         }
 
+        /**
+         * 执行通道，默认 {@link ExecutionLane#EXCLUSIVE_UI}。
+         */
+        public Builder lane(ExecutionLane lane) {
+            this.lane = lane;
+            return this;
+        }
+
         public CommandDescriptor build() {
             return new CommandDescriptor(this);
         }
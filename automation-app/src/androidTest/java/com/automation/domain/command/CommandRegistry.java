@@ -25,6 +25,22 @@ public final class CommandRegistry {
         register(action, description, parameters, handler, null);
     }
 
+    /**
+     * 注册非独占通道的指令。
+     */
+    public void register(String action,
+                         String description,
+                         List<CommandParameter> parameters,
+                         ExecutionLane lane,
+                         CommandHandler handler) {
+        CommandDescriptor descriptor = CommandDescriptor.builder(action)
+                .description(description)
+                .parameters(parameters)
+                .lane(lane)
+                .build();
+        commandBus.register(descriptor, handler);
+    }
+
     public void register(String action,
                          String description,
                          List<CommandParameter> parameters,
@@ -58,6 +74,13 @@ public final class CommandRegistry {
         commandBus.registerDescriptor(descriptor);
     }
 
+    /**
+     * 移除指令声明及其处理器，用于撤下已被删除的脚本。
+     */
+    public void unregister(String action) {
+        commandBus.unregister(action);
+    }
+
     public void addInterceptor(CommandInterceptor interceptor) {
         commandBus.addInterceptor(interceptor);
     }
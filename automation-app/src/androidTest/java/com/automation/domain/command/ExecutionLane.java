@@ -0,0 +1,19 @@
+package com.automation.domain.command;
+
+import java.util.Locale;
+
+/**
+ * 指令执行通道，决定指令是否需要独占设备。
+ */
+public enum ExecutionLane {
+    /** 操作界面或改变设备状态，与其他独占指令串行执行并受脚本互斥锁约束。 */
+    EXCLUSIVE_UI,
+    /** 只读取屏幕或界面层级，可与运行中的脚本并发执行。 */
+    READ_ONLY,
+    /** 不访问界面（纯计算、系统状态查询、投屏控制），在后台线程执行。 */
+    BACKGROUND;
+
+    public String wireName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -8,30 +8,47 @@ import org.json.JSONObject;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
 import java.util.Set;
 
 /**
  * Validates command parameters, applying defaults and basic type conversions.
+ * <p>
+ * 构造时把参数定义编译为校验计划（类型解析、点号路径拆分只做一次），可被多次调用复用。
+ * 校验单遍完成且不做 JSON 序列化往返：结果是原始参数的浅拷贝，只有被写入的路径上的对象才会复制，
+ * 未改动的值（包括 base64 等大字符串）与原始参数共享引用，原始参数本身不会被修改。
  */
 public final class ParameterValidator {
 
     private static final String TAG = "ParameterValidator";
 
-    private final List<CommandParameter> parameters;
+    private final List<Field> fields;
+    private final boolean hasNestedPaths;
 
     public ParameterValidator(List<CommandParameter> parameters) {
-        this.parameters = parameters != null ? parameters : Collections.emptyList();
+        List<CommandParameter> definitions = parameters != null ? parameters : Collections.emptyList();
+        Field[] compiled = new Field[definitions.size()];
+        boolean nested = false;
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = new Field(definitions.get(i));
+            nested |= compiled[i].path.length > 1;
+        }
+        this.fields = List.of(compiled);
+        this.hasNestedPaths = nested;
     }
 
     public JSONObject validate(JSONObject rawParams) throws JSONException {
-        JSONObject source = rawParams != null ? cloneJSONObject(rawParams) : new JSONObject();
-        JSONObject result = cloneJSONObject(source);
-
-        for (CommandParameter parameter : parameters) {
-            Object rawValue = readPath(source, parameter.name());
+        JSONObject source = rawParams != null ? rawParams : new JSONObject();
+        JSONObject result = shallowCopy(source);
+        // 已复制、可以就地修改的嵌套对象；没有点号路径时不需要
+        Set<JSONObject> owned = hasNestedPaths ? newIdentitySet(result) : null;
+
+        for (Field field : fields) {
+            CommandParameter parameter = field.parameter;
+            Object rawValue = readPath(source, field.path);
             boolean present = isPresent(rawValue);
             Object valueToApply;
 
@@ -48,18 +65,20 @@ public final class ParameterValidator {
                 valueToApply = rawValue;
             }
 
-            Object converted = convertValue(parameter, valueToApply);
+            Object converted = convertValue(field, valueToApply);
             if (!isPresent(converted)) {
                 if (parameter.required()) {
                     Log.e(TAG, "Required parameter became empty after conversion: " + parameter.name());
                     throw new IllegalArgumentException("参数不能为空: " + parameter.name());
                 } else {
-                    removePath(result, parameter.name());
+                    removePath(result, field.path, owned);
                     continue;
                 }
             }
 
-            writePath(result, parameter.name(), converted);
+            if (converted != rawValue) {
+                writePath(result, field.path, converted, owned);
+            }
             if (Log.isLoggable(TAG, Log.DEBUG)) {
                 Log.d(TAG, "Parameter '" + parameter.name() + "' normalized to: " + converted);
             }
@@ -68,15 +87,15 @@ public final class ParameterValidator {
         return result;
     }
 
-    private Object convertValue(CommandParameter parameter, Object raw) {
-        ParameterType type = parameter.parameterType();
-        return switch (type) {
+    private Object convertValue(Field field, Object raw) {
+        CommandParameter parameter = field.parameter;
+        return switch (field.type) {
             case INT -> convertToInt(parameter, raw);
             case FLOAT -> convertToDouble(parameter, raw);
             case BOOL -> convertToBoolean(parameter, raw);
             case OBJECT, JSON -> convertToJSONObject(parameter, raw);
             case ARRAY -> convertToJSONArray(parameter, raw);
-            case FILE, IMAGE -> convertToFilePayload(parameter, raw);
+            case FILE, IMAGE -> convertToFilePayload(parameter, field.type, raw);
             case ENUM -> convertToEnum(parameter, raw);
             case STRING -> convertToString(parameter, raw);
         };
@@ -89,7 +108,7 @@ public final class ParameterValidator {
         String value = raw.toString();
         if (parameter.required()
                 && !parameter.constraints().allowBlank()
-                && value.trim().isEmpty()) {
+                && isBlank(value)) {
             throw new IllegalArgumentException("参数不能为空: " + parameter.name());
         }
         if (parameter.constraints().hasEnumValues()) {
@@ -154,7 +173,7 @@ public final class ParameterValidator {
             return null;
         }
         if (raw instanceof JSONObject json) {
-            return cloneJSONObject(json);
+            return json;
         }
         if (raw instanceof String text) {
             try {
@@ -173,7 +192,7 @@ public final class ParameterValidator {
             return null;
         }
         if (raw instanceof JSONArray array) {
-            return cloneJSONArray(array);
+            return array;
         }
         if (raw instanceof Collection<?> collection) {
             return new JSONArray(collection);
@@ -190,14 +209,15 @@ public final class ParameterValidator {
         throw new IllegalArgumentException("参数不是合法的 JSON 数组: " + parameter.name());
     }
 
-    private JSONObject convertToFilePayload(CommandParameter parameter, Object raw) {
+    private JSONObject convertToFilePayload(CommandParameter parameter, ParameterType type, Object raw) {
         if (raw == null || raw == JSONObject.NULL) {
             return null;
         }
         try {
             JSONObject payload;
             if (raw instanceof JSONObject json) {
-                payload = cloneJSONObject(json);
+                // 下面会补充 source/mime/type 字段，复制一层即可，value 字符串共享
+                payload = shallowCopy(json);
             } else {
                 payload = new JSONObject();
                 payload.put("value", raw.toString());
@@ -232,16 +252,16 @@ public final class ParameterValidator {
                 if (!hasValue) {
                     throw new IllegalArgumentException("文件参数缺少 value 字段: " + parameter.name());
                 }
-                if (hasValue && payload.optString("value").trim().isEmpty()) {
+                if (hasValue && isBlank(payload.optString("value"))) {
                     throw new IllegalArgumentException("文件参数缺少 value 字段: " + parameter.name());
                 }
             }
 
-            if (parameter.parameterType() == ParameterType.IMAGE && !payload.has("mime")) {
+            if (type == ParameterType.IMAGE && !payload.has("mime")) {
                 payload.put("mime", "image/*");
             }
 
-            payload.put("type", parameter.parameterType().name().toLowerCase(Locale.ROOT));
+            payload.put("type", type.name().toLowerCase(Locale.ROOT));
             return payload;
         } catch (JSONException ex) {
             Log.e(TAG, "File parameter format error for '" + parameter.name() + "'", ex);
@@ -283,35 +303,37 @@ public final class ParameterValidator {
         return value != null && value != JSONObject.NULL;
     }
 
-    private JSONObject cloneJSONObject(JSONObject source) {
-        if (source == null) {
-            return new JSONObject();
-        }
-        try {
-            return new JSONObject(source.toString());
-        } catch (JSONException ex) {
-            throw new IllegalArgumentException("JSON 对象格式错误", ex);
+    /**
+     * 不复制字符串地判断是否全为空白，避免对大字符串调用 trim。
+     */
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
         }
+        return true;
     }
 
-    private JSONArray cloneJSONArray(JSONArray source) {
-        if (source == null) {
-            return new JSONArray();
-        }
-        try {
-            return new JSONArray(source.toString());
-        } catch (JSONException ex) {
-            throw new IllegalArgumentException("JSON 数组格式错误", ex);
+    private static JSONObject shallowCopy(JSONObject source) throws JSONException {
+        JSONObject copy = new JSONObject();
+        Iterator<String> keys = source.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            copy.put(key, source.opt(key));
         }
+        return copy;
     }
 
-    private Object readPath(JSONObject source, String path) {
-        if (source == null || path == null || path.isEmpty()) {
-            return null;
-        }
-        String[] parts = path.split("\\.");
+    private static Set<JSONObject> newIdentitySet(JSONObject first) {
+        Set<JSONObject> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.add(first);
+        return set;
+    }
+
+    private static Object readPath(JSONObject source, String[] path) {
         Object current = source;
-        for (String part : parts) {
+        for (String part : path) {
             if (!(current instanceof JSONObject jsonObject)) {
                 return null;
             }
@@ -323,39 +345,72 @@ public final class ParameterValidator {
         return current;
     }
 
-    private void writePath(JSONObject target, String path, Object value) throws JSONException {
-        Objects.requireNonNull(target, "target");
-        Objects.requireNonNull(path, "path");
-        String[] parts = path.split("\\.");
+    /**
+     * 沿路径定位到可写的父对象：结果中仍与原始参数共享的嵌套对象先复制一层再写入。
+     *
+     * @param create 路径缺失时是否创建
+     */
+    private static JSONObject ownedParent(JSONObject target, String[] path, Set<JSONObject> owned, boolean create)
+            throws JSONException {
         JSONObject current = target;
-        for (int i = 0; i < parts.length - 1; i++) {
-            String part = parts[i];
+        for (int i = 0; i < path.length - 1; i++) {
+            String part = path[i];
             Object existing = current.opt(part);
-            if (!(existing instanceof JSONObject)) {
-                JSONObject next = new JSONObject();
-                current.put(part, next);
-                current = next;
+            JSONObject next;
+            if (existing instanceof JSONObject child) {
+                if (owned.contains(child)) {
+                    current = child;
+                    continue;
+                }
+                next = shallowCopy(child);
+            } else if (create) {
+                next = new JSONObject();
             } else {
-                current = (JSONObject) existing;
+                return null;
             }
+            owned.add(next);
+            current.put(part, next);
+            current = next;
         }
-        Object wrapped = JSONObject.wrap(value);
-        current.put(parts[parts.length - 1], wrapped);
+        return current;
+    }
+
+    private static void writePath(JSONObject target, String[] path, Object value, Set<JSONObject> owned)
+            throws JSONException {
+        JSONObject parent = path.length == 1 ? target : ownedParent(target, path, owned, true);
+        parent.put(path[path.length - 1], JSONObject.wrap(value));
     }
 
-    private void removePath(JSONObject target, String path) {
-        if (target == null || path == null || path.isEmpty()) {
+    private static void removePath(JSONObject target, String[] path, Set<JSONObject> owned) throws JSONException {
+        if (path.length == 1) {
+            target.remove(path[0]);
             return;
         }
-        String[] parts = path.split("\\.");
-        JSONObject current = target;
-        for (int i = 0; i < parts.length - 1; i++) {
-            Object child = current.opt(parts[i]);
-            if (!(child instanceof JSONObject)) {
-                return;
+        if (readPath(target, path) == null) {
+            return;
+        }
+        JSONObject parent = ownedParent(target, path, owned, false);
+        if (parent != null) {
+            parent.remove(path[path.length - 1]);
+        }
+    }
+
+    /**
+     * 编译后的单个参数：路径与类型在构造时解析。
+     */
+    private static final class Field {
+        final CommandParameter parameter;
+        final String[] path;
+        final ParameterType type;
+
+        Field(CommandParameter parameter) {
+            String name = parameter.name();
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("参数名不能为空");
             }
-            current = (JSONObject) child;
+            this.parameter = parameter;
+            this.path = name.split("\\.");
+            this.type = parameter.parameterType();
         }
-        current.remove(parts[parts.length - 1]);
     }
 }
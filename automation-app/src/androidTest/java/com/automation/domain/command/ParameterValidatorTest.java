@@ -0,0 +1,66 @@
+package com.automation.domain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * 验证预编译校验器单遍归一化：不修改原始参数、只复制被改写的路径、大字符串共享引用。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParameterValidatorTest {
+
+    private final ParameterValidator validator = new ParameterValidator(List.of(
+            CommandParameter.required("image", "string", "base64 图像"),
+            CommandParameter.optional("threshold", "float", "阈值", 0.8),
+            CommandParameter.optional("config.retries", "int", "重试次数", 3),
+            CommandParameter.optional("config.mode", "string", "模式")
+    ));
+
+    @Test
+    public void sharesUntouchedValuesAndLeavesInputIntact() throws Exception {
+        String image = "iVBORw0KGgo".repeat(1000);
+        JSONObject options = new JSONObject().put("verbose", true);
+        JSONObject config = new JSONObject().put("retries", "5").put("options", options);
+        JSONObject raw = new JSONObject().put("image", image).put("config", config).put("extra", "x");
+
+        JSONObject normalized = validator.validate(raw);
+
+        assertSame(image, normalized.get("image"));
+        assertEquals(0.8, normalized.getDouble("threshold"), 0.0);
+        assertEquals("x", normalized.getString("extra"));
+        // 被改写的嵌套对象复制一层，其下未改动的值仍共享
+        JSONObject normalizedConfig = normalized.getJSONObject("config");
+        assertNotSame(config, normalizedConfig);
+        assertEquals(5, normalizedConfig.get("retries"));
+        assertSame(options, normalizedConfig.get("options"));
+
+        assertEquals("5", config.get("retries"));
+        assertFalse(raw.has("threshold"));
+    }
+
+    @Test
+    public void reusableAcrossCallsAndReportsMissingRequired() throws Exception {
+        JSONObject first = validator.validate(new JSONObject().put("image", "a"));
+        JSONObject second = validator.validate(new JSONObject().put("image", "b").put("threshold", "0.5"));
+
+        assertEquals(3, first.getJSONObject("config").getInt("retries"));
+        assertEquals(0.5, second.getDouble("threshold"), 0.0);
+        try {
+            validator.validate(new JSONObject().put("image", "  "));
+            fail("blank required string should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
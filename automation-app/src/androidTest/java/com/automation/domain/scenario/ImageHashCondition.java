@@ -0,0 +1,117 @@
+package com.automation.domain.scenario;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.domain.scenario.vision.VisionToolkit;
+import com.automation.infrastructure.vision.PerceptualHash;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 图像签名条件：屏幕区域的感知哈希与期望值的汉明距离不超过阈值即视为命中。
+ * 区域以屏幕宽高比例表示，格式为 [left, top, right, bottom]，缺省为整屏。
+ */
+public final class ImageHashCondition implements VisualCondition {
+
+    private static final int DEFAULT_MAX_DISTANCE = 10;
+
+    private final PerceptualHash.Algorithm algorithm;
+    private final long hash;
+    private final int maxDistance;
+    private final float left;
+    private final float top;
+    private final float right;
+    private final float bottom;
+
+    private ImageHashCondition(PerceptualHash.Algorithm algorithm,
+                               long hash,
+                               int maxDistance,
+                               float left,
+                               float top,
+                               float right,
+                               float bottom) {
+        this.algorithm = algorithm;
+        this.hash = hash;
+        this.maxDistance = maxDistance;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    @Override
+    public boolean matches(@NonNull VisionToolkit vision, @NonNull AccessibilitySnapshot snapshot,
+            @Nullable LegacyVariableResolver resolver) throws IOException {
+        long actual = vision.regionHash(left, top, right, bottom, algorithm);
+        return PerceptualHash.hammingDistance(actual, hash) <= maxDistance;
+    }
+
+    public PerceptualHash.Algorithm algorithm() {
+        return algorithm;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * 从 YAML 字段映射构造，示例：
+     * {@code { hash: "f0e0c8c8d8f0e0c0", algorithm: dhash, region: [0, 0.2, 1, 0.6], max_distance: 8 }}
+     */
+    public static ImageHashCondition fromMap(Map<String, Object> config) {
+        Object hashValue = config.get("hash");
+        if (hashValue == null) {
+            throw new IllegalArgumentException("图像签名缺少 hash 字段");
+        }
+        PerceptualHash.Algorithm algorithm = PerceptualHash.Algorithm.fromRaw(
+                config.get("algorithm") != null ? config.get("algorithm").toString() : null);
+        long hash = PerceptualHash.parseHex(hashValue.toString());
+        Object distanceValue = config.get("max_distance");
+        int maxDistance = distanceValue != null ? parseInt(distanceValue) : DEFAULT_MAX_DISTANCE;
+        float[] region = parseRegion(config.get("region"));
+        return new ImageHashCondition(algorithm, hash, maxDistance, region[0], region[1], region[2], region[3]);
+    }
+
+    private static int parseInt(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return Integer.parseInt(value.toString().trim());
+    }
+
+    static float[] parseRegion(Object value) {
+        if (value == null) {
+            return new float[]{0f, 0f, 1f, 1f};
+        }
+        if (!(value instanceof List<?> list) || list.size() != 4) {
+            throw new IllegalArgumentException("region 需为 [left, top, right, bottom]: " + value);
+        }
+        float[] region = new float[4];
+        for (int i = 0; i < 4; i++) {
+            Object item = list.get(i);
+            region[i] = item instanceof Number number ? number.floatValue() : Float.parseFloat(item.toString());
+            if (region[i] < 0f || region[i] > 1f) {
+                throw new IllegalArgumentException("region 取值需在 0-1 之间: " + value);
+            }
+        }
+        if (region[2] <= region[0] || region[3] <= region[1]) {
+            throw new IllegalArgumentException("region 宽高必须大于 0: " + value);
+        }
+        return region;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "ImageHash[%s %s <=%d @%.2f,%.2f,%.2f,%.2f]",
+                algorithm, PerceptualHash.toHex(hash), maxDistance, left, top, right, bottom);
+    }
+}
@@ -3,6 +3,7 @@ package com.automation.domain.scenario;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -76,6 +77,38 @@ public final class LegacyVariableResolver {
         return current.toString();
     }
 
+    /**
+     * 替换字符串中的 {@code ${path}} 占位符；无法解析的占位符保持原样。
+     */
+    public String interpolate(String value) {
+        if (value == null || value.indexOf('$') < 0) {
+            return value;
+        }
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(value);
+        if (!matcher.find()) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder();
+        int last = 0;
+        boolean changed = false;
+        do {
+            String path = matcher.group(1);
+            String replacement = resolve(path);
+            if (replacement != null) {
+                sb.append(value, last, matcher.start());
+                sb.append(replacement);
+                last = matcher.end();
+                changed = true;
+            }
+        } while (matcher.find());
+
+        if (!changed) {
+            return value;
+        }
+        sb.append(value, last, value.length());
+        return sb.toString();
+    }
+
     private static boolean isValidKey(String key) {
         return key != null && key.length() != 0;
     }
@@ -0,0 +1,131 @@
+package com.automation.domain.scenario;
+
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.domain.scenario.vision.VisionToolkit;
+
+import org.opencv.core.Scalar;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 区域颜色条件：区域内接近目标颜色的像素占比落在 [min_fraction, max_fraction] 内即命中。
+ * 区域可以是屏幕比例 region，也可以是 selector 匹配到的首个节点（支持 {@code ${var}} 占位符）；节点不存在时视为不命中。
+ * 示例：{@code { selector: { resourceId: "pkg:id/btn_pay" }, color: "#BDBDBD", tolerance: 24, min_fraction: 0.6 }}
+ */
+public final class RegionColorCondition implements VisualCondition {
+
+    private static final double DEFAULT_TOLERANCE = 30d;
+    private static final double DEFAULT_MIN_FRACTION = 0.5d;
+
+    private final SelectorCondition selector;
+    private final float[] region;
+    private final Scalar color;
+    private final double tolerance;
+    private final double minFraction;
+    private final double maxFraction;
+
+    private RegionColorCondition(SelectorCondition selector,
+                                 float[] region,
+                                 Scalar color,
+                                 double tolerance,
+                                 double minFraction,
+                                 double maxFraction) {
+        this.selector = selector;
+        this.region = region;
+        this.color = color;
+        this.tolerance = tolerance;
+        this.minFraction = minFraction;
+        this.maxFraction = maxFraction;
+    }
+
+    @Override
+    public boolean matches(@NonNull VisionToolkit vision, @NonNull AccessibilitySnapshot snapshot,
+            @Nullable LegacyVariableResolver resolver) throws IOException {
+        Rect bounds;
+        if (selector != null) {
+            bounds = snapshot.boundsOf(selector.resolve(resolver));
+            if (bounds == null || bounds.isEmpty()) {
+                return false;
+            }
+        } else {
+            bounds = vision.screenRect(region[0], region[1], region[2], region[3]);
+        }
+        double fraction = vision.regionColorFraction(bounds, color, tolerance);
+        return fraction >= minFraction && fraction <= maxFraction;
+    }
+
+    public static RegionColorCondition fromMap(Map<String, Object> config) {
+        Object colorValue = config.get("color");
+        if (colorValue == null) {
+            throw new IllegalArgumentException("颜色条件缺少 color 字段");
+        }
+        SelectorCondition selector = null;
+        if (config.get("selector") instanceof Map<?, ?> rawSelector) {
+            selector = SelectorCondition.fromMap(toStringKeyMap(rawSelector));
+        }
+        float[] region = ImageHashCondition.parseRegion(config.get("region"));
+        double tolerance = parseDouble(config.get("tolerance"), DEFAULT_TOLERANCE);
+        double minFraction = parseDouble(config.get("min_fraction"), DEFAULT_MIN_FRACTION);
+        double maxFraction = parseDouble(config.get("max_fraction"), 1d);
+        if (minFraction > maxFraction) {
+            throw new IllegalArgumentException("min_fraction 不能大于 max_fraction: " + config);
+        }
+        return new RegionColorCondition(selector, region, parseColor(colorValue), tolerance, minFraction, maxFraction);
+    }
+
+    /**
+     * 解析颜色：支持 "#RRGGBB" 或 [r, g, b]，返回 OpenCV 使用的 BGR 顺序。
+     */
+    public static Scalar parseColor(Object value) {
+        if (value instanceof List<?> list && list.size() == 3) {
+            double r = Double.parseDouble(list.get(0).toString());
+            double g = Double.parseDouble(list.get(1).toString());
+            double b = Double.parseDouble(list.get(2).toString());
+            return new Scalar(b, g, r);
+        }
+        String hex = value.toString().trim();
+        if (hex.startsWith("#")) {
+            hex = hex.substring(1);
+        }
+        if (hex.length() != 6) {
+            throw new IllegalArgumentException("颜色格式应为 #RRGGBB 或 [r, g, b]: " + value);
+        }
+        int rgb = Integer.parseInt(hex, 16);
+        return new Scalar(rgb & 0xFF, (rgb >> 8) & 0xFF, (rgb >> 16) & 0xFF);
+    }
+
+    private static double parseDouble(Object value, double fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        return Double.parseDouble(value.toString().trim());
+    }
+
+    private static Map<String, Object> toStringKeyMap(Map<?, ?> source) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (entry.getKey() != null) {
+                result.put(entry.getKey().toString(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "RegionColor[%s bgr=%s tol=%.0f %.2f-%.2f]",
+                selector != null ? "selector" : "region", color, tolerance, minFraction, maxFraction);
+    }
+}
@@ -8,6 +8,8 @@ import androidx.test.uiautomator.UiDevice;
 import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
 import com.automation.domain.scenario.device.DeviceActions;
 import com.automation.domain.scenario.vision.VisionToolkit;
+import com.automation.shared.util.CancellationToken;
+import com.automation.shared.util.MetricsRegistry;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -25,6 +27,8 @@ public final class ScenarioContext {
     private final VisionToolkit visionToolkit;
     private final Map<String, Object> data;
     private final ScenarioReporter reporter;
+    private final CancellationToken cancellationToken;
+    private final MetricsRegistry metrics;
     private AccessibilitySnapshot snapshot;
 
     private ScenarioContext(Builder builder) {
@@ -34,6 +38,8 @@ public final class ScenarioContext {
         this.visionToolkit = Objects.requireNonNull(builder.visionToolkit, "visionToolkit");
         this.data = builder.data != null ? builder.data : new HashMap<>();
         this.reporter = builder.reporter != null ? builder.reporter : ScenarioReporter.NO_OP;
+        this.cancellationToken = builder.cancellationToken != null ? builder.cancellationToken : CancellationToken.current();
+        this.metrics = builder.metrics != null ? builder.metrics : MetricsRegistry.DISABLED;
         this.snapshot = AccessibilitySnapshot.empty();
     }
 
@@ -75,6 +81,12 @@ public final class ScenarioContext {
 
     public ScenarioContext updateSnapshot(AccessibilitySnapshot newSnapshot) {
         this.snapshot = newSnapshot != null ? newSnapshot : AccessibilitySnapshot.empty();
+        // 视觉帧缓存跟随快照：界面结构变化或流程结束时丢弃旧帧
+        if (snapshot.isEmpty()) {
+            visionToolkit.invalidateFrame();
+        } else {
+            visionToolkit.bindSnapshot(snapshot.fingerprint());
+        }
         return this;
     }
 
@@ -83,6 +95,28 @@ public final class ScenarioContext {
         return reporter;
     }
 
+    @NonNull
+    public CancellationToken cancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * 场景阶段耗时指标，未注入时不记录。
+     */
+    @NonNull
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    /**
+     * 可取消的休眠，处理器应使用它代替 {@code Thread.sleep}，停止任务时立即返回。
+     *
+     * @throws java.util.concurrent.CancellationException 任务已被停止
+     */
+    public void sleep(long durationMs) {
+        cancellationToken.sleep(durationMs);
+    }
+
     @NonNull
     public Map<String, Object> snapshotData() {
         // 拷贝一份只读视图，避免外部直接修改内部状态。
@@ -100,6 +134,8 @@ public final class ScenarioContext {
         private VisionToolkit visionToolkit;
         private Map<String, Object> data;
         private ScenarioReporter reporter;
+        private CancellationToken cancellationToken;
+        private MetricsRegistry metrics;
 
         private Builder() {
         }
@@ -134,6 +170,19 @@ public final class ScenarioContext {
             return this;
         }
 
+        /**
+         * 缺省取构建线程上绑定的令牌。
+         */
+        public Builder cancellationToken(CancellationToken token) {
+            this.cancellationToken = token;
+            return this;
+        }
+
+        public Builder metrics(MetricsRegistry metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         public ScenarioContext build() {
             return new ScenarioContext(this);
         }
@@ -8,14 +8,17 @@ import androidx.annotation.NonNull;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.shared.util.CancellationToken;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 
 /**
  * 极简场景引擎，按照注册顺序匹配并执行场景。
@@ -24,13 +27,34 @@ import java.util.Objects;
  * 1. 通过 {@link SceneSignature} 快速判断当前界面，无需 dump。
  * 2. 场景执行结果驱动流程，支持成功/停止/失败。
  * 3. 每个场景仅执行一次，执行后可按需删除其他场景。
+ * 4. 提供 {@link ScenarioStateMachine} 时切换为状态机模式，每轮只评估当前状态的出边与中断场景。
+ * 5. 轮询间隔在上下文的取消令牌上等待，停止任务时立即唤醒并以 CANCELLED 结束。
+ * 6. 快照抓取、匹配、处理器与等待界面的耗时写入上下文的 {@link ScenarioContext#metrics()}。
  */
 public final class ScenarioEngine {
 
     private static final String TAG = "ScenarioEngine";
+    /** 场景阶段耗时指标：快照抓取、签名匹配（未命中计为 failure）、处理器执行、等待界面到位。 */
+    static final String STAGE_CAPTURE = "stage.capture";
+    static final String STAGE_MATCH = "stage.match";
+    static final String STAGE_HANDLER = "stage.handler";
+    static final String STAGE_WAIT = "stage.wait";
 
     private final Map<String, Scene> sceneIndex = new LinkedHashMap<>();
     private long pollIntervalMs = 400L;
+    private SnapshotSource snapshotSource;
+    private SceneMatcher matcher = this::shouldExecute;
+
+    /** 每轮抓取界面快照，缺省经 UiAutomation 抓取。 */
+    interface SnapshotSource {
+        AccessibilitySnapshot capture();
+    }
+
+    /** 判断场景是否命中当前快照，缺省按场景签名匹配。 */
+    interface SceneMatcher {
+        boolean matches(Scene scene, AccessibilitySnapshot snapshot, LegacyVariableResolver resolver,
+                ScenarioContext context);
+    }
 
     public ScenarioEngine addScene(@NonNull Scene scene) {
         Objects.requireNonNull(scene, "scene");
@@ -60,6 +84,16 @@ public final class ScenarioEngine {
         return this;
     }
 
+    ScenarioEngine snapshotSource(SnapshotSource source) {
+        this.snapshotSource = source;
+        return this;
+    }
+
+    ScenarioEngine matcher(SceneMatcher value) {
+        this.matcher = Objects.requireNonNull(value, "matcher");
+        return this;
+    }
+
     public ScenarioRunResult run(ScenarioContext context, ScenarioEngineOptions options) {
         if (sceneIndex.isEmpty()) {
             log(context, "没有可执行的场景");
@@ -68,7 +102,11 @@ public final class ScenarioEngine {
 
         Objects.requireNonNull(options, "options");
 
-        UiAutomation uiAutomation = InstrumentationRegistry.getInstrumentation().getUiAutomation();
+        SnapshotSource source = snapshotSource;
+        if (source == null) {
+            UiAutomation uiAutomation = InstrumentationRegistry.getInstrumentation().getUiAutomation();
+            source = () -> AccessibilitySnapshot.capture(uiAutomation);
+        }
         // 活跃场景维护为有序 Map，方便按照注册顺序遍历并支持按 id 删除
         Map<String, Scene> activeScenes = new LinkedHashMap<>(sceneIndex);
 
@@ -77,6 +115,7 @@ public final class ScenarioEngine {
 
         long lastMatchTime = SystemClock.elapsedRealtime();
         long timeoutMs = options.noMatchTimeoutMs();
+        SceneOverlapAnalysis overlaps = options.overlapAnalysis();
 
         if (options.initSceneId() != null) {
             Scene initScene = sceneIndex.get(options.initSceneId());
@@ -84,7 +123,12 @@ public final class ScenarioEngine {
                 try {
                     log(context, "执行初始化场景: " + initScene.id());
                     initScene.handler().handle(context);
+                } catch (CancellationException e) {
+                    return cancelled(context, null);
                 } catch (Exception e) {
+                    if (context.cancellationToken().isCancelled()) {
+                        return cancelled(context, null);
+                    }
                     reportError(context, "初始化场景执行异常: " + initScene.id(), e);
                 }
             }
@@ -95,55 +139,46 @@ public final class ScenarioEngine {
             lastMatchTime = SystemClock.elapsedRealtime();
         }
 
-        while (!activeScenes.isEmpty()) {
-            long now = SystemClock.elapsedRealtime();
-            if (now - lastMatchTime > timeoutMs) {
-                context.getReporter().onTimeout();
-                return finish(context, ScenarioRunResult.timeout(lastSceneId));
-            }
-            Map<String, Object> snapshotData = context.snapshotData();
-            LegacyVariableResolver resolver = LegacyVariableResolver.from(snapshotData);
-
-            // 单次循环仅抓取一次快照，后续在内存中匹配所有场景
-            AccessibilitySnapshot snapshot = AccessibilitySnapshot.capture(uiAutomation);
-            context.updateSnapshot(snapshot);
-            if (snapshot.isEmpty()) {
-                log(context, "快照为空，等待下一轮");
-                SystemClock.sleep(pollIntervalMs);
-                continue;
-            }
+        if (options.stateMachine() != null) {
+            return runStateMachine(context, options, source, activeScenes);
+        }
 
-            List<Scene> matched = new ArrayList<>();
-            for (Scene scene : activeScenes.values()) {
-                if (shouldExecute(scene, snapshot, resolver)) {
-                    matched.add(scene);
+        CancellationToken cancellation = context.cancellationToken();
+        try {
+            while (!activeScenes.isEmpty()) {
+                cancellation.throwIfCancelled();
+                long now = SystemClock.elapsedRealtime();
+                if (now - lastMatchTime > timeoutMs) {
+                    context.getReporter().onTimeout();
+                    return finish(context, ScenarioRunResult.timeout(lastSceneId));
                 }
-            }
+                LegacyVariableResolver resolver = LegacyVariableResolver.from(context.snapshotData());
 
-            if (matched.isEmpty()) {
-                SystemClock.sleep(pollIntervalMs);
-                continue;
-            }
-
-            if (matched.size() > 1) {
-                String[] ids = new String[matched.size()];
-                for (int i = 0; i < matched.size(); i++) {
-                    ids[i] = matched.get(i).id();
+                // 单次循环仅抓取一次快照，后续在内存中匹配所有场景
+                AccessibilitySnapshot snapshot = capture(context, source);
+                context.updateSnapshot(snapshot);
+                if (snapshot.isEmpty()) {
+                    log(context, "快照为空，等待下一轮");
+                    cancellation.sleep(pollIntervalMs);
+                    continue;
                 }
-                context.getReporter().onSceneConflict(ids);
-                return finish(context, ScenarioRunResult.failed(null, new IllegalStateException("scene conflict")));
-            }
 
-            Scene scene = matched.get(0);
-            lastSceneId = scene.id();
-
-            context.getReporter().onSceneMatched(scene.id(), scene.description());
-            pruneScenes(activeScenes, scene.pruneScenes());
-            try {
-                SceneResult result = scene.handler() != null
-                        ? scene.handler().handle(context)
-                        : SceneResult.CONTINUE;
+                List<Scene> matched = timedMatch(activeScenes.values(), snapshot, resolver, context, overlaps);
+                if (matched.isEmpty()) {
+                    cancellation.sleep(pollIntervalMs);
+                    continue;
+                }
+                if (matched.size() > 1) {
+                    return conflict(context, matched);
+                }
 
+                Scene scene = matched.get(0);
+                // 上一个场景处理完到本次命中之间的时间，即等待界面到位的耗时
+                context.metrics().record(STAGE_WAIT, SystemClock.elapsedRealtime() - lastMatchTime, true);
+                lastSceneId = scene.id();
+                context.getReporter().onSceneMatched(scene.id(), scene.description());
+                pruneScenes(activeScenes, scene.pruneScenes());
+                SceneResult result = timedExecute(context, scene);
                 if (result == SceneResult.SUCCESS) {
                     log(context, "流程成功结束，最后场景: " + scene.id());
                     return finish(context, ScenarioRunResult.success(scene.id()));
@@ -152,16 +187,11 @@ public final class ScenarioEngine {
                     log(context, "流程收到 STOP 指令停止: " + scene.id());
                     return finish(context, ScenarioRunResult.stopped(scene.id()));
                 }
-                if (result == SceneResult.ERROR) {
-                    reportError(context, "场景执行返回错误: " + scene.id(), null);
-                }
                 lastResult = result;
                 lastMatchTime = SystemClock.elapsedRealtime();
-            } catch (Exception e) {
-                reportError(context, "场景执行异常: " + scene.id(), e);
-                lastResult = SceneResult.ERROR;
-                lastMatchTime = SystemClock.elapsedRealtime();
             }
+        } catch (CancellationException e) {
+            return cancelled(context, lastSceneId);
         }
 
         ScenarioRunResult finalResult;
@@ -179,13 +209,188 @@ public final class ScenarioEngine {
         return finish(context, finalResult);
     }
 
+    /**
+     * 状态机模式：每轮只评估当前状态的出边场景与中断场景，超时按状态计算。
+     */
+    private ScenarioRunResult runStateMachine(ScenarioContext context,
+            ScenarioEngineOptions options,
+            SnapshotSource source,
+            Map<String, Scene> activeScenes) {
+        ScenarioStateMachine machine = options.stateMachine();
+        SceneOverlapAnalysis overlaps = options.overlapAnalysis();
+        ScenarioStateMachine.State state = machine.state(machine.initialState());
+        log(context, "进入状态: " + state.id());
+        String lastSceneId = null;
+        long lastMatchTime = SystemClock.elapsedRealtime();
+
+        CancellationToken cancellation = context.cancellationToken();
+        try {
+            while (true) {
+                cancellation.throwIfCancelled();
+                if (state.isTerminal()) {
+                    log(context, "到达终止状态: " + state.id());
+                    return finish(context, ScenarioRunResult.success(lastSceneId));
+                }
+                long timeoutMs = state.timeoutMs() > 0 ? state.timeoutMs() : options.noMatchTimeoutMs();
+                if (SystemClock.elapsedRealtime() - lastMatchTime > timeoutMs) {
+                    log(context, "状态超时: " + state.id());
+                    context.getReporter().onTimeout();
+                    return finish(context, ScenarioRunResult.timeout(lastSceneId));
+                }
+
+                // 出边在前、中断在后；已被 del_scenes 移除的场景不再评估
+                Map<String, Scene> candidates = new LinkedHashMap<>();
+                Map<String, String> targets = new HashMap<>();
+                for (ScenarioStateMachine.Transition transition : state.transitions()) {
+                    Scene scene = activeScenes.get(transition.sceneId());
+                    if (scene != null && !candidates.containsKey(scene.id())) {
+                        candidates.put(scene.id(), scene);
+                        targets.put(scene.id(), transition.targetState());
+                    }
+                }
+                for (String id : machine.interrupts()) {
+                    Scene scene = activeScenes.get(id);
+                    if (scene != null) {
+                        candidates.putIfAbsent(id, scene);
+                    }
+                }
+                if (candidates.isEmpty()) {
+                    return finish(context, ScenarioRunResult.failed(lastSceneId,
+                            new IllegalStateException("状态 " + state.id() + " 没有可评估的场景")));
+                }
+
+                LegacyVariableResolver resolver = LegacyVariableResolver.from(context.snapshotData());
+                AccessibilitySnapshot snapshot = capture(context, source);
+                context.updateSnapshot(snapshot);
+                if (snapshot.isEmpty()) {
+                    log(context, "快照为空，等待下一轮");
+                    cancellation.sleep(pollIntervalMs);
+                    continue;
+                }
+
+                List<Scene> matched = timedMatch(candidates.values(), snapshot, resolver, context, overlaps);
+                if (matched.isEmpty()) {
+                    cancellation.sleep(pollIntervalMs);
+                    continue;
+                }
+                if (matched.size() > 1) {
+                    return conflict(context, matched);
+                }
+
+                Scene scene = matched.get(0);
+                // 上一个场景处理完到本次命中之间的时间，即等待界面到位的耗时
+                context.metrics().record(STAGE_WAIT, SystemClock.elapsedRealtime() - lastMatchTime, true);
+                lastSceneId = scene.id();
+                context.getReporter().onSceneMatched(scene.id(), scene.description());
+                pruneScenes(activeScenes, scene.pruneScenes());
+                SceneResult result = timedExecute(context, scene);
+                if (result == SceneResult.SUCCESS) {
+                    log(context, "流程成功结束，最后场景: " + scene.id());
+                    return finish(context, ScenarioRunResult.success(scene.id()));
+                }
+                if (result == SceneResult.STOP) {
+                    log(context, "流程收到 STOP 指令停止: " + scene.id());
+                    return finish(context, ScenarioRunResult.stopped(scene.id()));
+                }
+                // 出错时停留在当前状态，下一轮重新识别
+                String target = targets.get(scene.id());
+                if (result != SceneResult.ERROR && target != null && !target.equals(state.id())) {
+                    log(context, "状态切换: " + state.id() + " -> " + target);
+                    state = machine.state(target);
+                }
+                lastMatchTime = SystemClock.elapsedRealtime();
+            }
+        } catch (CancellationException e) {
+            return cancelled(context, lastSceneId);
+        }
+    }
+
+    /**
+     * 在同一快照上评估候选场景。已命中一个场景后，与其互斥的场景不可能同时命中，跳过评估；
+     * 出现第二个命中后恢复全量评估以完整上报冲突。
+     */
+    private List<Scene> match(Collection<Scene> candidates, AccessibilitySnapshot snapshot,
+            LegacyVariableResolver resolver, ScenarioContext context, SceneOverlapAnalysis overlaps) {
+        List<Scene> matched = new ArrayList<>();
+        for (Scene scene : candidates) {
+            if (matched.size() == 1 && overlaps != null && overlaps.disjoint(matched.get(0).id(), scene.id())) {
+                continue;
+            }
+            if (matcher.matches(scene, snapshot, resolver, context)) {
+                matched.add(scene);
+            }
+        }
+        return matched;
+    }
+
+    private AccessibilitySnapshot capture(ScenarioContext context, SnapshotSource source) {
+        long start = SystemClock.elapsedRealtime();
+        AccessibilitySnapshot snapshot = source.capture();
+        context.metrics().record(STAGE_CAPTURE, SystemClock.elapsedRealtime() - start, !snapshot.isEmpty());
+        return snapshot;
+    }
+
+    private List<Scene> timedMatch(Collection<Scene> candidates, AccessibilitySnapshot snapshot,
+            LegacyVariableResolver resolver, ScenarioContext context, SceneOverlapAnalysis overlaps) {
+        long start = SystemClock.elapsedRealtime();
+        List<Scene> matched = match(candidates, snapshot, resolver, context, overlaps);
+        context.metrics().record(STAGE_MATCH, SystemClock.elapsedRealtime() - start, !matched.isEmpty());
+        return matched;
+    }
+
+    private SceneResult timedExecute(ScenarioContext context, Scene scene) {
+        long start = SystemClock.elapsedRealtime();
+        SceneResult result = execute(context, scene);
+        context.metrics().record(STAGE_HANDLER, SystemClock.elapsedRealtime() - start, result != SceneResult.ERROR);
+        return result;
+    }
+
+    private ScenarioRunResult conflict(ScenarioContext context, List<Scene> matched) {
+        String[] ids = new String[matched.size()];
+        for (int i = 0; i < matched.size(); i++) {
+            ids[i] = matched.get(i).id();
+        }
+        context.getReporter().onSceneConflict(ids);
+        return finish(context, ScenarioRunResult.failed(null, new IllegalStateException("scene conflict")));
+    }
+
+    /**
+     * 执行场景处理器；返回 ERROR 或抛出异常时上报错误并视为 ERROR，任务已取消时抛出 {@link CancellationException}。
+     */
+    private SceneResult execute(ScenarioContext context, Scene scene) {
+        try {
+            SceneResult result = scene.handler() != null
+                    ? scene.handler().handle(context)
+                    : SceneResult.CONTINUE;
+            if (result == SceneResult.ERROR) {
+                reportError(context, "场景执行返回错误: " + scene.id(), null);
+            }
+            return result;
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // 停止任务时处理器可能因中断抛出任意异常，按取消处理而不是上报错误
+            context.cancellationToken().throwIfCancelled();
+            reportError(context, "场景执行异常: " + scene.id(), e);
+            return SceneResult.ERROR;
+        }
+    }
+
+    private ScenarioRunResult cancelled(ScenarioContext context, String lastSceneId) {
+        log(context, "流程已取消，停止耗时 " + context.cancellationToken().elapsedSinceCancelMs() + "ms");
+        return finish(context, ScenarioRunResult.cancelled(lastSceneId));
+    }
+
     private ScenarioRunResult finish(ScenarioContext context, ScenarioRunResult result) {
         context.updateSnapshot(AccessibilitySnapshot.empty());
         return result;
     }
 
     private boolean shouldExecute(Scene scene, AccessibilitySnapshot snapshot,
-            LegacyVariableResolver resolver) {
+            LegacyVariableResolver resolver, ScenarioContext context) {
         if (scene.isSignatureLess()) {
             return true;
         }
@@ -194,6 +399,10 @@ public final class ScenarioEngine {
             return false;
         }
         boolean matched = signature.matches(snapshot, resolver);
+        // 视觉条件需要截图，仅在结构条件通过后评估；同一轮内多个场景共享缓存帧
+        if (matched && signature.hasVisualConditions()) {
+            matched = signature.matchesVisual(context.getVisionToolkit(), snapshot, resolver);
+        }
         if (matched && Log.isLoggable(TAG, Log.DEBUG)) {
             Log.d(TAG, "场景匹配成功: " + scene.id());
         }
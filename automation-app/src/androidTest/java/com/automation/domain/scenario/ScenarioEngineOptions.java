@@ -8,10 +8,14 @@ public final class ScenarioEngineOptions {
 
     private final String initSceneId;
     private final long noMatchTimeoutMs;
+    private final SceneOverlapAnalysis overlapAnalysis;
+    private final ScenarioStateMachine stateMachine;
 
     private ScenarioEngineOptions(Builder builder) {
         this.initSceneId = builder.initSceneId;
         this.noMatchTimeoutMs = builder.noMatchTimeoutMs;
+        this.overlapAnalysis = builder.overlapAnalysis;
+        this.stateMachine = builder.stateMachine;
     }
 
     public String initSceneId() {
@@ -22,6 +26,20 @@ public final class ScenarioEngineOptions {
         return noMatchTimeoutMs;
     }
 
+    /**
+     * 场景互斥分析结果；为 null 时每轮评估全部活跃场景。
+     */
+    public SceneOverlapAnalysis overlapAnalysis() {
+        return overlapAnalysis;
+    }
+
+    /**
+     * 状态机定义；为 null 时按注册顺序评估全部活跃场景，超时使用 {@link #noMatchTimeoutMs()}。
+     */
+    public ScenarioStateMachine stateMachine() {
+        return stateMachine;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -29,6 +47,8 @@ public final class ScenarioEngineOptions {
     public static final class Builder {
         private String initSceneId;
         private long noMatchTimeoutMs = 30_000L;
+        private SceneOverlapAnalysis overlapAnalysis;
+        private ScenarioStateMachine stateMachine;
 
         private Builder() {
         }
@@ -43,6 +63,16 @@ public final class ScenarioEngineOptions {
             return this;
         }
 
+        public Builder overlapAnalysis(SceneOverlapAnalysis analysis) {
+            this.overlapAnalysis = analysis;
+            return this;
+        }
+
+        public Builder stateMachine(ScenarioStateMachine machine) {
+            this.stateMachine = machine;
+            return this;
+        }
+
         public ScenarioEngineOptions build() {
             return new ScenarioEngineOptions(this);
         }
@@ -0,0 +1,188 @@
+package com.automation.domain.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.UiDevice;
+
+import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.domain.scenario.device.DeviceActions;
+import com.automation.domain.scenario.vision.VisionToolkit;
+import com.automation.infrastructure.system.ScreenshotHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 状态机模式下的引擎行为：按出边切换状态、终止状态结束、ERROR 停留、中断在任意状态生效、按状态计算超时。
+ * <p>
+ * 匹配器与快照均为桩：每个场景执行后切到下一屏，当前屏上列出的场景即视为命中。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScenarioEngineStateMachineTest {
+
+    private final Deque<Set<String>> screens = new ArrayDeque<>();
+    private final List<String> executed = new ArrayList<>();
+    private Set<String> screen = Set.of();
+    private ScenarioContext context;
+    private ScenarioEngine engine;
+
+    @Before
+    public void setUp() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Context appContext = instrumentation.getTargetContext();
+        UiDevice device = UiDevice.getInstance(instrumentation);
+        context = ScenarioContext.builder()
+                .appContext(appContext)
+                .uiDevice(device)
+                .deviceActions(new DeviceActions(device))
+                .visionToolkit(new VisionToolkit(appContext, new ScreenshotHelper(device), () -> null))
+                .build();
+        AccessibilitySnapshot nonEmpty = AccessibilitySnapshot.fromRoot(AccessibilityNodeInfo.obtain());
+        engine = new ScenarioEngine()
+                .pollInterval(10L)
+                .snapshotSource(() -> nonEmpty)
+                .matcher((scene, snapshot, resolver, ctx) -> screen.contains(scene.id()));
+    }
+
+    @Test
+    public void followsTransitionsUntilTerminalState() {
+        screens(Set.of("open_search"), Set.of("open_search", "submit"), Set.of());
+        addScenes("open_search", "submit");
+        ScenarioStateMachine machine = ScenarioStateMachine.builder()
+                .state(state("home", 0L, transition("open_search", "search")))
+                .state(state("search", 0L, transition("submit", "done")))
+                .state(state("done", 0L))
+                .build();
+
+        ScenarioRunResult result = engine.run(context, options(machine, 5000L));
+
+        // 进入 search 后 open_search 仍在屏上，但已不是候选，不会与 submit 冲突
+        assertEquals(ScenarioRunStatus.SUCCESS, result.status());
+        assertEquals("submit", result.lastSceneId());
+        assertEquals(List.of("open_search", "submit"), executed);
+    }
+
+    @Test
+    public void errorKeepsCurrentState() {
+        Set<String> both = Set.of("open_search", "submit");
+        screens(both, both, both, Set.of());
+        engine.addScene(Scene.builder().id("open_search").handler(ctx -> {
+            boolean first = !executed.contains("open_search");
+            advance("open_search");
+            return first ? SceneResult.ERROR : SceneResult.CONTINUE;
+        }).build());
+        addScenes("submit");
+        ScenarioStateMachine machine = ScenarioStateMachine.builder()
+                .state(state("home", 0L, transition("open_search", "search")))
+                .state(state("search", 0L, transition("submit", "done")))
+                .state(state("done", 0L))
+                .build();
+
+        ScenarioRunResult result = engine.run(context, options(machine, 5000L));
+
+        // submit 一直在屏上，若 ERROR 也切换状态，第二轮就会执行 submit
+        assertEquals(ScenarioRunStatus.SUCCESS, result.status());
+        assertEquals(List.of("open_search", "open_search", "submit"), executed);
+    }
+
+    @Test
+    public void interruptsAreCandidatesInEveryState() {
+        screens(Set.of("dismiss_popup"), Set.of("open_search"), Set.of("dismiss_popup"), Set.of("submit"), Set.of());
+        addScenes("open_search", "submit", "dismiss_popup");
+        ScenarioStateMachine machine = ScenarioStateMachine.builder()
+                .state(state("home", 0L, transition("open_search", "search")))
+                .state(state("search", 0L, transition("submit", "done")))
+                .state(state("done", 0L))
+                .interrupt("dismiss_popup")
+                .build();
+
+        ScenarioRunResult result = engine.run(context, options(machine, 5000L));
+
+        assertEquals(ScenarioRunStatus.SUCCESS, result.status());
+        assertEquals(List.of("dismiss_popup", "open_search", "dismiss_popup", "submit"), executed);
+    }
+
+    @Test
+    public void stateTimeoutOverridesNoMatchTimeout() {
+        screens(Set.of("open_search"));
+        addScenes("open_search", "submit");
+        ScenarioStateMachine machine = ScenarioStateMachine.builder()
+                .state(state("home", 0L, transition("open_search", "search")))
+                .state(state("search", 100L, transition("submit", "done")))
+                .state(state("done", 0L))
+                .build();
+
+        long start = System.currentTimeMillis();
+        ScenarioRunResult result = engine.run(context, options(machine, 60_000L));
+
+        assertEquals(ScenarioRunStatus.TIMEOUT, result.status());
+        assertEquals("open_search", result.lastSceneId());
+        assertTrue(System.currentTimeMillis() - start < 10_000L);
+    }
+
+    @Test
+    public void stateWithoutTimeoutFallsBackToNoMatchTimeout() {
+        addScenes("open_search");
+        ScenarioStateMachine machine = ScenarioStateMachine.builder()
+                .state(state("home", 0L, transition("open_search", "done")))
+                .state(state("done", 0L))
+                .build();
+
+        ScenarioRunResult result = engine.run(context, options(machine, 100L));
+
+        assertEquals(ScenarioRunStatus.TIMEOUT, result.status());
+        assertEquals(List.of(), executed);
+    }
+
+    @SafeVarargs
+    private void screens(Set<String>... values) {
+        screens.addAll(Arrays.asList(values));
+        screen = screens.poll();
+    }
+
+    private void advance(String sceneId) {
+        executed.add(sceneId);
+        Set<String> next = screens.poll();
+        screen = next != null ? next : Set.of();
+    }
+
+    private void addScenes(String... ids) {
+        for (String id : ids) {
+            engine.addScene(Scene.builder().id(id).handler(ctx -> {
+                advance(id);
+                return SceneResult.CONTINUE;
+            }).build());
+        }
+    }
+
+    private static ScenarioEngineOptions options(ScenarioStateMachine machine, long noMatchTimeoutMs) {
+        return ScenarioEngineOptions.builder()
+                .noMatchTimeoutMs(noMatchTimeoutMs)
+                .stateMachine(machine)
+                .build();
+    }
+
+    private static ScenarioStateMachine.State state(String id, long timeoutMs,
+            ScenarioStateMachine.Transition... transitions) {
+        return new ScenarioStateMachine.State(id, timeoutMs, List.of(transitions));
+    }
+
+    private static ScenarioStateMachine.Transition transition(String sceneId, String targetState) {
+        return new ScenarioStateMachine.Transition(sceneId, targetState);
+    }
+}
@@ -25,6 +25,10 @@ public final class ScenarioRunResult {
         return new ScenarioRunResult(ScenarioRunStatus.STOPPED, sceneId, null);
     }
 
+    public static ScenarioRunResult cancelled(String sceneId) {
+        return new ScenarioRunResult(ScenarioRunStatus.CANCELLED, sceneId, null);
+    }
+
     public static ScenarioRunResult failed(String sceneId, Throwable error) {
         return new ScenarioRunResult(ScenarioRunStatus.FAILED, sceneId, error);
     }
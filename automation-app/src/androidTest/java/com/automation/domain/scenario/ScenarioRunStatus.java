@@ -14,6 +14,11 @@ public enum ScenarioRunStatus {
      */
     STOPPED,
 
+    /**
+     * 收到 stop_task 取消请求，流程中途退出。
+     */
+    CANCELLED,
+
     /**
      * 执行中出现错误。
      */
@@ -0,0 +1,163 @@
+package com.automation.domain.scenario;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 显式状态机定义：每个状态只评估自身的出边场景与全局中断场景。
+ * <p>
+ * 出边场景命中并执行后切换到目标状态（未指定目标则停留）；中断场景（如各类弹窗）在任意状态都会评估，执行后停留在当前状态。
+ * 没有出边的状态为终止状态，进入即成功结束。每个状态可单独配置无匹配超时。
+ */
+public final class ScenarioStateMachine {
+
+    private final String initialState;
+    private final Map<String, State> states;
+    private final List<String> interrupts;
+
+    private ScenarioStateMachine(Builder builder) {
+        this.initialState = builder.initialState;
+        this.states = Collections.unmodifiableMap(new LinkedHashMap<>(builder.states));
+        this.interrupts = List.copyOf(builder.interrupts);
+    }
+
+    public String initialState() {
+        return initialState;
+    }
+
+    public State state(String id) {
+        return states.get(id);
+    }
+
+    public Map<String, State> states() {
+        return states;
+    }
+
+    public List<String> interrupts() {
+        return interrupts;
+    }
+
+    /**
+     * 状态机引用到的全部场景 id。
+     */
+    public Set<String> sceneIds() {
+        Set<String> ids = new LinkedHashSet<>(interrupts);
+        for (State state : states.values()) {
+            for (Transition transition : state.transitions()) {
+                ids.add(transition.sceneId());
+            }
+        }
+        return ids;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class State {
+        private final String id;
+        private final long timeoutMs;
+        private final List<Transition> transitions;
+
+        public State(String id, long timeoutMs, List<Transition> transitions) {
+            this.id = Objects.requireNonNull(id, "id");
+            this.timeoutMs = timeoutMs;
+            this.transitions = transitions != null ? List.copyOf(transitions) : List.of();
+        }
+
+        public String id() {
+            return id;
+        }
+
+        /**
+         * 状态内无匹配超时，0 表示沿用 {@link ScenarioEngineOptions#noMatchTimeoutMs()}。
+         */
+        public long timeoutMs() {
+            return timeoutMs;
+        }
+
+        public List<Transition> transitions() {
+            return transitions;
+        }
+
+        public boolean isTerminal() {
+            return transitions.isEmpty();
+        }
+    }
+
+    public static final class Transition {
+        private final String sceneId;
+        private final String targetState;
+
+        public Transition(String sceneId, @Nullable String targetState) {
+            this.sceneId = Objects.requireNonNull(sceneId, "sceneId");
+            this.targetState = targetState;
+        }
+
+        public String sceneId() {
+            return sceneId;
+        }
+
+        /**
+         * 目标状态，null 表示执行后停留在当前状态。
+         */
+        @Nullable
+        public String targetState() {
+            return targetState;
+        }
+    }
+
+    public static final class Builder {
+        private String initialState;
+        private final Map<String, State> states = new LinkedHashMap<>();
+        private final List<String> interrupts = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder initialState(String value) {
+            this.initialState = value;
+            return this;
+        }
+
+        public Builder state(State state) {
+            if (states.put(state.id(), state) != null) {
+                throw new IllegalArgumentException("状态 id 重复: " + state.id());
+            }
+            return this;
+        }
+
+        public Builder interrupt(String sceneId) {
+            interrupts.add(Objects.requireNonNull(sceneId, "sceneId"));
+            return this;
+        }
+
+        public ScenarioStateMachine build() {
+            if (states.isEmpty()) {
+                throw new IllegalArgumentException("状态机至少需要一个状态");
+            }
+            if (initialState == null) {
+                initialState = states.keySet().iterator().next();
+            } else if (!states.containsKey(initialState)) {
+                throw new IllegalArgumentException("初始状态不存在: " + initialState);
+            }
+            for (State state : states.values()) {
+                for (Transition transition : state.transitions()) {
+                    String target = transition.targetState();
+                    if (target != null && !states.containsKey(target)) {
+                        throw new IllegalArgumentException("状态 " + state.id() + " 的转移目标不存在: " + target);
+                    }
+                }
+            }
+            return new ScenarioStateMachine(this);
+        }
+    }
+}
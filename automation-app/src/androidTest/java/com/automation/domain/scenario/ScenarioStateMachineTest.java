@@ -0,0 +1,99 @@
+package com.automation.domain.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.automation.domain.scenario.script.ScriptDefinitionParser;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 验证 {@code state_machine} 段的解析与状态机构建时的校验。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScenarioStateMachineTest {
+
+    private static final List<Object> SCENES = List.of(
+            Map.of("id", "open_search"),
+            Map.of("id", "refresh_home"),
+            Map.of("id", "submit"),
+            Map.of("id", "dismiss_popup"),
+            Map.of("id", "open"));
+
+    @Test
+    public void parsesStatesTransitionsAndInterrupts() {
+        ScenarioStateMachine machine = parse(Map.of(
+                "initial", "home",
+                "interrupts", List.of("dismiss_popup"),
+                "states", List.of(
+                        Map.of("id", "home", "transitions", List.of(
+                                Map.of("scene", "open_search", "to", "search"),
+                                "refresh_home")),
+                        Map.of("id", "search", "timeout_ms", "15000", "transitions", List.of(
+                                Map.of("scene", "submit", "to", "done"))),
+                        Map.of("id", "done"))));
+
+        assertEquals("home", machine.initialState());
+        assertEquals(List.of("dismiss_popup"), machine.interrupts());
+        ScenarioStateMachine.State home = machine.state("home");
+        assertEquals(0L, home.timeoutMs());
+        assertEquals(2, home.transitions().size());
+        assertEquals("search", home.transitions().get(0).targetState());
+        assertEquals("refresh_home", home.transitions().get(1).sceneId());
+        assertNull(home.transitions().get(1).targetState());
+        assertEquals(15000L, machine.state("search").timeoutMs());
+        assertFalse(home.isTerminal());
+        assertTrue(machine.state("done").isTerminal());
+    }
+
+    @Test
+    public void missingInitialStateDefaultsToFirstState() {
+        ScenarioStateMachine machine = parse(Map.of("states", List.of(
+                Map.of("id", "list", "transitions", List.of(Map.of("scene", "open", "to", "detail"))),
+                Map.of("id", "detail"))));
+
+        assertEquals("list", machine.initialState());
+    }
+
+    @Test
+    public void rejectsInvalidDefinitions() {
+        assertRejected(Map.of("initial", "home", "states", List.of(Map.of("id", "list"))),
+                "初始状态不存在: home");
+        assertRejected(Map.of("states", List.of(
+                        Map.of("id", "home", "transitions", List.of(Map.of("scene", "open", "to", "detial"))),
+                        Map.of("id", "detail"))),
+                "状态 home 的转移目标不存在: detial");
+        assertRejected(Map.of("states", List.of(Map.of("id", "home"), Map.of("id", "home"))),
+                "状态 id 重复: home");
+        assertRejected(Map.of("states", List.of(Map.of("transitions", List.of("open")))),
+                "状态缺少 id");
+        assertRejected(Map.of("states", List.of(Map.of("id", "home", "transitions", List.of(Map.of("to", "home"))))),
+                "状态 home 的转移缺少 scene");
+        assertRejected(Map.of("initial", "home"), "状态机至少需要一个状态");
+        assertRejected(Map.of("states", List.of(Map.of("id", "home", "transitions", List.of("opne")))),
+                "状态机引用了不存在的场景: opne");
+    }
+
+    private static ScenarioStateMachine parse(Map<String, Object> stateMachine) {
+        return ScriptDefinitionParser.parse("demo", Map.of(),
+                Map.of("scenes", SCENES, "state_machine", stateMachine)).stateMachine();
+    }
+
+    private static void assertRejected(Map<String, Object> stateMachine, String expected) {
+        try {
+            parse(stateMachine);
+            fail("应拒绝: " + stateMachine);
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+}
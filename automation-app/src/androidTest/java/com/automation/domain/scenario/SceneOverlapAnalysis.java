@@ -0,0 +1,210 @@
+package com.automation.domain.scenario;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 场景签名的静态重叠分析：根据必需 / 禁止条件的字面量，证明哪些场景对不可能在同一快照上同时匹配。
+ * <p>
+ * 证明规则：场景 A 每次匹配都必然存在某个元素，而该元素满足场景 B 的 forbidden 条件，则 A、B 互斥。
+ * 选择器蕴含只按字段字面量判断（相同字段相同值，或精确值 / 前缀 / 包含关系可推出另一条件），
+ * 带占位符的值只参与相同字面量比较。无法证明互斥的场景对视为可能重叠，引擎仍需逐一评估。
+ */
+public final class SceneOverlapAnalysis {
+
+    private static final Set<String> STRING_ATTRIBUTES = Set.of(
+            "resourceId", "text", "contentDescription", "className", "packageName");
+
+    private final Map<String, Set<String>> overlaps;
+    private final List<String[]> overlappingPairs;
+
+    private SceneOverlapAnalysis(Map<String, Set<String>> overlaps, List<String[]> overlappingPairs) {
+        this.overlaps = overlaps;
+        this.overlappingPairs = overlappingPairs;
+    }
+
+    /**
+     * @param signatures 按注册顺序排列的场景签名，值为 null 表示无签名场景（总是匹配，与所有场景重叠）
+     */
+    public static SceneOverlapAnalysis analyze(Map<String, SceneSignature> signatures) {
+        Objects.requireNonNull(signatures, "signatures");
+        List<String> ids = new ArrayList<>(signatures.keySet());
+        Map<String, Set<String>> overlaps = new HashMap<>();
+        List<String[]> pairs = new ArrayList<>();
+        for (String id : ids) {
+            overlaps.put(id, new HashSet<>());
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            for (int j = i + 1; j < ids.size(); j++) {
+                String a = ids.get(i);
+                String b = ids.get(j);
+                SceneSignature left = signatures.get(a);
+                SceneSignature right = signatures.get(b);
+                if (left != null && right != null && (excludes(left, right) || excludes(right, left))) {
+                    continue;
+                }
+                overlaps.get(a).add(b);
+                overlaps.get(b).add(a);
+                // 无签名场景与所有场景重叠是设计使然，不作为需要收紧的场景对上报
+                if (left != null && right != null) {
+                    pairs.add(new String[]{a, b});
+                }
+            }
+        }
+        Map<String, Set<String>> frozen = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> entry : overlaps.entrySet()) {
+            frozen.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+        }
+        return new SceneOverlapAnalysis(Collections.unmodifiableMap(frozen), Collections.unmodifiableList(pairs));
+    }
+
+    /**
+     * 两个场景是否已证明互斥；未参与分析的场景一律视为可能重叠。
+     */
+    public boolean disjoint(String first, String second) {
+        Set<String> set = overlaps.get(first);
+        return set != null && overlaps.containsKey(second) && !set.contains(second);
+    }
+
+    /**
+     * 无法证明互斥的有签名场景对，按注册顺序排列，供脚本作者收紧签名。
+     */
+    public List<String[]> overlappingPairs() {
+        return overlappingPairs;
+    }
+
+    /**
+     * A 匹配时必然触发 B 的某个禁止条件。
+     */
+    private static boolean excludes(SceneSignature a, SceneSignature b) {
+        if (!b.forbiddenAny().isEmpty()) {
+            for (SelectorCondition required : a.requiredAll()) {
+                if (impliesAny(required, b.forbiddenAny())) {
+                    return true;
+                }
+            }
+            if (!a.requiredAny().isEmpty()) {
+                boolean every = true;
+                for (SelectorCondition required : a.requiredAny()) {
+                    if (!impliesAny(required, b.forbiddenAny())) {
+                        every = false;
+                        break;
+                    }
+                }
+                if (every) {
+                    return true;
+                }
+            }
+        }
+        if (!b.forbiddenAll().isEmpty() && !a.requiredAll().isEmpty()) {
+            for (SelectorCondition forbidden : b.forbiddenAll()) {
+                boolean covered = false;
+                for (SelectorCondition required : a.requiredAll()) {
+                    if (implies(required, forbidden)) {
+                        covered = true;
+                        break;
+                    }
+                }
+                if (!covered) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean impliesAny(SelectorCondition source, List<SelectorCondition> targets) {
+        for (SelectorCondition target : targets) {
+            if (implies(source, target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 满足 source 的节点是否必然满足 target：target 的每个字段都能由 source 的字段推出。
+     */
+    static boolean implies(SelectorCondition source, SelectorCondition target) {
+        Map<String, Object> from = source.rawConfig();
+        for (Map.Entry<String, Object> entry : target.rawConfig().entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null || "timeout".equals(key)) {
+                continue;
+            }
+            if (!impliesField(from, key, value.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean impliesField(Map<String, Object> from, String key, String expected) {
+        Object same = from.get(key);
+        if (same != null && same.toString().equals(expected)) {
+            return true;
+        }
+        String attribute = attributeOf(key);
+        if (attribute == null || isTemplate(expected)) {
+            return false;
+        }
+        String suffix = key.substring(attribute.length());
+        String exact = literal(from, attribute);
+        if (exact != null) {
+            return switch (suffix) {
+                case "Contains" -> exact.contains(expected);
+                case "StartsWith" -> exact.startsWith(expected);
+                case "Matches" -> fullMatch(expected, exact);
+                default -> false;
+            };
+        }
+        String prefix = literal(from, attribute + "StartsWith");
+        if (prefix != null && (("StartsWith".equals(suffix) && prefix.startsWith(expected))
+                || ("Contains".equals(suffix) && prefix.contains(expected)))) {
+            return true;
+        }
+        String contained = literal(from, attribute + "Contains");
+        return contained != null && "Contains".equals(suffix) && contained.contains(expected);
+    }
+
+    private static String attributeOf(String key) {
+        for (String attribute : STRING_ATTRIBUTES) {
+            if (key.startsWith(attribute)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    private static String literal(Map<String, Object> config, String key) {
+        Object value = config.get(key);
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        return isTemplate(text) ? null : text;
+    }
+
+    private static boolean isTemplate(String value) {
+        return value.indexOf('$') >= 0 && LegacyVariableResolver.PLACEHOLDER_PATTERN.matcher(value).find();
+    }
+
+    private static boolean fullMatch(String regex, String value) {
+        try {
+            return Pattern.compile(regex).matcher(value).matches();
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+}
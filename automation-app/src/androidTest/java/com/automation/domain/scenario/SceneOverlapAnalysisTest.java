@@ -0,0 +1,70 @@
+package com.automation.domain.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 验证场景互斥证明只在字面量可推出时成立。
+ */
+@RunWith(AndroidJUnit4.class)
+public class SceneOverlapAnalysisTest {
+
+    @Test
+    public void requiredElementForbiddenByOtherSceneIsDisjoint() {
+        Map<String, SceneSignature> signatures = new LinkedHashMap<>();
+        signatures.put("dialog", SceneSignature.builder()
+                .requireAll(selector("resourceId", "app:id/btn_ok", "text", "Upgrade"))
+                .build());
+        signatures.put("home", SceneSignature.builder()
+                .requireAll(selector("resourceId", "app:id/tab"))
+                .forbidAny(selector("textStartsWith", "Upg"))
+                .build());
+        signatures.put("search", SceneSignature.builder()
+                .requireAll(selector("resourceId", "app:id/search"))
+                .build());
+
+        SceneOverlapAnalysis analysis = SceneOverlapAnalysis.analyze(signatures);
+
+        assertTrue(analysis.disjoint("dialog", "home"));
+        assertTrue(analysis.disjoint("home", "dialog"));
+        assertFalse(analysis.disjoint("dialog", "search"));
+        assertFalse(analysis.disjoint("home", "search"));
+        assertEquals(2, analysis.overlappingPairs().size());
+    }
+
+    @Test
+    public void placeholdersAndSignatureLessScenesAreNeverProvenDisjoint() {
+        Map<String, SceneSignature> signatures = new LinkedHashMap<>();
+        signatures.put("detail", SceneSignature.builder()
+                .requireAll(selector("text", "${task.keyword}"))
+                .build());
+        signatures.put("list", SceneSignature.builder()
+                .requireAll(selector("resourceId", "app:id/list"))
+                .forbidAny(selector("textContains", "task"))
+                .build());
+        signatures.put("start", null);
+
+        SceneOverlapAnalysis analysis = SceneOverlapAnalysis.analyze(signatures);
+
+        assertFalse(analysis.disjoint("detail", "list"));
+        assertFalse(analysis.disjoint("start", "list"));
+        assertEquals(1, analysis.overlappingPairs().size());
+    }
+
+    private static SelectorCondition selector(String... pairs) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            config.put(pairs[i], pairs[i + 1]);
+        }
+        return SelectorCondition.fromMap(config);
+    }
+}
@@ -1,7 +1,11 @@
 package com.automation.domain.scenario;
 
+import android.util.Log;
+
 import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.domain.scenario.vision.VisionToolkit;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -9,19 +13,24 @@ import java.util.Objects;
 
 /**
  * 场景识别签名，描述当前界面满足/禁止的元素条件。
+ * 视觉条件单独由 {@link #matchesVisual(VisionToolkit, AccessibilitySnapshot, LegacyVariableResolver)} 评估，调用方应在结构条件通过后再调用。
  */
 public final class SceneSignature {
 
+    private static final String TAG = "SceneSignature";
+
     private final List<SelectorCondition> requiredAll;
     private final List<SelectorCondition> requiredAny;
     private final List<SelectorCondition> forbiddenAny;
     private final List<SelectorCondition> forbiddenAll;
+    private final List<VisualCondition> requiredVisuals;
 
     private SceneSignature(Builder builder) {
         this.requiredAll = Collections.unmodifiableList(new ArrayList<>(builder.requiredAll));
         this.requiredAny = Collections.unmodifiableList(new ArrayList<>(builder.requiredAny));
         this.forbiddenAny = Collections.unmodifiableList(new ArrayList<>(builder.forbiddenAny));
         this.forbiddenAll = Collections.unmodifiableList(new ArrayList<>(builder.forbiddenAll));
+        this.requiredVisuals = Collections.unmodifiableList(new ArrayList<>(builder.requiredVisuals));
     }
 
     public boolean matches(AccessibilitySnapshot snapshot, LegacyVariableResolver resolver) {
@@ -72,6 +81,34 @@ public final class SceneSignature {
         return true;
     }
 
+    public boolean hasVisualConditions() {
+        return !requiredVisuals.isEmpty();
+    }
+
+    /**
+     * 评估视觉条件（需要截图），全部命中才返回 true；截图失败视为不匹配。
+     */
+    public boolean matchesVisual(VisionToolkit vision, AccessibilitySnapshot snapshot, LegacyVariableResolver resolver) {
+        if (requiredVisuals.isEmpty()) {
+            return true;
+        }
+        if (vision == null) {
+            return false;
+        }
+        AccessibilitySnapshot current = snapshot != null ? snapshot : AccessibilitySnapshot.empty();
+        try {
+            for (VisualCondition condition : requiredVisuals) {
+                if (!condition.matches(vision, current, resolver)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "视觉签名截图失败", e);
+            return false;
+        }
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -92,12 +129,17 @@ public final class SceneSignature {
         return forbiddenAll;
     }
 
+    public List<VisualCondition> requiredVisuals() {
+        return requiredVisuals;
+    }
+
     public static final class Builder {
         // 通过链式 API 逐步累加不同条件。
         private final List<SelectorCondition> requiredAll = new ArrayList<>();
         private final List<SelectorCondition> requiredAny = new ArrayList<>();
         private final List<SelectorCondition> forbiddenAny = new ArrayList<>();
         private final List<SelectorCondition> forbiddenAll = new ArrayList<>();
+        private final List<VisualCondition> requiredVisuals = new ArrayList<>();
 
         private Builder() {
         }
@@ -142,6 +184,11 @@ public final class SceneSignature {
             return this;
         }
 
+        public Builder requireVisuals(List<? extends VisualCondition> conditions) {
+            requiredVisuals.addAll(conditions);
+            return this;
+        }
+
         public SceneSignature build() {
             return new SceneSignature(this);
         }
@@ -4,15 +4,14 @@ import androidx.annotation.NonNull;
 import androidx.test.uiautomator.By;
 import androidx.test.uiautomator.BySelector;
 import androidx.test.uiautomator.UiDevice;
-import androidx.test.uiautomator.Until;
 
 import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.shared.util.CancellationToken;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -21,6 +20,8 @@ import java.util.regex.Pattern;
  */
 public final class SelectorCondition {
 
+    private static final long WAIT_POLL_MS = 100L;
+
     private final BySelector selector;
     private final long timeoutMs;
 
@@ -125,6 +126,13 @@ public final class SelectorCondition {
         return timeoutMs;
     }
 
+    /**
+     * 构造时使用的原始字段（未替换占位符），供静态分析使用。
+     */
+    public Map<String, Object> rawConfig() {
+        return Collections.unmodifiableMap(rawConfig);
+    }
+
     public boolean matchesNode(AccessibilitySnapshot.Node node) {
         if (resourceId != null && !Objects.equals(resourceId, node.resourceId())) {
             return false;
@@ -230,11 +238,8 @@ public final class SelectorCondition {
             boolean exists = device.hasObject(selector);
             return present == exists;
         }
-        if (present) {
-            return device.wait(Until.hasObject(selector), timeoutMs);
-        } else {
-            return device.wait(Until.gone(selector), timeoutMs);
-        }
+        // 自行轮询代替 UiDevice.wait（其内部休眠不响应取消，且轮询间隔为 1s）
+        return CancellationToken.current().await(() -> device.hasObject(selector) == present, timeoutMs, WAIT_POLL_MS);
     }
 
     public static Builder builder() {
@@ -312,7 +317,7 @@ public final class SelectorCondition {
         for (Map.Entry<String, Object> entry : rawConfig.entrySet()) {
             Object value = entry.getValue();
             Object newValue = value instanceof String
-                    ? replacePlaceholders((String) value, resolver)
+                    ? resolver.interpolate((String) value)
                     : value;
             if (!Objects.equals(value, newValue)) {
                 changed = true;
@@ -326,35 +331,6 @@ public final class SelectorCondition {
         return fromMap(resolved);
     }
 
-    private static String replacePlaceholders(String value, LegacyVariableResolver resolver) {
-        if (value == null || value.indexOf('$') < 0) {
-            return value;
-        }
-        Matcher matcher = LegacyVariableResolver.PLACEHOLDER_PATTERN.matcher(value);
-        if (!matcher.find()) {
-            return value;
-        }
-        StringBuilder sb = new StringBuilder();
-        int last = 0;
-        boolean changed = false;
-        do {
-            String path = matcher.group(1);
-            String replacement = resolver.resolve(path);
-            if (replacement != null) {
-                sb.append(value, last, matcher.start());
-                sb.append(replacement);
-                last = matcher.end();
-                changed = true;
-            }
-        } while (matcher.find());
-
-        if (!changed) {
-            return value;
-        }
-        sb.append(value, last, value.length());
-        return sb.toString();
-    }
-
     public static final class Builder {
         private String resourceId;
         private Pattern resourceIdPattern;
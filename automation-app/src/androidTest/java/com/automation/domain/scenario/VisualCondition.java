@@ -0,0 +1,21 @@
+package com.automation.domain.scenario;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.domain.scenario.vision.VisionToolkit;
+
+import java.io.IOException;
+
+/**
+ * 需要读取屏幕像素的签名条件（图像哈希、区域颜色），代价高于节点匹配。
+ */
+public interface VisualCondition {
+
+    /**
+     * @param resolver 条件中引用节点时用于替换 {@code ${var}} 占位符，可为 null
+     */
+    boolean matches(@NonNull VisionToolkit vision, @NonNull AccessibilitySnapshot snapshot,
+                    @Nullable LegacyVariableResolver resolver) throws IOException;
+}
@@ -13,6 +13,7 @@ import com.automation.domain.scenario.SelectorCondition;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 用于缓存当前窗口的可访问节点树，避免重复获取。
@@ -24,6 +25,9 @@ public final class AccessibilitySnapshot {
 
     private final List<Node> nodes;
     private final Node root;
+    private long fingerprint;
+    /** 快照可能被只读指令与场景线程同时读取，volatile 写保证 fingerprint 随之可见。 */
+    private volatile boolean fingerprintComputed;
 
     private AccessibilitySnapshot(List<Node> nodes, Node root) {
         this.nodes = Collections.unmodifiableList(nodes);
@@ -47,6 +51,13 @@ public final class AccessibilitySnapshot {
             return EMPTY;
         }
 
+        return fromRoot(root);
+    }
+
+    /**
+     * 由已获取的根节点构建快照，根节点为 null 时返回空快照。
+     */
+    public static AccessibilitySnapshot fromRoot(@Nullable AccessibilityNodeInfo root) {
         if (root == null) {
             return EMPTY;
         }
@@ -69,10 +80,42 @@ public final class AccessibilitySnapshot {
         return false;
     }
 
+    /**
+     * 返回首个匹配节点的屏幕边界，未找到时返回 null。
+     */
+    @Nullable
+    public Rect boundsOf(@NonNull SelectorCondition condition) {
+        for (Node node : nodes) {
+            if (condition.matchesNode(node)) {
+                return node.bounds();
+            }
+        }
+        return null;
+    }
+
     public List<Node> nodes() {
         return nodes;
     }
 
+    /**
+     * 节点树的结构指纹（类名、资源 ID、文本与边界），用于判断两次快照是否处于同一 UI 状态。
+     */
+    public long fingerprint() {
+        if (!fingerprintComputed) {
+            long hash = 1125899906842597L;
+            for (Node node : nodes) {
+                hash = 31 * hash + Objects.hashCode(node.className());
+                hash = 31 * hash + Objects.hashCode(node.resourceId());
+                hash = 31 * hash + Objects.hashCode(node.text());
+                hash = 31 * hash + Objects.hashCode(node.bounds());
+            }
+            // 并发时可能重复计算，结果相同，无需加锁
+            fingerprint = hash;
+            fingerprintComputed = true;
+        }
+        return fingerprint;
+    }
+
     @Nullable
     public Node root() {
         return root;
@@ -0,0 +1,559 @@
+package com.automation.domain.scenario.action;
+
+import android.app.UiAutomation;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.UiObject2;
+
+import com.automation.domain.scenario.LegacyVariableResolver;
+import com.automation.domain.scenario.ScenarioContext;
+import com.automation.domain.scenario.SceneHandler;
+import com.automation.domain.scenario.SceneResult;
+import com.automation.domain.scenario.SelectorCondition;
+import com.automation.domain.scenario.accessibility.AccessibilitySnapshot;
+import com.automation.domain.scenario.device.SwipeDirection;
+import com.automation.domain.scenario.vision.VisionToolkit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * scenes.yaml 中场景 {@code actions} 列表的解释器，加载时编译选择器，运行时直接基于引擎已抓取的快照执行。
+ * <p>
+ * 支持 click、input、swipe、back、wait_for、wait_settled、set_var、assert。点击按快照中节点的边界进行，不再查找控件；
+ * 手势之后不做固定休眠，而是在下一个需要快照的步骤前（或列表结束时）等待界面指纹变化，最长 {@link #SETTLE_TIMEOUT_MS}。
+ * 每个步骤可带 {@code optional: true}（失败时跳过）、{@code timeout_ms}（查找 / 等待上限）与 {@code absent: true}
+ * （wait_for / assert 改为判断元素不存在）。任一步骤失败时返回 {@link SceneResult#ERROR}。
+ * <p>
+ * {@code wait_settled} 等待画面像素稳定（图片加载、动画结束），可写 {@code true}（整屏），或映射：
+ * {@code region: [left, top, right, bottom]} 像素区域、{@code target} 以快照中节点边界为区域、
+ * {@code threshold} 平均灰度差阈值、{@code stable_frames} 连续稳定帧数。
+ */
+public final class SceneActionList implements SceneHandler {
+
+    private static final String TAG = "SceneActionList";
+    private static final Set<String> ACTIONS = Set.of(
+            "click", "input", "swipe", "back", "wait_for", "wait_settled", "set_var", "assert");
+    private static final Set<String> MODIFIERS = Set.of("optional", "timeout_ms", "absent");
+    private static final long DEFAULT_TIMEOUT_MS = 3000L;
+    private static final long SETTLE_TIMEOUT_MS = 1500L;
+    private static final long POLL_INTERVAL_MS = 100L;
+
+    private final List<Step> steps;
+
+    private SceneActionList(List<Step> steps) {
+        this.steps = List.copyOf(steps);
+    }
+
+    /**
+     * 编译动作列表。
+     *
+     * @throws IllegalArgumentException 动作名、参数或选择器非法时抛出
+     */
+    public static SceneActionList parse(List<?> raw) {
+        List<Step> steps = new ArrayList<>(raw.size());
+        for (int i = 0; i < raw.size(); i++) {
+            steps.add(parseStep(raw.get(i), "actions[" + i + "]"));
+        }
+        return new SceneActionList(steps);
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    /** 第 index 个步骤的描述，与失败日志中的写法一致。 */
+    String describe(int index) {
+        return steps.get(index).describe();
+    }
+
+    boolean isOptional(int index) {
+        return steps.get(index).optional;
+    }
+
+    /** 第 index 个步骤的查找 / 等待上限，不涉及等待的步骤为 0。 */
+    long timeoutMs(int index) {
+        return steps.get(index).timeoutMs;
+    }
+
+    @Override
+    public SceneResult handle(ScenarioContext context) throws Exception {
+        Run run = new Run(context);
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            if (!step.execute(run)) {
+                if (step.optional) {
+                    Log.d(TAG, "可选动作未完成，跳过: " + step.describe());
+                    continue;
+                }
+                String message = "动作失败: #" + i + " " + step.describe();
+                Log.w(TAG, message);
+                context.getReporter().onInfo(message);
+                run.settle();
+                return SceneResult.ERROR;
+            }
+        }
+        // 结束前等待界面响应，避免引擎下一轮在旧界面上重复命中本场景
+        run.settle();
+        return SceneResult.CONTINUE;
+    }
+
+    private static Step parseStep(Object raw, String where) {
+        if ("back".equals(raw)) {
+            return new Back(false);
+        }
+        if (!(raw instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException(where + ": 动作应为映射或 back");
+        }
+        String action = null;
+        for (Object key : map.keySet()) {
+            String name = String.valueOf(key);
+            if (ACTIONS.contains(name)) {
+                if (action != null) {
+                    throw new IllegalArgumentException(where + ": 每个步骤只能包含一个动作");
+                }
+                action = name;
+            } else if (!MODIFIERS.contains(name)) {
+                throw new IllegalArgumentException(where + ": 未知的动作字段 " + name);
+            }
+        }
+        if (action == null) {
+            throw new IllegalArgumentException(where + ": 缺少动作");
+        }
+        Object value = map.get(action);
+        boolean optional = Boolean.parseBoolean(String.valueOf(map.get("optional")));
+        boolean absent = Boolean.parseBoolean(String.valueOf(map.get("absent")));
+        Object timeout = map.get("timeout_ms");
+        long timeoutMs = timeout instanceof Number number ? number.longValue()
+                : timeout != null ? Long.parseLong(timeout.toString().trim()) : DEFAULT_TIMEOUT_MS;
+        String path = where + "." + action;
+        return switch (action) {
+            case "click" -> new Click(selector(value, path), timeoutMs, optional);
+            case "input" -> {
+                Map<String, Object> input = map(value, path);
+                Object text = input.get("text");
+                if (text == null) {
+                    throw new IllegalArgumentException(path + ": 缺少 text");
+                }
+                yield new Input(selector(input.get("target"), path + ".target"), text.toString(), timeoutMs, optional);
+            }
+            case "swipe" -> parseSwipe(value, path, optional);
+            case "back" -> new Back(optional);
+            case "wait_for" -> new WaitFor(selector(value, path), absent, timeoutMs, optional);
+            case "wait_settled" -> parseWaitSettled(value, path, timeoutMs, optional);
+            case "set_var" -> new SetVar(map(value, path));
+            case "assert" -> new Assert(selector(value, path), absent, optional);
+            default -> throw new IllegalArgumentException(path + ": 未知动作");
+        };
+    }
+
+    private static Step parseSwipe(Object value, String where, boolean optional) {
+        Map<String, Object> config = value instanceof Map<?, ?> ? map(value, where) : Map.of("direction", String.valueOf(value));
+        String direction = String.valueOf(config.get("direction")).toUpperCase(Locale.ROOT);
+        SwipeDirection swipeDirection;
+        try {
+            swipeDirection = SwipeDirection.valueOf(direction);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + ": direction 应为 up/down/left/right");
+        }
+        Object distance = config.get("distance");
+        Object duration = config.get("duration_ms");
+        return new Swipe(swipeDirection,
+                distance != null ? Float.parseFloat(distance.toString()) : 0.6f,
+                duration != null ? (int) Double.parseDouble(duration.toString()) : 300,
+                optional);
+    }
+
+    private static Step parseWaitSettled(Object value, String where, long timeoutMs, boolean optional) {
+        if (value == null || Boolean.TRUE.equals(value)) {
+            return new WaitSettled(null, null, VisionToolkit.DEFAULT_SETTLE_THRESHOLD,
+                    VisionToolkit.DEFAULT_SETTLE_FRAMES, timeoutMs, optional);
+        }
+        Map<String, Object> config = map(value, where);
+        Rect region = null;
+        Object rawRegion = config.get("region");
+        if (rawRegion != null) {
+            if (!(rawRegion instanceof List<?> bounds) || bounds.size() != 4) {
+                throw new IllegalArgumentException(where + ": region 应为 [left, top, right, bottom]");
+            }
+            region = new Rect(toInt(bounds.get(0)), toInt(bounds.get(1)), toInt(bounds.get(2)), toInt(bounds.get(3)));
+        }
+        SelectorCondition target = config.get("target") != null ? selector(config.get("target"), where + ".target") : null;
+        if (region != null && target != null) {
+            throw new IllegalArgumentException(where + ": region 与 target 只能二选一");
+        }
+        Object threshold = config.get("threshold");
+        Object frames = config.get("stable_frames");
+        return new WaitSettled(region, target,
+                threshold != null ? Double.parseDouble(threshold.toString()) : VisionToolkit.DEFAULT_SETTLE_THRESHOLD,
+                frames != null ? toInt(frames) : VisionToolkit.DEFAULT_SETTLE_FRAMES,
+                timeoutMs, optional);
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number number ? number.intValue() : (int) Double.parseDouble(value.toString().trim());
+    }
+
+    private static SelectorCondition selector(Object value, String where) {
+        Map<String, Object> config = map(value, where);
+        try {
+            return SelectorCondition.fromMap(config);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(where + ": 选择器无效 " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Object> map(Object value, String where) {
+        if (!(value instanceof Map<?, ?> raw) || raw.isEmpty()) {
+            throw new IllegalArgumentException(where + ": 应为非空映射");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : raw.entrySet()) {
+            result.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 单次执行的运行状态：当前快照、变量解析器以及是否有未确认生效的手势。
+     */
+    private static final class Run {
+        final ScenarioContext context;
+        final UiAutomation uiAutomation = InstrumentationRegistry.getInstrumentation().getUiAutomation();
+        private LegacyVariableResolver resolver;
+        private boolean pendingGesture;
+        private long fingerprintBeforeGesture;
+
+        Run(ScenarioContext context) {
+            this.context = context;
+        }
+
+        LegacyVariableResolver resolver() {
+            if (resolver == null) {
+                resolver = LegacyVariableResolver.from(context.snapshotData());
+            }
+            return resolver;
+        }
+
+        void invalidateVariables() {
+            resolver = null;
+        }
+
+        SelectorCondition resolve(SelectorCondition condition) {
+            return condition.resolve(resolver());
+        }
+
+        /**
+         * 当前快照；有未确认的手势时先等待界面变化。
+         */
+        AccessibilitySnapshot snapshot() {
+            settle();
+            return context.getSnapshot();
+        }
+
+        void beforeGesture() {
+            if (!pendingGesture) {
+                fingerprintBeforeGesture = context.getSnapshot().fingerprint();
+            }
+        }
+
+        void afterGesture() {
+            pendingGesture = true;
+        }
+
+        void settle() {
+            if (!pendingGesture) {
+                return;
+            }
+            pendingGesture = false;
+            long deadline = SystemClock.elapsedRealtime() + SETTLE_TIMEOUT_MS;
+            AccessibilitySnapshot latest;
+            while (true) {
+                latest = AccessibilitySnapshot.capture(uiAutomation);
+                if (!latest.isEmpty() && latest.fingerprint() != fingerprintBeforeGesture) {
+                    break;
+                }
+                if (SystemClock.elapsedRealtime() >= deadline) {
+                    break;
+                }
+                context.sleep(POLL_INTERVAL_MS);
+            }
+            context.updateSnapshot(latest);
+        }
+
+        /**
+         * 在当前快照中查找节点边界，未找到时重新抓取快照直到超时。
+         */
+        Rect find(SelectorCondition condition, long timeoutMs) {
+            SelectorCondition resolved = resolve(condition);
+            Rect bounds = snapshot().boundsOf(resolved);
+            if (bounds != null) {
+                return bounds;
+            }
+            if (!await(resolved, false, timeoutMs)) {
+                return null;
+            }
+            return context.getSnapshot().boundsOf(resolved);
+        }
+
+        /**
+         * 轮询抓取快照，直到元素出现（或 absent 时消失）。
+         */
+        boolean await(SelectorCondition resolved, boolean absent, long timeoutMs) {
+            pendingGesture = false;
+            long deadline = SystemClock.elapsedRealtime() + timeoutMs;
+            while (true) {
+                AccessibilitySnapshot snapshot = AccessibilitySnapshot.capture(uiAutomation);
+                if (!snapshot.isEmpty() && snapshot.exists(resolved) != absent) {
+                    context.updateSnapshot(snapshot);
+                    return true;
+                }
+                if (SystemClock.elapsedRealtime() >= deadline) {
+                    context.updateSnapshot(snapshot);
+                    return false;
+                }
+                context.sleep(POLL_INTERVAL_MS);
+            }
+        }
+    }
+
+    private abstract static class Step {
+        final boolean optional;
+        final long timeoutMs;
+
+        Step(boolean optional) {
+            this(optional, 0L);
+        }
+
+        Step(boolean optional, long timeoutMs) {
+            this.optional = optional;
+            this.timeoutMs = timeoutMs;
+        }
+
+        abstract boolean execute(Run run) throws Exception;
+
+        abstract String describe();
+    }
+
+    private static final class Click extends Step {
+        private final SelectorCondition target;
+
+        Click(SelectorCondition target, long timeoutMs, boolean optional) {
+            super(optional, timeoutMs);
+            this.target = target;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            Rect bounds = run.find(target, timeoutMs);
+            if (bounds == null) {
+                return false;
+            }
+            run.beforeGesture();
+            boolean clicked = run.context.getDeviceActions().click(bounds);
+            run.afterGesture();
+            return clicked;
+        }
+
+        @Override
+        String describe() {
+            return "click " + target.rawConfig();
+        }
+    }
+
+    private static final class Input extends Step {
+        private final SelectorCondition target;
+        private final String text;
+
+        Input(SelectorCondition target, String text, long timeoutMs, boolean optional) {
+            super(optional, timeoutMs);
+            this.target = target;
+            this.text = text;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            if (run.find(target, timeoutMs) == null) {
+                return false;
+            }
+            // 设置文本需要真实控件，这是动作列表中唯一的控件查找
+            UiObject2 field = run.context.getUiDevice().findObject(run.resolve(target).selector());
+            if (field == null) {
+                return false;
+            }
+            run.beforeGesture();
+            field.setText(run.resolver().interpolate(text));
+            run.afterGesture();
+            return true;
+        }
+
+        @Override
+        String describe() {
+            return "input " + target.rawConfig();
+        }
+    }
+
+    private static final class Swipe extends Step {
+        private final SwipeDirection direction;
+        private final float distance;
+        private final int durationMs;
+
+        Swipe(SwipeDirection direction, float distance, int durationMs, boolean optional) {
+            super(optional);
+            this.direction = direction;
+            this.distance = distance;
+            this.durationMs = durationMs;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            run.beforeGesture();
+            boolean swiped = run.context.getDeviceActions().swipe(direction, distance, durationMs);
+            run.afterGesture();
+            return swiped;
+        }
+
+        @Override
+        String describe() {
+            return "swipe " + direction;
+        }
+    }
+
+    private static final class Back extends Step {
+        Back(boolean optional) {
+            super(optional);
+        }
+
+        @Override
+        boolean execute(Run run) {
+            run.beforeGesture();
+            boolean pressed = run.context.getUiDevice().pressBack();
+            run.afterGesture();
+            return pressed;
+        }
+
+        @Override
+        String describe() {
+            return "back";
+        }
+    }
+
+    private static final class WaitFor extends Step {
+        private final SelectorCondition target;
+        private final boolean absent;
+
+        WaitFor(SelectorCondition target, boolean absent, long timeoutMs, boolean optional) {
+            super(optional, timeoutMs);
+            this.target = target;
+            this.absent = absent;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            SelectorCondition resolved = run.resolve(target);
+            // 刚执行过手势时直接轮询，无需先等待指纹变化
+            if (!run.pendingGesture && run.context.getSnapshot().exists(resolved) != absent) {
+                return true;
+            }
+            return run.await(resolved, absent, timeoutMs);
+        }
+
+        @Override
+        String describe() {
+            return (absent ? "wait_for absent " : "wait_for ") + target.rawConfig();
+        }
+    }
+
+    private static final class WaitSettled extends Step {
+        private final Rect region;
+        private final SelectorCondition target;
+        private final double threshold;
+        private final int stableFrames;
+
+        WaitSettled(Rect region, SelectorCondition target, double threshold, int stableFrames,
+                    long timeoutMs, boolean optional) {
+            super(optional, timeoutMs);
+            this.region = region;
+            this.target = target;
+            this.threshold = threshold;
+            this.stableFrames = stableFrames;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            VisionToolkit vision = run.context.getVisionToolkit();
+            if (vision == null) {
+                return false;
+            }
+            Rect area = region;
+            if (target != null) {
+                area = run.snapshot().boundsOf(run.resolve(target));
+                if (area == null) {
+                    return false;
+                }
+            } else {
+                // 先确认手势已生效，再等待像素稳定
+                run.settle();
+            }
+            return vision.waitForScreenSettled(area, threshold, stableFrames, timeoutMs);
+        }
+
+        @Override
+        String describe() {
+            return "wait_settled " + (target != null ? target.rawConfig() : region != null ? region.toShortString() : "screen");
+        }
+    }
+
+    private static final class SetVar extends Step {
+        private final Map<String, Object> values;
+
+        SetVar(Map<String, Object> values) {
+            super(false);
+            this.values = values;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                Object value = entry.getValue();
+                run.context.put(entry.getKey(),
+                        value instanceof String text ? run.resolver().interpolate(text) : value);
+            }
+            run.invalidateVariables();
+            return true;
+        }
+
+        @Override
+        String describe() {
+            return "set_var " + values.keySet();
+        }
+    }
+
+    private static final class Assert extends Step {
+        private final SelectorCondition target;
+        private final boolean absent;
+
+        Assert(SelectorCondition target, boolean absent, boolean optional) {
+            super(optional);
+            this.target = target;
+            this.absent = absent;
+        }
+
+        @Override
+        boolean execute(Run run) {
+            return run.snapshot().exists(run.resolve(target)) != absent;
+        }
+
+        @Override
+        String describe() {
+            return (absent ? "assert absent " : "assert ") + target.rawConfig();
+        }
+    }
+}
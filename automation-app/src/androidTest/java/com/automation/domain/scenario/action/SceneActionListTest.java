@@ -0,0 +1,95 @@
+package com.automation.domain.scenario.action;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 验证动作列表的语法：各动作与修饰字段的编译结果，以及非法输入带路径的错误信息。
+ */
+@RunWith(AndroidJUnit4.class)
+public class SceneActionListTest {
+
+    private static final Map<String, Object> OK_BUTTON = Map.of("resourceId", "app:id/ok");
+
+    @Test
+    public void compilesEachActionKind() {
+        SceneActionList actions = SceneActionList.parse(List.of(
+                "back",
+                Map.of("click", OK_BUTTON),
+                Map.of("input", Map.of("target", Map.of("resourceId", "app:id/search"), "text", "${keyword}")),
+                Map.of("swipe", "up"),
+                step("swipe", Map.of("direction", "left", "distance", 0.3), "optional", true),
+                step("wait_for", OK_BUTTON, "absent", true, "timeout_ms", 8000),
+                Map.of("wait_settled", true),
+                step("wait_settled", Map.of("region", List.of(0, 100, 720, 900)), "timeout_ms", "2500"),
+                Map.of("set_var", Map.of("stage", "search")),
+                step("assert", Map.of("text", "Cart"), "absent", true, "optional", true)));
+
+        assertEquals(10, actions.size());
+        assertEquals("back", actions.describe(0));
+        assertEquals("click " + OK_BUTTON, actions.describe(1));
+        assertEquals(3000L, actions.timeoutMs(1));
+        assertEquals("input {resourceId=app:id/search}", actions.describe(2));
+        assertEquals("swipe UP", actions.describe(3));
+        assertEquals("swipe LEFT", actions.describe(4));
+        assertTrue(actions.isOptional(4));
+        assertEquals("wait_for absent " + OK_BUTTON, actions.describe(5));
+        assertEquals(8000L, actions.timeoutMs(5));
+        assertFalse(actions.isOptional(5));
+        assertEquals("wait_settled screen", actions.describe(6));
+        assertEquals("wait_settled [0,100][720,900]", actions.describe(7));
+        assertEquals(2500L, actions.timeoutMs(7));
+        assertEquals("set_var [stage]", actions.describe(8));
+        assertEquals("assert absent {text=Cart}", actions.describe(9));
+        assertTrue(actions.isOptional(9));
+    }
+
+    @Test
+    public void rejectsMalformedStepsWithPath() {
+        assertRejected("jump", "actions[1]: 动作应为映射或 back");
+        assertRejected(Map.of("click", OK_BUTTON, "back", true), "actions[1]: 每个步骤只能包含一个动作");
+        assertRejected(Map.of("clik", OK_BUTTON), "actions[1]: 未知的动作字段 clik");
+        assertRejected(Map.of("optional", true), "actions[1]: 缺少动作");
+        assertRejected(Map.of("click", Map.of()), "actions[1].click: 应为非空映射");
+        assertRejected(Map.of("click", Map.of("textMatches", "(")), "actions[1].click: 选择器无效");
+        assertRejected(Map.of("input", Map.of("target", OK_BUTTON)), "actions[1].input: 缺少 text");
+        assertRejected(Map.of("input", Map.of("target", "ok", "text", "x")), "actions[1].input.target: 应为非空映射");
+        assertRejected(Map.of("swipe", "sideways"), "actions[1].swipe: direction 应为 up/down/left/right");
+        assertRejected(Map.of("wait_settled", Map.of("region", List.of(0, 0, 10))),
+                "actions[1].wait_settled: region 应为 [left, top, right, bottom]");
+        assertRejected(Map.of("wait_settled", Map.of("region", List.of(0, 0, 10, 10), "target", OK_BUTTON)),
+                "actions[1].wait_settled: region 与 target 只能二选一");
+        assertRejected(Map.of("wait_settled", Map.of("target", Map.of("textMatches", "["))),
+                "actions[1].wait_settled.target: 选择器无效");
+    }
+
+    private static void assertRejected(Object step, String expectedPrefix) {
+        try {
+            SceneActionList.parse(List.of("back", step));
+            fail("应拒绝: " + step);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(expectedPrefix));
+        }
+    }
+
+    /** 按书写顺序构造步骤，便于检查修饰字段与动作名的组合。 */
+    private static Map<String, Object> step(String action, Object value, Object... modifiers) {
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put(action, value);
+        for (int i = 0; i < modifiers.length; i += 2) {
+            step.put((String) modifiers[i], modifiers[i + 1]);
+        }
+        return step;
+    }
+}
@@ -8,31 +8,50 @@ import androidx.annotation.NonNull;
 import androidx.test.uiautomator.BySelector;
 import androidx.test.uiautomator.UiDevice;
 import androidx.test.uiautomator.UiObject2;
-import androidx.test.uiautomator.Until;
 
 import com.automation.domain.scenario.SelectorCondition;
+import com.automation.shared.util.CancellationToken;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 基于 UiDevice 的操作工具，提供模拟真人的点击与滑动。
+ * <p>
+ * 手势下发前检查当前线程绑定的 {@link CancellationToken}，任务已停止时抛出
+ * {@link java.util.concurrent.CancellationException}；等待控件时按令牌轮询，停止后立即返回。
  */
 public final class DeviceActions {
 
     private static final String TAG = "DeviceActions";
     private static final int DEFAULT_WAIT_MS = 1200;
+    private static final long WAIT_POLL_MS = 100L;
 
     private final UiDevice device;
     private final Random random = new Random();
+    private final List<GestureListener> gestureListeners = new CopyOnWriteArrayList<>();
 
     public DeviceActions(@NonNull UiDevice device) {
         this.device = Objects.requireNonNull(device, "device");
     }
 
+    /**
+     * 注册手势回调，每次点击/长按/滑动下发后触发（无论成功与否），用于失效依赖屏幕内容的缓存。
+     */
+    public void addGestureListener(@NonNull GestureListener listener) {
+        gestureListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeGestureListener(GestureListener listener) {
+        gestureListeners.remove(listener);
+    }
+
     public boolean click(int x, int y) {
+        CancellationToken.current().throwIfCancelled();
         Point jitter = applyJitter(new Point(x, y), 6, 18);
-        return device.click(jitter.x, jitter.y);
+        return afterGesture(device.click(jitter.x, jitter.y));
     }
 
     public boolean click(@NonNull SelectorCondition condition) {
@@ -47,7 +66,17 @@ public final class DeviceActions {
         }
         Rect bounds = target.getVisibleBounds();
         Point point = randomPointIn(bounds);
-        return device.click(point.x, point.y);
+        CancellationToken.current().throwIfCancelled();
+        return afterGesture(device.click(point.x, point.y));
+    }
+
+    /**
+     * 在已知边界（如快照节点）内随机点击，不再查找控件。
+     */
+    public boolean click(@NonNull Rect bounds) {
+        CancellationToken.current().throwIfCancelled();
+        Point point = randomPointIn(bounds);
+        return afterGesture(device.click(point.x, point.y));
     }
 
     public boolean longPress(@NonNull BySelector selector, long durationMs) {
@@ -61,17 +90,19 @@ public final class DeviceActions {
     }
 
     public boolean longPress(int x, int y, long durationMs) {
+        CancellationToken.current().throwIfCancelled();
         int steps = Math.max(15, (int) (durationMs / 8));
         Point p = applyJitter(new Point(x, y), 4, 10);
-        return device.swipe(p.x, p.y, p.x, p.y, steps);
+        return afterGesture(device.swipe(p.x, p.y, p.x, p.y, steps));
     }
 
     public boolean swipe(@NonNull Point start, @NonNull Point end, int durationMs) {
+        CancellationToken.current().throwIfCancelled();
         Point jitterStart = applyJitter(start, 8, 24);
         Point jitterEnd = applyJitter(end, 8, 24);
         Point[] path = buildBezierPath(jitterStart, jitterEnd, 32);
         int steps = Math.max(10, durationMs / 8);
-        return device.swipe(path, steps);
+        return afterGesture(device.swipe(path, steps));
     }
 
     public boolean swipe(@NonNull SwipeDirection direction, float distanceRatio, int durationMs) {
@@ -105,9 +136,29 @@ public final class DeviceActions {
         return condition.isGone(device);
     }
 
+    private boolean afterGesture(boolean result) {
+        for (GestureListener listener : gestureListeners) {
+            try {
+                listener.onGesture();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "手势回调异常", e);
+            }
+        }
+        return result;
+    }
+
     private UiObject2 waitForObject(BySelector selector, long timeoutMs) {
         long wait = timeoutMs > 0 ? timeoutMs : DEFAULT_WAIT_MS;
-        return device.wait(Until.findObject(selector), wait);
+        CancellationToken cancellation = CancellationToken.current();
+        long deadline = System.nanoTime() + wait * 1_000_000L;
+        while (true) {
+            cancellation.throwIfCancelled();
+            UiObject2 target = device.findObject(selector);
+            if (target != null || System.nanoTime() >= deadline) {
+                return target;
+            }
+            cancellation.sleep(WAIT_POLL_MS);
+        }
     }
 
     private Point randomPointIn(Rect bounds) {
@@ -190,4 +241,11 @@ public final class DeviceActions {
     private float clamp(float value, float min, float max) {
         return Math.max(min, Math.min(max, value));
     }
+
+    /**
+     * 手势下发回调。
+     */
+    public interface GestureListener {
+        void onGesture();
+    }
 }
@@ -1,5 +1,10 @@
 package com.automation.domain.scenario.script;
 
+import com.automation.domain.scenario.ScenarioStateMachine;
+import com.automation.domain.scenario.SceneOverlapAnalysis;
+import com.automation.domain.scenario.SceneSignature;
+import com.automation.domain.scenario.vision.VisionProfile;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -19,6 +24,21 @@ public final class ScenarioScript {
     private final List<SceneConfig> scenes;
     private final Map<String, Object> defaultParameters;
     private final List<ScriptParameterSpec> parameterSpecs;
+    private final VisionProfile visionProfile;
+    /** 加载时计算一次，随脚本缓存复用。 */
+    private final SceneOverlapAnalysis sceneOverlaps;
+    private final ScenarioStateMachine stateMachine;
+
+    public ScenarioScript(String name,
+                          String version,
+                          String description,
+                          String initSceneId,
+                          List<SceneConfig> scenes,
+                          Map<String, Object> defaultParameters,
+                          List<ScriptParameterSpec> parameterSpecs,
+                          VisionProfile visionProfile) {
+        this(name, version, description, initSceneId, scenes, defaultParameters, parameterSpecs, visionProfile, null);
+    }
 
     public ScenarioScript(String name,
                           String version,
@@ -26,7 +46,9 @@ public final class ScenarioScript {
                           String initSceneId,
                           List<SceneConfig> scenes,
                           Map<String, Object> defaultParameters,
-                          List<ScriptParameterSpec> parameterSpecs) {
+                          List<ScriptParameterSpec> parameterSpecs,
+                          VisionProfile visionProfile,
+                          ScenarioStateMachine stateMachine) {
         this.name = Objects.requireNonNull(name, "name");
         this.version = version != null ? version : "";
         this.description = description != null ? description : "";
@@ -42,6 +64,20 @@ public final class ScenarioScript {
         this.parameterSpecs = parameterSpecs != null
                 ? Collections.unmodifiableList(new ArrayList<>(parameterSpecs))
                 : Collections.unmodifiableList(new ArrayList<ScriptParameterSpec>());
+        this.visionProfile = visionProfile != null ? visionProfile : VisionProfile.NATIVE;
+        Map<String, SceneSignature> signatures = new LinkedHashMap<>();
+        for (SceneConfig scene : this.scenes) {
+            signatures.put(scene.id(), scene.compiledSignature());
+        }
+        this.sceneOverlaps = SceneOverlapAnalysis.analyze(signatures);
+        if (stateMachine != null) {
+            for (String sceneId : stateMachine.sceneIds()) {
+                if (!signatures.containsKey(sceneId)) {
+                    throw new IllegalArgumentException("状态机引用了不存在的场景: " + sceneId);
+                }
+            }
+        }
+        this.stateMachine = stateMachine;
     }
 
     public String name() {
@@ -71,4 +107,25 @@ public final class ScenarioScript {
     public List<ScriptParameterSpec> parameterSpecs() {
         return parameterSpecs;
     }
+
+    /**
+     * 脚本运行期间使用的视觉采集配置。
+     */
+    public VisionProfile visionProfile() {
+        return visionProfile;
+    }
+
+    /**
+     * 场景签名的静态互斥分析。
+     */
+    public SceneOverlapAnalysis sceneOverlaps() {
+        return sceneOverlaps;
+    }
+
+    /**
+     * scenes.yaml 中 {@code state_machine} 段的定义；未声明时为 null，按场景列表平铺匹配。
+     */
+    public ScenarioStateMachine stateMachine() {
+        return stateMachine;
+    }
 }
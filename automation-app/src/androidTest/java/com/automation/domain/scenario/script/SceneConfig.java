@@ -4,6 +4,7 @@ import com.automation.domain.scenario.Scene;
 import com.automation.domain.scenario.SceneHandler;
 import com.automation.domain.scenario.SceneResult;
 import com.automation.domain.scenario.SceneSignature;
+import com.automation.domain.scenario.action.SceneActionList;
 
 import java.util.Collections;
 import java.util.List;
@@ -17,21 +18,36 @@ public final class SceneConfig {
     private final String id;
     private final String description;
     private final SignatureConfig signature;
+    /** 签名在构造时一次性编译（选择器、正则、视觉条件），同一脚本的多次运行共享。 */
+    private final SceneSignature compiledSignature;
     private final String handlerName;
     private final List<String> pruneScenes;
+    /** 声明式动作列表（scenes.yaml 的 actions），先于 Java 处理器执行。 */
+    private final SceneActionList actions;
 
     public SceneConfig(String id,
                        String description,
                        SignatureConfig signature,
                        String handlerName,
                        List<String> pruneScenes) {
+        this(id, description, signature, handlerName, pruneScenes, null);
+    }
+
+    public SceneConfig(String id,
+                       String description,
+                       SignatureConfig signature,
+                       String handlerName,
+                       List<String> pruneScenes,
+                       SceneActionList actions) {
         this.id = Objects.requireNonNull(id, "id");
         this.description = description != null ? description : "";
         this.signature = signature;
+        this.compiledSignature = signature != null && !signature.isEmpty() ? signature.toSceneSignature() : null;
         this.handlerName = handlerName;
         this.pruneScenes = pruneScenes != null
                 ? Collections.unmodifiableList(pruneScenes)
                 : List.of();
+        this.actions = actions;
     }
 
     public String id() {
@@ -54,18 +70,32 @@ public final class SceneConfig {
         return pruneScenes;
     }
 
+    public SceneSignature compiledSignature() {
+        return compiledSignature;
+    }
+
+    public SceneActionList actions() {
+        return actions;
+    }
+
+    /**
+     * 动作列表与 Java 处理器同时存在时，动作列表先执行，返回 CONTINUE 才继续调用处理器。
+     */
     public Scene toScene(SceneHandler handler) {
-        SceneSignature signatureInstance = null;
-        if (signature != null && !signature.isEmpty()) {
-            signatureInstance = signature.toSceneSignature();
-        }
         SceneHandler targetHandler = handler != null
                 ? handler
                 : context -> SceneResult.CONTINUE;
+        if (actions != null) {
+            SceneHandler javaHandler = handler;
+            targetHandler = context -> {
+                SceneResult result = actions.handle(context);
+                return result == SceneResult.CONTINUE && javaHandler != null ? javaHandler.handle(context) : result;
+            };
+        }
         return Scene.builder()
                 .id(id)
                 .description(description)
-                .signature(signatureInstance)
+                .signature(compiledSignature)
                 .handler(targetHandler)
                 .pruneScenes(pruneScenes)
                 .build();
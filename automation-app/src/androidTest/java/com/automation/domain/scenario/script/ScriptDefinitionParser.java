@@ -0,0 +1,257 @@
+package com.automation.domain.scenario.script;
+
+import com.automation.domain.scenario.ScenarioStateMachine;
+import com.automation.domain.scenario.action.SceneActionList;
+import com.automation.domain.scenario.vision.VisionProfile;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 脚本定义解析：把 YAML 或二进制脚本包读出的 project / scenes 值树转换为 {@link ScenarioScript}。
+ * <p>
+ * 与数据来源无关，assets 与服务端下发的脚本共用同一套转换规则。
+ */
+public final class ScriptDefinitionParser {
+
+    private ScriptDefinitionParser() {
+    }
+
+    /**
+     * 把 project / scenes 两份配置转换为脚本定义。
+     *
+     * @param scriptName 脚本目录名，metadata.name 缺省时作为脚本名称
+     */
+    public static ScenarioScript parse(String scriptName, Map<String, Object> project, Map<String, Object> scenes) {
+        String name = readString(project, List.of("metadata", "name"), scriptName);
+        String version = readString(project, List.of("metadata", "version"), "");
+        String description = readString(project, List.of("metadata", "description"), "");
+        String initSceneId = readString(project, List.of("entry", "init_scene"), null);
+        ParameterDefinitions parameterDefinitions = parseParameterDefinitions(project);
+        VisionProfile visionProfile = VisionProfile.fromMap(safeMap(project.get("vision")));
+
+        List<Map<String, Object>> rawScenes = readList(scenes, "scenes");
+        List<SceneConfig> sceneConfigs = new ArrayList<>(rawScenes.size());
+        for (Map<String, Object> raw : rawScenes) {
+            sceneConfigs.add(parseScene(raw));
+        }
+
+        return new ScenarioScript(
+                name,
+                version,
+                description,
+                initSceneId,
+                sceneConfigs,
+                parameterDefinitions.defaults,
+                parameterDefinitions.specs,
+                visionProfile,
+                parseStateMachine(safeMap(scenes.get("state_machine")))
+        );
+    }
+
+    /**
+     * YAML 文档根节点转换为字符串键的 Map，根节点不是 Map 时返回空 Map。
+     */
+    public static Map<String, Object> rootMap(Object document) {
+        Map<String, Object> map = safeMap(document);
+        return map != null ? map : Map.of();
+    }
+
+    /**
+     * 解析 {@code state_machine} 段：initial、interrupts 与 states（每个状态含 id、可选 timeout_ms 与 transitions）。
+     * 转移写作 {@code {scene: <场景>, to: <状态>}}，省略 to 或直接写场景 id 表示停留在当前状态。
+     */
+    private static ScenarioStateMachine parseStateMachine(Map<String, Object> raw) {
+        if (raw == null) {
+            return null;
+        }
+        ScenarioStateMachine.Builder builder = ScenarioStateMachine.builder();
+        Object initial = raw.get("initial");
+        if (initial != null) {
+            builder.initialState(initial.toString());
+        }
+        for (String sceneId : readStringList(raw, "interrupts")) {
+            builder.interrupt(sceneId);
+        }
+        for (Map<String, Object> state : readList(raw, "states")) {
+            Object id = state.get("id");
+            if (id == null) {
+                throw new IllegalArgumentException("状态缺少 id");
+            }
+            List<ScenarioStateMachine.Transition> transitions = new ArrayList<>();
+            Object rawTransitions = state.get("transitions");
+            if (rawTransitions instanceof List<?> list) {
+                for (Object item : list) {
+                    Map<String, Object> transition = safeMap(item);
+                    if (transition == null) {
+                        if (item != null) {
+                            transitions.add(new ScenarioStateMachine.Transition(item.toString(), null));
+                        }
+                        continue;
+                    }
+                    Object scene = transition.get("scene");
+                    if (scene == null) {
+                        throw new IllegalArgumentException("状态 " + id + " 的转移缺少 scene");
+                    }
+                    Object target = transition.get("to");
+                    transitions.add(new ScenarioStateMachine.Transition(
+                            scene.toString(), target != null ? target.toString() : null));
+                }
+            }
+            Object timeout = state.get("timeout_ms");
+            long timeoutMs = timeout instanceof Number number ? number.longValue()
+                    : timeout != null ? Long.parseLong(timeout.toString().trim()) : 0L;
+            builder.state(new ScenarioStateMachine.State(id.toString(), timeoutMs, transitions));
+        }
+        return builder.build();
+    }
+
+    private static SceneConfig parseScene(Map<String, Object> raw) {
+        String id = (String) raw.get("id");
+        String description = (String) raw.getOrDefault("description", "");
+        Map<String, Object> signatureMap = safeMap(raw.get("signature"));
+        SignatureConfig signatureConfig = null;
+        if (signatureMap != null && !signatureMap.isEmpty()) {
+            signatureConfig = new SignatureConfig(
+                    readSelectorList(signatureMap, "required_all"),
+                    readSelectorList(signatureMap, "required_any"),
+                    readSelectorList(signatureMap, "forbidden_any"),
+                    readSelectorList(signatureMap, "forbidden_all"),
+                    readSelectorList(signatureMap, "required_images"),
+                    readSelectorList(signatureMap, "required_colors")
+            );
+        }
+        String handlerName = raw.get("handler") instanceof String handler ? handler : null;
+        List<String> pruneScenes = readStringList(raw, "del_scenes");
+        SceneActionList actions = null;
+        if (raw.get("actions") instanceof List<?> actionList && !actionList.isEmpty()) {
+            try {
+                actions = SceneActionList.parse(actionList);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("场景 " + id + " 的 " + e.getMessage(), e);
+            }
+        }
+        return new SceneConfig(id, description, signatureConfig, handlerName, pruneScenes, actions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> safeMap(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (entry.getKey() != null) {
+                    result.put(entry.getKey().toString(), entry.getValue());
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+
+    private static List<Map<String, Object>> readSelectorList(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            List<Map<String, Object>> result = new ArrayList<>(list.size());
+            for (Object item : list) {
+                Map<String, Object> selector = safeMap(item);
+                if (selector != null && !selector.isEmpty()) {
+                    result.add(selector);
+                }
+            }
+            return result;
+        }
+        Map<String, Object> selector = safeMap(value);
+        if (selector != null && !selector.isEmpty()) {
+            return List.of(selector);
+        }
+        return List.of();
+    }
+
+    private static List<String> readStringList(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            List<String> result = new ArrayList<>(list.size());
+            for (Object item : list) {
+                if (item != null) {
+                    result.add(item.toString());
+                }
+            }
+            return result;
+        }
+        return List.of(value.toString());
+    }
+
+    private static ParameterDefinitions parseParameterDefinitions(Map<String, Object> project) {
+        Map<String, Object> parameters = safeMap(project.get("parameters"));
+        if (parameters == null) {
+            return new ParameterDefinitions();
+        }
+        ParameterDefinitions definitions = new ParameterDefinitions();
+        collectParameterDefinitions(parameters.get("required"), true, definitions);
+        collectParameterDefinitions(parameters.get("optional"), false, definitions);
+        return definitions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void collectParameterDefinitions(Object value, boolean required, ParameterDefinitions target) {
+        if (!(value instanceof List<?> list)) {
+            return;
+        }
+        for (Object item : list) {
+            if (!(item instanceof Map<?, ?> map)) {
+                continue;
+            }
+            Object name = map.get("name");
+            if (name == null) {
+                continue;
+            }
+            String paramName = name.toString();
+            String type = map.get("type") != null ? map.get("type").toString() : null;
+            String description = map.get("description") != null ? map.get("description").toString() : null;
+            Object defaultValue = map.get("default");
+            if (defaultValue != null) {
+                target.defaults.put(paramName, defaultValue);
+            }
+            target.specs.add(new ScriptParameterSpec(paramName, type, description, required, defaultValue));
+        }
+    }
+
+    private static final class ParameterDefinitions {
+        final Map<String, Object> defaults = new LinkedHashMap<>();
+        final List<ScriptParameterSpec> specs = new ArrayList<>();
+    }
+
+    private static List<Map<String, Object>> readList(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof List<?> list) {
+            List<Map<String, Object>> result = new ArrayList<>(list.size());
+            for (Object item : list) {
+                Map<String, Object> entry = safeMap(item);
+                if (entry != null) {
+                    result.add(entry);
+                }
+            }
+            return result;
+        }
+        return List.of();
+    }
+
+    private static String readString(Map<String, Object> root, List<String> path, String defaultValue) {
+        Object current = root;
+        for (String key : path) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return defaultValue;
+            }
+            current = map.get(key);
+        }
+        return current != null ? current.toString() : defaultValue;
+    }
+}
@@ -26,4 +26,15 @@ public interface ScriptRepository {
     default List<String> listScriptNames() throws IOException {
         return List.of();
     }
+
+    /**
+     * 脚本内容摘要，内容不变时摘要不变，用于判断已编译的脚本能否复用。
+     *
+     * @param scriptName 脚本名称
+     * @return 摘要；返回 null 表示不支持缓存，每次都重新加载
+     * @throws IOException 读取失败时抛出
+     */
+    default String contentHash(String scriptName) throws IOException {
+        return null;
+    }
 }
@@ -1,5 +1,7 @@
 package com.automation.domain.scenario.script;
 
+import com.automation.domain.scenario.ImageHashCondition;
+import com.automation.domain.scenario.RegionColorCondition;
 import com.automation.domain.scenario.SceneSignature;
 import com.automation.domain.scenario.SelectorCondition;
 
@@ -17,15 +19,21 @@ public final class SignatureConfig {
     private final List<Map<String, Object>> requiredAny;
     private final List<Map<String, Object>> forbiddenAny;
     private final List<Map<String, Object>> forbiddenAll;
+    private final List<Map<String, Object>> requiredImages;
+    private final List<Map<String, Object>> requiredColors;
 
     public SignatureConfig(List<Map<String, Object>> requiredAll,
                            List<Map<String, Object>> requiredAny,
                            List<Map<String, Object>> forbiddenAny,
-                           List<Map<String, Object>> forbiddenAll) {
+                           List<Map<String, Object>> forbiddenAll,
+                           List<Map<String, Object>> requiredImages,
+                           List<Map<String, Object>> requiredColors) {
         this.requiredAll = wrap(requiredAll);
         this.requiredAny = wrap(requiredAny);
         this.forbiddenAny = wrap(forbiddenAny);
         this.forbiddenAll = wrap(forbiddenAll);
+        this.requiredImages = wrap(requiredImages);
+        this.requiredColors = wrap(requiredColors);
     }
 
     private static List<Map<String, Object>> wrap(List<Map<String, Object>> source) {
@@ -34,7 +42,8 @@ public final class SignatureConfig {
 
     public boolean isEmpty() {
         return requiredAll.isEmpty() && requiredAny.isEmpty()
-                && forbiddenAny.isEmpty() && forbiddenAll.isEmpty();
+                && forbiddenAny.isEmpty() && forbiddenAll.isEmpty() && requiredImages.isEmpty()
+                && requiredColors.isEmpty();
     }
 
     public SceneSignature toSceneSignature() {
@@ -51,6 +60,20 @@ public final class SignatureConfig {
         if (!forbiddenAll.isEmpty()) {
             builder.forbidAll(toConditions(forbiddenAll));
         }
+        if (!requiredImages.isEmpty()) {
+            List<ImageHashCondition> images = new ArrayList<>(requiredImages.size());
+            for (Map<String, Object> config : requiredImages) {
+                images.add(ImageHashCondition.fromMap(config));
+            }
+            builder.requireVisuals(images);
+        }
+        if (!requiredColors.isEmpty()) {
+            List<RegionColorCondition> colors = new ArrayList<>(requiredColors.size());
+            for (Map<String, Object> config : requiredColors) {
+                colors.add(RegionColorCondition.fromMap(config));
+            }
+            builder.requireVisuals(colors);
+        }
         return builder.build();
     }
 
@@ -0,0 +1,35 @@
+package com.automation.domain.scenario.script.bundle;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 从脚本包读出的 project 与 scenes 两份配置，结构与 YAML 解析结果相同。
+ */
+public final class ScriptBundle {
+
+    private final String sourceHash;
+    private final Map<String, Object> project;
+    private final Map<String, Object> scenes;
+
+    ScriptBundle(String sourceHash, Map<String, Object> project, Map<String, Object> scenes) {
+        this.sourceHash = sourceHash;
+        this.project = Collections.unmodifiableMap(project);
+        this.scenes = Collections.unmodifiableMap(scenes);
+    }
+
+    /**
+     * 生成脚本包时 YAML 源文件的摘要，见 {@link ScriptBundleFormat#sourceHash}。
+     */
+    public String sourceHash() {
+        return sourceHash;
+    }
+
+    public Map<String, Object> project() {
+        return project;
+    }
+
+    public Map<String, Object> scenes() {
+        return scenes;
+    }
+}
@@ -0,0 +1,602 @@
+package com.automation.domain.scenario.script.bundle;
+
+import com.automation.domain.scenario.vision.VisionProfile;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 构建期脚本编译器：校验 assets/scripts 下每个脚本的 project.yaml 与 scenes.yaml，
+ * 并在输出目录生成同名子目录下的 {@value ScriptBundleFormat#FILE_NAME}。
+ * <p>
+ * 由 automation-app 的 {@code compileScriptBundles} 任务经 script-compiler 模块在桌面 JVM 上调用，
+ * 不依赖 android.*。任一脚本存在错误时列出全部错误并以失败退出，配置问题在构建时即可发现。
+ */
+public final class ScriptBundleCompiler {
+
+    private static final Set<String> SIGNATURE_SELECTOR_KEYS = Set.of(
+            "required_all", "required_any", "forbidden_any", "forbidden_all");
+    private static final Set<String> SIGNATURE_KEYS = Set.of(
+            "required_all", "required_any", "forbidden_any", "forbidden_all", "required_images", "required_colors");
+    private static final Set<String> HASH_ALGORITHMS = Set.of("phash", "p", "dhash", "d");
+    private static final Set<String> ACTION_NAMES = Set.of(
+            "click", "input", "swipe", "back", "wait_for", "wait_settled", "set_var", "assert");
+    private static final Set<String> ACTION_MODIFIERS = Set.of("optional", "timeout_ms", "absent");
+    private static final Set<String> SWIPE_DIRECTIONS = Set.of("up", "down", "left", "right");
+    private static final Pattern HEX_HASH = Pattern.compile("(0[xX])?[0-9a-fA-F]{1,16}");
+    private static final Pattern HEX_COLOR = Pattern.compile("#?[0-9a-fA-F]{6}");
+
+    private final List<String> errors = new ArrayList<>();
+    private String location;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("用法: ScriptBundleCompiler <scripts 目录> <输出目录>");
+        }
+        File scriptsDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        File[] scripts = scriptsDir.listFiles(file -> new File(file, "project.yaml").isFile());
+        if (scripts == null) {
+            throw new IOException("脚本目录不存在: " + scriptsDir);
+        }
+        Arrays.sort(scripts);
+        List<String> errors = new ArrayList<>();
+        for (File script : scripts) {
+            ScriptBundleCompiler compiler = new ScriptBundleCompiler();
+            byte[] bundle = compiler.compile(script.getName(),
+                    Files.readAllBytes(new File(script, "project.yaml").toPath()),
+                    Files.readAllBytes(new File(script, "scenes.yaml").toPath()));
+            if (bundle == null) {
+                errors.addAll(compiler.errors());
+                continue;
+            }
+            File target = new File(new File(outputDir, script.getName()), ScriptBundleFormat.FILE_NAME);
+            if (!target.getParentFile().isDirectory() && !target.getParentFile().mkdirs()) {
+                throw new IOException("无法创建输出目录: " + target.getParentFile());
+            }
+            try (OutputStream out = new FileOutputStream(target)) {
+                out.write(bundle);
+            }
+            System.out.println("脚本包: " + script.getName() + " -> " + target + " (" + bundle.length + " bytes)");
+        }
+        if (!errors.isEmpty()) {
+            for (String error : errors) {
+                System.err.println("脚本校验失败: " + error);
+            }
+            throw new IllegalStateException("脚本校验失败，共 " + errors.size() + " 处错误");
+        }
+    }
+
+    /**
+     * 校验并编译单个脚本。
+     *
+     * @return 脚本包字节；存在校验错误时返回 null，错误见 {@link #errors()}
+     */
+    public byte[] compile(String scriptName, byte[] projectYaml, byte[] scenesYaml) throws IOException {
+        errors.clear();
+        String sourceHash = ScriptBundleFormat.sourceHash(
+                new ByteArrayInputStream(projectYaml), new ByteArrayInputStream(scenesYaml));
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+        location = scriptName + "/project.yaml";
+        Map<String, Object> project = asMap(yaml.load(new ByteArrayInputStream(projectYaml)), "根节点");
+        location = scriptName + "/scenes.yaml";
+        Map<String, Object> scenes = asMap(yaml.load(new ByteArrayInputStream(scenesYaml)), "根节点");
+        if (project == null || scenes == null) {
+            if (errors.isEmpty()) {
+                errors.add(scriptName + ": project.yaml 或 scenes.yaml 为空");
+            }
+            return null;
+        }
+        Map<String, Object> compiledScenes = compileScenes(scenes);
+        location = scriptName + "/project.yaml";
+        validateProject(project, compiledScenes);
+        if (!errors.isEmpty()) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ScriptBundleWriter().write(out, sourceHash, project, compiledScenes);
+        return out.toByteArray();
+    }
+
+    public List<String> errors() {
+        return List.copyOf(errors);
+    }
+
+    private void validateProject(Map<String, Object> project, Map<String, Object> compiledScenes) {
+        Set<String> sceneIds = sceneIds(compiledScenes);
+        if (project.get("entry") instanceof Map<?, ?> entry && entry.get("init_scene") != null) {
+            String initScene = entry.get("init_scene").toString();
+            if (!sceneIds.contains(initScene)) {
+                error("entry.init_scene", "引用了不存在的场景 " + initScene);
+            }
+        }
+        Map<String, Object> vision = asMap(project.get("vision"), "vision");
+        if (vision != null) {
+            try {
+                VisionProfile.fromMap(vision);
+            } catch (IllegalArgumentException e) {
+                error("vision", e.getMessage());
+            }
+        }
+        Map<String, Object> parameters = asMap(project.get("parameters"), "parameters");
+        if (parameters == null) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        for (String group : List.of("required", "optional")) {
+            Object value = parameters.get(group);
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof List<?> list)) {
+                error("parameters." + group, "应为列表");
+                continue;
+            }
+            for (int i = 0; i < list.size(); i++) {
+                String where = "parameters." + group + "[" + i + "]";
+                Map<String, Object> spec = asMap(list.get(i), where);
+                if (spec == null) {
+                    continue;
+                }
+                Object name = spec.get("name");
+                if (name == null || name.toString().isBlank()) {
+                    error(where, "缺少 name");
+                } else if (!names.add(name.toString())) {
+                    error(where, "参数名重复: " + name);
+                }
+            }
+        }
+    }
+
+    private Map<String, Object> compileScenes(Map<String, Object> root) {
+        Map<String, Object> result = new LinkedHashMap<>(root);
+        Object value = root.get("scenes");
+        if (!(value instanceof List<?> list)) {
+            error("scenes", "缺少场景列表");
+            return result;
+        }
+        List<Object> scenes = new ArrayList<>(list.size());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            Map<String, Object> scene = asMap(list.get(i), "scenes[" + i + "]");
+            if (scene == null) {
+                continue;
+            }
+            Object id = scene.get("id");
+            String where = id instanceof String text ? "场景 " + text : "scenes[" + i + "]";
+            if (!(id instanceof String text) || text.isBlank()) {
+                error(where, "缺少字符串类型的 id");
+            } else if (!ids.add(text)) {
+                error(where, "场景 id 重复");
+            }
+            for (String key : List.of("description", "handler")) {
+                if (scene.get(key) != null && !(scene.get(key) instanceof String)) {
+                    error(where + " " + key, "应为字符串");
+                }
+            }
+            Map<String, Object> compiled = new LinkedHashMap<>(scene);
+            if (scene.get("signature") != null) {
+                compiled.put("signature", compileSignature(scene.get("signature"), where + " signature"));
+            }
+            if (scene.get("actions") != null) {
+                compiled.put("actions", compileActions(scene.get("actions"), where + " actions"));
+            }
+            scenes.add(compiled);
+        }
+        for (Object scene : scenes) {
+            Map<?, ?> map = (Map<?, ?>) scene;
+            if (map.get("del_scenes") instanceof List<?> pruned) {
+                for (Object target : pruned) {
+                    if (target != null && !ids.contains(target.toString())) {
+                        error("场景 " + map.get("id") + " del_scenes", "引用了不存在的场景 " + target);
+                    }
+                }
+            }
+        }
+        result.put("scenes", scenes);
+        validateStateMachine(root.get("state_machine"), ids);
+        return result;
+    }
+
+    private void validateStateMachine(Object raw, Set<String> sceneIds) {
+        Map<String, Object> machine = asMap(raw, "state_machine");
+        if (machine == null) {
+            return;
+        }
+        for (Object interrupt : asList(machine.get("interrupts"))) {
+            if (interrupt == null || !sceneIds.contains(interrupt.toString())) {
+                error("state_machine.interrupts", "引用了不存在的场景 " + interrupt);
+            }
+        }
+        if (!(machine.get("states") instanceof List<?> states) || states.isEmpty()) {
+            error("state_machine.states", "缺少状态列表");
+            return;
+        }
+        Set<String> stateIds = new LinkedHashSet<>();
+        List<Object[]> targets = new ArrayList<>();
+        for (int i = 0; i < states.size(); i++) {
+            Map<String, Object> state = asMap(states.get(i), "state_machine.states[" + i + "]");
+            if (state == null) {
+                continue;
+            }
+            Object id = state.get("id");
+            String where = id != null ? "状态 " + id : "state_machine.states[" + i + "]";
+            if (id == null || id.toString().isBlank()) {
+                error(where, "缺少 id");
+            } else if (!stateIds.add(id.toString())) {
+                error(where, "状态 id 重复");
+            }
+            Object timeout = state.get("timeout_ms");
+            if (timeout != null && (!isNumber(timeout) || toDouble(timeout) < 0)) {
+                error(where + " timeout_ms", "应为非负数");
+            }
+            Object transitions = state.get("transitions");
+            if (transitions != null && !(transitions instanceof List<?>)) {
+                error(where + " transitions", "应为列表");
+                continue;
+            }
+            for (Object item : asList(transitions)) {
+                Object scene = item instanceof Map<?, ?> map ? map.get("scene") : item;
+                if (scene == null || !sceneIds.contains(scene.toString())) {
+                    error(where + " transitions", "引用了不存在的场景 " + scene);
+                }
+                if (item instanceof Map<?, ?> map && map.get("to") != null) {
+                    targets.add(new Object[]{where, map.get("to").toString()});
+                }
+            }
+        }
+        for (Object[] target : targets) {
+            if (!stateIds.contains((String) target[1])) {
+                error(target[0] + " transitions", "转移目标状态不存在 " + target[1]);
+            }
+        }
+        Object initial = machine.get("initial");
+        if (initial != null && !stateIds.contains(initial.toString())) {
+            error("state_machine.initial", "引用了不存在的状态 " + initial);
+        }
+    }
+
+    /**
+     * 校验动作列表并按键表编码其中的选择器，规则与设备端 {@code SceneActionList.parse} 一致。
+     */
+    private List<Object> compileActions(Object raw, String where) {
+        if (!(raw instanceof List<?> list)) {
+            error(where, "应为列表");
+            return List.of();
+        }
+        List<Object> result = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            String itemPath = where + "[" + i + "]";
+            Object item = list.get(i);
+            if ("back".equals(item)) {
+                result.add(item);
+                continue;
+            }
+            Map<String, Object> step = asMap(item, itemPath);
+            if (step == null) {
+                continue;
+            }
+            String action = null;
+            for (String key : step.keySet()) {
+                if (ACTION_NAMES.contains(key)) {
+                    if (action != null) {
+                        error(itemPath, "每个步骤只能包含一个动作");
+                    }
+                    action = key;
+                } else if (!ACTION_MODIFIERS.contains(key)) {
+                    error(itemPath, "未知的动作字段 " + key);
+                }
+            }
+            if (action == null) {
+                error(itemPath, "缺少动作");
+                continue;
+            }
+            if (step.get("timeout_ms") != null && !isNumber(step.get("timeout_ms"))) {
+                error(itemPath + ".timeout_ms", "应为毫秒数");
+            }
+            Map<String, Object> compiled = new LinkedHashMap<>(step);
+            String actionPath = itemPath + "." + action;
+            Object value = step.get(action);
+            switch (action) {
+                case "click", "wait_for", "assert" -> compiled.put(action, tokenizeSelector(value, actionPath));
+                case "input" -> {
+                    Map<String, Object> input = asMap(value, actionPath);
+                    if (input == null) {
+                        error(actionPath, "缺少 target 与 text");
+                        break;
+                    }
+                    for (String key : List.of("target", "text")) {
+                        if (input.get(key) == null) {
+                            error(actionPath, "缺少 " + key);
+                        }
+                    }
+                    Map<String, Object> compiledInput = new LinkedHashMap<>(input);
+                    compiledInput.put("target", tokenizeSelector(input.get("target"), actionPath + ".target"));
+                    compiled.put(action, compiledInput);
+                }
+                case "swipe" -> {
+                    Map<String, Object> swipe = value instanceof Map<?, ?> ? asMap(value, actionPath) : null;
+                    Object direction = swipe != null ? swipe.get("direction") : value;
+                    if (direction == null || !SWIPE_DIRECTIONS.contains(direction.toString().toLowerCase(Locale.ROOT))) {
+                        error(actionPath, "direction 应为 up/down/left/right");
+                    }
+                    if (swipe != null) {
+                        for (String key : List.of("distance", "duration_ms")) {
+                            if (swipe.get(key) != null && !isNumber(swipe.get(key))) {
+                                error(actionPath + "." + key, "应为数字");
+                            }
+                        }
+                    }
+                }
+                case "wait_settled" -> {
+                    if (value == null || Boolean.TRUE.equals(value)) {
+                        break;
+                    }
+                    Map<String, Object> settle = asMap(value, actionPath);
+                    if (settle == null) {
+                        break;
+                    }
+                    Object region = settle.get("region");
+                    if (region != null && !(region instanceof List<?> bounds && bounds.size() == 4
+                            && bounds.stream().allMatch(ScriptBundleCompiler::isNumber))) {
+                        error(actionPath + ".region", "应为 [left, top, right, bottom]");
+                    }
+                    if (region != null && settle.get("target") != null) {
+                        error(actionPath, "region 与 target 只能二选一");
+                    }
+                    for (String key : List.of("threshold", "stable_frames")) {
+                        if (settle.get(key) != null && !isNumber(settle.get(key))) {
+                            error(actionPath + "." + key, "应为数字");
+                        }
+                    }
+                    Map<String, Object> compiledSettle = new LinkedHashMap<>(settle);
+                    if (settle.get("target") != null) {
+                        compiledSettle.put("target", tokenizeSelector(settle.get("target"), actionPath + ".target"));
+                    }
+                    compiled.put(action, compiledSettle);
+                }
+                case "set_var" -> {
+                    Map<String, Object> vars = asMap(value, actionPath);
+                    if (vars == null || vars.isEmpty()) {
+                        error(actionPath, "应为非空映射");
+                    }
+                }
+                default -> {
+                    // back 写成映射形式时无参数
+                }
+            }
+            result.add(compiled);
+        }
+        return result;
+    }
+
+    private Map<String, Object> compileSignature(Object raw, String where) {
+        Map<String, Object> signature = asMap(raw, where);
+        if (signature == null) {
+            return null;
+        }
+        Map<String, Object> compiled = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : signature.entrySet()) {
+            String key = entry.getKey();
+            String path = where + "." + key;
+            if (!SIGNATURE_KEYS.contains(key)) {
+                error(path, "未知的签名字段");
+                continue;
+            }
+            if (entry.getValue() == null) {
+                // 保留空值，读回的结构与 YAML 解析结果一致
+                compiled.put(key, null);
+                continue;
+            }
+            List<Object> items = asList(entry.getValue());
+            List<Object> result = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                String itemPath = path + "[" + i + "]";
+                if (SIGNATURE_SELECTOR_KEYS.contains(key)) {
+                    result.add(tokenizeSelector(items.get(i), itemPath));
+                } else if ("required_images".equals(key)) {
+                    result.add(validateImage(items.get(i), itemPath));
+                } else {
+                    result.add(validateColor(items.get(i), itemPath));
+                }
+            }
+            compiled.put(key, result);
+        }
+        return compiled;
+    }
+
+    private TokenizedSelector tokenizeSelector(Object raw, String where) {
+        Map<String, Object> selector = asMap(raw, where);
+        if (selector == null) {
+            return null;
+        }
+        List<Integer> keys = new ArrayList<>(selector.size());
+        List<Object> values = new ArrayList<>(selector.size());
+        for (Map.Entry<String, Object> entry : selector.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            int index = ScriptBundleFormat.SELECTOR_KEYS.indexOf(key);
+            if (index < 0) {
+                error(where, "未知的选择器字段 " + key);
+                continue;
+            }
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Map<?, ?> || value instanceof List<?>) {
+                error(where + "." + key, "应为标量");
+                continue;
+            }
+            if (ScriptBundleFormat.BOOLEAN_SELECTOR_KEYS.contains(key) && !(value instanceof Boolean)
+                    && !"true".equalsIgnoreCase(value.toString()) && !"false".equalsIgnoreCase(value.toString())) {
+                error(where + "." + key, "应为 true/false: " + value);
+            } else if ("timeout".equals(key) && !isNumber(value)) {
+                error(where + "." + key, "应为毫秒数: " + value);
+            } else if (ScriptBundleFormat.isRegexSelectorKey(key) && !value.toString().contains("${")) {
+                try {
+                    Pattern.compile(value.toString());
+                } catch (PatternSyntaxException e) {
+                    error(where + "." + key, "正则表达式无效: " + e.getDescription());
+                }
+            }
+            keys.add(index);
+            values.add(value);
+        }
+        if (keys.isEmpty()) {
+            error(where, "选择器为空");
+            return null;
+        }
+        int[] keyArray = new int[keys.size()];
+        for (int i = 0; i < keyArray.length; i++) {
+            keyArray[i] = keys.get(i);
+        }
+        return new TokenizedSelector(keyArray, values.toArray());
+    }
+
+    private Map<String, Object> validateImage(Object raw, String where) {
+        Map<String, Object> image = asMap(raw, where);
+        if (image == null) {
+            return null;
+        }
+        Object hash = image.get("hash");
+        if (hash == null || !HEX_HASH.matcher(hash.toString().trim()).matches()) {
+            error(where + ".hash", "应为不超过 16 位的十六进制哈希: " + hash);
+        }
+        Object algorithm = image.get("algorithm");
+        if (algorithm != null && !HASH_ALGORITHMS.contains(algorithm.toString().trim().toLowerCase(Locale.ROOT))) {
+            error(where + ".algorithm", "不支持的哈希算法: " + algorithm);
+        }
+        if (image.get("max_distance") != null && !isNumber(image.get("max_distance"))) {
+            error(where + ".max_distance", "应为整数: " + image.get("max_distance"));
+        }
+        validateRegion(image.get("region"), where + ".region");
+        return image;
+    }
+
+    private Map<String, Object> validateColor(Object raw, String where) {
+        Map<String, Object> color = asMap(raw, where);
+        if (color == null) {
+            return null;
+        }
+        Object value = color.get("color");
+        boolean validColor = value instanceof List<?> rgb
+                ? rgb.size() == 3 && rgb.stream().allMatch(ScriptBundleCompiler::isNumber)
+                : value != null && HEX_COLOR.matcher(value.toString().trim()).matches();
+        if (!validColor) {
+            error(where + ".color", "颜色格式应为 #RRGGBB 或 [r, g, b]: " + value);
+        }
+        for (String key : List.of("tolerance", "min_fraction", "max_fraction")) {
+            if (color.get(key) != null && !isNumber(color.get(key))) {
+                error(where + "." + key, "应为数字: " + color.get(key));
+            }
+        }
+        if (isNumber(color.get("min_fraction")) && isNumber(color.get("max_fraction"))
+                && toDouble(color.get("min_fraction")) > toDouble(color.get("max_fraction"))) {
+            error(where, "min_fraction 不能大于 max_fraction");
+        }
+        validateRegion(color.get("region"), where + ".region");
+        Map<String, Object> compiled = new LinkedHashMap<>(color);
+        if (color.get("selector") != null) {
+            compiled.put("selector", tokenizeSelector(color.get("selector"), where + ".selector"));
+        }
+        return compiled;
+    }
+
+    private void validateRegion(Object value, String where) {
+        if (value == null) {
+            return;
+        }
+        if (!(value instanceof List<?> list) || list.size() != 4) {
+            error(where, "应为 [left, top, right, bottom]");
+            return;
+        }
+        for (Object item : list) {
+            if (!isNumber(item) || toDouble(item) < 0d || toDouble(item) > 1d) {
+                error(where, "坐标需为 0-1 之间的比例: " + item);
+                return;
+            }
+        }
+    }
+
+    private Set<String> sceneIds(Map<String, Object> compiledScenes) {
+        Set<String> ids = new HashSet<>();
+        if (compiledScenes.get("scenes") instanceof List<?> list) {
+            for (Object scene : list) {
+                if (scene instanceof Map<?, ?> map && map.get("id") != null) {
+                    ids.add(map.get("id").toString());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static List<Object> asList(Object value) {
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            return new ArrayList<>(list);
+        }
+        return List.of(value);
+    }
+
+    private Map<String, Object> asMap(Object value, String where) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Map<?, ?> map)) {
+            error(where, "应为映射");
+            return null;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getKey() != null) {
+                result.put(entry.getKey().toString(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static boolean isNumber(Object value) {
+        if (value instanceof Number) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        try {
+            Double.parseDouble(value.toString().trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString().trim());
+    }
+
+    private void error(String where, String message) {
+        errors.add(location + " " + where + ": " + message);
+    }
+}
@@ -0,0 +1,89 @@
+package com.automation.domain.scenario.script.bundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 二进制脚本包格式：构建期由 {@link ScriptBundleCompiler} 从 project.yaml / scenes.yaml 生成，
+ * 设备端由 {@link ScriptBundleReader} 直接按类型标记读取，不做任何文本解析。
+ * <p>
+ * 布局：魔数、格式版本、源文件摘要、字符串表，随后依次为 project 与 scenes 两棵值树。
+ * 值树中的字符串均以字符串表下标引用；选择器以固定键表的下标存储，键名与取值在构建期校验。
+ * 读取时选择器还原为普通映射，仍由 {@code SelectorCondition.fromMap} 构造；脚本包省去的是 YAML 文本解析，而非选择器解析。
+ */
+public final class ScriptBundleFormat {
+
+    /** 脚本包在脚本目录下的文件名。 */
+    public static final String FILE_NAME = "script.bin";
+
+    static final int MAGIC = 0x444A4353; // "DJCS"
+    static final int VERSION = 1;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_FALSE = 1;
+    static final byte TAG_TRUE = 2;
+    static final byte TAG_INT = 3;
+    static final byte TAG_LONG = 4;
+    static final byte TAG_DOUBLE = 5;
+    static final byte TAG_STRING = 6;
+    static final byte TAG_LIST = 7;
+    static final byte TAG_MAP = 8;
+    static final byte TAG_SELECTOR = 9;
+
+    /**
+     * 选择器键表，与 {@code SelectorCondition.fromMap} 支持的字段一致；下标写入脚本包，只允许在末尾追加。
+     */
+    static final List<String> SELECTOR_KEYS = List.of(
+            "resourceId", "resourceIdMatches",
+            "text", "textContains", "textStartsWith", "textMatches",
+            "contentDescription", "contentDescriptionContains", "contentDescriptionStartsWith",
+            "contentDescriptionMatches",
+            "className", "classNameMatches",
+            "packageName", "packageNameMatches",
+            "clickable", "enabled", "selected", "checkable", "checked", "focusable", "focused",
+            "scrollable", "longClickable",
+            "timeout"
+    );
+
+    static final Set<String> BOOLEAN_SELECTOR_KEYS = Set.of(
+            "clickable", "enabled", "selected", "checkable", "checked", "focusable", "focused",
+            "scrollable", "longClickable");
+
+    private ScriptBundleFormat() {
+    }
+
+    static boolean isRegexSelectorKey(String key) {
+        return key.endsWith("Matches");
+    }
+
+    /**
+     * 源文件摘要：project.yaml 与 scenes.yaml 原始字节的 SHA-1（各自后接一个 0 字节分隔）。
+     * 构建期写入脚本包头部，设备端用同一算法计算 YAML 的摘要，两种来源的缓存键保持一致。
+     */
+    public static String sourceHash(InputStream project, InputStream scenes) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-1 不可用", e);
+        }
+        byte[] buffer = new byte[8192];
+        for (InputStream in : List.of(project, scenes)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            digest.update((byte) 0);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format(Locale.US, "%02x", b));
+        }
+        return hex.toString();
+    }
+}
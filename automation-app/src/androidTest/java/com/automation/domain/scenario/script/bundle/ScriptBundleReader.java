@@ -0,0 +1,107 @@
+package com.automation.domain.scenario.script.bundle;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读取 {@link ScriptBundleFormat} 格式的脚本包，按类型标记逐项还原，不经过 YAML 解析。
+ */
+public final class ScriptBundleReader {
+
+    private ScriptBundleReader() {
+    }
+
+    public static ScriptBundle read(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source));
+        String sourceHash = readHeader(in);
+        int count = in.readInt();
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = in.readUTF();
+        }
+        Map<String, Object> project = asMap(readValue(in, strings));
+        Map<String, Object> scenes = asMap(readValue(in, strings));
+        return new ScriptBundle(sourceHash, project, scenes);
+    }
+
+    /**
+     * 只读取头部中的源文件摘要，用于判断缓存是否可复用。
+     */
+    public static String readSourceHash(InputStream source) throws IOException {
+        return readHeader(new DataInputStream(source));
+    }
+
+    private static String readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != ScriptBundleFormat.MAGIC) {
+            throw new IOException("不是脚本包文件");
+        }
+        int version = in.readUnsignedShort();
+        if (version != ScriptBundleFormat.VERSION) {
+            throw new IOException("脚本包格式版本不支持: " + version);
+        }
+        return in.readUTF();
+    }
+
+    private static Object readValue(DataInputStream in, String[] strings) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case ScriptBundleFormat.TAG_NULL -> null;
+            case ScriptBundleFormat.TAG_FALSE -> Boolean.FALSE;
+            case ScriptBundleFormat.TAG_TRUE -> Boolean.TRUE;
+            case ScriptBundleFormat.TAG_INT -> in.readInt();
+            case ScriptBundleFormat.TAG_LONG -> in.readLong();
+            case ScriptBundleFormat.TAG_DOUBLE -> in.readDouble();
+            case ScriptBundleFormat.TAG_STRING -> strings[in.readInt()];
+            case ScriptBundleFormat.TAG_LIST -> readList(in, strings);
+            case ScriptBundleFormat.TAG_MAP -> readMap(in, strings);
+            case ScriptBundleFormat.TAG_SELECTOR -> readSelector(in, strings);
+            default -> throw new IOException("脚本包数据损坏，未知类型标记: " + tag);
+        };
+    }
+
+    private static List<Object> readList(DataInputStream in, String[] strings) throws IOException {
+        int size = in.readInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readValue(in, strings));
+        }
+        return list;
+    }
+
+    private static Map<String, Object> readMap(DataInputStream in, String[] strings) throws IOException {
+        int size = in.readInt();
+        Map<String, Object> map = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = strings[in.readInt()];
+            map.put(key, readValue(in, strings));
+        }
+        return map;
+    }
+
+    /**
+     * 选择器还原为与 YAML 结构相同的映射：本类也在桌面 JVM 上编译，无法直接构造依赖 androidx 的 {@code SelectorCondition}。
+     */
+    private static Map<String, Object> readSelector(DataInputStream in, String[] strings) throws IOException {
+        int size = in.readUnsignedByte();
+        Map<String, Object> selector = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = ScriptBundleFormat.SELECTOR_KEYS.get(in.readUnsignedByte());
+            selector.put(key, readValue(in, strings));
+        }
+        return selector;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) throws IOException {
+        if (value instanceof Map<?, ?>) {
+            return (Map<String, Object>) value;
+        }
+        throw new IOException("脚本包数据损坏，根节点不是映射");
+    }
+}
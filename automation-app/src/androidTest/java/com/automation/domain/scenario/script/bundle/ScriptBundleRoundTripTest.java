@@ -0,0 +1,110 @@
+package com.automation.domain.scenario.script.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.automation.domain.scenario.script.AssetScriptRepository;
+import com.automation.domain.scenario.script.ScenarioScript;
+import com.automation.domain.scenario.script.ScriptDefinitionParser;
+import com.automation.domain.scenario.script.SceneConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 脚本包往返：assets 中的每个脚本编译后经 {@link ScriptBundleReader} 读回，结构须与 YAML 解析结果一致，
+ * 头部摘要须与 {@link AssetScriptRepository#contentHash} 一致；同时用设备端解析器解析两份结果，
+ * 防止编译器与 {@code SceneActionList.parse} 的规则各自漂移。
+ */
+@RunWith(AndroidJUnit4.class)
+public final class ScriptBundleRoundTripTest {
+
+    private Context context;
+    private AssetManager assets;
+    private final Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getContext();
+        assets = context.getAssets();
+    }
+
+    @Test
+    public void bundledScriptsRoundTripToYamlStructure() throws Exception {
+        String[] names = assets.list("scripts");
+        assertNotNull(names);
+        AssetScriptRepository repository = new AssetScriptRepository(context);
+        int checked = 0;
+        for (String name : names) {
+            byte[] project;
+            byte[] scenes;
+            try {
+                project = read("scripts/" + name + "/project.yaml");
+                scenes = read("scripts/" + name + "/scenes.yaml");
+            } catch (IOException notAScript) {
+                continue;
+            }
+            ScriptBundleCompiler compiler = new ScriptBundleCompiler();
+            byte[] bytes = compiler.compile(name, project, scenes);
+            assertEquals(name + " 编译错误", List.of(), compiler.errors());
+            assertNotNull(bytes);
+
+            ScriptBundle bundle = ScriptBundleReader.read(new ByteArrayInputStream(bytes));
+            assertEquals(name, yaml.load(new ByteArrayInputStream(project)), bundle.project());
+            assertEquals(name, yaml.load(new ByteArrayInputStream(scenes)), bundle.scenes());
+
+            String sourceHash = ScriptBundleFormat.sourceHash(
+                    new ByteArrayInputStream(project), new ByteArrayInputStream(scenes));
+            assertEquals(sourceHash, bundle.sourceHash());
+            assertEquals(sourceHash, ScriptBundleReader.readSourceHash(new ByteArrayInputStream(bytes)));
+            assertEquals(sourceHash, repository.contentHash(name));
+
+            ScenarioScript fromYaml = ScriptDefinitionParser.parse(name,
+                    ScriptDefinitionParser.rootMap(yaml.load(new ByteArrayInputStream(project))),
+                    ScriptDefinitionParser.rootMap(yaml.load(new ByteArrayInputStream(scenes))));
+            ScenarioScript fromBundle = ScriptDefinitionParser.parse(name, bundle.project(), bundle.scenes());
+            assertEquals(fromYaml.initSceneId(), fromBundle.initSceneId());
+            assertEquals(sceneIds(fromYaml), sceneIds(fromBundle));
+            checked++;
+        }
+        assertFalse("assets 中没有脚本", checked == 0);
+    }
+
+    private byte[] read(String path) throws IOException {
+        try (InputStream in = assets.open(path)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> sceneIds(ScenarioScript script) {
+        List<String> ids = new ArrayList<>();
+        for (SceneConfig scene : script.scenes()) {
+            ids.add(scene.id());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,97 @@
+package com.automation.domain.scenario.script.bundle;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将校验后的 project / scenes 值树写成脚本包，格式见 {@link ScriptBundleFormat}。
+ */
+final class ScriptBundleWriter {
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    void write(OutputStream target, String sourceHash, Map<String, Object> project, Map<String, Object> scenes)
+            throws IOException {
+        strings.clear();
+        collect(project);
+        collect(scenes);
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(ScriptBundleFormat.MAGIC);
+        out.writeShort(ScriptBundleFormat.VERSION);
+        out.writeUTF(sourceHash);
+        out.writeInt(strings.size());
+        for (String value : strings.keySet()) {
+            out.writeUTF(value);
+        }
+        writeValue(out, project);
+        writeValue(out, scenes);
+        out.flush();
+    }
+
+    private void collect(Object value) {
+        if (value instanceof String text) {
+            strings.putIfAbsent(text, strings.size());
+        } else if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                collect(entry.getKey().toString());
+                collect(entry.getValue());
+            }
+        } else if (value instanceof List<?> list) {
+            for (Object item : list) {
+                collect(item);
+            }
+        } else if (value instanceof TokenizedSelector selector) {
+            for (Object item : selector.values) {
+                collect(item);
+            }
+        } else if (value != null && !(value instanceof Boolean) && !(value instanceof Number)) {
+            collect(value.toString());
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(ScriptBundleFormat.TAG_NULL);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? ScriptBundleFormat.TAG_TRUE : ScriptBundleFormat.TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(ScriptBundleFormat.TAG_INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long || value instanceof BigInteger) {
+            out.writeByte(ScriptBundleFormat.TAG_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            out.writeByte(ScriptBundleFormat.TAG_DOUBLE);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(ScriptBundleFormat.TAG_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeInt(strings.get(entry.getKey().toString()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(ScriptBundleFormat.TAG_LIST);
+            out.writeInt(list.size());
+            for (Object item : new ArrayList<>(list)) {
+                writeValue(out, item);
+            }
+        } else if (value instanceof TokenizedSelector selector) {
+            out.writeByte(ScriptBundleFormat.TAG_SELECTOR);
+            out.writeByte(selector.keys.length);
+            for (int i = 0; i < selector.keys.length; i++) {
+                out.writeByte(selector.keys[i]);
+                writeValue(out, selector.values[i]);
+            }
+        } else {
+            out.writeByte(ScriptBundleFormat.TAG_STRING);
+            out.writeInt(strings.get(value.toString()));
+        }
+    }
+}
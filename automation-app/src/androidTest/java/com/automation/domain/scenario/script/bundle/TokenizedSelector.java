@@ -0,0 +1,15 @@
+package com.automation.domain.scenario.script.bundle;
+
+/**
+ * 构建期校验通过的选择器：键已换成 {@link ScriptBundleFormat#SELECTOR_KEYS} 中的下标。
+ */
+final class TokenizedSelector {
+
+    final int[] keys;
+    final Object[] values;
+
+    TokenizedSelector(int[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+}
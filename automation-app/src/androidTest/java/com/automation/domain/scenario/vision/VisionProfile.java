@@ -0,0 +1,65 @@
+package com.automation.domain.scenario.vision;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 视觉采集配置：截图在采集时按比例缩小后再参与模板匹配、颜色与哈希计算，
+ * 结果坐标由 {@link VisionToolkit} 自动换算回屏幕像素。
+ * <p>
+ * 在 project.yaml 中配置，示例：{@code vision: { capture_scale: 0.5 }}。
+ */
+public final class VisionProfile {
+
+    public static final VisionProfile NATIVE = new VisionProfile(1f);
+
+    private static final float MIN_SCALE = 0.2f;
+
+    private final float captureScale;
+
+    private VisionProfile(float captureScale) {
+        this.captureScale = captureScale;
+    }
+
+    public static VisionProfile ofScale(float captureScale) {
+        if (Float.isNaN(captureScale) || captureScale < MIN_SCALE || captureScale > 1f) {
+            throw new IllegalArgumentException("capture_scale 取值需在 " + MIN_SCALE + "-1 之间: " + captureScale);
+        }
+        return captureScale == 1f ? NATIVE : new VisionProfile(captureScale);
+    }
+
+    /**
+     * 从 project.yaml 的 vision 段构造，缺省为原始分辨率。
+     */
+    public static VisionProfile fromMap(Map<String, Object> config) {
+        if (config == null || config.get("capture_scale") == null) {
+            return NATIVE;
+        }
+        Object value = config.get("capture_scale");
+        float scale = value instanceof Number number ? number.floatValue() : Float.parseFloat(value.toString().trim());
+        return ofScale(scale);
+    }
+
+    public float captureScale() {
+        return captureScale;
+    }
+
+    public boolean isNative() {
+        return captureScale == 1f;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VisionProfile other && other.captureScale == captureScale;
+    }
+
+    @Override
+    public int hashCode() {
+        return Float.hashCode(captureScale);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "VisionProfile[scale=%.2f]", captureScale);
+    }
+}
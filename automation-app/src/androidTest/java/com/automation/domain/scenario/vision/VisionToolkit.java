@@ -1,46 +1,108 @@
 package com.automation.domain.scenario.vision;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.automation.infrastructure.system.LumaFrame;
 import com.automation.infrastructure.system.ScreenshotHelper;
 import com.automation.infrastructure.vision.ImageRecognition;
+import com.automation.infrastructure.vision.MatchMode;
+import com.automation.infrastructure.vision.PerceptualHash;
+import com.automation.infrastructure.vision.TemplateFeatures;
+import com.automation.infrastructure.vision.TemplateMatch;
+import com.automation.shared.util.CancellationToken;
+import com.automation.shared.util.EncodingUtils;
 
 import org.opencv.core.Mat;
 import org.opencv.core.Scalar;
+import org.opencv.core.Size;
 import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * OpenCV 能力统一封装，负责截图与模板匹配。
+ * <p>
+ * 同一 UI 状态下的多次视觉查询共享一帧解码后的截图：帧随快照指纹变化、手势下发或超过 TTL 后失效。
+ * 采集配置（{@link VisionProfile}）可在截图时按比例缩小画面，模板同步缩放，返回的坐标始终为屏幕像素。
  */
 public final class VisionToolkit {
 
     private static final String TAG = "VisionToolkit";
+    /** 截图帧最长复用时间，兜底无障碍树不变但画面变化的情况（图片加载、动画）。 */
+    public static final long DEFAULT_FRAME_TTL_MS = 600L;
+    /** 感知哈希使用的缩略灰度帧宽度，足够区分页面布局且计算开销可忽略。 */
+    private static final int HASH_FRAME_WIDTH = 256;
+    /** 颜色查询使用的缩略彩色帧宽度。 */
+    private static final int COLOR_FRAME_WIDTH = 360;
+    /** 画面稳定判定：相邻帧平均灰度差（0-255）的默认阈值。 */
+    public static final double DEFAULT_SETTLE_THRESHOLD = 1.5d;
+    /** 画面稳定判定：连续满足阈值的默认帧数。 */
+    public static final int DEFAULT_SETTLE_FRAMES = 2;
+    private static final int SETTLE_FRAME_WIDTH = 180;
+    private static final long SETTLE_POLL_INTERVAL_MS = 80L;
 
     private final Context context;
     private final ScreenshotHelper screenshotHelper;
-    private final ImageRecognition imageRecognition;
+    private final Supplier<ImageRecognition> recognitionSupplier;
     private final Map<String, Mat> templateCache = new ConcurrentHashMap<>();
+    private final Map<String, TemplateFeatures> featureCache = new ConcurrentHashMap<>();
+    /** 按当前采集比例缩放后的模板，比例变化时整体清空。 */
+    private final Map<String, Mat> scaledTemplateCache = new ConcurrentHashMap<>();
+    private final Object frameLock = new Object();
+    private Mat cachedFrame;
+    private TemplateFeatures cachedFrameFeatures;
+    private Mat cachedColorFrame;
+    private Mat cachedHashFrame;
+    private long cachedFrameAt;
+    private int cachedScreenWidth;
+    private int cachedScreenHeight;
+    private long frameKey;
+    private boolean frameKeyBound;
+    private volatile long frameTtlMs = DEFAULT_FRAME_TTL_MS;
+    private volatile VisionProfile profile = VisionProfile.NATIVE;
 
     public VisionToolkit(@NonNull Context context,
                          @NonNull ScreenshotHelper screenshotHelper,
                          @NonNull ImageRecognition imageRecognition) {
+        this(context, screenshotHelper, supplierOf(Objects.requireNonNull(imageRecognition, "imageRecognition")));
+    }
+
+    /**
+     * @param recognitionSupplier 首次视觉查询时才取用，允许 OpenCV 原生库在后台加载
+     */
+    public VisionToolkit(@NonNull Context context,
+                         @NonNull ScreenshotHelper screenshotHelper,
+                         @NonNull Supplier<ImageRecognition> recognitionSupplier) {
         this.context = Objects.requireNonNull(context, "context").getApplicationContext();
         this.screenshotHelper = Objects.requireNonNull(screenshotHelper, "screenshotHelper");
-        this.imageRecognition = Objects.requireNonNull(imageRecognition, "imageRecognition");
+        this.recognitionSupplier = Objects.requireNonNull(recognitionSupplier, "recognitionSupplier");
+    }
+
+    private static Supplier<ImageRecognition> supplierOf(ImageRecognition imageRecognition) {
+        return () -> imageRecognition;
+    }
+
+    private ImageRecognition imageRecognition() {
+        return recognitionSupplier.get();
     }
 
     public void storeTemplate(String templateId, String base64Data) throws IOException {
-        Mat mat = imageRecognition.decodeBase64(base64Data);
+        Mat mat = imageRecognition().decodeImageBytes(EncodingUtils.decodeBase64(base64Data));
         if (mat == null || mat.empty()) {
             throw new IOException("解码模板Base64失败");
         }
@@ -48,6 +110,7 @@ public final class VisionToolkit {
         if (previous != null) {
             previous.release();
         }
+        releaseDerivedTemplate(templateId);
     }
 
     public void removeTemplate(String templateId) {
@@ -55,6 +118,7 @@ public final class VisionToolkit {
         if (mat != null) {
             mat.release();
         }
+        releaseDerivedTemplate(templateId);
     }
 
     public void clearTemplates() {
@@ -62,25 +126,116 @@ public final class VisionToolkit {
             mat.release();
         }
         templateCache.clear();
+        synchronized (frameLock) {
+            releaseDerivedTemplatesLocked();
+        }
     }
 
-    public Point findTemplateFromCache(String templateId, double threshold) throws IOException {
-        Mat template = templateCache.get(templateId);
-        if (template == null) {
-            throw new IOException("模板未加载: " + templateId);
+    /**
+     * 切换采集配置，返回之前的配置以便调用方恢复。比例变化时丢弃缓存帧与缩放后的模板。
+     */
+    public VisionProfile setProfile(@Nullable VisionProfile next) {
+        VisionProfile target = next != null ? next : VisionProfile.NATIVE;
+        synchronized (frameLock) {
+            VisionProfile previous = profile;
+            if (!previous.equals(target)) {
+                profile = target;
+                releaseFrameLocked();
+                frameKeyBound = false;
+                releaseDerivedTemplatesLocked();
+            }
+            return previous;
+        }
+    }
+
+    public VisionProfile profile() {
+        return profile;
+    }
+
+    /**
+     * 设置截图帧复用时间，0 表示每次查询都重新截图。
+     */
+    public void setFrameTtlMs(long ttlMs) {
+        this.frameTtlMs = Math.max(0L, ttlMs);
+    }
+
+    /**
+     * 绑定当前快照指纹；指纹变化说明界面已变化，丢弃已缓存的帧。
+     */
+    public void bindSnapshot(long fingerprint) {
+        synchronized (frameLock) {
+            if (!frameKeyBound || frameKey != fingerprint) {
+                releaseFrameLocked();
+                frameKey = fingerprint;
+                frameKeyBound = true;
+            }
+        }
+    }
+
+    /**
+     * 丢弃缓存帧，下一次视觉查询会重新截图。
+     */
+    public void invalidateFrame() {
+        synchronized (frameLock) {
+            releaseFrameLocked();
+            frameKeyBound = false;
         }
-        Mat screenshot = captureScreenshotMat();
-        if (screenshot == null || screenshot.empty()) {
-            throw new IOException("截屏失败");
+    }
+
+    /**
+     * 丢弃缓存帧但保留已绑定的快照指纹：只读通道的指令与运行中的场景并发时，
+     * 强制重新截图而不打断场景对当前帧的绑定。
+     */
+    public void refreshFrame() {
+        synchronized (frameLock) {
+            releaseFrameLocked();
         }
-        try {
-            org.opencv.core.Point match = imageRecognition.findTemplate(screenshot, template, threshold);
-            if (match == null) {
-                return null;
+    }
+
+    public Point findTemplateFromCache(String templateId, double threshold) throws IOException {
+        synchronized (frameLock) {
+            Mat frame = currentFrameLocked();
+            org.opencv.core.Point match = imageRecognition().findTemplate(frame, frameTemplateLocked(templateId), threshold);
+            return match != null ? toScreenPoint(match, frame) : null;
+        }
+    }
+
+    /**
+     * 使用缓存模板在当前屏幕上查找全部出现位置，按得分降序返回。
+     *
+     * @param templateId 已加载的模板 ID
+     * @param threshold  匹配阈值
+     * @param maxResults 最多返回的命中数
+     */
+    public List<TemplateMatch> findAllTemplatesFromCache(String templateId, double threshold, int maxResults)
+            throws IOException {
+        return findAllTemplatesFromCache(templateId, threshold, maxResults, MatchMode.TEMPLATE);
+    }
+
+    /**
+     * 按指定方式查找缓存模板。特征点方式最多返回一个命中，且不使用 threshold，
+     * 以内点数与单应性校验判定；AUTO 在像素匹配无结果时回退到特征点。
+     */
+    public List<TemplateMatch> findAllTemplatesFromCache(String templateId,
+                                                         double threshold,
+                                                         int maxResults,
+                                                         MatchMode mode) throws IOException {
+        synchronized (frameLock) {
+            Mat frame = currentFrameLocked();
+            Mat template = frameTemplateLocked(templateId);
+            if (mode != MatchMode.FEATURE) {
+                List<TemplateMatch> matches = imageRecognition().findAllTemplates(frame, template, threshold, maxResults);
+                if (!matches.isEmpty() || mode == MatchMode.TEMPLATE) {
+                    return toScreenMatches(matches, frame);
+                }
             }
-            return new Point((int) match.x, (int) match.y);
-        } finally {
-            screenshot.release();
+            TemplateFeatures templateFeatures = featureCache.computeIfAbsent(templateId,
+                    id -> imageRecognition().extractFeatures(template));
+            if (cachedFrameFeatures == null) {
+                cachedFrameFeatures = imageRecognition().extractFeatures(frame);
+            }
+            TemplateMatch match = imageRecognition().findTemplateByFeatures(cachedFrameFeatures, templateFeatures);
+            return match != null ? toScreenMatches(List.of(match), frame) : List.of();
         }
     }
 
@@ -92,23 +247,28 @@ public final class VisionToolkit {
      */
     @Nullable
     public Point captureAndFindTemplate(String templatePath, double threshold) throws IOException {
-        Mat screenshot = captureScreenshotMat();
-        Mat templateMat = null;
+        // 先取识别器，确保 OpenCV 原生库已加载完成再调用 imread
+        ImageRecognition recognition = imageRecognition();
+        Mat templateMat = Imgcodecs.imread(templatePath);
         try {
-            templateMat = Imgcodecs.imread(templatePath);
             if (templateMat == null || templateMat.empty()) {
                 Log.e(TAG, "模板图片读取失败: " + templatePath);
                 return null;
             }
-            org.opencv.core.Point match = imageRecognition.findTemplate(screenshot, templateMat, threshold);
-            if (match == null) {
-                return null;
+            synchronized (frameLock) {
+                Mat frame = currentFrameLocked();
+                float scale = profile.captureScale();
+                Mat template = scale < 1f ? resize(templateMat, scale) : templateMat;
+                try {
+                    org.opencv.core.Point match = recognition.findTemplate(frame, template, threshold);
+                    return match != null ? toScreenPoint(match, frame) : null;
+                } finally {
+                    if (template != templateMat) {
+                        template.release();
+                    }
+                }
             }
-            return new Point((int) match.x, (int) match.y);
         } finally {
-            if (screenshot != null) {
-                screenshot.release();
-            }
             if (templateMat != null) {
                 templateMat.release();
             }
@@ -119,25 +279,352 @@ public final class VisionToolkit {
      * 比较两张图片的相似度。
      */
     public double compareImages(String image1, String image2) {
-        return imageRecognition.compareImages(image1, image2);
+        return imageRecognition().compareImages(image1, image2);
     }
 
     /**
      * 检测截图是否包含指定颜色。
      */
     public boolean containsColor(String imagePath, Scalar target, double tolerance) {
-        return imageRecognition.hasColor(imagePath, target, tolerance);
+        return imageRecognition().hasColor(imagePath, target, tolerance);
     }
 
-    private Mat captureScreenshotMat() throws IOException {
-        byte[] jpeg = screenshotHelper.captureToJpegBytes(80);
-        if (jpeg == null || jpeg.length == 0) {
+    /**
+     * 将当前屏幕与参考图片比较相似度（复用缓存帧）。
+     */
+    public double compareScreenWith(String imagePath) throws IOException {
+        ImageRecognition recognition = imageRecognition();
+        Mat reference = Imgcodecs.imread(imagePath);
+        try {
+            synchronized (frameLock) {
+                return recognition.compareImages(currentFrameLocked(), reference);
+            }
+        } finally {
+            reference.release();
+        }
+    }
+
+    /**
+     * 检测当前屏幕是否包含指定颜色（BGR，复用缓存帧）。
+     */
+    public boolean screenContainsColor(Scalar target, double tolerance) throws IOException {
+        synchronized (frameLock) {
+            return imageRecognition().hasColor(currentFrameLocked(), target, tolerance);
+        }
+    }
+
+    /**
+     * 计算当前屏幕某区域的感知哈希，区域以屏幕宽高比例表示（0-1）。
+     */
+    public long regionHash(float left, float top, float right, float bottom,
+                           PerceptualHash.Algorithm algorithm) throws IOException {
+        synchronized (frameLock) {
+            Mat small = hashFrameLocked();
+            int x = Math.round(left * small.cols());
+            int y = Math.round(top * small.rows());
+            int width = Math.round(right * small.cols()) - x;
+            int height = Math.round(bottom * small.rows()) - y;
+            return PerceptualHash.compute(small, new org.opencv.core.Rect(x, y, width, height), algorithm);
+        }
+    }
+
+    /**
+     * 等待屏幕区域画面稳定（动画结束、图片加载完成），使用默认阈值。
+     *
+     * @see #waitForScreenSettled(Rect, double, int, long)
+     */
+    public boolean waitForScreenSettled(@Nullable Rect screenRegion, long timeoutMs) {
+        return waitForScreenSettled(screenRegion, DEFAULT_SETTLE_THRESHOLD, DEFAULT_SETTLE_FRAMES, timeoutMs);
+    }
+
+    /**
+     * 快速连续抓取低分辨率灰度帧，相邻帧在区域内的平均灰度差连续 stableFrames 次不超过阈值即返回。
+     * 返回前丢弃缓存帧，后续视觉查询会重新截取稳定后的画面。
+     *
+     * @param screenRegion 屏幕像素区域，null 表示整屏
+     * @param threshold    平均灰度差阈值（0-255）
+     * @param stableFrames 需要连续满足的次数
+     * @param timeoutMs    超时时间
+     * @return 是否在超时前稳定
+     */
+    public boolean waitForScreenSettled(@Nullable Rect screenRegion,
+                                        double threshold,
+                                        int stableFrames,
+                                        long timeoutMs) {
+        CancellationToken cancellation = CancellationToken.current();
+        long start = SystemClock.elapsedRealtime();
+        long deadline = start + Math.max(0L, timeoutMs);
+        int required = Math.max(1, stableFrames);
+        int stable = 0;
+        LumaFrame previous = screenshotHelper.captureLuma(SETTLE_FRAME_WIDTH);
+        try {
+            while (SystemClock.elapsedRealtime() < deadline) {
+                cancellation.sleep(SETTLE_POLL_INTERVAL_MS);
+                LumaFrame current = screenshotHelper.captureLuma(SETTLE_FRAME_WIDTH);
+                if (current == null || previous == null) {
+                    stable = 0;
+                } else {
+                    float[] region = toFractions(screenRegion, current);
+                    double diff = current.meanAbsDifference(previous, region[0], region[1], region[2], region[3]);
+                    stable = diff <= threshold ? stable + 1 : 0;
+                }
+                if (stable >= required) {
+                    Log.d(TAG, "画面已稳定，用时 " + (SystemClock.elapsedRealtime() - start) + "ms");
+                    return true;
+                }
+                previous = current;
+            }
+            Log.w(TAG, "等待画面稳定超时: " + timeoutMs + "ms");
+            return false;
+        } finally {
+            invalidateFrame();
+        }
+    }
+
+    private static float[] toFractions(@Nullable Rect screenRegion, LumaFrame frame) {
+        if (screenRegion == null) {
+            return new float[]{0f, 0f, 1f, 1f};
+        }
+        float width = frame.sourceWidth();
+        float height = frame.sourceHeight();
+        return new float[]{
+                screenRegion.left / width,
+                screenRegion.top / height,
+                screenRegion.right / width,
+                screenRegion.bottom / height
+        };
+    }
+
+    /**
+     * 将屏幕比例区域换算为当前帧的像素区域。
+     */
+    public Rect screenRect(float left, float top, float right, float bottom) throws IOException {
+        synchronized (frameLock) {
+            currentFrameLocked();
+            return new Rect(Math.round(left * cachedScreenWidth), Math.round(top * cachedScreenHeight),
+                    Math.round(right * cachedScreenWidth), Math.round(bottom * cachedScreenHeight));
+        }
+    }
+
+    /**
+     * 屏幕区域平均颜色（BGR），在缩略帧上计算。
+     *
+     * @param screenRegion 屏幕像素区域（如节点 bounds），null 表示整屏
+     */
+    public Scalar regionMeanColor(@Nullable Rect screenRegion) throws IOException {
+        synchronized (frameLock) {
+            Mat small = colorFrameLocked();
+            return imageRecognition().meanColor(small, toFrameRect(screenRegion, small));
+        }
+    }
+
+    /**
+     * 屏幕区域内接近目标颜色（BGR）的像素占比，0-1。
+     */
+    public double regionColorFraction(@Nullable Rect screenRegion, Scalar target, double tolerance)
+            throws IOException {
+        synchronized (frameLock) {
+            Mat small = colorFrameLocked();
+            return imageRecognition().colorFraction(small, toFrameRect(screenRegion, small), target, tolerance);
+        }
+    }
+
+    /**
+     * 屏幕区域的 HSV 联合直方图，按 [h][s][v] 展开并归一化。
+     */
+    public float[] regionHsvHistogram(@Nullable Rect screenRegion, int hueBins, int saturationBins, int valueBins)
+            throws IOException {
+        synchronized (frameLock) {
+            Mat small = colorFrameLocked();
+            return imageRecognition().hsvHistogram(small, toFrameRect(screenRegion, small),
+                    hueBins, saturationBins, valueBins);
+        }
+    }
+
+    @Nullable
+    private org.opencv.core.Rect toFrameRect(@Nullable Rect screenRegion, Mat small) {
+        if (screenRegion == null) {
+            return null;
+        }
+        double scale = small.cols() / (double) cachedScreenWidth;
+        int left = (int) Math.floor(screenRegion.left * scale);
+        int top = (int) Math.floor(screenRegion.top * scale);
+        int right = (int) Math.ceil(screenRegion.right * scale);
+        int bottom = (int) Math.ceil(screenRegion.bottom * scale);
+        return new org.opencv.core.Rect(left, top, Math.max(1, right - left), Math.max(1, bottom - top));
+    }
+
+    private Mat colorFrameLocked() throws IOException {
+        Mat frame = currentFrameLocked();
+        if (cachedColorFrame == null) {
+            cachedColorFrame = downscale(frame, COLOR_FRAME_WIDTH);
+        }
+        return cachedColorFrame;
+    }
+
+    private Mat hashFrameLocked() throws IOException {
+        Mat color = colorFrameLocked();
+        if (cachedHashFrame == null) {
+            Mat gray = new Mat();
+            try {
+                Imgproc.cvtColor(color, gray, Imgproc.COLOR_BGR2GRAY);
+                cachedHashFrame = downscale(gray, HASH_FRAME_WIDTH);
+            } finally {
+                gray.release();
+            }
+        }
+        return cachedHashFrame;
+    }
+
+    private static Mat downscale(Mat source, int width) {
+        Mat small = new Mat();
+        int height = Math.max(1, Math.round(source.rows() * (width / (float) source.cols())));
+        Imgproc.resize(source, small, new Size(width, height), 0, 0, Imgproc.INTER_AREA);
+        return small;
+    }
+
+    private Mat currentFrameLocked() throws IOException {
+        long now = SystemClock.elapsedRealtime();
+        long ttl = frameTtlMs;
+        if (cachedFrame != null && ttl > 0 && now - cachedFrameAt <= ttl) {
+            return cachedFrame;
+        }
+        releaseFrameLocked();
+        // TTL 为 0 时同样持有引用，待下一次查询或失效时释放
+        cachedFrame = captureFrameLocked();
+        cachedFrameAt = now;
+        return cachedFrame;
+    }
+
+    private Mat frameTemplateLocked(String templateId) throws IOException {
+        Mat template = templateCache.get(templateId);
+        if (template == null) {
+            throw new IOException("模板未加载: " + templateId);
+        }
+        float scale = profile.captureScale();
+        if (scale >= 1f) {
+            return template;
+        }
+        Mat scaled = scaledTemplateCache.get(templateId);
+        if (scaled == null) {
+            scaled = resize(template, scale);
+            scaledTemplateCache.put(templateId, scaled);
+        }
+        return scaled;
+    }
+
+    private Point toScreenPoint(org.opencv.core.Point match, Mat frame) {
+        if (frame.cols() == cachedScreenWidth) {
+            return new Point((int) match.x, (int) match.y);
+        }
+        double scale = frame.cols() / (double) cachedScreenWidth;
+        return new Point((int) Math.round(match.x / scale), (int) Math.round(match.y / scale));
+    }
+
+    private List<TemplateMatch> toScreenMatches(List<TemplateMatch> matches, Mat frame) {
+        if (frame.cols() == cachedScreenWidth || matches.isEmpty()) {
+            return matches;
+        }
+        double scale = frame.cols() / (double) cachedScreenWidth;
+        List<TemplateMatch> mapped = new ArrayList<>(matches.size());
+        for (TemplateMatch match : matches) {
+            int left = (int) Math.round(match.left() / scale);
+            int top = (int) Math.round(match.top() / scale);
+            mapped.add(new TemplateMatch(left, top,
+                    (int) Math.round(match.right() / scale) - left,
+                    (int) Math.round(match.bottom() / scale) - top,
+                    match.score()));
+        }
+        return mapped;
+    }
+
+    private static Mat resize(Mat source, float scale) {
+        Mat scaled = new Mat();
+        Size size = new Size(Math.max(1, Math.round(source.cols() * scale)),
+                Math.max(1, Math.round(source.rows() * scale)));
+        Imgproc.resize(source, scaled, size, 0, 0, Imgproc.INTER_AREA);
+        return scaled;
+    }
+
+    private void releaseDerivedTemplate(String templateId) {
+        synchronized (frameLock) {
+            Mat scaled = scaledTemplateCache.remove(templateId);
+            if (scaled != null) {
+                scaled.release();
+            }
+            releaseFeatures(featureCache.remove(templateId));
+        }
+    }
+
+    private void releaseDerivedTemplatesLocked() {
+        for (Mat mat : scaledTemplateCache.values()) {
+            mat.release();
+        }
+        scaledTemplateCache.clear();
+        for (TemplateFeatures features : featureCache.values()) {
+            features.release();
+        }
+        featureCache.clear();
+    }
+
+    private void releaseFrameLocked() {
+        if (cachedFrame != null) {
+            cachedFrame.release();
+            cachedFrame = null;
+        }
+        releaseFeatures(cachedFrameFeatures);
+        cachedFrameFeatures = null;
+        if (cachedColorFrame != null) {
+            cachedColorFrame.release();
+            cachedColorFrame = null;
+        }
+        if (cachedHashFrame != null) {
+            cachedHashFrame.release();
+            cachedHashFrame = null;
+        }
+    }
+
+    private static void releaseFeatures(@Nullable TemplateFeatures features) {
+        if (features != null) {
+            features.release();
+        }
+    }
+
+    private Mat captureFrameLocked() throws IOException {
+        float scale = profile.captureScale();
+        if (scale >= 1f) {
+            byte[] jpeg = screenshotHelper.captureToJpegBytes(80);
+            if (jpeg == null || jpeg.length == 0) {
+                throw new IOException("截屏失败，数据为空");
+            }
+            Mat screenshot = imageRecognition().decodeImageBytes(jpeg);
+            if (screenshot == null || screenshot.empty()) {
+                throw new IOException("截屏解码失败");
+            }
+            cachedScreenWidth = screenshot.cols();
+            cachedScreenHeight = screenshot.rows();
+            return screenshot;
+        }
+        // 缩小后的帧直接取像素，省去整屏 JPEG 编解码
+        Bitmap bitmap = screenshotHelper.captureBitmap();
+        if (bitmap == null) {
             throw new IOException("截屏失败，数据为空");
         }
-        Mat screenshot = imageRecognition.decodeImageBytes(jpeg);
-        if (screenshot == null || screenshot.empty()) {
-            throw new IOException("截屏解码失败");
+        Bitmap scaled = null;
+        try {
+            scaled = ScreenshotHelper.scaleToWidth(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)));
+            int width = scaled.getWidth();
+            int height = scaled.getHeight();
+            int[] pixels = new int[width * height];
+            scaled.getPixels(pixels, 0, width, 0, 0, width, height);
+            cachedScreenWidth = bitmap.getWidth();
+            cachedScreenHeight = bitmap.getHeight();
+            return imageRecognition().fromArgbPixels(pixels, width, height);
+        } finally {
+            if (scaled != null && scaled != bitmap) {
+                scaled.recycle();
+            }
+            bitmap.recycle();
         }
-        return screenshot;
     }
 }
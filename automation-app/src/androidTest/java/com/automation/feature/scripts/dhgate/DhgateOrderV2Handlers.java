@@ -13,6 +13,8 @@ import androidx.test.uiautomator.UiDevice;
 import androidx.test.uiautomator.UiObject2;
 
 import com.automation.infrastructure.system.AppManager;
+import com.automation.infrastructure.vision.MatchMode;
+import com.automation.infrastructure.vision.TemplateMatch;
 import com.automation.domain.scenario.SceneHandler;
 import com.automation.domain.scenario.SceneResult;
 import com.automation.domain.scenario.ScenarioContext;
@@ -37,6 +39,10 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
     private static final String TAG = "DhgateOrderHandlers";
     private static final String SCRIPT_NAME = "dhgate_order_v2";
     private static final String PACKAGE_NAME = "com.dhgate.buyermob";
+    /** 列表中可能有轮播等持续动画，等待画面稳定的时间上限。 */
+    private static final long MAX_IMAGE_SETTLE_MS = 1500L;
+    /** 上次等待画面稳定时的界面指纹，列表未变化时不再重复等待。 */
+    private static final String SETTLED_FINGERPRINT_KEY = "_search_result_settled_fingerprint";
 
     @Override
     public boolean supports(String scriptName) {
@@ -79,12 +85,12 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
         AppManager appManager = new AppManager(appContext, device);
         Log.i(TAG, "停止并启动应用: " + PACKAGE_NAME);
         appManager.stopApp(PACKAGE_NAME);
-        Thread.sleep(4000);
+        context.sleep(4000);
         if (!appManager.launchApp(PACKAGE_NAME)) {
             Log.e(TAG, "应用启动失败");
             return SceneResult.ERROR;
         }
-        Thread.sleep(3000);
+        context.sleep(3000);
         return SceneResult.CONTINUE;
     }
 
@@ -97,11 +103,11 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
         }
         UiObject2 textView = searchContainer.findObject(By.clazz("android.widget.TextView"));
         if (textView != null) {
-            textView.click();
+            click(context, textView);
         } else {
-            searchContainer.click();
+            click(context, searchContainer);
         }
-        Thread.sleep(1000);
+        context.sleep(1000);
         return SceneResult.CONTINUE;
     }
 
@@ -118,12 +124,12 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
             return SceneResult.ERROR;
         }
         input.setText(keyword);
-        Thread.sleep(300);
+        context.sleep(300);
         UiObject2 searchBtn = device.findObject(By.res(PACKAGE_NAME, "iv_search"));
         if (searchBtn != null) {
-            searchBtn.click();
+            click(context, searchBtn);
         }
-        Thread.sleep(2000);
+        context.sleep(2000);
         return SceneResult.CONTINUE;
     }
 
@@ -132,20 +138,30 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
         ScenarioProgress progress = ScenarioProgress.from(context);
         String targetTitle = optString(context, "target_product_title");
 
-        ensureVerticalProductLayout(device);
+        ensureVerticalProductLayout(context);
 
         List<ProductItem> products = collectProducts(device, context.getSnapshot());
         List<ProductItem> matched = TextUtils.isEmpty(targetTitle)
                 ? List.of()
                 : findProductsByTitle(products, targetTitle);
 
-        Point templatePoint = null;
+        List<TemplateMatch> templateHits = List.of();
         String templateId = ensureProductTemplateLoaded(context);
         if (templateId != null && !templateId.isEmpty()) {
             VisionToolkit toolkit = context.getVisionToolkit();
+            // 节点树稳定时商品图可能仍在加载，等列表区域画面稳定后再匹配；同一列表只等一次
+            long fingerprint = context.getSnapshot().fingerprint();
+            if (!Long.valueOf(fingerprint).equals(context.get(SETTLED_FINGERPRINT_KEY))) {
+                long imageLoadWaitMs = (long) (parseDouble(context, "image_load_wait", 30d) * 1000);
+                toolkit.waitForScreenSettled(unionBounds(products), Math.min(imageLoadWaitMs, MAX_IMAGE_SETTLE_MS));
+                context.put(SETTLED_FINGERPRINT_KEY, fingerprint);
+            }
             double threshold = parseDouble(context, "product_image_threshold", 0.82d);
+            int maxHits = Math.max(1, products.size());
+            // 服务端模板与屏幕缩略图尺寸不一致时，像素匹配会失效，默认回退到特征点匹配
+            MatchMode mode = MatchMode.fromRaw(optString(context, "product_image_match_mode"), MatchMode.AUTO);
             try {
-                templatePoint = toolkit.findTemplateFromCache(templateId, threshold);
+                templateHits = toolkit.findAllTemplatesFromCache(templateId, threshold, maxHits, mode);
             } catch (IOException e) {
                 Log.w(TAG, "模板匹配失败", e);
             }
@@ -153,29 +169,27 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
 
         if (!matched.isEmpty()) {
             ProductItem firstMatch = matched.get(0);
-            ProductItem matchedByTemplate = templatePoint != null
-                    ? matchPointInProducts(matched, templatePoint)
-                    : null;
+            TemplateMatch hitInMatched = bestHitInProducts(matched, templateHits);
 
-            Point clickPoint = matchedByTemplate != null
-                    ? templatePoint
+            Point clickPoint = hitInMatched != null
+                    ? new Point(hitInMatched.centerX(), hitInMatched.centerY())
                     : firstMatch.center();
 
             Log.i(TAG, "命中目标商品: " + firstMatch.title()
-                    + (matchedByTemplate != null ? "（通过模板定位）" : ""));
-            device.click(clickPoint.x, clickPoint.y);
-            Thread.sleep(2000);
+                    + (hitInMatched != null ? "（通过模板定位）" : ""));
+            context.getDeviceActions().click(clickPoint.x, clickPoint.y);
+            context.sleep(2000);
             return SceneResult.CONTINUE;
         }
 
-        if (templatePoint != null) {
-            ProductItem candidate = matchPointInProducts(products, templatePoint);
-            if (candidate != null) {
-                Log.i(TAG, "通过模板定位商品: " + candidate.title());
-                device.click(templatePoint.x, templatePoint.y);
-                Thread.sleep(2000);
-                return SceneResult.CONTINUE;
-            }
+        TemplateMatch hit = bestHitInProducts(products, templateHits);
+        if (hit != null) {
+            ProductItem candidate = matchPointInProducts(products, new Point(hit.centerX(), hit.centerY()));
+            Log.i(TAG, "通过模板定位商品: " + (candidate != null ? candidate.title() : "")
+                    + " score=" + hit.score());
+            context.getDeviceActions().click(hit.centerX(), hit.centerY());
+            context.sleep(2000);
+            return SceneResult.CONTINUE;
         }
 
         // 未命中时执行随机浏览逻辑
@@ -184,8 +198,8 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
             UiObject2 listItem = pickRandomProduct(device);
             if (listItem != null) {
                 Log.i(TAG, "随机浏览商品");
-                listItem.click();
-                Thread.sleep(1500);
+                click(context, listItem);
+                context.sleep(1500);
                 return SceneResult.CONTINUE;
             }
         }
@@ -219,26 +233,26 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
                 Log.i(TAG, "匹配店铺: " + actual);
                 String followText = followBtn.getText();
                 if ("_ Follow".equalsIgnoreCase(followText)) {
-                    followBtn.click();
-                    Thread.sleep(800);
+                    click(context, followBtn);
+                    context.sleep(800);
                 }
                 if (buyNow) {
-                    clickIfExists(device, By.res(PACKAGE_NAME, "btn_buy"));
+                    clickIfExists(context, By.res(PACKAGE_NAME, "btn_buy"));
                 } else {
-                    clickIfExists(device, By.res(PACKAGE_NAME, "btn_addtocart"));
+                    clickIfExists(context, By.res(PACKAGE_NAME, "btn_addtocart"));
                 }
-                Thread.sleep(1500);
+                context.sleep(1500);
                 return SceneResult.CONTINUE;
             } else {
                 Log.i(TAG, "店铺不匹配: " + actual);
-                device.pressBack();
-                Thread.sleep(800);
+                pressBack(context);
+                context.sleep(800);
                 return SceneResult.CONTINUE;
             }
         }
 
         context.getDeviceActions().swipe(SwipeDirection.UP, 0.6f, 600);
-        Thread.sleep(600);
+        context.sleep(600);
         return SceneResult.CONTINUE;
     }
 
@@ -264,51 +278,50 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
                 continue;
             }
             UiObject2 option = options.get(random.nextInt(options.size()));
-            option.click();
-            Thread.sleep(300);
+            click(context, option);
+            context.sleep(300);
         }
 
         incrementCounter(context, "add_to_cart_count");
 
         if (buyNow) {
-            clickIfExists(device, By.res(PACKAGE_NAME, "two_buy_buy"));
+            clickIfExists(context, By.res(PACKAGE_NAME, "two_buy_buy"));
         } else {
-            clickIfExists(device, By.res(PACKAGE_NAME, "btn_paynow"));
+            clickIfExists(context, By.res(PACKAGE_NAME, "btn_paynow"));
         }
-        Thread.sleep(1000);
+        context.sleep(1000);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult handleProductRecommendPage(ScenarioContext context) throws Exception {
-        UiDevice device = context.getUiDevice();
         int targetCount = parseInt(context, "target_cart_count", 2);
         int currentCount = getCounter(context, "add_to_cart_count");
         if (currentCount >= targetCount) {
             Log.i(TAG, "达到目标加购数量，进入购物车");
-            clickIfExists(device, By.res(PACKAGE_NAME, "bar_pd_cart"));
+            clickIfExists(context, By.res(PACKAGE_NAME, "bar_pd_cart"));
         } else {
             Log.i(TAG, "继续加购，当前: " + currentCount);
-            clickIfExists(device, By.res(PACKAGE_NAME, "btn_addtocart"));
+            clickIfExists(context, By.res(PACKAGE_NAME, "btn_addtocart"));
         }
-        Thread.sleep(1200);
+        context.sleep(1200);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult handleCartCheckoutPage(ScenarioContext context) throws Exception {
-        clickIfExists(context.getUiDevice(), By.res(PACKAGE_NAME, "btn_cart_checkout"));
-        Thread.sleep(1200);
+        clickIfExists(context, By.res(PACKAGE_NAME, "btn_cart_checkout"));
+        context.sleep(1200);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult handleOrderConfirmPage(ScenarioContext context) throws Exception {
-        clickIfExists(context.getUiDevice(), By.res(PACKAGE_NAME, "btn_confirm"));
-        Thread.sleep(1200);
+        clickIfExists(context, By.res(PACKAGE_NAME, "btn_confirm"));
+        context.sleep(1200);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult handleSecurePaymentPage(ScenarioContext context) throws Exception {
-        clickIfExists(context.getUiDevice(), By.text("Add a new card"));
-        Thread.sleep(1200);
+        clickIfExists(context, By.text("Add a new card"));
+        context.sleep(1200);
         return SceneResult.CONTINUE;
     }
 
@@ -318,15 +331,15 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
         fillChildInput(device, "sl_card_num", card.number());
         fillChildInput(device, "sl_card_data", card.expires());
         fillChildInput(device, "sl_card_cvv", card.cvv());
-        Thread.sleep(500);
-        clickIfExists(device, By.text("Pay Now"));
-        Thread.sleep(1500);
+        context.sleep(500);
+        clickIfExists(context, By.text("Pay Now"));
+        context.sleep(1500);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult handlePaymentExceptionPage(ScenarioContext context) throws Exception {
-        clickIfExists(context.getUiDevice(), By.res(PACKAGE_NAME, "tv_refresh"));
-        Thread.sleep(800);
+        clickIfExists(context, By.res(PACKAGE_NAME, "tv_refresh"));
+        context.sleep(800);
         return SceneResult.CONTINUE;
     }
 
@@ -336,34 +349,49 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
     }
 
     private static SceneResult handleNoPaymentMethodDialog(ScenarioContext context) throws Exception {
-        clickIfExists(context.getUiDevice(), By.res(PACKAGE_NAME, "iv_close"));
-        Thread.sleep(800);
+        clickIfExists(context, By.res(PACKAGE_NAME, "iv_close"));
+        context.sleep(800);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult handleProductNotFound(ScenarioContext context) {
-        context.getUiDevice().pressBack();
+        pressBack(context);
         return SceneResult.CONTINUE;
     }
 
     private static SceneResult clickAndContinue(ScenarioContext context, BySelector selector) throws Exception {
-        clickIfExists(context.getUiDevice(), selector);
-        Thread.sleep(600);
+        clickIfExists(context, selector);
+        context.sleep(600);
         return SceneResult.CONTINUE;
     }
 
-    private static boolean clickIfExists(UiDevice device, BySelector selector) {
-        if (device == null || selector == null) {
+    private static boolean clickIfExists(ScenarioContext context, BySelector selector) {
+        if (selector == null) {
             return false;
         }
-        UiObject2 obj = device.findObject(selector);
+        UiObject2 obj = context.getUiDevice().findObject(selector);
         if (obj == null) {
             return false;
         }
-        obj.click();
+        click(context, obj);
         return true;
     }
 
+    /**
+     * 经 {@link DeviceActions} 点击控件可见区域，触发手势回调使视觉缓存帧失效。
+     */
+    private static void click(ScenarioContext context, UiObject2 target) {
+        context.getDeviceActions().click(target.getVisibleBounds());
+    }
+
+    /**
+     * 返回键不经过 {@link DeviceActions}，界面随之变化，需手动丢弃缓存帧。
+     */
+    private static void pressBack(ScenarioContext context) {
+        context.getUiDevice().pressBack();
+        context.getVisionToolkit().invalidateFrame();
+    }
+
     private static void fillChildInput(UiDevice device, String containerRes, String value) {
         UiObject2 container = device.findObject(By.res(PACKAGE_NAME, containerRes));
         if (container == null) {
@@ -384,15 +412,16 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
         return items.get(ThreadLocalRandom.current().nextInt(items.size()));
     }
 
-    private static void ensureVerticalProductLayout(UiDevice device) throws InterruptedException {
+    private static void ensureVerticalProductLayout(ScenarioContext context) {
+        UiDevice device = context.getUiDevice();
         for (int i = 0; i < 3; i++) {
             if (isVerticalList(device)) {
                 return;
             }
-            if (!clickIfExists(device, By.res(PACKAGE_NAME, "iv_change_view"))) {
+            if (!clickIfExists(context, By.res(PACKAGE_NAME, "iv_change_view"))) {
                 break;
             }
-            Thread.sleep(800);
+            context.sleep(800);
         }
     }
 
@@ -504,6 +533,38 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
         return null;
     }
 
+    @Nullable
+    private static Rect unionBounds(List<ProductItem> products) {
+        Rect union = null;
+        for (ProductItem product : products) {
+            if (product.bounds().isEmpty()) {
+                continue;
+            }
+            if (union == null) {
+                union = new Rect(product.bounds());
+            } else {
+                union.union(product.bounds());
+            }
+        }
+        return union;
+    }
+
+    /**
+     * 将模板命中与商品节点关联：命中按得分降序，返回第一个落在任一商品图片区域内的命中。
+     */
+    @Nullable
+    private static TemplateMatch bestHitInProducts(List<ProductItem> products, List<TemplateMatch> hits) {
+        if (products == null || products.isEmpty() || hits == null || hits.isEmpty()) {
+            return null;
+        }
+        for (TemplateMatch hit : hits) {
+            if (matchPointInProducts(products, new Point(hit.centerX(), hit.centerY())) != null) {
+                return hit;
+            }
+        }
+        return null;
+    }
+
     @Nullable
     private static String optString(ScenarioContext context, String key) {
         Object value = context.get(key);
@@ -666,7 +727,7 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
             context.put("_random_browse_count", count);
         }
 
-        boolean scrollProductList(DeviceActions actions) throws InterruptedException {
+        boolean scrollProductList(DeviceActions actions) {
             int count = getScrollCount();
             if (count >= 20000) {
                 Log.e(TAG, "商品列表滑动次数达到上限: " + count);
@@ -674,7 +735,7 @@ public final class DhgateOrderV2Handlers implements ScriptHandlerProvider {
             }
             actions.swipe(SwipeDirection.UP, 0.8f, 600);
             context.put("_product_scroll_count", count + 1);
-            Thread.sleep(800);
+            context.sleep(800);
             return true;
         }
 
@@ -76,6 +76,13 @@ public final class AutomationMessage {
         return new AutomationMessage("result", payload);
     }
 
+    /**
+     * 周期推送的紧凑耗时指标。
+     */
+    public static AutomationMessage metrics(JSONObject compact) {
+        return new AutomationMessage("metrics", compact);
+    }
+
     public static AutomationMessage sessionInit(JSONObject data) {
         return new AutomationMessage("session_init", data);
     }
@@ -24,11 +24,12 @@ import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
+import okio.ByteString;
 
 /**
  * Minimal WebSocket client tailored for the automation runtime.
  */
-public final class AutomationWebSocketClient {
+public final class AutomationWebSocketClient implements BinaryChannel {
 
     private static final String TAG = "AutomationWebSocket";
     private static final long HEARTBEAT_INTERVAL_MS = 30_000L;
@@ -47,11 +48,18 @@ public final class AutomationWebSocketClient {
     private Runnable heartbeatTask;
     private AuthService authService;
     private Supplier<JSONArray> capabilitiesProvider;
+    private Supplier<JSONObject> startupReportProvider;
+    private Supplier<JSONObject> metricsProvider;
     private String deviceId;
     private final Deque<AutomationMessage> pendingMessages = new ArrayDeque<>();
     private static final int MAX_PENDING_MESSAGES = 200;
     private final Map<String, AutomationMessage> pendingAcks = new LinkedHashMap<>();
     private volatile boolean handshakeCompleted = false;
+    private final Object sessionInitLock = new Object();
+    /** 为 false 时连接建立后暂不发送 session_init，直到 {@link #releaseSessionInit()}。 */
+    private boolean sessionInitReleased = true;
+    /** 当前连接已打开但 session_init 尚未发送。 */
+    private boolean sessionInitPending;
     private static final String TYPE_SESSION_INIT = "session_init";
     private static final String TYPE_SESSION_READY = "session_ready";
     private static final String TYPE_COMMAND_ACK = "command_ack";
@@ -79,6 +87,39 @@ public final class AutomationWebSocketClient {
         this.capabilitiesProvider = provider;
     }
 
+    /**
+     * 能力列表就绪前调用：连接建立后先不发送 session_init，避免在 OkHttp 读线程上等待。
+     */
+    public void holdSessionInit() {
+        synchronized (sessionInitLock) {
+            sessionInitReleased = false;
+        }
+    }
+
+    /**
+     * 能力列表已就绪：若连接已打开且尚未发送 session_init，在调用线程上立即发送。
+     */
+    public void releaseSessionInit() {
+        synchronized (sessionInitLock) {
+            sessionInitReleased = true;
+        }
+        trySendSessionInit();
+    }
+
+    /**
+     * session_init 中 {@code startup} 字段（启动阶段耗时）的提供者，在能力列表之后取值。
+     */
+    public void setStartupReportProvider(Supplier<JSONObject> provider) {
+        this.startupReportProvider = provider;
+    }
+
+    /**
+     * 随心跳推送的指标，返回 null 表示本周期无需推送。
+     */
+    public void setMetricsProvider(Supplier<JSONObject> provider) {
+        this.metricsProvider = provider;
+    }
+
     public void setDeviceId(String deviceId) {
         this.deviceId = deviceId;
     }
@@ -103,7 +144,10 @@ public final class AutomationWebSocketClient {
                 reconnectScheduled = false;
                 Log.i(TAG, "WebSocket 连接成功");
                 handshakeCompleted = false;
-                sendSessionInit();
+                synchronized (sessionInitLock) {
+                    sessionInitPending = true;
+                }
+                trySendSessionInit();
                 startHeartbeat();
                 if (connectionCallback != null) {
                     connectionCallback.onConnected();
@@ -186,6 +230,29 @@ public final class AutomationWebSocketClient {
         }
     }
 
+    @Override
+    public boolean isOpen() {
+        return connected && handshakeCompleted && webSocket != null;
+    }
+
+    /**
+     * 发送二进制帧，不进入待发队列：断线期间的实时数据没有重放价值，直接丢弃。
+     */
+    @Override
+    public boolean sendBinary(byte[] payload) {
+        WebSocket socket = webSocket;
+        if (payload == null || socket == null || !connected || !handshakeCompleted) {
+            return false;
+        }
+        return socket.send(ByteString.of(payload));
+    }
+
+    @Override
+    public long queuedBytes() {
+        WebSocket socket = webSocket;
+        return socket != null ? socket.queueSize() : 0L;
+    }
+
     public void sendCommandResult(String commandId,
                                   boolean success,
                                   String result,
@@ -271,8 +338,10 @@ public final class AutomationWebSocketClient {
                 String action = data.optString("action");
                 JSONObject params = data.optJSONObject("params");
                 String userId = data.optString("user_id", null);
+                int priority = data.optInt("priority", 0);
+                long ttlMs = data.isNull("ttl_ms") ? 0L : data.optLong("ttl_ms", 0L);
                 if (messageCallback != null) {
-                    messageCallback.onCommand(commandId, action, params, userId);
+                    messageCallback.onCommand(commandId, action, params, userId, priority, ttlMs);
                 }
             } else if (TYPE_COMMAND_ACK.equals(message.getType())) {
                 handleAck(message.getData());
@@ -311,6 +380,16 @@ public final class AutomationWebSocketClient {
         }
     }
 
+    private void trySendSessionInit() {
+        synchronized (sessionInitLock) {
+            if (!sessionInitReleased || !sessionInitPending || !connected) {
+                return;
+            }
+            sessionInitPending = false;
+        }
+        sendSessionInit();
+    }
+
     private void sendSessionInit() {
         try {
             JSONObject data = new JSONObject();
@@ -335,6 +414,12 @@ public final class AutomationWebSocketClient {
                     Log.e(TAG, "构建能力列表失败", e);
                 }
             }
+            if (startupReportProvider != null) {
+                JSONObject startup = startupReportProvider.get();
+                if (startup != null) {
+                    data.put("startup", startup);
+                }
+            }
 
             sendMessage(AutomationMessage.sessionInit(data));
         } catch (JSONException e) {
@@ -361,12 +446,28 @@ public final class AutomationWebSocketClient {
                 } catch (JSONException e) {
                     Log.e(TAG, "发送心跳失败", e);
                 }
+                sendMetrics();
                 handler.postDelayed(this, HEARTBEAT_INTERVAL_MS);
             }
         };
         handler.postDelayed(heartbeatTask, HEARTBEAT_INTERVAL_MS);
     }
 
+    private void sendMetrics() {
+        Supplier<JSONObject> provider = metricsProvider;
+        if (provider == null) {
+            return;
+        }
+        try {
+            JSONObject compact = provider.get();
+            if (compact != null) {
+                sendMessage(AutomationMessage.metrics(compact));
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "推送指标失败", e);
+        }
+    }
+
     private void stopHeartbeat() {
         if (heartbeatTask != null) {
             handler.removeCallbacks(heartbeatTask);
@@ -403,7 +504,11 @@ public final class AutomationWebSocketClient {
 
     public interface MessageCallback {
         void onMessage(AutomationMessage message);
-        void onCommand(String commandId, String action, JSONObject payload, String userId);
+        /**
+         * @param priority 排队优先级，越大越先执行
+         * @param ttlMs    排队有效期，0 表示不过期
+         */
+        void onCommand(String commandId, String action, JSONObject payload, String userId, int priority, long ttlMs);
     }
 
     public interface ConnectionCallback {
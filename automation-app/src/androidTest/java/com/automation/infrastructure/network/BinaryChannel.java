@@ -0,0 +1,21 @@
+package com.automation.infrastructure.network;
+
+/**
+ * Outbound binary transport with visibility into its send backlog, so producers can drop data
+ * instead of queueing it behind a slow link.
+ */
+public interface BinaryChannel {
+
+    /** Whether the channel is connected and past the session handshake. */
+    boolean isOpen();
+
+    /**
+     * Queues a binary message.
+     *
+     * @return false if the channel is closed or refused the message
+     */
+    boolean sendBinary(byte[] payload);
+
+    /** Bytes accepted by {@link #sendBinary(byte[])} but not yet written to the network. */
+    long queuedBytes();
+}
@@ -9,11 +9,13 @@ import android.os.Build;
 
 import androidx.test.uiautomator.By;
 import androidx.test.uiautomator.UiDevice;
-import androidx.test.uiautomator.Until;
+
+import com.automation.shared.util.CancellationToken;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * APP 管理增强
@@ -21,6 +23,7 @@ import java.util.List;
  */
 public class AppManager {
     private static final int LAUNCH_TIMEOUT = 5000;
+    private static final long WAIT_POLL_MS = 200L;
     private static final String TAG = "AppManager";
 
     private Context context;
@@ -49,7 +52,9 @@ public class AppManager {
             context.startActivity(intent);
 
             // 等待应用启动
-            return device.wait(Until.hasObject(By.pkg(packageName).depth(0)), LAUNCH_TIMEOUT);
+            return waitForApp(packageName, LAUNCH_TIMEOUT);
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             android.util.Log.e(TAG, "Launch failed: " + e.getMessage());
             return false;
@@ -119,7 +124,8 @@ public class AppManager {
      * 等待应用启动
      */
     public boolean waitForApp(String packageName, long timeout) {
-        return device.wait(Until.hasObject(By.pkg(packageName).depth(0)), timeout);
+        return CancellationToken.current().await(
+                () -> device.hasObject(By.pkg(packageName).depth(0)), timeout, WAIT_POLL_MS);
     }
 
     /**
@@ -157,11 +163,7 @@ public class AppManager {
      */
     public boolean restartApp(String packageName) {
         stopApp(packageName);
-        try {
-            Thread.sleep(500); // 等待应用完全停止
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        CancellationToken.current().sleep(500); // 等待应用完全停止
         return launchApp(packageName);
     }
 
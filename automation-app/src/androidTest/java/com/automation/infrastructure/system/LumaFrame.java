@@ -0,0 +1,72 @@
+package com.automation.infrastructure.system;
+
+/**
+ * Downscaled 8-bit grayscale frame used for cheap change detection between captures.
+ */
+public final class LumaFrame {
+
+    private final int width;
+    private final int height;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final byte[] luma;
+
+    public LumaFrame(int width, int height, int sourceWidth, int sourceHeight, byte[] luma) {
+        if (luma.length != width * height) {
+            throw new IllegalArgumentException("luma size mismatch");
+        }
+        this.width = width;
+        this.height = height;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.luma = luma;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /** Width of the original screenshot this frame was scaled from. */
+    public int sourceWidth() {
+        return sourceWidth;
+    }
+
+    /** Height of the original screenshot this frame was scaled from. */
+    public int sourceHeight() {
+        return sourceHeight;
+    }
+
+    public byte[] luma() {
+        return luma;
+    }
+
+    /**
+     * Mean absolute gray-level difference (0-255) inside a region given as fractions of the screen.
+     * Frames of different size are never considered similar.
+     */
+    public double meanAbsDifference(LumaFrame other, float left, float top, float right, float bottom) {
+        if (other == null || other.width != width || other.height != height) {
+            return 255d;
+        }
+        int x0 = clamp(Math.round(left * width), 0, width - 1);
+        int y0 = clamp(Math.round(top * height), 0, height - 1);
+        int x1 = clamp(Math.round(right * width), x0 + 1, width);
+        int y1 = clamp(Math.round(bottom * height), y0 + 1, height);
+        long sum = 0;
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int x = x0; x < x1; x++) {
+                sum += Math.abs((luma[row + x] & 0xFF) - (other.luma[row + x] & 0xFF));
+            }
+        }
+        return sum / (double) ((x1 - x0) * (y1 - y0));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,345 @@
+package com.automation.infrastructure.system;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.automation.infrastructure.network.BinaryChannel;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Pushes live JPEG frames over a {@link BinaryChannel} from a dedicated capture thread.
+ * <p>
+ * Each binary message is laid out as a 4-byte big-endian header length, a UTF-8 JSON header
+ * ({@code type=screen_frame}, stream id, sequence, size, quality, capture time) and the JPEG bytes.
+ * Frames whose downscaled luma barely differs from the last sent frame are skipped, except for a
+ * periodic keyframe. When the socket backlog exceeds the configured limit the frame is dropped
+ * before capture and the stream steps down quality, then resolution; it steps back up after a
+ * run of frames that drain promptly. Resolution also steps down when JPEG encoding alone exceeds
+ * the frame interval, and never steps back up while recent ticks are overrunning.
+ */
+public final class ScreenStreamer {
+
+    private static final String TAG = "ScreenStreamer";
+    private static final int CHANGE_FRAME_WIDTH = 64;
+    private static final int MIN_QUALITY = 30;
+    private static final int MIN_WIDTH = 240;
+    private static final int QUALITY_STEP = 10;
+    private static final int UPGRADE_AFTER_FRAMES = 10;
+    private static final long KEYFRAME_INTERVAL_MS = 2_000L;
+    private static final long STOP_JOIN_MS = 1_000L;
+
+    private final ScreenshotHelper screenshotHelper;
+    private final BinaryChannel channel;
+    private final Object lock = new Object();
+    private Session active;
+
+    public ScreenStreamer(ScreenshotHelper screenshotHelper, BinaryChannel channel) {
+        this.screenshotHelper = screenshotHelper;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts a new stream, replacing any running one.
+     *
+     * @return the id carried in every frame header of the new stream
+     */
+    public String start(Config config) {
+        if (channel == null || !channel.isOpen()) {
+            throw new IllegalStateException("binary channel is not connected");
+        }
+        Session previous;
+        Session session = new Session(config);
+        synchronized (lock) {
+            previous = active;
+            active = session;
+        }
+        if (previous != null) {
+            previous.stop("replaced");
+        }
+        session.thread.start();
+        return session.streamId;
+    }
+
+    /**
+     * Stops the running stream without waiting for an in-flight capture longer than one second.
+     *
+     * @return final statistics, or null if no stream was running
+     */
+    public Stats stop() {
+        Session session;
+        synchronized (lock) {
+            session = active;
+            active = null;
+        }
+        if (session == null) {
+            return null;
+        }
+        session.stop("requested");
+        return session.stats();
+    }
+
+    /** Statistics of the running stream, or null if idle. */
+    public Stats status() {
+        Session session;
+        synchronized (lock) {
+            session = active;
+        }
+        return session != null ? session.stats() : null;
+    }
+
+    private void finished(Session session) {
+        synchronized (lock) {
+            if (active == session) {
+                active = null;
+            }
+        }
+    }
+
+    private final class Session implements Runnable {
+
+        final String streamId = UUID.randomUUID().toString();
+        final Config config;
+        final Thread thread;
+        final long startedAt = SystemClock.elapsedRealtime();
+        final long intervalMs;
+        volatile boolean stopping;
+        volatile String stopReason;
+        volatile int width;
+        volatile int quality;
+        volatile long sequence;
+        volatile long framesSent;
+        volatile long framesSkipped;
+        volatile long framesDropped;
+        volatile long bytesSent;
+        private LumaFrame lastSent;
+        private long lastSentAt;
+        private int drainedFrames;
+        /** Ticks since the last one that overran {@link #intervalMs}; upgrades wait for a clean run. */
+        private int ticksSinceOverrun = UPGRADE_AFTER_FRAMES;
+
+        Session(Config config) {
+            this.config = config;
+            this.intervalMs = Math.max(1L, 1000L / config.fps);
+            this.width = config.maxWidth;
+            this.quality = config.quality;
+            this.thread = new Thread(this, "screen-stream");
+            this.thread.setDaemon(true);
+        }
+
+        void stop(String reason) {
+            if (stopReason == null) {
+                stopReason = reason;
+            }
+            stopping = true;
+            thread.interrupt();
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join(STOP_JOIN_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopping) {
+                    long tickStart = SystemClock.elapsedRealtime();
+                    if (!channel.isOpen()) {
+                        stopReason = "disconnected";
+                        break;
+                    }
+                    if (channel.queuedBytes() > config.maxQueueBytes) {
+                        framesDropped++;
+                        drainedFrames = 0;
+                        degrade();
+                    } else {
+                        captureAndSend(tickStart);
+                    }
+                    long elapsed = SystemClock.elapsedRealtime() - tickStart;
+                    if (elapsed > intervalMs) {
+                        // Capture cost does not depend on the output width; only encode overruns downscale (see captureAndSend)
+                        ticksSinceOverrun = 0;
+                    } else {
+                        ticksSinceOverrun++;
+                        Thread.sleep(intervalMs - elapsed);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                stopReason = "error: " + e.getMessage();
+                Log.e(TAG, "screen stream failed", e);
+            } finally {
+                stopping = true;
+                finished(this);
+                Log.i(TAG, "screen stream " + streamId + " ended (" + stopReason + "), sent=" + framesSent
+                        + " skipped=" + framesSkipped + " dropped=" + framesDropped);
+            }
+        }
+
+        private void captureAndSend(long capturedAt) throws JSONException {
+            Bitmap bitmap = screenshotHelper.captureBitmap();
+            if (bitmap == null) {
+                return;
+            }
+            try {
+                LumaFrame luma = ScreenshotHelper.toLuma(bitmap, CHANGE_FRAME_WIDTH);
+                boolean keyframeDue = capturedAt - lastSentAt >= KEYFRAME_INTERVAL_MS;
+                if (!keyframeDue && lastSent != null
+                        && luma.meanAbsDifference(lastSent, 0f, 0f, 1f, 1f) < config.changeThreshold) {
+                    framesSkipped++;
+                    return;
+                }
+                int frameQuality = quality;
+                long encodeStart = SystemClock.elapsedRealtime();
+                byte[] jpeg = ScreenshotHelper.encodeJpeg(bitmap, width, frameQuality);
+                if (SystemClock.elapsedRealtime() - encodeStart > intervalMs) {
+                    // Encoding alone misses the frame budget; fewer pixels saves more CPU than lower quality
+                    downscale();
+                }
+                int frameWidth = Math.min(width, bitmap.getWidth());
+                int frameHeight = Math.round(bitmap.getHeight() * (frameWidth / (float) bitmap.getWidth()));
+                byte[] message = frame(jpeg, frameWidth, frameHeight, frameQuality,
+                        bitmap.getWidth(), bitmap.getHeight(), capturedAt);
+                if (!channel.sendBinary(message)) {
+                    framesDropped++;
+                    return;
+                }
+                lastSent = luma;
+                lastSentAt = capturedAt;
+                framesSent++;
+                bytesSent += message.length;
+                if (channel.queuedBytes() <= config.maxQueueBytes / 4) {
+                    if (++drainedFrames >= UPGRADE_AFTER_FRAMES) {
+                        drainedFrames = 0;
+                        upgrade();
+                    }
+                } else {
+                    drainedFrames = 0;
+                }
+            } finally {
+                bitmap.recycle();
+            }
+        }
+
+        private byte[] frame(byte[] jpeg, int frameWidth, int frameHeight, int frameQuality,
+                             int screenWidth, int screenHeight, long capturedAt) throws JSONException {
+            JSONObject header = new JSONObject();
+            header.put("type", "screen_frame");
+            header.put("stream_id", streamId);
+            header.put("seq", sequence++);
+            header.put("width", frameWidth);
+            header.put("height", frameHeight);
+            header.put("screen_width", screenWidth);
+            header.put("screen_height", screenHeight);
+            header.put("quality", frameQuality);
+            header.put("format", "jpeg");
+            header.put("captured_at", capturedAt - startedAt);
+            byte[] headerBytes = header.toString().getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(4 + headerBytes.length + jpeg.length)
+                    .putInt(headerBytes.length)
+                    .put(headerBytes)
+                    .put(jpeg)
+                    .array();
+        }
+
+        private void degrade() {
+            if (quality > MIN_QUALITY) {
+                quality = Math.max(MIN_QUALITY, quality - QUALITY_STEP);
+            } else {
+                downscale();
+            }
+        }
+
+        private void downscale() {
+            width = Math.max(Math.min(MIN_WIDTH, config.maxWidth), width * 3 / 4);
+        }
+
+        private void upgrade() {
+            if (ticksSinceOverrun < UPGRADE_AFTER_FRAMES) {
+                return;
+            }
+            if (width < config.maxWidth) {
+                width = Math.min(config.maxWidth, width * 4 / 3);
+            } else if (quality < config.quality) {
+                quality = Math.min(config.quality, quality + QUALITY_STEP / 2);
+            }
+        }
+
+        Stats stats() {
+            return new Stats(streamId, !stopping, stopReason, SystemClock.elapsedRealtime() - startedAt,
+                    framesSent, framesSkipped, framesDropped, bytesSent, width, quality);
+        }
+    }
+
+    /** Stream settings; values are clamped to sane ranges. */
+    public static final class Config {
+        final int fps;
+        final int maxWidth;
+        final int quality;
+        final double changeThreshold;
+        final long maxQueueBytes;
+
+        public Config(int fps, int maxWidth, int quality, double changeThreshold, long maxQueueBytes) {
+            this.fps = Math.max(1, Math.min(fps, 30));
+            this.maxWidth = Math.max(MIN_WIDTH / 2, maxWidth);
+            this.quality = Math.max(MIN_QUALITY, Math.min(quality, 95));
+            this.changeThreshold = Math.max(0d, changeThreshold);
+            this.maxQueueBytes = Math.max(16 * 1024L, maxQueueBytes);
+        }
+    }
+
+    /** Snapshot of stream counters. */
+    public static final class Stats {
+        private final String streamId;
+        private final boolean running;
+        private final String stopReason;
+        private final long durationMs;
+        private final long framesSent;
+        private final long framesSkipped;
+        private final long framesDropped;
+        private final long bytesSent;
+        private final int width;
+        private final int quality;
+
+        Stats(String streamId, boolean running, String stopReason, long durationMs, long framesSent,
+              long framesSkipped, long framesDropped, long bytesSent, int width, int quality) {
+            this.streamId = streamId;
+            this.running = running;
+            this.stopReason = stopReason;
+            this.durationMs = durationMs;
+            this.framesSent = framesSent;
+            this.framesSkipped = framesSkipped;
+            this.framesDropped = framesDropped;
+            this.bytesSent = bytesSent;
+            this.width = width;
+            this.quality = quality;
+        }
+
+        public JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("stream_id", streamId);
+            json.put("running", running);
+            if (stopReason != null) {
+                json.put("stop_reason", stopReason);
+            }
+            json.put("duration_ms", durationMs);
+            json.put("frames_sent", framesSent);
+            json.put("frames_skipped", framesSkipped);
+            json.put("frames_dropped", framesDropped);
+            json.put("bytes_sent", bytesSent);
+            json.put("width", width);
+            json.put("quality", quality);
+            return json;
+        }
+    }
+}
@@ -70,6 +70,104 @@ public final class ScreenshotHelper {
         }
     }
 
+    /**
+     * Captures a downscaled grayscale frame for change detection. Skips JPEG encoding entirely,
+     * so it is cheap enough to poll several times per second.
+     *
+     * @param targetWidth width of the returned frame; height keeps the screen aspect ratio
+     * @return the frame, or null if the capture failed
+     */
+    public LumaFrame captureLuma(int targetWidth) {
+        Bitmap bitmap = captureBitmap();
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            return toLuma(bitmap, targetWidth);
+        } catch (Exception e) {
+            Log.e(TAG, "captureLuma failed", e);
+            return null;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Captures the raw screen bitmap in memory. The caller owns the result and must recycle it.
+     *
+     * @return the bitmap, or null if the capture failed
+     */
+    public Bitmap captureBitmap() {
+        try {
+            UiAutomation uiAutomation = InstrumentationRegistry.getInstrumentation().getUiAutomation();
+            Bitmap bitmap = uiAutomation.takeScreenshot();
+            if (bitmap == null) {
+                Log.e(TAG, "UiAutomation.takeScreenshot returned null");
+            }
+            return bitmap;
+        } catch (Exception e) {
+            Log.e(TAG, "captureBitmap failed", e);
+            return null;
+        }
+    }
+
+    /** Downscales a bitmap to the given width and converts it to 8-bit luma. */
+    public static LumaFrame toLuma(Bitmap source, int targetWidth) {
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        Bitmap scaled = scaleToWidth(source, targetWidth);
+        try {
+            int width = scaled.getWidth();
+            int height = scaled.getHeight();
+            int[] pixels = new int[width * height];
+            scaled.getPixels(pixels, 0, width, 0, 0, width, height);
+            byte[] luma = new byte[pixels.length];
+            for (int i = 0; i < pixels.length; i++) {
+                int argb = pixels[i];
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+                luma[i] = (byte) ((77 * r + 150 * g + 29 * b) >> 8);
+            }
+            return new LumaFrame(width, height, sourceWidth, sourceHeight, luma);
+        } finally {
+            if (scaled != source) {
+                scaled.recycle();
+            }
+        }
+    }
+
+    /**
+     * Encodes a bitmap as JPEG, downscaling first when it is wider than {@code maxWidth}.
+     * The source bitmap is left untouched.
+     */
+    public static byte[] encodeJpeg(Bitmap source, int maxWidth, int quality) {
+        Bitmap scaled = scaleToWidth(source, maxWidth);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            scaled.compress(Bitmap.CompressFormat.JPEG, Math.max(0, Math.min(quality, 100)), out);
+            return out.toByteArray();
+        } finally {
+            if (scaled != source) {
+                scaled.recycle();
+            }
+        }
+    }
+
+    /**
+     * Downscales a bitmap to the given width, keeping the aspect ratio. Returns the source itself
+     * when no downscaling is needed; otherwise the caller owns and must recycle the result.
+     */
+    public static Bitmap scaleToWidth(Bitmap source, int targetWidth) {
+        int sourceWidth = source.getWidth();
+        int width = Math.max(1, Math.min(targetWidth, sourceWidth));
+        if (width == sourceWidth) {
+            return source;
+        }
+        int height = Math.max(1, Math.round(source.getHeight() * (width / (float) sourceWidth)));
+        return Bitmap.createScaledBitmap(source, width, height, true);
+    }
+
     /** Captures compressed JPEG to destination file using a temporary PNG capture. */
     public boolean captureCompressed(File destination, int quality) {
         File temp = new File(destination.getParentFile(), ".temp_capture.png");
@@ -0,0 +1,253 @@
+package com.automation.infrastructure.system;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Encodes screenshots as deltas against a recent frame the client already holds.
+ * <p>
+ * Every encoded frame is split into square tiles and each tile's pixels are hashed. Only the
+ * hashes of the last few frames are kept, keyed by frame id; a delta request compares the new
+ * hashes with the base frame's and JPEG-encodes just the changed tiles, merging horizontally
+ * adjacent tiles into one rectangle to save per-image overhead. When the base is unknown, the
+ * geometry changed, or most tiles changed anyway, a full frame is returned instead.
+ */
+public final class TileDeltaEncoder {
+
+    public static final int DEFAULT_TILE_SIZE = 128;
+    private static final int MIN_TILE_SIZE = 32;
+    private static final int DEFAULT_RING_SIZE = 4;
+    /** Above this share of changed tiles a single full JPEG is smaller than many tiles. */
+    private static final double MAX_DELTA_FRACTION = 0.6;
+
+    private final int ringSize;
+    private final Map<String, TileHashes> ring = new LinkedHashMap<>();
+
+    public TileDeltaEncoder() {
+        this(DEFAULT_RING_SIZE);
+    }
+
+    public TileDeltaEncoder(int ringSize) {
+        this.ringSize = Math.max(1, ringSize);
+    }
+
+    /**
+     * Encodes a frame, as a delta when {@code baseFrameId} is still in the ring.
+     * The bitmap is not recycled.
+     */
+    public Frame encode(Bitmap bitmap, String baseFrameId, int tileSize, int quality) {
+        int size = Math.max(MIN_TILE_SIZE, tileSize);
+        TileHashes hashes = hash(bitmap, size);
+        String frameId = UUID.randomUUID().toString();
+        TileHashes base;
+        synchronized (ring) {
+            base = baseFrameId != null ? ring.get(baseFrameId) : null;
+            ring.put(frameId, hashes);
+            Iterator<String> oldest = ring.keySet().iterator();
+            while (ring.size() > ringSize && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        int totalTiles = hashes.columns * hashes.rows;
+        if (base == null || !base.sameGeometry(hashes)) {
+            return Frame.full(frameId, hashes, encodeJpeg(bitmap, quality), totalTiles);
+        }
+        List<Tile> changed = new ArrayList<>();
+        int changedTiles = 0;
+        for (int row = 0; row < hashes.rows; row++) {
+            int runStart = -1;
+            for (int column = 0; column <= hashes.columns; column++) {
+                boolean dirty = column < hashes.columns
+                        && hashes.values[row * hashes.columns + column] != base.values[row * hashes.columns + column];
+                if (dirty) {
+                    changedTiles++;
+                    if (runStart < 0) {
+                        runStart = column;
+                    }
+                } else if (runStart >= 0) {
+                    changed.add(new Tile(hashes, runStart, column, row));
+                    runStart = -1;
+                }
+            }
+        }
+        if (changedTiles > totalTiles * MAX_DELTA_FRACTION) {
+            return Frame.full(frameId, hashes, encodeJpeg(bitmap, quality), totalTiles);
+        }
+        for (Tile tile : changed) {
+            Bitmap region = Bitmap.createBitmap(bitmap, tile.x, tile.y, tile.width, tile.height);
+            try {
+                tile.jpeg = encodeJpeg(region, quality);
+            } finally {
+                if (region != bitmap) {
+                    region.recycle();
+                }
+            }
+        }
+        return new Frame(frameId, baseFrameId, hashes, null, changed, changedTiles, totalTiles);
+    }
+
+    private static TileHashes hash(Bitmap bitmap, int tileSize) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        long[] values = new long[columns * rows];
+        Arrays.fill(values, 0xcbf29ce484222325L);
+        int[] line = new int[width];
+        for (int y = 0; y < height; y++) {
+            bitmap.getPixels(line, 0, width, 0, y, width, 1);
+            int offset = (y / tileSize) * columns;
+            for (int x = 0; x < width; x++) {
+                int index = offset + x / tileSize;
+                values[index] = (values[index] ^ line[x]) * 0x100000001b3L;
+            }
+        }
+        return new TileHashes(width, height, tileSize, columns, rows, values);
+    }
+
+    private static byte[] encodeJpeg(Bitmap bitmap, int quality) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, Math.max(0, Math.min(quality, 100)), out);
+        return out.toByteArray();
+    }
+
+    private static final class TileHashes {
+        final int width;
+        final int height;
+        final int tileSize;
+        final int columns;
+        final int rows;
+        final long[] values;
+
+        TileHashes(int width, int height, int tileSize, int columns, int rows, long[] values) {
+            this.width = width;
+            this.height = height;
+            this.tileSize = tileSize;
+            this.columns = columns;
+            this.rows = rows;
+            this.values = values;
+        }
+
+        boolean sameGeometry(TileHashes other) {
+            return width == other.width && height == other.height && tileSize == other.tileSize;
+        }
+    }
+
+    /** A changed rectangle covering one or more horizontally adjacent tiles. */
+    public static final class Tile {
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+        private byte[] jpeg;
+
+        Tile(TileHashes hashes, int firstColumn, int endColumn, int row) {
+            this.x = firstColumn * hashes.tileSize;
+            this.y = row * hashes.tileSize;
+            this.width = Math.min(hashes.width, endColumn * hashes.tileSize) - x;
+            this.height = Math.min(hashes.height, y + hashes.tileSize) - y;
+        }
+
+        public int x() {
+            return x;
+        }
+
+        public int y() {
+            return y;
+        }
+
+        public int width() {
+            return width;
+        }
+
+        public int height() {
+            return height;
+        }
+
+        public byte[] jpeg() {
+            return jpeg;
+        }
+    }
+
+    /** Result of {@link #encode}: either a full JPEG or the changed tiles relative to the base frame. */
+    public static final class Frame {
+        private final String frameId;
+        private final String baseFrameId;
+        private final int width;
+        private final int height;
+        private final int tileSize;
+        private final byte[] fullJpeg;
+        private final List<Tile> tiles;
+        private final int changedTiles;
+        private final int totalTiles;
+
+        Frame(String frameId, String baseFrameId, TileHashes hashes, byte[] fullJpeg,
+              List<Tile> tiles, int changedTiles, int totalTiles) {
+            this.frameId = frameId;
+            this.baseFrameId = baseFrameId;
+            this.width = hashes.width;
+            this.height = hashes.height;
+            this.tileSize = hashes.tileSize;
+            this.fullJpeg = fullJpeg;
+            this.tiles = Collections.unmodifiableList(tiles);
+            this.changedTiles = changedTiles;
+            this.totalTiles = totalTiles;
+        }
+
+        static Frame full(String frameId, TileHashes hashes, byte[] jpeg, int totalTiles) {
+            return new Frame(frameId, null, hashes, jpeg, List.of(), totalTiles, totalTiles);
+        }
+
+        public boolean isDelta() {
+            return fullJpeg == null;
+        }
+
+        public String frameId() {
+            return frameId;
+        }
+
+        /** Base the tiles apply to; null for a full frame. */
+        public String baseFrameId() {
+            return baseFrameId;
+        }
+
+        public int width() {
+            return width;
+        }
+
+        public int height() {
+            return height;
+        }
+
+        public int tileSize() {
+            return tileSize;
+        }
+
+        /** The full JPEG; null for a delta frame. */
+        public byte[] fullJpeg() {
+            return fullJpeg;
+        }
+
+        public List<Tile> tiles() {
+            return tiles;
+        }
+
+        public int changedTiles() {
+            return changedTiles;
+        }
+
+        public int totalTiles() {
+            return totalTiles;
+        }
+    }
+}
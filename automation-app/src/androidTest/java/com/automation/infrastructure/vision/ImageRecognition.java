@@ -1,17 +1,30 @@
 package com.automation.infrastructure.vision;
 
-import android.os.Build;
-import android.util.Base64;
-
+import org.opencv.calib3d.Calib3d;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
+import org.opencv.features2d.BFMatcher;
+import org.opencv.features2d.ORB;
 import org.opencv.imgproc.Imgproc;
 import org.opencv.imgcodecs.Imgcodecs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * OpenCV 图像识别封装
@@ -19,9 +32,44 @@ import org.opencv.imgcodecs.Imgcodecs;
  */
 public class ImageRecognition {
 
+    /** 多目标匹配默认的重叠抑制阈值（IoU）。 */
+    public static final double DEFAULT_NMS_OVERLAP = 0.3;
+    /** 多目标匹配单次最多返回的命中数，防止阈值过低时结果爆炸。 */
+    public static final int MAX_MATCHES = 64;
+    /** 特征点匹配时单张图片提取的最大 ORB 特征数。 */
+    public static final int MAX_FEATURES = 1500;
+    /** 单应性估计后最少的内点数，低于该值视为未命中。 */
+    public static final int MIN_FEATURE_INLIERS = 12;
+    private static final float FEATURE_RATIO = 0.75f;
+    private static final double RANSAC_REPROJ_THRESHOLD = 5.0;
+    /** 投影后目标相对模板的缩放范围，超出说明单应性退化。 */
+    private static final double MIN_FEATURE_SCALE = 0.1;
+    private static final double MAX_FEATURE_SCALE = 10.0;
+
     static {
-        // 加载 OpenCV 库
-        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        // 加载 OpenCV 库；本包不依赖 android.*，可直接在桌面 JVM 上运行基准测试
+        OpenCvLoader.ensureLoaded();
+    }
+
+    private final MatPool matPool = new MatPool();
+    private final TiledTemplateMatcher templateMatcher;
+
+    public ImageRecognition() {
+        this(TiledTemplateMatcher.defaultParallelism());
+    }
+
+    /**
+     * @param matchParallelism 模板匹配的并发分条数，1 表示单线程
+     */
+    public ImageRecognition(int matchParallelism) {
+        this.templateMatcher = new TiledTemplateMatcher(matchParallelism);
+    }
+
+    /**
+     * 中间结果缓冲池，同时提供原生 Mat 分配统计。
+     */
+    public MatPool matPool() {
+        return matPool;
     }
 
     /**
@@ -42,18 +90,15 @@ public class ImageRecognition {
      * @return 匹配位置的中心点坐标
      */
     public Point findTemplate(String screenshotPath, String templatePath, double threshold) {
-        try {
-            Mat screenshot = Imgcodecs.imread(screenshotPath);
-            Mat template = Imgcodecs.imread(templatePath);
-            try {
-                if (screenshot.empty() || template.empty()) {
-                    return null;
-                }
-                return findTemplate(screenshot, template, threshold);
-            } finally {
-                screenshot.release();
-                template.release();
+        try (MatPool.Scope scope = matPool.openScope()) {
+            Mat screenshot = scope.track(Imgcodecs.imread(screenshotPath));
+            Mat template = scope.track(Imgcodecs.imread(templatePath));
+            if (screenshot.empty() || template.empty()) {
+                return null;
             }
+            return findTemplate(screenshot, template, threshold);
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -71,9 +116,10 @@ public class ImageRecognition {
             return null;
         }
 
-        Mat result = new Mat(resultRows, resultCols, CvType.CV_32FC1);
+        // 同一分辨率下结果图尺寸固定，复用缓冲避免每次分配整屏浮点矩阵
+        Mat result = matPool.acquire(resultRows, resultCols, CvType.CV_32FC1);
         try {
-            Imgproc.matchTemplate(screenshot, template, result, Imgproc.TM_CCOEFF_NORMED);
+            templateMatcher.match(screenshot, template, result);
             Core.MinMaxLocResult mmr = Core.minMaxLoc(result);
             if (mmr.maxVal < threshold) {
                 return null;
@@ -83,25 +129,236 @@ public class ImageRecognition {
             int centerY = (int) (matchLoc.y + template.rows() / 2.0);
             return new Point(centerX, centerY);
         } finally {
-            result.release();
+            matPool.recycle(result);
+        }
+    }
+
+    /**
+     * 多目标模板匹配：返回所有高于阈值的命中，按得分降序排列，并做非极大值抑制。
+     *
+     * @param screenshot 截图
+     * @param template   模板
+     * @param threshold  相似度阈值（0-1）
+     * @param maxResults 最多返回的命中数（K），小于等于 0 时使用 {@link #MAX_MATCHES}
+     * @return 命中列表，未命中时为空列表
+     */
+    public List<TemplateMatch> findAllTemplates(Mat screenshot, Mat template, double threshold, int maxResults) {
+        return findAllTemplates(screenshot, template, threshold, maxResults, DEFAULT_NMS_OVERLAP);
+    }
+
+    /**
+     * 多目标模板匹配（可配置重叠阈值）。
+     *
+     * @param maxOverlap 两个命中框的 IoU 超过该值时只保留得分更高者
+     */
+    public List<TemplateMatch> findAllTemplates(Mat screenshot,
+                                                Mat template,
+                                                double threshold,
+                                                int maxResults,
+                                                double maxOverlap) {
+        List<TemplateMatch> matches = new ArrayList<>();
+        if (screenshot == null || template == null || screenshot.empty() || template.empty()) {
+            return matches;
+        }
+        int resultCols = screenshot.cols() - template.cols() + 1;
+        int resultRows = screenshot.rows() - template.rows() + 1;
+        if (resultCols <= 0 || resultRows <= 0) {
+            return matches;
+        }
+
+        int limit = maxResults > 0 ? Math.min(maxResults, MAX_MATCHES) : MAX_MATCHES;
+        int templateWidth = template.cols();
+        int templateHeight = template.rows();
+        // 以峰值为中心、模板一半大小的窗口清零，保证下一次 minMaxLoc 找到的是新的峰
+        int suppressHalfWidth = Math.max(1, templateWidth / 2);
+        int suppressHalfHeight = Math.max(1, templateHeight / 2);
+        Scalar suppressed = new Scalar(-1);
+
+        Mat result = matPool.acquire(resultRows, resultCols, CvType.CV_32FC1);
+        try {
+            templateMatcher.match(screenshot, template, result);
+            // 被 IoU 过滤的候选也会消耗一次迭代，这里给出上限避免病态输入拖慢匹配
+            int maxIterations = limit * 8;
+            for (int i = 0; i < maxIterations && matches.size() < limit; i++) {
+                Core.MinMaxLocResult mmr = Core.minMaxLoc(result);
+                if (mmr.maxVal < threshold) {
+                    break;
+                }
+                int x = (int) mmr.maxLoc.x;
+                int y = (int) mmr.maxLoc.y;
+                TemplateMatch candidate = new TemplateMatch(x, y, templateWidth, templateHeight, mmr.maxVal);
+                if (!overlapsAccepted(matches, candidate, maxOverlap)) {
+                    matches.add(candidate);
+                }
+                int left = Math.max(0, x - suppressHalfWidth);
+                int top = Math.max(0, y - suppressHalfHeight);
+                int right = Math.min(resultCols, x + suppressHalfWidth + 1);
+                int bottom = Math.min(resultRows, y + suppressHalfHeight + 1);
+                Mat window = result.submat(top, bottom, left, right);
+                window.setTo(suppressed);
+                window.release();
+            }
+        } finally {
+            matPool.recycle(result);
         }
+        return matches;
     }
 
-    public Mat decodeBase64(String base64) {
-        if (base64 == null) {
+    private static boolean overlapsAccepted(List<TemplateMatch> accepted, TemplateMatch candidate, double maxOverlap) {
+        for (TemplateMatch match : accepted) {
+            if (match.intersectionOverUnion(candidate) > maxOverlap) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 提取 ORB 特征点与描述子，供特征匹配复用。
+     * @param image BGR 或灰度图
+     * @return 特征集合；图片为空时返回 null
+     */
+    public TemplateFeatures extractFeatures(Mat image) {
+        if (image == null || image.empty()) {
             return null;
         }
-        byte[] data;
+        Mat gray = new Mat();
+        Mat noMask = new Mat();
+        MatOfKeyPoint keypoints = new MatOfKeyPoint();
+        Mat descriptors = new Mat();
         try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                data = java.util.Base64.getDecoder().decode(base64);
+            if (image.channels() == 1) {
+                image.copyTo(gray);
             } else {
-                data = Base64.decode(base64, Base64.DEFAULT);
+                Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
             }
-        } catch (IllegalArgumentException e) {
+            ORB.create(MAX_FEATURES).detectAndCompute(gray, noMask, keypoints, descriptors);
+        } finally {
+            gray.release();
+            noMask.release();
+        }
+        return new TemplateFeatures(keypoints, descriptors, image.cols(), image.rows());
+    }
+
+    /**
+     * 特征点匹配：对尺寸不一致的模板（服务端下发的原图 vs 屏幕缩略图）更鲁棒。
+     * @return 命中框（投影四边形的外接矩形），score 为内点占比；未命中返回 null
+     */
+    public TemplateMatch findTemplateByFeatures(Mat screenshot, Mat template) {
+        TemplateFeatures templateFeatures = extractFeatures(template);
+        TemplateFeatures sceneFeatures = null;
+        try {
+            if (templateFeatures == null || templateFeatures.isEmpty()) {
+                return null;
+            }
+            sceneFeatures = extractFeatures(screenshot);
+            return findTemplateByFeatures(sceneFeatures, templateFeatures);
+        } finally {
+            if (templateFeatures != null) {
+                templateFeatures.release();
+            }
+            if (sceneFeatures != null) {
+                sceneFeatures.release();
+            }
+        }
+    }
+
+    /**
+     * 基于预先提取的特征做匹配：比值测试筛选 + RANSAC 单应性校验。
+     * @param scene 截图特征
+     * @param template 模板特征
+     */
+    public TemplateMatch findTemplateByFeatures(TemplateFeatures scene, TemplateFeatures template) {
+        if (scene == null || template == null || scene.size() < 2 || template.size() < 2) {
             return null;
         }
-        return decodeImageBytes(data);
+        List<MatOfDMatch> knn = new ArrayList<>();
+        BFMatcher.create(Core.NORM_HAMMING, false)
+                .knnMatch(template.descriptors(), scene.descriptors(), knn, 2);
+
+        KeyPoint[] templatePoints = template.keypoints().toArray();
+        KeyPoint[] scenePoints = scene.keypoints().toArray();
+        List<Point> src = new ArrayList<>();
+        List<Point> dst = new ArrayList<>();
+        for (MatOfDMatch pair : knn) {
+            DMatch[] candidates = pair.toArray();
+            pair.release();
+            if (candidates.length < 2 || candidates[0].distance >= FEATURE_RATIO * candidates[1].distance) {
+                continue;
+            }
+            src.add(templatePoints[candidates[0].queryIdx].pt);
+            dst.add(scenePoints[candidates[0].trainIdx].pt);
+        }
+        if (src.size() < MIN_FEATURE_INLIERS) {
+            return null;
+        }
+
+        MatOfPoint2f srcMat = new MatOfPoint2f();
+        MatOfPoint2f dstMat = new MatOfPoint2f();
+        MatOfPoint2f corners = new MatOfPoint2f(
+                new Point(0, 0),
+                new Point(template.width(), 0),
+                new Point(template.width(), template.height()),
+                new Point(0, template.height()));
+        MatOfPoint2f projected = new MatOfPoint2f();
+        Mat inlierMask = new Mat();
+        Mat homography = null;
+        try {
+            srcMat.fromList(src);
+            dstMat.fromList(dst);
+            homography = Calib3d.findHomography(srcMat, dstMat, Calib3d.RANSAC, RANSAC_REPROJ_THRESHOLD, inlierMask);
+            if (homography == null || homography.empty()) {
+                return null;
+            }
+            int inliers = Core.countNonZero(inlierMask);
+            if (inliers < MIN_FEATURE_INLIERS) {
+                return null;
+            }
+            Core.perspectiveTransform(corners, projected, homography);
+            Point[] quad = projected.toArray();
+            if (!isPlausibleQuad(quad, template.width(), template.height())) {
+                return null;
+            }
+            Rect box = Imgproc.boundingRect(projected);
+            return new TemplateMatch(box.x, box.y, box.width, box.height, inliers / (double) src.size());
+        } finally {
+            srcMat.release();
+            dstMat.release();
+            corners.release();
+            projected.release();
+            inlierMask.release();
+            if (homography != null) {
+                homography.release();
+            }
+        }
+    }
+
+    private static boolean isPlausibleQuad(Point[] quad, int templateWidth, int templateHeight) {
+        if (quad.length != 4 || templateWidth <= 0 || templateHeight <= 0) {
+            return false;
+        }
+        MatOfPoint contour = new MatOfPoint();
+        try {
+            Point[] rounded = new Point[quad.length];
+            for (int i = 0; i < quad.length; i++) {
+                rounded[i] = new Point(Math.round(quad[i].x), Math.round(quad[i].y));
+            }
+            contour.fromArray(rounded);
+            if (!Imgproc.isContourConvex(contour)) {
+                return false;
+            }
+        } finally {
+            contour.release();
+        }
+        double scaleX = Math.hypot(quad[1].x - quad[0].x, quad[1].y - quad[0].y) / templateWidth;
+        double scaleY = Math.hypot(quad[3].x - quad[0].x, quad[3].y - quad[0].y) / templateHeight;
+        if (scaleX < MIN_FEATURE_SCALE || scaleX > MAX_FEATURE_SCALE
+                || scaleY < MIN_FEATURE_SCALE || scaleY > MAX_FEATURE_SCALE) {
+            return false;
+        }
+        // 缩略图只会等比缩放，横纵比例差异过大说明是错误匹配
+        double skew = scaleX / scaleY;
+        return skew > 0.5 && skew < 2.0;
     }
 
     public Mat decodeImageBytes(byte[] data) {
@@ -117,6 +374,25 @@ public class ImageRecognition {
         return image;
     }
 
+    /**
+     * 将 ARGB 像素（如 Bitmap.getPixels 结果）转为 BGR 三通道 Mat，省去 JPEG 编解码。
+     */
+    public Mat fromArgbPixels(int[] argb, int width, int height) {
+        if (argb == null || width <= 0 || height <= 0 || argb.length < width * height) {
+            throw new IllegalArgumentException("像素数据与尺寸不符: " + width + "x" + height);
+        }
+        byte[] bgr = new byte[width * height * 3];
+        for (int i = 0, j = 0; i < width * height; i++, j += 3) {
+            int pixel = argb[i];
+            bgr[j] = (byte) pixel;
+            bgr[j + 1] = (byte) (pixel >> 8);
+            bgr[j + 2] = (byte) (pixel >> 16);
+        }
+        Mat image = new Mat(height, width, CvType.CV_8UC3);
+        image.put(0, 0, bgr);
+        return image;
+    }
+
     /**
      * 图像相似度对比
      * @param img1Path 图片1路径
@@ -124,45 +400,48 @@ public class ImageRecognition {
      * @return 相似度（0-1），1 表示完全相同
      */
     public double compareImages(String img1Path, String img2Path) {
-        try {
-            Mat img1 = Imgcodecs.imread(img1Path);
-            Mat img2 = Imgcodecs.imread(img2Path);
-
-            if (img1.empty() || img2.empty()) {
-                return 0;
-            }
+        try (MatPool.Scope scope = matPool.openScope()) {
+            Mat img1 = scope.track(Imgcodecs.imread(img1Path));
+            Mat img2 = scope.track(Imgcodecs.imread(img2Path));
+            return compareImages(img1, img2);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
 
+    /**
+     * 图像相似度对比（内存版本），不修改入参
+     * @param img1 基准图片，img2 会按其尺寸缩放后比较
+     * @return 相似度（0-1），1 表示完全相同
+     */
+    public double compareImages(Mat img1, Mat img2) {
+        if (img1 == null || img2 == null || img1.empty() || img2.empty()) {
+            return 0;
+        }
+        try (MatPool.Scope scope = matPool.openScope()) {
+            int rows = img1.rows();
+            int cols = img1.cols();
             // 调整为相同尺寸
-            if (img1.size().width != img2.size().width || img1.size().height != img2.size().height) {
-                Imgproc.resize(img2, img2, img1.size());
+            Mat other = img2;
+            if (cols != img2.cols() || rows != img2.rows()) {
+                other = scope.acquire(rows, cols, img2.type());
+                Imgproc.resize(img2, other, img1.size());
             }
 
             // 转灰度
-            Mat gray1 = new Mat();
-            Mat gray2 = new Mat();
+            Mat gray1 = scope.acquire(rows, cols, CvType.CV_8UC1);
+            Mat gray2 = scope.acquire(rows, cols, CvType.CV_8UC1);
             Imgproc.cvtColor(img1, gray1, Imgproc.COLOR_BGR2GRAY);
-            Imgproc.cvtColor(img2, gray2, Imgproc.COLOR_BGR2GRAY);
+            Imgproc.cvtColor(other, gray2, Imgproc.COLOR_BGR2GRAY);
 
             // 计算差异
-            Mat diff = new Mat();
+            Mat diff = scope.acquire(rows, cols, CvType.CV_8UC1);
             Core.absdiff(gray1, gray2, diff);
 
             // 计算相似度
             Scalar mean = Core.mean(diff);
-            double similarity = 1.0 - (mean.val[0] / 255.0);
-
-            // 释放资源
-            img1.release();
-            img2.release();
-            gray1.release();
-            gray2.release();
-            diff.release();
-
-            return similarity;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+            return 1.0 - (mean.val[0] / 255.0);
         }
     }
 
@@ -174,12 +453,23 @@ public class ImageRecognition {
      * @return 是否包含该颜色
      */
     public boolean hasColor(String imagePath, Scalar targetColor, double tolerance) {
-        try {
-            Mat image = Imgcodecs.imread(imagePath);
-            if (image.empty()) {
-                return false;
-            }
+        try (MatPool.Scope scope = matPool.openScope()) {
+            return hasColor(scope.track(Imgcodecs.imread(imagePath)), targetColor, tolerance);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
 
+    /**
+     * 判断内存图片中是否包含特定颜色（通道顺序与图片一致）
+     */
+    public boolean hasColor(Mat image, Scalar targetColor, double tolerance) {
+        if (image == null || image.empty()) {
+            return false;
+        }
+        Mat mask = matPool.acquire(image.rows(), image.cols(), CvType.CV_8UC1);
+        try {
             // 定义颜色范围
             Scalar lowerBound = new Scalar(
                 Math.max(0, targetColor.val[0] - tolerance),
@@ -194,50 +484,145 @@ public class ImageRecognition {
             );
 
             // 颜色范围检测
-            Mat mask = new Mat();
             Core.inRange(image, lowerBound, upperBound, mask);
 
             // 计算非零像素数
-            int nonZero = Core.countNonZero(mask);
+            return Core.countNonZero(mask) > 0;
+        } finally {
+            matPool.recycle(mask);
+        }
+    }
 
-            image.release();
-            mask.release();
+    /**
+     * 区域平均颜色（通道顺序与图片一致）
+     * @param region 区域，null 表示整张图片；超出部分会被裁剪
+     */
+    public Scalar meanColor(Mat image, Rect region) {
+        Mat roi = regionOf(image, region);
+        try {
+            return Core.mean(roi);
+        } finally {
+            roi.release();
+        }
+    }
 
-            return nonZero > 0;
+    /**
+     * 区域内与目标颜色各通道差值都不超过容差的像素占比
+     * @return 0-1
+     */
+    public double colorFraction(Mat image, Rect region, Scalar targetColor, double tolerance) {
+        Mat roi = regionOf(image, region);
+        Mat mask = matPool.acquire(roi.rows(), roi.cols(), CvType.CV_8UC1);
+        try {
+            Scalar lowerBound = new Scalar(
+                Math.max(0, targetColor.val[0] - tolerance),
+                Math.max(0, targetColor.val[1] - tolerance),
+                Math.max(0, targetColor.val[2] - tolerance)
+            );
+            Scalar upperBound = new Scalar(
+                Math.min(255, targetColor.val[0] + tolerance),
+                Math.min(255, targetColor.val[1] + tolerance),
+                Math.min(255, targetColor.val[2] + tolerance)
+            );
+            Core.inRange(roi, lowerBound, upperBound, mask);
+            return Core.countNonZero(mask) / (double) roi.total();
+        } finally {
+            matPool.recycle(mask);
+            roi.release();
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * 区域 HSV 联合直方图，按 [h][s][v] 展开并归一化（总和为 1）
+     * @param image BGR 图片
+     */
+    public float[] hsvHistogram(Mat image, Rect region, int hueBins, int saturationBins, int valueBins) {
+        if (hueBins <= 0 || saturationBins <= 0 || valueBins <= 0) {
+            throw new IllegalArgumentException("直方图分箱数必须大于 0");
+        }
+        Mat roi = regionOf(image, region);
+        Mat hsv = matPool.acquire(roi.rows(), roi.cols(), CvType.CV_8UC3);
+        Mat noMask = new Mat();
+        Mat hist = new Mat();
+        MatOfInt channels = new MatOfInt(0, 1, 2);
+        MatOfInt bins = new MatOfInt(hueBins, saturationBins, valueBins);
+        MatOfFloat ranges = new MatOfFloat(0f, 180f, 0f, 256f, 0f, 256f);
+        try {
+            Imgproc.cvtColor(roi, hsv, Imgproc.COLOR_BGR2HSV);
+            Imgproc.calcHist(List.of(hsv), channels, noMask, hist, bins, ranges);
+            float[] values = new float[hueBins * saturationBins * valueBins];
+            hist.get(new int[]{0, 0, 0}, values);
+            float total = (float) roi.total();
+            for (int i = 0; i < values.length; i++) {
+                values[i] /= total;
+            }
+            return values;
+        } finally {
+            matPool.recycle(hsv);
+            noMask.release();
+            hist.release();
+            channels.release();
+            bins.release();
+            ranges.release();
+            roi.release();
         }
     }
 
+    /**
+     * 裁剪区域到图片范围内，返回的子矩阵与原图共享数据，调用方负责 release。
+     */
+    private static Mat regionOf(Mat image, Rect region) {
+        if (image == null || image.empty()) {
+            throw new IllegalArgumentException("图像为空");
+        }
+        Rect bounded = clipRegion(region, image.cols(), image.rows());
+        if (bounded.width <= 0 || bounded.height <= 0) {
+            throw new IllegalArgumentException("区域超出图像范围: " + region);
+        }
+        return image.submat(bounded);
+    }
+
+    static Rect clipRegion(Rect region, int width, int height) {
+        if (region == null) {
+            return new Rect(0, 0, width, height);
+        }
+        int left = Math.max(0, region.x);
+        int top = Math.max(0, region.y);
+        int right = Math.min(width, region.x + region.width);
+        int bottom = Math.min(height, region.y + region.height);
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
     /**
      * 获取图片的主要颜色
      * @param imagePath 图片路径
      * @return RGB 颜色值
      */
     public Scalar getDominantColor(String imagePath) {
-        try {
-            Mat image = Imgcodecs.imread(imagePath);
-            if (image.empty()) {
-                return new Scalar(0, 0, 0);
-            }
+        try (MatPool.Scope scope = matPool.openScope()) {
+            return getDominantColor(scope.track(Imgcodecs.imread(imagePath)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new Scalar(0, 0, 0);
+        }
+    }
 
-            // 缩小图片以加速计算
-            Mat resized = new Mat();
+    /**
+     * 获取内存图片的主要颜色（通道顺序与图片一致）
+     */
+    public Scalar getDominantColor(Mat image) {
+        if (image == null || image.empty()) {
+            return new Scalar(0, 0, 0);
+        }
+        // 缩小图片以加速计算
+        Mat resized = matPool.acquire(50, 50, image.type());
+        try {
             Imgproc.resize(image, resized, new Size(50, 50));
 
             // 计算平均颜色
-            Scalar avgColor = Core.mean(resized);
-
-            image.release();
-            resized.release();
-
-            return avgColor;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new Scalar(0, 0, 0);
+            return Core.mean(resized);
+        } finally {
+            matPool.recycle(resized);
         }
     }
 }
@@ -0,0 +1,82 @@
+package com.automation.infrastructure.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+
+/**
+ * 多目标模板匹配回归：同一模板多次出现时应全部命中且互不重叠。
+ */
+@RunWith(AndroidJUnit4.class)
+public final class ImageRecognitionMultiMatchTest {
+
+    private final ImageRecognition recognition = new ImageRecognition();
+
+    @Test
+    public void findAllTemplates_returnsEveryOccurrenceRankedAndSuppressed() {
+        Mat template = buildTemplate();
+        Mat screen = new Mat(400, 300, CvType.CV_8UC3, new Scalar(30, 30, 30));
+        int[][] positions = {{10, 10}, {100, 50}, {200, 300}};
+        try {
+            for (int[] p : positions) {
+                Mat target = screen.submat(p[1], p[1] + template.rows(), p[0], p[0] + template.cols());
+                template.copyTo(target);
+                target.release();
+            }
+
+            List<TemplateMatch> matches = recognition.findAllTemplates(screen, template, 0.8, 10);
+
+            assertEquals(positions.length, matches.size());
+            for (int i = 1; i < matches.size(); i++) {
+                assertTrue(matches.get(i - 1).score() >= matches.get(i).score());
+                assertTrue(matches.get(i - 1).intersectionOverUnion(matches.get(i))
+                        <= ImageRecognition.DEFAULT_NMS_OVERLAP);
+            }
+            for (int[] p : positions) {
+                boolean hit = false;
+                for (TemplateMatch match : matches) {
+                    hit |= match.left() == p[0] && match.top() == p[1];
+                }
+                assertTrue("缺少命中: " + p[0] + "," + p[1], hit);
+            }
+        } finally {
+            template.release();
+            screen.release();
+        }
+    }
+
+    @Test
+    public void findAllTemplates_respectsMaxResults() {
+        Mat template = buildTemplate();
+        Mat screen = new Mat(200, 200, CvType.CV_8UC3, new Scalar(30, 30, 30));
+        try {
+            for (int i = 0; i < 4; i++) {
+                Mat target = screen.submat(i * 40, i * 40 + template.rows(), 20, 20 + template.cols());
+                template.copyTo(target);
+                target.release();
+            }
+            assertEquals(2, recognition.findAllTemplates(screen, template, 0.8, 2).size());
+        } finally {
+            template.release();
+            screen.release();
+        }
+    }
+
+    private static Mat buildTemplate() {
+        Mat template = new Mat(20, 20, CvType.CV_8UC3, new Scalar(0, 0, 0));
+        Imgproc.circle(template, new Point(10, 10), 7, new Scalar(0, 0, 255), -1);
+        Imgproc.rectangle(template, new Point(2, 2), new Point(6, 6), new Scalar(255, 255, 0), -1);
+        return template;
+    }
+}
@@ -0,0 +1,293 @@
+package com.automation.infrastructure.vision;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 按尺寸与类型复用 OpenCV Mat 的缓冲池，并统计原生内存分配情况。
+ * <p>
+ * 典型用法是在 try-with-resources 中打开 {@link Scope}：作用域内申请的 Mat 在关闭时归还池中，
+ * 外部产生的 Mat（如 imread/imdecode 结果）可通过 {@link Scope#track(Mat)} 交由作用域释放，
+ * 异常路径也不会泄漏。
+ * <p>
+ * 空闲缓冲受总字节数上限约束，且闲置超过 {@link #DEFAULT_IDLE_TIMEOUT_MS} 后会在下一次申请/归还时释放，
+ * 不再使用的尺寸不会长期占用原生内存。
+ */
+public final class MatPool {
+
+    /** 每种尺寸/类型最多保留的空闲缓冲数。 */
+    private static final int MAX_IDLE_PER_SHAPE = 4;
+    /** 空闲缓冲总字节上限，约为一张整屏浮点结果图加若干掩码，超出后直接释放。 */
+    public static final long DEFAULT_MAX_IDLE_BYTES = 16L * 1024 * 1024;
+    /** 空闲缓冲的最长保留时间。 */
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000L;
+
+    private final Map<Long, ArrayDeque<Idle>> idle = new HashMap<>();
+    private final long maxIdleBytes;
+    private final long idleTimeoutMs;
+    private final LongSupplier clockMs;
+    private long idleBytes;
+    private int idleCount;
+    private long allocated;
+    private long reused;
+    private long released;
+    private long stale;
+
+    public MatPool() {
+        this(DEFAULT_MAX_IDLE_BYTES, DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    /**
+     * @param maxIdleBytes 空闲缓冲总字节上限，0 表示不缓存
+     * @param idleTimeoutMs 空闲缓冲的最长保留时间
+     */
+    public MatPool(long maxIdleBytes, long idleTimeoutMs) {
+        this(maxIdleBytes, idleTimeoutMs, () -> System.nanoTime() / 1_000_000L);
+    }
+
+    MatPool(long maxIdleBytes, long idleTimeoutMs, LongSupplier clockMs) {
+        this.maxIdleBytes = Math.max(0L, maxIdleBytes);
+        this.idleTimeoutMs = Math.max(0L, idleTimeoutMs);
+        this.clockMs = clockMs;
+    }
+
+    public Scope openScope() {
+        return new Scope();
+    }
+
+    /**
+     * 申请指定尺寸与类型的 Mat，内容未初始化。使用完毕后需调用 {@link #recycle(Mat)}。
+     */
+    public synchronized Mat acquire(int rows, int cols, int type) {
+        evictExpiredLocked();
+        ArrayDeque<Idle> queue = idle.get(key(rows, cols, type));
+        while (queue != null && !queue.isEmpty()) {
+            Idle entry = queue.pollFirst();
+            idleCount--;
+            idleBytes -= entry.bytes;
+            Mat mat = entry.mat;
+            if (mat.rows() == rows && mat.cols() == cols && mat.type() == type) {
+                reused++;
+                return mat;
+            }
+            discardLocked(mat);
+        }
+        allocated++;
+        return new Mat(rows, cols, type);
+    }
+
+    /**
+     * 归还 Mat；池已满或 Mat 不可复用时直接释放原生内存。
+     */
+    public synchronized void recycle(Mat mat) {
+        if (mat == null) {
+            return;
+        }
+        evictExpiredLocked();
+        if (mat.empty()) {
+            // 调用方已经直接 release，原生内存不是由池释放的
+            stale++;
+            return;
+        }
+        if (!mat.isContinuous() || mat.dims() > 2) {
+            releaseNative(mat);
+            return;
+        }
+        long bytes = bytesOf(mat);
+        ArrayDeque<Idle> queue = idle.computeIfAbsent(key(mat.rows(), mat.cols(), mat.type()), k -> new ArrayDeque<>());
+        if (queue.size() >= MAX_IDLE_PER_SHAPE || idleBytes + bytes > maxIdleBytes) {
+            releaseNative(mat);
+            return;
+        }
+        queue.addLast(new Idle(mat, bytes, clockMs.getAsLong()));
+        idleCount++;
+        idleBytes += bytes;
+    }
+
+    /**
+     * 释放所有空闲缓冲。
+     */
+    public synchronized void trim() {
+        for (ArrayDeque<Idle> queue : idle.values()) {
+            for (Idle entry : queue) {
+                discardLocked(entry.mat);
+            }
+        }
+        idle.clear();
+        idleCount = 0;
+        idleBytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(allocated, reused, released, stale, idleCount, idleBytes);
+    }
+
+    /**
+     * 释放闲置超时的缓冲。同一尺寸的队列按归还顺序排列，队首最旧。
+     */
+    private void evictExpiredLocked() {
+        if (idleCount == 0) {
+            return;
+        }
+        long deadline = clockMs.getAsLong() - idleTimeoutMs;
+        Iterator<ArrayDeque<Idle>> queues = idle.values().iterator();
+        while (queues.hasNext()) {
+            ArrayDeque<Idle> queue = queues.next();
+            while (!queue.isEmpty() && queue.peekFirst().since <= deadline) {
+                Idle entry = queue.pollFirst();
+                idleCount--;
+                idleBytes -= entry.bytes;
+                discardLocked(entry.mat);
+            }
+            if (queue.isEmpty()) {
+                queues.remove();
+            }
+        }
+    }
+
+    /**
+     * 丢弃池中的缓冲：已被调用方提前释放的只计入 stale，不重复计为 released。
+     */
+    private void discardLocked(Mat mat) {
+        if (mat.empty()) {
+            stale++;
+        } else {
+            releaseNative(mat);
+        }
+    }
+
+    private synchronized void adopt() {
+        allocated++;
+    }
+
+    private synchronized void releaseNative(Mat mat) {
+        mat.release();
+        released++;
+    }
+
+    private static long key(int rows, int cols, int type) {
+        return ((long) rows << 40) | ((long) cols << 16) | (type & 0xFFFF);
+    }
+
+    private static long bytesOf(Mat mat) {
+        return (long) mat.rows() * mat.cols() * CvType.ELEM_SIZE(mat.type());
+    }
+
+    private static final class Idle {
+        final Mat mat;
+        /** 入池时的字节数；调用方之后即使释放了 Mat，出池时也按此值扣减。 */
+        final long bytes;
+        final long since;
+
+        Idle(Mat mat, long bytes, long since) {
+            this.mat = mat;
+            this.bytes = bytes;
+            this.since = since;
+        }
+    }
+
+    /**
+     * 作用域：关闭时归还申请的缓冲并释放托管的 Mat。非线程安全，只在单个调用内使用。
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final List<Mat> pooled = new ArrayList<>();
+        private final List<Mat> tracked = new ArrayList<>();
+
+        private Scope() {
+        }
+
+        public Mat acquire(int rows, int cols, int type) {
+            Mat mat = MatPool.this.acquire(rows, cols, type);
+            pooled.add(mat);
+            return mat;
+        }
+
+        /**
+         * 托管外部创建的 Mat，作用域关闭时释放；传入 null 时原样返回。
+         */
+        public Mat track(Mat mat) {
+            if (mat != null && !mat.empty()) {
+                adopt();
+                tracked.add(mat);
+            }
+            return mat;
+        }
+
+        @Override
+        public void close() {
+            for (Mat mat : pooled) {
+                recycle(mat);
+            }
+            for (Mat mat : tracked) {
+                if (mat.empty()) {
+                    synchronized (MatPool.this) {
+                        stale++;
+                    }
+                } else {
+                    releaseNative(mat);
+                }
+            }
+            pooled.clear();
+            tracked.clear();
+        }
+    }
+
+    /**
+     * 分配统计：released 只计由池实际释放的原生内存，stale 为调用方已提前释放、池只丢弃引用的 Mat；
+     * live 为当前仍未释放的 Mat 数（含池中空闲缓冲）。
+     */
+    public static final class Stats {
+        private final long allocated;
+        private final long reused;
+        private final long released;
+        private final long stale;
+        private final int idleCount;
+        private final long idleBytes;
+
+        Stats(long allocated, long reused, long released, long stale, int idleCount, long idleBytes) {
+            this.allocated = allocated;
+            this.reused = reused;
+            this.released = released;
+            this.stale = stale;
+            this.idleCount = idleCount;
+            this.idleBytes = idleBytes;
+        }
+
+        public long allocated() {
+            return allocated;
+        }
+
+        public long reused() {
+            return reused;
+        }
+
+        public long released() {
+            return released;
+        }
+
+        public long stale() {
+            return stale;
+        }
+
+        public long live() {
+            return allocated - released - stale;
+        }
+
+        public int idleCount() {
+            return idleCount;
+        }
+
+        public long idleBytes() {
+            return idleBytes;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.automation.infrastructure.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+/**
+ * 缓冲池回归：按尺寸复用、提前释放的 Mat 不计入 released、容量与闲置超时约束以及统计口径。
+ */
+@RunWith(AndroidJUnit4.class)
+public final class MatPoolTest {
+
+    private long now;
+    private final MatPool pool = new MatPool(150L, 1_000L, () -> now);
+
+    @BeforeClass
+    public static void loadNative() {
+        OpenCvLoader.ensureLoaded();
+    }
+
+    @Test
+    public void recycledMatIsReusedForSameShapeOnly() {
+        Mat first = pool.acquire(10, 10, CvType.CV_8UC1);
+        pool.recycle(first);
+
+        Mat other = pool.acquire(10, 10, CvType.CV_8UC3);
+        Mat again = pool.acquire(10, 10, CvType.CV_8UC1);
+
+        assertSame(first, again);
+        assertNotSame(first, other);
+        MatPool.Stats stats = pool.stats();
+        assertEquals(2, stats.allocated());
+        assertEquals(1, stats.reused());
+        assertEquals(0, stats.idleCount());
+        assertEquals(0, stats.idleBytes());
+        pool.recycle(again);
+        pool.recycle(other);
+        pool.trim();
+        assertEquals(0, pool.stats().live());
+    }
+
+    @Test
+    public void matsReleasedByCallerAreCountedAsStale() {
+        Mat pooled = pool.acquire(10, 10, CvType.CV_8UC1);
+        pool.recycle(pooled);
+        pooled.release();
+        Mat direct = pool.acquire(5, 5, CvType.CV_8UC1);
+        direct.release();
+        pool.recycle(direct);
+
+        Mat fresh = pool.acquire(10, 10, CvType.CV_8UC1);
+
+        assertNotSame(pooled, fresh);
+        MatPool.Stats stats = pool.stats();
+        assertEquals(0, stats.released());
+        assertEquals(2, stats.stale());
+        assertEquals(0, stats.idleBytes());
+        assertEquals(1, stats.live());
+        fresh.release();
+    }
+
+    @Test
+    public void idleBuffersAreBoundedByBytesAndTimeout() {
+        Mat a = pool.acquire(10, 10, CvType.CV_8UC1);
+        Mat b = pool.acquire(10, 10, CvType.CV_8UC1);
+        pool.recycle(a);
+        pool.recycle(b);
+
+        MatPool.Stats capped = pool.stats();
+        assertEquals(1, capped.idleCount());
+        assertEquals(100, capped.idleBytes());
+        assertEquals(1, capped.released());
+
+        now += 1_000L;
+        pool.recycle(pool.acquire(2, 2, CvType.CV_8UC1));
+
+        MatPool.Stats expired = pool.stats();
+        assertEquals(2, expired.released());
+        assertEquals(1, expired.idleCount());
+        assertEquals(4, expired.idleBytes());
+    }
+
+    @Test
+    public void scopeRecyclesPooledAndReleasesTracked() {
+        try (MatPool.Scope scope = pool.openScope()) {
+            scope.acquire(10, 10, CvType.CV_8UC1);
+            scope.track(new Mat(4, 4, CvType.CV_8UC1));
+            scope.track(new Mat());
+        }
+
+        MatPool.Stats stats = pool.stats();
+        assertEquals(2, stats.allocated());
+        assertEquals(1, stats.released());
+        assertEquals(0, stats.stale());
+        assertEquals(1, stats.idleCount());
+        assertEquals(1, stats.live());
+    }
+}
@@ -0,0 +1,24 @@
+package com.automation.infrastructure.vision;
+
+import java.util.Locale;
+
+/**
+ * 模板定位方式：像素模板匹配、特征点匹配，或模板优先、未命中再回退特征点。
+ */
+public enum MatchMode {
+    TEMPLATE,
+    FEATURE,
+    AUTO;
+
+    public static MatchMode fromRaw(String raw, MatchMode fallback) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return fallback;
+        }
+        return switch (raw.trim().toLowerCase(Locale.ROOT)) {
+            case "template", "pixel" -> TEMPLATE;
+            case "feature", "features", "orb", "keypoint" -> FEATURE;
+            case "auto" -> AUTO;
+            default -> fallback;
+        };
+    }
+}
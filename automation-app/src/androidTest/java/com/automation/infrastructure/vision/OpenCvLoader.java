@@ -0,0 +1,43 @@
+package com.automation.infrastructure.vision;
+
+import org.opencv.core.Core;
+
+/**
+ * OpenCV 原生库加载入口。设备上通过 System.loadLibrary 加载随 APK 打包的库；
+ * 桌面 JVM（基准测试）中调用方可能已用其它方式加载（如 openpnp 的 OpenCV.loadLocally），此时直接复用。
+ */
+public final class OpenCvLoader {
+
+    private static volatile boolean loaded;
+
+    private OpenCvLoader() {
+    }
+
+    public static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (OpenCvLoader.class) {
+            if (loaded) {
+                return;
+            }
+            try {
+                System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+            } catch (UnsatisfiedLinkError e) {
+                if (!nativeBindingsAvailable()) {
+                    throw e;
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private static boolean nativeBindingsAvailable() {
+        try {
+            Core.getVersionString();
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+}
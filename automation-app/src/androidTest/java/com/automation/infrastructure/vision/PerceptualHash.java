@@ -0,0 +1,125 @@
+package com.automation.infrastructure.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 64 位感知哈希（dHash / pHash），用于无障碍节点稀少的页面做图像签名。
+ * 输入应为已缩小的灰度图，单次计算只涉及 9x8 或 32x32 的像素。
+ */
+public final class PerceptualHash {
+
+    public enum Algorithm {
+        DHASH,
+        PHASH;
+
+        public static Algorithm fromRaw(String raw) {
+            if (raw == null || raw.trim().isEmpty()) {
+                return DHASH;
+            }
+            return switch (raw.trim().toLowerCase(Locale.ROOT)) {
+                case "phash", "p" -> PHASH;
+                case "dhash", "d" -> DHASH;
+                default -> throw new IllegalArgumentException("不支持的哈希算法: " + raw);
+            };
+        }
+    }
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * 计算灰度图指定区域的哈希。
+     * @param gray 单通道灰度图
+     * @param region 区域（像素坐标），为 null 时使用整张图
+     */
+    public static long compute(Mat gray, Rect region, Algorithm algorithm) {
+        if (gray == null || gray.empty()) {
+            throw new IllegalArgumentException("图像为空");
+        }
+        Rect bounded = ImageRecognition.clipRegion(region, gray.cols(), gray.rows());
+        if (bounded.width <= 0 || bounded.height <= 0) {
+            throw new IllegalArgumentException("区域超出图像范围: " + region);
+        }
+        Mat roi = gray.submat(bounded);
+        try {
+            return algorithm == Algorithm.PHASH ? pHash(roi) : dHash(roi);
+        } finally {
+            roi.release();
+        }
+    }
+
+    public static int hammingDistance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public static String toHex(long hash) {
+        return String.format(Locale.ROOT, "%016x", hash);
+    }
+
+    public static long parseHex(String hex) {
+        String normalized = hex.trim();
+        if (normalized.startsWith("0x") || normalized.startsWith("0X")) {
+            normalized = normalized.substring(2);
+        }
+        return Long.parseUnsignedLong(normalized, 16);
+    }
+
+    private static long dHash(Mat roi) {
+        Mat small = new Mat();
+        try {
+            Imgproc.resize(roi, small, new Size(9, 8), 0, 0, Imgproc.INTER_AREA);
+            byte[] pixels = new byte[9 * 8];
+            small.get(0, 0, pixels);
+            long hash = 0L;
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    int left = pixels[y * 9 + x] & 0xFF;
+                    int right = pixels[y * 9 + x + 1] & 0xFF;
+                    hash = (hash << 1) | (left > right ? 1L : 0L);
+                }
+            }
+            return hash;
+        } finally {
+            small.release();
+        }
+    }
+
+    private static long pHash(Mat roi) {
+        Mat small = new Mat();
+        Mat floats = new Mat();
+        Mat dct = new Mat();
+        try {
+            Imgproc.resize(roi, small, new Size(32, 32), 0, 0, Imgproc.INTER_AREA);
+            small.convertTo(floats, CvType.CV_32F);
+            Core.dct(floats, dct);
+            // 取左上角 8x8 低频系数，与中位数比较
+            float[] coefficients = new float[64];
+            float[] row = new float[8];
+            for (int y = 0; y < 8; y++) {
+                dct.get(y, 0, row);
+                System.arraycopy(row, 0, coefficients, y * 8, 8);
+            }
+            // 直流分量只反映整体亮度，不参与中位数
+            float[] sorted = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+            Arrays.sort(sorted);
+            float median = (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2f;
+            long hash = 0L;
+            for (float coefficient : coefficients) {
+                hash = (hash << 1) | (coefficient > median ? 1L : 0L);
+            }
+            return hash;
+        } finally {
+            small.release();
+            floats.release();
+            dct.release();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.automation.infrastructure.vision;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+/**
+ * 图片的 ORB 特征点与描述子，由 {@link ImageRecognition#extractFeatures(Mat)} 生成。
+ * 持有原生内存，使用方负责 {@link #release()}。
+ */
+public final class TemplateFeatures {
+
+    private final MatOfKeyPoint keypoints;
+    private final Mat descriptors;
+    private final int width;
+    private final int height;
+
+    TemplateFeatures(MatOfKeyPoint keypoints, Mat descriptors, int width, int height) {
+        this.keypoints = keypoints;
+        this.descriptors = descriptors;
+        this.width = width;
+        this.height = height;
+    }
+
+    MatOfKeyPoint keypoints() {
+        return keypoints;
+    }
+
+    Mat descriptors() {
+        return descriptors;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int size() {
+        return descriptors.empty() ? 0 : descriptors.rows();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void release() {
+        keypoints.release();
+        descriptors.release();
+    }
+}
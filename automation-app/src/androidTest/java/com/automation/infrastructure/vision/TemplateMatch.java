@@ -0,0 +1,82 @@
+package com.automation.infrastructure.vision;
+
+import java.util.Locale;
+
+/**
+ * 单个模板匹配命中，包含在截图坐标系下的包围盒与相似度得分。
+ */
+public final class TemplateMatch {
+
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+    private final double score;
+
+    public TemplateMatch(int left, int top, int width, int height, double score) {
+        this.left = left;
+        this.top = top;
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.score = score;
+    }
+
+    public int left() {
+        return left;
+    }
+
+    public int top() {
+        return top;
+    }
+
+    public int right() {
+        return left + width;
+    }
+
+    public int bottom() {
+        return top + height;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int centerX() {
+        return (int) (left + width / 2.0);
+    }
+
+    public int centerY() {
+        return (int) (top + height / 2.0);
+    }
+
+    public double score() {
+        return score;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= left && x < right() && y >= top && y < bottom();
+    }
+
+    /**
+     * 计算两个命中框的交并比（IoU），用于去重或与节点边界对齐。
+     */
+    public double intersectionOverUnion(TemplateMatch other) {
+        if (other == null) {
+            return 0d;
+        }
+        int ix = Math.max(0, Math.min(right(), other.right()) - Math.max(left, other.left));
+        int iy = Math.max(0, Math.min(bottom(), other.bottom()) - Math.max(top, other.top));
+        double intersection = (double) ix * iy;
+        double union = (double) width * height + (double) other.width * other.height - intersection;
+        return union <= 0 ? 0d : intersection / union;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "TemplateMatch[%d,%d %dx%d score=%.3f]", left, top, width, height, score);
+    }
+}
@@ -0,0 +1,186 @@
+package com.automation.infrastructure.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分条并行模板匹配：将截图按行切成相互重叠（模板高度 - 1 行）的横条，在有界线程池上并发执行
+ * matchTemplate，各条结果直接写入整张结果图对应的行区间，调用方后续的 minMaxLoc、非极大值抑制无需改动。
+ * <p>
+ * OpenCV 的 matchTemplate 内部按固定大小的块做 DFT 互相关，块的划分会影响浮点舍入。
+ * 分条边界按与整图匹配相同的块高对齐，使每个块看到的像素与整图匹配完全一致，结果逐位相等。
+ * 小图直接单线程执行，避免线程调度开销。
+ * <p>
+ * 所有实例共用一个按核心数设定上限的线程池，空闲线程自动回收；调用线程被中断时抛出 {@link CancellationException}。
+ */
+public final class TiledTemplateMatcher {
+
+    /** 截图像素数低于该值时不分条。 */
+    private static final long MIN_PARALLEL_PIXELS = 400_000L;
+    /** 与 OpenCV crossCorr 一致的块尺寸参数。 */
+    private static final double CV_BLOCK_SCALE = 4.5;
+    private static final int CV_MIN_BLOCK_SIZE = 256;
+    private static final int MAX_PARALLELISM = 8;
+
+    private static ExecutorService sharedPool;
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public TiledTemplateMatcher() {
+        this(defaultParallelism());
+    }
+
+    /**
+     * @param parallelism 并发条数上限，小于等于 1 时始终单线程匹配
+     */
+    public TiledTemplateMatcher(int parallelism) {
+        this.parallelism = Math.max(1, Math.min(parallelism, MAX_PARALLELISM));
+        this.executor = this.parallelism > 1 ? sharedPool() : null;
+    }
+
+    /**
+     * 默认并发数：保留一个核心给 UI 自动化与主线程，最多 {@value #MAX_PARALLELISM}。
+     */
+    public static int defaultParallelism() {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_PARALLELISM));
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 计算 TM_CCOEFF_NORMED 匹配结果，写入调用方提供的结果图。
+     *
+     * @param result 尺寸为 (rows - templateRows + 1) x (cols - templateCols + 1) 的 CV_32FC1 矩阵
+     * @throws CancellationException 等待分条结果时调用线程被中断（中断标记保留）
+     */
+    public void match(Mat image, Mat template, Mat result) {
+        int resultRows = image.rows() - template.rows() + 1;
+        int stripCount = stripCount(image, template, resultRows);
+        if (stripCount <= 1) {
+            Imgproc.matchTemplate(image, template, result, Imgproc.TM_CCOEFF_NORMED);
+            return;
+        }
+        int templateRows = template.rows();
+        int blockRows = blockRows(templateRows, resultRows);
+        int blocks = (resultRows + blockRows - 1) / blockRows;
+        List<Future<?>> futures = new ArrayList<>(stripCount);
+        try {
+            for (int i = 0; i < stripCount; i++) {
+                int from = Math.min(resultRows, blocks * i / stripCount * blockRows);
+                int to = i == stripCount - 1 ? resultRows : Math.min(resultRows, blocks * (i + 1) / stripCount * blockRows);
+                if (to > from) {
+                    futures.add(executor.submit(stripTask(image, template, result, from, to, templateRows)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            awaitAll(futures);
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("模板匹配被中断");
+            cancelled.initCause(e);
+            throw cancelled;
+        } catch (ExecutionException e) {
+            awaitAll(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("分条模板匹配失败", cause);
+        }
+    }
+
+    private int stripCount(Mat image, Mat template, int resultRows) {
+        if (executor == null || (long) image.rows() * image.cols() < MIN_PARALLEL_PIXELS) {
+            return 1;
+        }
+        int blockRows = blockRows(template.rows(), resultRows);
+        // 每条至少一个完整的块，块数不足时减少条数
+        return Math.max(1, Math.min(parallelism, resultRows / blockRows));
+    }
+
+    /**
+     * 复现 OpenCV crossCorr 对结果图的分块高度。
+     */
+    static int blockRows(int templateRows, int resultRows) {
+        int block = (int) Math.round(templateRows * CV_BLOCK_SCALE);
+        block = Math.max(block, CV_MIN_BLOCK_SIZE - templateRows + 1);
+        block = Math.min(block, resultRows);
+        int dftRows = Core.getOptimalDFTSize(block + templateRows - 1);
+        return Math.max(1, Math.min(dftRows - templateRows + 1, resultRows));
+    }
+
+    private static Callable<Void> stripTask(Mat image, Mat template, Mat result, int from, int to, int templateRows) {
+        return () -> {
+            Mat imageStrip = image.rowRange(from, to + templateRows - 1);
+            Mat resultStrip = result.rowRange(from, to);
+            try {
+                // 目标已是正确尺寸的子矩阵，matchTemplate 直接写入原结果图
+                Imgproc.matchTemplate(imageStrip, template, resultStrip, Imgproc.TM_CCOEFF_NORMED);
+            } finally {
+                imageStrip.release();
+                resultStrip.release();
+            }
+            return null;
+        };
+    }
+
+    /**
+     * 原生 matchTemplate 无法中途停止，返回前等待已提交的分条全部结束，
+     * 避免调用方回收仍在被写入的结果图。分条耗时很短，等待期间忽略中断并在之后恢复标记。
+     */
+    private static void awaitAll(List<Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static synchronized ExecutorService sharedPool() {
+        if (sharedPool == null) {
+            sharedPool = newPool(defaultParallelism());
+        }
+        return sharedPool;
+    }
+
+    private static ExecutorService newPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "template-match-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
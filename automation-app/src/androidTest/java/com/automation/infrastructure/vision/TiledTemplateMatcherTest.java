@@ -0,0 +1,96 @@
+package com.automation.infrastructure.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 分条并行匹配回归：结果图与单线程 matchTemplate 必须逐位相等，中断时以取消结束。
+ */
+@RunWith(AndroidJUnit4.class)
+public final class TiledTemplateMatcherTest {
+
+    static {
+        OpenCvLoader.ensureLoaded();
+    }
+
+    @Test
+    public void match_isBitExactWithSingleThreadedResult() {
+        int[][] cases = {{2400, 1080, 20, 20}, {2400, 1080, 300, 150}, {1999, 1080, 64, 33}, {3200, 1440, 7, 200}};
+        TiledTemplateMatcher single = new TiledTemplateMatcher(1);
+        TiledTemplateMatcher tiled = new TiledTemplateMatcher(4);
+        for (int[] c : cases) {
+            Mat screen = noise(c[0], c[1]);
+            Mat template = screen.submat(c[0] / 2, c[0] / 2 + c[2], 100, 100 + c[3]).clone();
+            Mat expected = new Mat(c[0] - c[2] + 1, c[1] - c[3] + 1, CvType.CV_32FC1);
+            Mat actual = new Mat(expected.rows(), expected.cols(), CvType.CV_32FC1);
+            Mat diff = new Mat();
+            try {
+                single.match(screen, template, expected);
+                tiled.match(screen, template, actual);
+                Core.compare(expected, actual, diff, Core.CMP_NE);
+                assertEquals("结果不一致: " + c[0] + "x" + c[1] + " 模板 " + c[2] + "x" + c[3],
+                        0, Core.countNonZero(diff));
+            } finally {
+                screen.release();
+                template.release();
+                expected.release();
+                actual.release();
+                diff.release();
+            }
+        }
+    }
+
+    @Test
+    public void findAllTemplates_matchesSingleThreadedRecognition() {
+        Mat screen = noise(2400, 1080);
+        Mat template = screen.submat(1500, 1580, 300, 380).clone();
+        try {
+            List<TemplateMatch> expected = new ImageRecognition(1).findAllTemplates(screen, template, 0.5, 10);
+            List<TemplateMatch> actual = new ImageRecognition(4).findAllTemplates(screen, template, 0.5, 10);
+            assertEquals(expected.toString(), actual.toString());
+        } finally {
+            screen.release();
+            template.release();
+        }
+    }
+
+    @Test
+    public void match_interruptedCallerGetsCancellationWithFlagKept() {
+        Mat screen = noise(2400, 1080);
+        Mat template = screen.submat(1200, 1300, 100, 200).clone();
+        Mat result = new Mat(screen.rows() - 99, screen.cols() - 99, CvType.CV_32FC1);
+        try {
+            Thread.currentThread().interrupt();
+            new TiledTemplateMatcher(4).match(screen, template, result);
+            fail("应抛出 CancellationException");
+        } catch (CancellationException expected) {
+            assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+            screen.release();
+            template.release();
+            result.release();
+        }
+    }
+
+    private static Mat noise(int rows, int cols) {
+        Mat screen = new Mat(rows, cols, CvType.CV_8UC3);
+        Core.randu(screen, 0, 255);
+        Imgproc.GaussianBlur(screen, screen, new Size(5, 5), 2);
+        return screen;
+    }
+}
@@ -0,0 +1,160 @@
+package com.automation.shared.util;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 协作式取消令牌：{@code stop_task} 置位后，引擎循环、等待原语与设备操作在下一个检查点立即退出。
+ * <p>
+ * {@link #sleep(long)} 与 {@link #await(BooleanSupplier, long, long)} 在令牌上阻塞，取消时立刻被唤醒，
+ * 不依赖线程中断；线程被中断同样视为取消。指令执行期间令牌绑定到执行线程（{@link #bind()}），
+ * 共享的基础设施（UiDevice 等待、截图稳定检测等）通过 {@link #current()} 获取。
+ */
+public final class CancellationToken {
+
+    /** 永不取消的令牌，未绑定指令时使用。 */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final boolean cancellable;
+    private final Object monitor = new Object();
+    private volatile long cancelledAtNanos;
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * 当前线程绑定的令牌，未绑定时返回 {@link #NONE}。
+     */
+    @NonNull
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * 将令牌绑定到当前线程，关闭返回的 Scope 时恢复之前的绑定。
+     */
+    public Scope bind() {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 请求取消并唤醒所有等待者。
+     *
+     * @return 首次取消返回 true
+     */
+    public boolean cancel() {
+        if (!cancellable) {
+            return false;
+        }
+        synchronized (monitor) {
+            if (cancelled) {
+                return false;
+            }
+            cancelledAtNanos = System.nanoTime();
+            cancelled = true;
+            monitor.notifyAll();
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 自取消请求至今的毫秒数，用于上报停止延迟；未取消时返回 -1。
+     */
+    public long elapsedSinceCancelMs() {
+        if (!cancelled) {
+            return -1L;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cancelledAtNanos);
+    }
+
+    /**
+     * @throws CancellationException 已取消或线程已被中断
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("cancelled");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            cancel();
+            throw new CancellationException("interrupted");
+        }
+    }
+
+    /**
+     * 可取消的休眠，替代 {@code SystemClock.sleep} / {@code Thread.sleep}。
+     *
+     * @throws CancellationException 休眠前或休眠期间被取消
+     */
+    public void sleep(long durationMs) {
+        throwIfCancelled();
+        if (durationMs <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        synchronized (monitor) {
+            long remaining;
+            while (!cancelled && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        throwIfCancelled();
+    }
+
+    /**
+     * 按固定间隔轮询条件直到满足或超时。
+     *
+     * @return 条件满足返回 true，超时返回 false
+     * @throws CancellationException 等待期间被取消
+     */
+    public boolean await(@NonNull BooleanSupplier condition, long timeoutMs, long intervalMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMs));
+        while (true) {
+            throwIfCancelled();
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return false;
+            }
+            sleep(Math.min(intervalMs, remainingMs));
+        }
+    }
+
+    /**
+     * 线程绑定范围。
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
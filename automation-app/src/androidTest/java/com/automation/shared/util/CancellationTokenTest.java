@@ -0,0 +1,76 @@
+package com.automation.shared.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 验证取消令牌能立即唤醒休眠与轮询，并正确绑定到线程。
+ */
+@RunWith(AndroidJUnit4.class)
+public class CancellationTokenTest {
+
+    @Test
+    public void cancelWakesSleepingThreadImmediately() throws Exception {
+        CancellationToken token = new CancellationToken();
+        CountDownLatch sleeping = new CountDownLatch(1);
+        AtomicLong stopLatency = new AtomicLong(-1);
+        Thread worker = new Thread(() -> {
+            sleeping.countDown();
+            try {
+                token.sleep(10_000);
+            } catch (CancellationException e) {
+                stopLatency.set(token.elapsedSinceCancelMs());
+            }
+        });
+        worker.start();
+        assertTrue(sleeping.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertTrue(token.cancel());
+        assertFalse(token.cancel());
+        worker.join(1000);
+
+        assertFalse(worker.isAlive());
+        assertTrue("stop latency " + stopLatency.get(), stopLatency.get() >= 0 && stopLatency.get() < 100);
+    }
+
+    @Test
+    public void awaitReturnsOnConditionOrTimeout() {
+        CancellationToken token = new CancellationToken();
+        int[] calls = {0};
+        assertTrue(token.await(() -> ++calls[0] >= 3, 1000, 10));
+        assertFalse(token.await(() -> false, 30, 10));
+
+        token.cancel();
+        try {
+            token.await(() -> false, 1000, 10);
+            fail("cancelled token should abort await");
+        } catch (CancellationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void bindScopesTokenToCurrentThread() {
+        CancellationToken token = new CancellationToken();
+        assertSame(CancellationToken.NONE, CancellationToken.current());
+        try (CancellationToken.Scope ignored = token.bind()) {
+            assertSame(token, CancellationToken.current());
+        }
+        assertSame(CancellationToken.NONE, CancellationToken.current());
+        assertFalse(CancellationToken.NONE.cancel());
+        assertFalse(CancellationToken.NONE.isCancelled());
+    }
+}
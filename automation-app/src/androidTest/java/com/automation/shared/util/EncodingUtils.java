@@ -20,4 +20,21 @@ public final class EncodingUtils {
         }
         return Base64.encodeToString(data, Base64.NO_WRAP);
     }
+
+    /**
+     * 解码 Base64，格式非法时返回 null。
+     */
+    public static byte[] decodeBase64(String base64) {
+        if (base64 == null) {
+            return null;
+        }
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                return java.util.Base64.getDecoder().decode(base64);
+            }
+            return Base64.decode(base64, Base64.DEFAULT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package com.automation.shared.util;
+
+import java.util.Arrays;
+
+/**
+ * 固定内存的对数分桶耗时直方图（毫秒）。
+ * <p>
+ * 0-15ms 每毫秒一个桶，之后每个 2 的幂区间再等分 8 个子桶，相对误差不超过 12.5%；
+ * 超过约 9.3 小时的样本计入最后一个桶。分位数返回所在桶的上界，并以实际最大值封顶。
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** 最高覆盖到 2^25 - 1 毫秒。 */
+    private static final int MAX_EXPONENT = 24;
+    static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long sum;
+    private long max;
+
+    public synchronized void record(long valueMs) {
+        long value = Math.max(0L, valueMs);
+        buckets[bucketOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0L);
+        count = 0L;
+        sum = 0L;
+        max = 0L;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(count, sum, max,
+                percentileLocked(0.50d), percentileLocked(0.90d), percentileLocked(0.99d));
+    }
+
+    /**
+     * 非空桶的上界与计数，按上界升序交替排列：[upper0, count0, upper1, count1, ...]。
+     */
+    public synchronized long[] nonEmptyBuckets() {
+        int used = 0;
+        for (long bucket : buckets) {
+            if (bucket > 0) {
+                used++;
+            }
+        }
+        long[] result = new long[used * 2];
+        int index = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                result[index++] = upperBoundOf(i);
+                result[index++] = buckets[i];
+            }
+        }
+        return result;
+    }
+
+    private long percentileLocked(double quantile) {
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+        long seen = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = 4 + (bucket - LINEAR_BUCKETS) / SUB_BUCKETS;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+
+        private Snapshot(long count, long sum, long max, long p50, long p90, long p99) {
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public long mean() {
+            return count > 0 ? sum / count : 0L;
+        }
+
+        public long p50() {
+            return p50;
+        }
+
+        public long p90() {
+            return p90;
+        }
+
+        public long p99() {
+            return p99;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.automation.shared.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * 验证对数分桶的边界、分位数误差，以及指标注册表的计数与紧凑格式。
+ */
+@RunWith(AndroidJUnit4.class)
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguousAndBounded() {
+        long previousUpper = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(previousUpper + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            previousUpper = upper;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(1000, snapshot.max());
+        assertEquals(500, snapshot.mean());
+        assertWithin(500, snapshot.p50());
+        assertWithin(900, snapshot.p90());
+        assertWithin(990, snapshot.p99());
+    }
+
+    @Test
+    public void registryCountsOutcomesAndCapsNames() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(2);
+        registry.record("cmd.click", 20, true);
+        registry.record("cmd.click", 40, false);
+        registry.record("cmd.swipe", 300, true);
+        registry.record("cmd.extra", 5, true);
+        MetricsRegistry.DISABLED.record("cmd.click", 10, true);
+
+        JSONObject full = registry.toJson("cmd.", false);
+        assertEquals(1, full.getJSONObject("cmd.click").getInt("success"));
+        assertEquals(1, full.getJSONObject("cmd.click").getInt("failure"));
+        assertFalse(full.has(MetricsRegistry.OVERFLOW));
+        assertEquals(1, registry.toJson(null, false).getJSONObject(MetricsRegistry.OVERFLOW).getInt("count"));
+
+        JSONObject compact = registry.toCompactJson();
+        JSONArray click = compact.getJSONObject("m").getJSONArray("cmd.click");
+        assertEquals("n", compact.getJSONArray("f").getString(0));
+        assertEquals(2, click.getLong(0));
+        assertEquals(1, click.getLong(1));
+        assertEquals(4, registry.totalCount());
+        assertEquals(0, MetricsRegistry.DISABLED.totalCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected * 1.125 + 1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.automation.shared.util;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按名称聚合的耗时指标：每个名称一个 {@link LatencyHistogram} 与成功/失败计数。
+ * <p>
+ * 名称数量有上限，超出后统一计入 {@link #OVERFLOW}，内存占用固定。
+ * 约定前缀：{@code cmd.<action>} 指令耗时、{@code queue.wait} 排队等待、{@code stage.<name>} 场景阶段。
+ */
+public final class MetricsRegistry {
+
+    /** 不记录任何数据，未注入指标时使用。 */
+    public static final MetricsRegistry DISABLED = new MetricsRegistry(0);
+
+    static final String OVERFLOW = "_other";
+    private static final int DEFAULT_MAX_TIMERS = 128;
+    private static final Timer NOOP = new Timer(false);
+    /** 紧凑格式中每个指标数组的字段顺序。 */
+    private static final String[] COMPACT_FIELDS = {"n", "err", "p50", "p90", "p99", "max"};
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final int maxTimers;
+
+    public MetricsRegistry() {
+        this(DEFAULT_MAX_TIMERS);
+    }
+
+    MetricsRegistry(int maxTimers) {
+        this.maxTimers = maxTimers;
+    }
+
+    public Timer timer(String name) {
+        if (maxTimers <= 0) {
+            return NOOP;
+        }
+        Timer timer = timers.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        String key = timers.size() < maxTimers ? name : OVERFLOW;
+        return timers.computeIfAbsent(key, ignored -> new Timer(true));
+    }
+
+    public void record(String name, long elapsedMs, boolean success) {
+        timer(name).record(elapsedMs, success);
+    }
+
+    /**
+     * 全部指标的样本总数，用于判断两次推送之间是否有新数据。
+     */
+    public long totalCount() {
+        long total = 0L;
+        for (Timer timer : timers.values()) {
+            total += timer.success.get() + timer.failure.get();
+        }
+        return total;
+    }
+
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.reset();
+        }
+    }
+
+    /**
+     * 完整格式：每个指标一个对象，可选附带非空桶 [[上界, 计数], ...]。
+     *
+     * @param prefix 只输出以此开头的指标，null 表示全部
+     */
+    public JSONObject toJson(String prefix, boolean includeBuckets) throws JSONException {
+        JSONObject result = new JSONObject();
+        for (Map.Entry<String, Timer> entry : sortedTimers().entrySet()) {
+            if (prefix != null && !entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            Timer timer = entry.getValue();
+            LatencyHistogram.Snapshot snapshot = timer.histogram.snapshot();
+            JSONObject item = new JSONObject();
+            item.put("count", snapshot.count());
+            item.put("success", timer.success.get());
+            item.put("failure", timer.failure.get());
+            item.put("mean_ms", snapshot.mean());
+            item.put("p50_ms", snapshot.p50());
+            item.put("p90_ms", snapshot.p90());
+            item.put("p99_ms", snapshot.p99());
+            item.put("max_ms", snapshot.max());
+            if (includeBuckets) {
+                long[] buckets = timer.histogram.nonEmptyBuckets();
+                JSONArray array = new JSONArray();
+                for (int i = 0; i < buckets.length; i += 2) {
+                    array.put(new JSONArray().put(buckets[i]).put(buckets[i + 1]));
+                }
+                item.put("buckets", array);
+            }
+            result.put(entry.getKey(), item);
+        }
+        return result;
+    }
+
+    /**
+     * 周期推送用的紧凑格式：{"f": [字段名], "m": {名称: [数值...]}}，省略没有样本的指标。
+     */
+    public JSONObject toCompactJson() throws JSONException {
+        JSONObject metrics = new JSONObject();
+        for (Map.Entry<String, Timer> entry : sortedTimers().entrySet()) {
+            Timer timer = entry.getValue();
+            LatencyHistogram.Snapshot snapshot = timer.histogram.snapshot();
+            if (snapshot.count() == 0) {
+                continue;
+            }
+            metrics.put(entry.getKey(), new JSONArray()
+                    .put(snapshot.count())
+                    .put(timer.failure.get())
+                    .put(snapshot.p50())
+                    .put(snapshot.p90())
+                    .put(snapshot.p99())
+                    .put(snapshot.max()));
+        }
+        JSONObject result = new JSONObject();
+        result.put("f", new JSONArray(COMPACT_FIELDS));
+        result.put("m", metrics);
+        return result;
+    }
+
+    private Map<String, Timer> sortedTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    public static final class Timer {
+        private final LatencyHistogram histogram;
+        private final AtomicLong success = new AtomicLong();
+        private final AtomicLong failure = new AtomicLong();
+
+        private Timer(boolean enabled) {
+            this.histogram = enabled ? new LatencyHistogram() : null;
+        }
+
+        public void record(long elapsedMs, boolean ok) {
+            if (histogram == null) {
+                return;
+            }
+            histogram.record(elapsedMs);
+            (ok ? success : failure).incrementAndGet();
+        }
+
+        private void reset() {
+            histogram.reset();
+            success.set(0L);
+            failure.set(0L);
+        }
+    }
+}
@@ -30,6 +30,7 @@ class SecuritySettings(BaseModel):
 class StorageSettings(BaseModel):
     test_apk_dir: Path = Field(default=Path("storage/test_apk"))
     template_asset_dir: Path = Field(default=Path("storage/template_assets"))
+    script_bundle_dir: Path = Field(default=Path("storage/script_bundles"))
 
 
 class WebSocketSettings(BaseModel):
@@ -93,6 +94,10 @@ class Settings(BaseSettings):
     def template_asset_storage_dir(self) -> str:
         return str(self.storage.template_asset_dir)
 
+    @property
+    def script_bundle_storage_dir(self) -> str:
+        return str(self.storage.script_bundle_dir)
+
     @property
     def ws_heartbeat_interval(self) -> int:
         return self.websocket.heartbeat_interval
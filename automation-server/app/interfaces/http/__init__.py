@@ -1,6 +1,6 @@
 from fastapi import APIRouter
 
-from app.interfaces.http.routers import admin, apk, auth, commands, customer, devices
+from app.interfaces.http.routers import admin, apk, auth, commands, customer, devices, scripts
 
 
 def create_api_router(prefix: str = "") -> APIRouter:
@@ -12,6 +12,7 @@ def create_api_router(prefix: str = "") -> APIRouter:
     router.include_router(admin.router, prefix="/admin", tags=["后台管理"])
     router.include_router(customer.router, prefix="/customer", tags=["客户"])
     router.include_router(apk.router)
+    router.include_router(scripts.router)
     return router
 
 
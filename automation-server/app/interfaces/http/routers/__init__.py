@@ -1,4 +1,4 @@
-from . import admin, apk, auth, commands, customer, devices
+from . import admin, apk, auth, commands, customer, devices, scripts
 
 __all__ = [
     "admin",
@@ -7,4 +7,5 @@ __all__ = [
     "commands",
     "customer",
     "devices",
+    "scripts",
 ]
@@ -36,6 +36,7 @@ from app.schemas import (
     DeviceResponse,
     CommandResponse,
     DeviceCapabilitiesResponse,
+    DeviceMetricsResponse,
     SuccessResponse,
     ScriptJobListResponse,
     ScriptJobResponse,
@@ -175,6 +176,23 @@ async def admin_get_device_capabilities(
     return DeviceCapabilitiesResponse(device_id=device_id, capabilities=capabilities)
 
 
+@router.get("/devices/{device_id}/metrics", response_model=DeviceMetricsResponse)
+async def admin_get_device_metrics(
+    device_id: str,
+    admin: AccountDomain = Depends(get_current_admin),
+):
+    metrics = manager.get_metrics(device_id)
+    if metrics is None:
+        raise HTTPException(status_code=status.HTTP_404_NOT_FOUND, detail="设备未在线或尚未推送指标")
+
+    return DeviceMetricsResponse(
+        device_id=device_id,
+        received_at=metrics["received_at"],
+        fields=metrics.get("f") or [],
+        metrics=metrics.get("m") or {},
+    )
+
+
 @router.delete("/devices/{device_id}", response_model=SuccessResponse)
 async def admin_delete_device(device_id: str, admin: AccountDomain = Depends(get_current_admin), db: AsyncSession = Depends(get_db_session)):
     result = await db.execute(delete(Device).where(Device.id == device_id))
@@ -208,6 +226,8 @@ async def admin_send_command(
             params=payload.params,
             status_override="sent",
             sent_at=sent_at,
+            priority=payload.priority,
+            ttl_ms=payload.ttl_ms,
         )
         success = await manager.send_command(device_id, response_payload)
         if not success:
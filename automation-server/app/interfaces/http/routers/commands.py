@@ -26,6 +26,8 @@ async def send_command(
         user_id=current_account.id,
         action=payload.action,
         params=payload.params,
+        priority=payload.priority,
+        ttl_ms=payload.ttl_ms,
         status="sent",
         result=None,
         error_message=None,
@@ -0,0 +1,84 @@
+"""Routes for distributing versioned automation script bundles to devices."""
+from __future__ import annotations
+
+from pathlib import Path
+from typing import List
+
+from fastapi import APIRouter, Depends, File, HTTPException, Request, UploadFile
+from fastapi.responses import FileResponse
+
+from app.core.config import get_settings
+from app.core.security import get_current_account, get_current_admin
+from app.schemas import ScriptFileInfo, ScriptManifestResponse, ScriptReleaseInfo
+from app.services import ScriptBundleError, ScriptBundleRepository, ScriptRelease
+from app.services.script_bundles import SCRIPT_FILES
+
+router = APIRouter(prefix="/scripts", tags=["脚本包"])
+settings = get_settings()
+repository = ScriptBundleRepository(Path(settings.script_bundle_storage_dir).resolve())
+repository.ensure_storage()
+
+MAX_SCRIPT_FILE_BYTES = 4 * 1024 * 1024
+
+
+def _release_to_response(request: Request, release: ScriptRelease) -> ScriptReleaseInfo:
+    return ScriptReleaseInfo(
+        name=release.name,
+        version=release.version,
+        updated_at=release.updated_at,
+        files=[
+            ScriptFileInfo(
+                path=item.path,
+                sha256=item.sha256,
+                size_bytes=item.size_bytes,
+                download_url=str(request.url_for("download_script_object", sha256=item.sha256)),
+            )
+            for item in release.files
+        ],
+    )
+
+
+@router.get("/manifest", response_model=ScriptManifestResponse, summary="获取脚本包清单")
+async def get_manifest(request: Request, _=Depends(get_current_account)) -> ScriptManifestResponse:
+    try:
+        releases = repository.list_releases()
+    except ScriptBundleError as exc:
+        raise HTTPException(status_code=500, detail=str(exc)) from exc
+    return ScriptManifestResponse(scripts=[_release_to_response(request, release) for release in releases])
+
+
+@router.get("/objects/{sha256}", name="download_script_object", summary="按摘要下载脚本文件")
+async def download_object(sha256: str, _=Depends(get_current_account)) -> FileResponse:
+    try:
+        path = repository.resolve_object(sha256)
+    except ScriptBundleError as exc:
+        raise HTTPException(status_code=404, detail=str(exc)) from exc
+    # 对象按内容寻址，内容不会变化，可长期缓存
+    return FileResponse(
+        path,
+        media_type="application/octet-stream",
+        headers={"Cache-Control": "private, max-age=31536000, immutable"},
+    )
+
+
+@router.post("/{name}", response_model=ScriptReleaseInfo, summary="发布或更新脚本")
+async def publish_script(
+    request: Request,
+    name: str,
+    files: List[UploadFile] = File(...),
+    _=Depends(get_current_admin),
+) -> ScriptReleaseInfo:
+    contents = {}
+    for upload in files:
+        file_name = Path(upload.filename or "").name
+        if file_name not in SCRIPT_FILES:
+            raise HTTPException(status_code=400, detail=f"不支持的脚本文件: {file_name or '<空>'}")
+        data = await upload.read()
+        if len(data) > MAX_SCRIPT_FILE_BYTES:
+            raise HTTPException(status_code=413, detail=f"脚本文件过大: {file_name}")
+        contents[file_name] = data
+    try:
+        release = repository.publish(name, contents)
+    except ScriptBundleError as exc:
+        raise HTTPException(status_code=400, detail=str(exc)) from exc
+    return _release_to_response(request, release)
@@ -3,7 +3,7 @@ import asyncio
 import json
 import logging
 from datetime import datetime, timedelta
-from typing import Dict, Optional
+from typing import Dict, Optional, Set
 
 from fastapi import WebSocket
 
@@ -17,6 +17,9 @@ class ConnectionManager:
         self.device_connections: Dict[str, WebSocket] = {}
         self.web_connections: Dict[str, WebSocket] = {}
         self.device_capabilities: Dict[str, list] = {}
+        self.device_metrics: Dict[str, dict] = {}
+        # device_id -> 订阅该设备投屏帧的 Web 用户
+        self.screen_subscribers: Dict[str, Set[str]] = {}
         self.heartbeat_tasks: Dict[str, asyncio.Task] = {}
         self.last_heartbeat: Dict[str, datetime] = {}
         self.timeout = timedelta(seconds=timeout)
@@ -39,6 +42,8 @@ class ConnectionManager:
         if task:
             task.cancel()
         self.device_capabilities.pop(device_id, None)
+        self.device_metrics.pop(device_id, None)
+        self.screen_subscribers.pop(device_id, None)
         logger.info("设备 %s 已断开 WebSocket", device_id)
 
     async def send_message(self, device_id: str, message: dict) -> bool:
@@ -75,6 +80,12 @@ class ConnectionManager:
     def get_capabilities(self, device_id: str) -> Optional[list]:
         return self.device_capabilities.get(device_id)
 
+    def update_metrics(self, device_id: str, metrics: dict) -> None:
+        self.device_metrics[device_id] = {"received_at": datetime.utcnow(), **metrics}
+
+    def get_metrics(self, device_id: str) -> Optional[dict]:
+        return self.device_metrics.get(device_id)
+
     def get_online_count(self) -> int:
         return len(self.device_connections)
 
@@ -106,8 +117,39 @@ class ConnectionManager:
 
     async def disconnect_web(self, user_id: str) -> None:
         self.web_connections.pop(user_id, None)
+        self.unsubscribe_screen(user_id)
         logger.info("Web用户 %s 已断开", user_id)
 
+    def subscribe_screen(self, user_id: str, device_id: str) -> None:
+        self.screen_subscribers.setdefault(device_id, set()).add(user_id)
+
+    def unsubscribe_screen(self, user_id: str, device_id: Optional[str] = None) -> None:
+        """取消订阅；device_id 为空时取消该用户的全部订阅。"""
+        device_ids = [device_id] if device_id else list(self.screen_subscribers.keys())
+        for target in device_ids:
+            subscribers = self.screen_subscribers.get(target)
+            if subscribers is None:
+                continue
+            subscribers.discard(user_id)
+            if not subscribers:
+                self.screen_subscribers.pop(target, None)
+
+    async def relay_screen_frame(self, device_id: str, frame: bytes) -> int:
+        """把设备推送的二进制投屏帧原样转发给订阅的 Web 连接，返回成功转发的数量。"""
+        delivered = 0
+        for user_id in list(self.screen_subscribers.get(device_id, ())):
+            websocket = self.web_connections.get(user_id)
+            if websocket is None:
+                self.unsubscribe_screen(user_id, device_id)
+                continue
+            try:
+                await websocket.send_bytes(frame)
+                delivered += 1
+            except Exception as exc:  # pylint: disable=broad-except
+                logger.error("向 Web 用户 %s 转发投屏帧失败: %s", user_id, exc)
+                await self.disconnect_web(user_id)
+        return delivered
+
     async def send_to_web(self, user_id: str, message: dict) -> bool:
         websocket = self.web_connections.get(user_id)
         if websocket is None:
@@ -3,7 +3,7 @@ import json
 import logging
 from dataclasses import dataclass, field
 from datetime import datetime, timezone
-from typing import Any, Literal, Optional
+from typing import Any, Literal, Optional, Union
 
 from fastapi import APIRouter, Depends, Query, WebSocket, WebSocketDisconnect
 from sqlalchemy.ext.asyncio import AsyncSession
@@ -15,7 +15,7 @@ from app.modules.wallets import WalletService
 from app.modules.devices import DeviceService, DeviceOwnershipError
 from app.modules.logs import LogService
 from app.modules.script_jobs import ScriptJobService
-from app.schemas import CommandResultUpdate, WSMessage
+from app.schemas import CommandResultUpdate, TokenData, WSMessage
 from app.interfaces.ws.manager import manager
 
 logger = logging.getLogger(__name__)
@@ -30,8 +30,13 @@ MESSAGE_RESULT = "result"
 MESSAGE_PROGRESS = "progress"
 MESSAGE_LOG = "log"
 MESSAGE_HEARTBEAT = "heartbeat"
+MESSAGE_METRICS = "metrics"
 MESSAGE_ERROR = "error"
 MESSAGE_COMMAND_ACK = "command_ack"
+MESSAGE_SCREEN_SUBSCRIBE = "subscribe_screen"
+MESSAGE_SCREEN_UNSUBSCRIBE = "unsubscribe_screen"
+MESSAGE_SCREEN_SUBSCRIBED = "screen_subscribed"
+ADMIN_ROLES = {"admin", "super_admin"}
 
 
 @dataclass(slots=True)
@@ -51,8 +56,19 @@ class DeviceSession:
         self.capabilities = capabilities
 
 
+async def _receive(websocket: WebSocket) -> Union[str, bytes]:
+    """读取下一条文本或二进制消息；连接关闭时抛出 WebSocketDisconnect。"""
+    message = await websocket.receive()
+    if message["type"] == "websocket.disconnect":
+        raise WebSocketDisconnect(message.get("code", 1000))
+    text = message.get("text")
+    if text is not None:
+        return text
+    return message.get("bytes") or b""
+
+
 @router.websocket("/ws/web")
-async def web_console_socket(websocket: WebSocket, token: str = Query(...)):
+async def web_console_socket(websocket: WebSocket, token: str = Query(...), db: AsyncSession = Depends(get_db_session)):
     user_id = None
     try:
         try:
@@ -64,8 +80,13 @@ async def web_console_socket(websocket: WebSocket, token: str = Query(...)):
             return
 
         await manager.connect_web(user_id, websocket)
+        device_service = DeviceService.with_session(db)
         while True:
-            await websocket.receive_text()
+            message = await _receive(websocket)
+            if isinstance(message, bytes):
+                logger.debug("Ignoring binary frame from web user %s", user_id)
+                continue
+            await _handle_web_message(websocket, token_data, _parse_json(message), device_service)
     except WebSocketDisconnect:
         logger.info("Web user %s disconnected", user_id)
     finally:
@@ -88,7 +109,10 @@ async def device_socket(websocket: WebSocket, token: str = Query(...), db: Async
         await websocket.accept()
         session = DeviceSession(websocket=websocket, username=username)
         while True:
-            message = await websocket.receive_text()
+            message = await _receive(websocket)
+            if isinstance(message, bytes):
+                await _relay_binary(session, message)
+                continue
             await _handle_device_message(
                 session=session,
                 raw=message,
@@ -115,10 +139,53 @@ async def device_socket(websocket: WebSocket, token: str = Query(...), db: Async
 
 def _parse_json(raw: str) -> dict:
     try:
-        return json.loads(raw)
+        data = json.loads(raw)
     except json.JSONDecodeError as exc:
         logger.error("Invalid JSON payload: %s", exc)
         return {}
+    return data if isinstance(data, dict) else {}
+
+
+async def _relay_binary(session: DeviceSession, frame: bytes) -> None:
+    """设备的二进制消息（投屏帧）不落库，直接转发给订阅者。"""
+    if not session.is_ready() or session.device_id is None:
+        logger.debug("Dropping binary frame before session init from %s", session.username)
+        return
+    await manager.relay_screen_frame(session.device_id, frame)
+
+
+async def _handle_web_message(
+    websocket: WebSocket,
+    token_data: TokenData,
+    data: dict,
+    device_service: DeviceService,
+) -> None:
+    msg_type = data.get("type")
+    payload = data.get("data") or {}
+    device_id = payload.get("device_id") if isinstance(payload, dict) else None
+
+    if msg_type == MESSAGE_SCREEN_SUBSCRIBE:
+        if not device_id or not await _can_view_device(token_data, device_id, device_service):
+            await websocket.send_text(
+                WSMessage(type=MESSAGE_ERROR, data={"reason": "device not accessible", "device_id": device_id}).model_dump_json()
+            )
+            return
+        manager.subscribe_screen(token_data.account_id, device_id)
+        await websocket.send_text(
+            WSMessage(type=MESSAGE_SCREEN_SUBSCRIBED, data={"device_id": device_id}).model_dump_json()
+        )
+        return
+
+    if msg_type == MESSAGE_SCREEN_UNSUBSCRIBE:
+        manager.unsubscribe_screen(token_data.account_id, device_id)
+        return
+
+
+async def _can_view_device(token_data: TokenData, device_id: str, device_service: DeviceService) -> bool:
+    if token_data.role in ADMIN_ROLES:
+        return True
+    device = await device_service.get_device(device_id)
+    return device is not None and device.username == token_data.username
 
 
 async def _handle_device_message(
@@ -166,6 +233,10 @@ async def _handle_device_message(
         manager.update_heartbeat(session.device_id)
         return
 
+    if msg_type == MESSAGE_METRICS:
+        manager.update_metrics(session.device_id, data.get("data") or {})
+        return
+
     if msg_type == MESSAGE_RESULT:
         await _handle_command_result(data.get("data", {}), command_service, job_service, wallet_service)
         await db.commit()
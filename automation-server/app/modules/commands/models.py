@@ -54,6 +54,8 @@ class Command:
         params: Optional[dict[str, Any]] = None,
         status_override: Optional[str] = None,
         sent_at: Optional[datetime] = None,
+        priority: int = 0,
+        ttl_ms: Optional[int] = None,
     ):
         """Convert current command to the public API schema."""
         from app.schemas import CommandResponse  # lazy import to avoid cycle
@@ -64,6 +66,8 @@ class Command:
             user_id=user_id if user_id is not None else self.user_id,
             action=self.action,
             params=params if params is not None else self.params,
+            priority=priority,
+            ttl_ms=ttl_ms,
             status=status_override or self.status,
             result=self.result,
             error_message=self.error_message,
@@ -75,6 +75,15 @@ class DeviceCapabilitiesResponse(BaseModel):
     capabilities: list[DeviceCapability] = Field(default_factory=list)
 
 
+class DeviceMetricsResponse(BaseModel):
+    """设备随心跳推送的最新耗时指标（紧凑格式，按 fields 顺序排列）。"""
+
+    device_id: str
+    received_at: datetime
+    fields: list[str] = Field(default_factory=list)
+    metrics: dict[str, list[int]] = Field(default_factory=dict)
+
+
 class DeviceStatusUpdate(BaseModel):
     battery: Optional[int] = None
     network_type: Optional[str] = None
@@ -86,6 +95,8 @@ class DeviceStatusUpdate(BaseModel):
 class CommandCreate(BaseModel):
     action: str = Field(..., description="操作类型: click, swipe, screenshot, start_task")
     params: Optional[dict[str, Any]] = None
+    priority: int = Field(0, ge=-10, le=10, description="设备端排队优先级，越大越先执行")
+    ttl_ms: Optional[int] = Field(None, ge=1, description="排队有效期（毫秒），过期未执行则设备直接返回失败")
 
 
 class CommandResponse(BaseModel):
@@ -94,6 +105,8 @@ class CommandResponse(BaseModel):
     action: str
     params: Optional[dict[str, Any]] = None
     user_id: Optional[str] = None
+    priority: int = 0
+    ttl_ms: Optional[int] = None
     status: str
     result: Optional[str] = None
     error_message: Optional[str] = None
@@ -209,6 +222,24 @@ class TestApkInfo(BaseModel):
     created_at: Optional[str] = None
 
 
+class ScriptFileInfo(BaseModel):
+    path: str
+    sha256: str
+    size_bytes: int
+    download_url: str
+
+
+class ScriptReleaseInfo(BaseModel):
+    name: str
+    version: int
+    files: list[ScriptFileInfo]
+    updated_at: Optional[str] = None
+
+
+class ScriptManifestResponse(BaseModel):
+    scripts: list[ScriptReleaseInfo]
+
+
 class ScriptParameterSpec(BaseModel):
     name: str
     type: Optional[str] = None
@@ -1,6 +1,7 @@
 from .command import CommandService
 from .device import DeviceService
 from .log import LogService
+from .script_bundles import ScriptBundleError, ScriptBundleRepository, ScriptFile, ScriptRelease
 from .test_apk import TestApkRepository, AutomationBundle, ApkAsset, TestApkError
 
 __all__ = [
@@ -11,4 +12,8 @@ __all__ = [
     "AutomationBundle",
     "ApkAsset",
     "TestApkError",
+    "ScriptBundleRepository",
+    "ScriptRelease",
+    "ScriptFile",
+    "ScriptBundleError",
 ]
@@ -0,0 +1,229 @@
+"""Content-addressed storage for server-delivered automation scripts."""
+
+from __future__ import annotations
+
+import hashlib
+import json
+import re
+import struct
+from dataclasses import dataclass
+from datetime import datetime, timezone
+from pathlib import Path
+from typing import Any, Dict, List, Mapping, Optional, Tuple
+
+SCRIPT_FILES = ("project.yaml", "scenes.yaml", "script.bin")
+REQUIRED_FILES = ("project.yaml", "scenes.yaml")
+_NAME_PATTERN = re.compile(r"^[A-Za-z0-9_\-]{1,64}$")
+_SHA256_PATTERN = re.compile(r"^[0-9a-f]{64}$")
+
+# 与设备端 ScriptBundleFormat 保持一致：魔数 "DJCS"、格式版本、源文件摘要（Java modified UTF-8 字符串）
+BUNDLE_MAGIC = 0x444A4353
+BUNDLE_VERSION = 1
+
+
+class ScriptBundleError(RuntimeError):
+    """Raised when a script release or stored object is invalid."""
+
+
+@dataclass(frozen=True)
+class ScriptFile:
+    path: str
+    sha256: str
+    size_bytes: int
+
+    def to_mapping(self) -> Dict[str, Any]:
+        return {"path": self.path, "sha256": self.sha256, "size_bytes": self.size_bytes}
+
+    @classmethod
+    def from_mapping(cls, payload: Dict[str, Any]) -> "ScriptFile":
+        try:
+            return cls(path=str(payload["path"]), sha256=str(payload["sha256"]), size_bytes=int(payload["size_bytes"]))
+        except (KeyError, TypeError, ValueError) as exc:
+            raise ScriptBundleError("脚本 manifest 文件条目缺少 path/sha256/size_bytes 字段") from exc
+
+
+@dataclass(frozen=True)
+class ScriptRelease:
+    name: str
+    version: int
+    files: Tuple[ScriptFile, ...]
+    updated_at: Optional[str] = None
+
+    def to_mapping(self) -> Dict[str, Any]:
+        payload: Dict[str, Any] = {
+            "name": self.name,
+            "version": self.version,
+            "files": [item.to_mapping() for item in self.files],
+        }
+        if self.updated_at:
+            payload["updated_at"] = self.updated_at
+        return payload
+
+    @classmethod
+    def from_mapping(cls, payload: Dict[str, Any]) -> "ScriptRelease":
+        try:
+            name = str(payload["name"])
+            version = int(payload["version"])
+            files = payload["files"]
+        except (KeyError, TypeError, ValueError) as exc:
+            raise ScriptBundleError("脚本 manifest 条目缺少 name/version/files 字段") from exc
+        if not isinstance(files, list):
+            raise ScriptBundleError("脚本 manifest 中 files 字段必须为列表")
+        updated_at = payload.get("updated_at")
+        return cls(
+            name=name,
+            version=version,
+            files=tuple(ScriptFile.from_mapping(item) for item in files),
+            updated_at=str(updated_at) if updated_at else None,
+        )
+
+    def digest_map(self) -> Dict[str, str]:
+        return {item.path: item.sha256 for item in self.files}
+
+
+class ScriptBundleRepository:
+    """Stores script files once per SHA-256 under ``objects/`` and tracks releases in ``manifest.json``.
+
+    Publishing only bumps a script's version when at least one file digest changed, so devices can
+    skip unchanged scripts and fetch only the objects they do not already hold.
+    """
+
+    def __init__(self, storage_dir: Path):
+        self._storage_dir = storage_dir
+        self._objects_dir = storage_dir / "objects"
+        self._manifest_path = storage_dir / "manifest.json"
+
+    @property
+    def storage_dir(self) -> Path:
+        return self._storage_dir
+
+    def ensure_storage(self) -> None:
+        self._objects_dir.mkdir(parents=True, exist_ok=True)
+
+    def list_releases(self) -> List[ScriptRelease]:
+        return sorted(self._read_manifest().values(), key=lambda item: item.name)
+
+    def get_release(self, name: str) -> ScriptRelease:
+        release = self._read_manifest().get(name)
+        if release is None:
+            raise ScriptBundleError(f"未找到脚本: {name}")
+        return release
+
+    def publish(self, name: str, files: Mapping[str, bytes]) -> ScriptRelease:
+        if not _NAME_PATTERN.match(name):
+            raise ScriptBundleError("脚本名称只能包含字母、数字、下划线与连字符")
+        unknown = sorted(set(files) - set(SCRIPT_FILES))
+        if unknown:
+            raise ScriptBundleError(f"不支持的脚本文件: {', '.join(unknown)}")
+        missing = [path for path in REQUIRED_FILES if not files.get(path)]
+        if missing:
+            raise ScriptBundleError(f"缺少脚本文件: {', '.join(missing)}")
+        _validate_sources(files)
+
+        self.ensure_storage()
+        entries = []
+        for path in SCRIPT_FILES:
+            content = files.get(path)
+            if not content:
+                continue
+            digest = hashlib.sha256(content).hexdigest()
+            self._store_object(digest, content)
+            entries.append(ScriptFile(path=path, sha256=digest, size_bytes=len(content)))
+
+        releases = self._read_manifest()
+        previous = releases.get(name)
+        candidate = tuple(entries)
+        if previous is not None and previous.digest_map() == {item.path: item.sha256 for item in candidate}:
+            return previous
+        release = ScriptRelease(
+            name=name,
+            version=(previous.version + 1) if previous else 1,
+            files=candidate,
+            updated_at=datetime.now(timezone.utc).isoformat(),
+        )
+        releases[name] = release
+        self._write_manifest(releases)
+        return release
+
+    def resolve_object(self, sha256: str) -> Path:
+        if not _SHA256_PATTERN.match(sha256):
+            raise ScriptBundleError("无效的对象摘要")
+        path = self._objects_dir / sha256
+        if not path.is_file():
+            raise ScriptBundleError(f"脚本对象不存在: {sha256}")
+        return path
+
+    def _store_object(self, digest: str, content: bytes) -> None:
+        target = self._objects_dir / digest
+        if target.exists():
+            return
+        temp_path = target.with_suffix(".upload")
+        try:
+            temp_path.write_bytes(content)
+            temp_path.replace(target)
+        except OSError as exc:
+            temp_path.unlink(missing_ok=True)
+            raise ScriptBundleError("写入脚本对象失败") from exc
+
+    def _read_manifest(self) -> Dict[str, ScriptRelease]:
+        if not self._manifest_path.exists():
+            return {}
+        try:
+            payload = json.loads(self._manifest_path.read_text(encoding="utf-8"))
+        except (OSError, json.JSONDecodeError) as exc:
+            raise ScriptBundleError("无法读取脚本 manifest") from exc
+        entries = payload.get("scripts") if isinstance(payload, dict) else None
+        if not isinstance(entries, list):
+            raise ScriptBundleError("脚本 manifest 结构无效")
+        releases = (ScriptRelease.from_mapping(entry) for entry in entries if isinstance(entry, dict))
+        return {release.name: release for release in releases}
+
+    def _write_manifest(self, releases: Dict[str, ScriptRelease]) -> None:
+        manifest = {"scripts": [release.to_mapping() for release in sorted(releases.values(), key=lambda r: r.name)]}
+        temp_path = self._manifest_path.with_suffix(".tmp")
+        try:
+            temp_path.write_text(json.dumps(manifest, indent=2, ensure_ascii=False), encoding="utf-8")
+            temp_path.replace(self._manifest_path)
+        except OSError as exc:
+            temp_path.unlink(missing_ok=True)
+            raise ScriptBundleError("写入脚本 manifest 失败") from exc
+
+
+def bundle_source_hash(project_yaml: bytes, scenes_yaml: bytes) -> str:
+    """Same digest as ``ScriptBundleFormat.sourceHash``: SHA-1 over each YAML followed by a zero byte."""
+    digest = hashlib.sha1()
+    for content in (project_yaml, scenes_yaml):
+        digest.update(content)
+        digest.update(b"\0")
+    return digest.hexdigest()
+
+
+def read_bundle_source_hash(bundle: bytes) -> str:
+    """Read the source digest from a ``script.bin`` header without decoding the value tree."""
+    try:
+        magic, version, length = struct.unpack_from(">IHH", bundle)
+    except struct.error as exc:
+        raise ScriptBundleError("script.bin 不是有效的脚本包") from exc
+    if magic != BUNDLE_MAGIC:
+        raise ScriptBundleError("script.bin 不是有效的脚本包")
+    if version != BUNDLE_VERSION:
+        raise ScriptBundleError(f"script.bin 格式版本不支持: {version}")
+    raw = bundle[8 : 8 + length]
+    if len(raw) != length:
+        raise ScriptBundleError("script.bin 头部不完整")
+    return raw.decode("ascii", errors="replace")
+
+
+def _validate_sources(files: Mapping[str, bytes]) -> None:
+    """Reject uploads the device would fail to load, or whose script.bin was compiled from other YAML."""
+    for path in REQUIRED_FILES:
+        try:
+            files[path].decode("utf-8")
+        except UnicodeDecodeError as exc:
+            raise ScriptBundleError(f"{path} 不是 UTF-8 文本") from exc
+    bundle = files.get("script.bin")
+    if not bundle:
+        return
+    expected = bundle_source_hash(files["project.yaml"], files["scenes.yaml"])
+    if read_bundle_source_hash(bundle) != expected:
+        raise ScriptBundleError("script.bin 与上传的 YAML 不一致，请重新编译脚本包后上传")
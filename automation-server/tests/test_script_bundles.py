@@ -0,0 +1,52 @@
+"""脚本发布校验：script.bin 头部记录的源文件摘要必须与同时上传的 YAML 一致。"""
+import struct
+
+import pytest
+
+from app.services.script_bundles import (
+    BUNDLE_MAGIC,
+    BUNDLE_VERSION,
+    ScriptBundleError,
+    ScriptBundleRepository,
+    bundle_source_hash,
+)
+
+PROJECT = b"name: demo\n"
+SCENES = b"scenes: []\n"
+
+
+def _bundle(source_hash: str, version: int = BUNDLE_VERSION) -> bytes:
+    encoded = source_hash.encode("ascii")
+    return struct.pack(">IHH", BUNDLE_MAGIC, version, len(encoded)) + encoded + b"\x00\x00\x00\x00"
+
+
+def test_publish_accepts_bundle_compiled_from_same_yaml(tmp_path):
+    repository = ScriptBundleRepository(tmp_path)
+    files = {"project.yaml": PROJECT, "scenes.yaml": SCENES, "script.bin": _bundle(bundle_source_hash(PROJECT, SCENES))}
+
+    release = repository.publish("demo", files)
+
+    assert release.version == 1
+    assert set(release.digest_map()) == {"project.yaml", "scenes.yaml", "script.bin"}
+
+
+@pytest.mark.parametrize(
+    "bundle",
+    [
+        _bundle(bundle_source_hash(PROJECT, b"scenes: [changed]\n")),
+        _bundle(bundle_source_hash(PROJECT, SCENES), version=BUNDLE_VERSION + 1),
+        b"not a bundle",
+    ],
+)
+def test_publish_rejects_stale_or_invalid_bundle(tmp_path, bundle):
+    repository = ScriptBundleRepository(tmp_path)
+
+    with pytest.raises(ScriptBundleError):
+        repository.publish("demo", {"project.yaml": PROJECT, "scenes.yaml": SCENES, "script.bin": bundle})
+
+    assert repository.list_releases() == []
+
+
+def test_publish_rejects_non_utf8_yaml(tmp_path):
+    with pytest.raises(ScriptBundleError):
+        ScriptBundleRepository(tmp_path).publish("demo", {"project.yaml": b"\xff\xfe", "scenes.yaml": SCENES})
@@ -0,0 +1,99 @@
+"""设备 WebSocket 二进制投屏帧：不断开设备连接，并转发给订阅的 Web 连接。
+
+运行：pip install -r requirements-dev.txt && python -m pytest tests
+"""
+from types import SimpleNamespace
+
+import pytest
+from fastapi import FastAPI
+from fastapi.testclient import TestClient
+
+from app.core.security import create_access_token
+from app.interfaces.http.deps import get_db_session
+from app.interfaces.ws import manager, router
+from app.interfaces.ws import routes
+
+DEVICE_ID = "dev-stream-1"
+USERNAME = "stream-user"
+
+
+class _FakeSession:
+    async def commit(self) -> None:
+        pass
+
+    async def rollback(self) -> None:
+        pass
+
+
+class _FakeDeviceService:
+    offline: list[str] = []
+
+    async def ensure_device_for_connection(self, **kwargs) -> None:
+        pass
+
+    async def mark_offline(self, device_id: str) -> None:
+        self.offline.append(device_id)
+
+    async def get_device(self, device_id: str):
+        return SimpleNamespace(id=device_id, username=USERNAME) if device_id == DEVICE_ID else None
+
+
+class _FakeLogService:
+    async def create_log(self, **kwargs) -> None:
+        pass
+
+
+@pytest.fixture()
+def client(monkeypatch):
+    _FakeDeviceService.offline = []
+    monkeypatch.setattr(routes.DeviceService, "with_session", classmethod(lambda cls, db: _FakeDeviceService()))
+    monkeypatch.setattr(routes.LogService, "with_session", classmethod(lambda cls, db: _FakeLogService()))
+    for service in (routes.CommandService, routes.ScriptJobService, routes.WalletService):
+        monkeypatch.setattr(service, "with_session", classmethod(lambda cls, db: SimpleNamespace()))
+
+    async def _session():
+        yield _FakeSession()
+
+    app = FastAPI()
+    app.include_router(router)
+    app.dependency_overrides[get_db_session] = _session
+    with TestClient(app) as test_client:
+        yield test_client
+
+
+def _session_init(device) -> None:
+    device.send_json({"type": "session_init", "data": {"device_id": DEVICE_ID, "device_name": "Pixel"}})
+    assert device.receive_json() == {"type": "session_ready", "data": {"device_id": DEVICE_ID}}
+
+
+def test_binary_frame_is_relayed_and_device_stays_online(client):
+    device_token = create_access_token("device-account", USERNAME, "user")
+    web_token = create_access_token("web-account", USERNAME, "user")
+    frame = b"\x00\x00\x00\x02{}" + b"\xff\xd8jpeg\xff\xd9"
+
+    with client.websocket_connect(f"/ws?token={device_token}") as device, \
+            client.websocket_connect(f"/ws/web?token={web_token}") as web:
+        _session_init(device)
+        web.send_json({"type": "subscribe_screen", "data": {"device_id": DEVICE_ID}})
+        assert web.receive_json()["type"] == "screen_subscribed"
+
+        device.send_bytes(frame)
+        assert web.receive_bytes() == frame
+
+        # 文本通道在二进制帧之后仍然可用
+        _session_init(device)
+        assert manager.is_online(DEVICE_ID)
+        assert _FakeDeviceService.offline == []
+
+    assert DEVICE_ID not in manager.screen_subscribers
+
+
+def test_subscribe_rejects_foreign_device(client):
+    web_token = create_access_token("other-account", "someone-else", "user")
+
+    with client.websocket_connect(f"/ws/web?token={web_token}") as web:
+        web.send_json({"type": "subscribe_screen", "data": {"device_id": DEVICE_ID}})
+        reply = web.receive_json()
+
+    assert reply["type"] == "error"
+    assert DEVICE_ID not in manager.screen_subscribers
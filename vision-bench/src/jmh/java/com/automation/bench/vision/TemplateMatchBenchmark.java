@@ -0,0 +1,106 @@
+package com.automation.bench.vision;
+
+import com.automation.infrastructure.vision.ImageRecognition;
+import com.automation.infrastructure.vision.TemplateMatch;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImageRecognition 模板匹配基准：整屏、ROI、金字塔粗到细、多模板批量四种用法，
+ * 并按并发分条数对比 {@code TiledTemplateMatcher} 的加速效果。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TemplateMatchBenchmark {
+
+    @Param({VisionFixture.SYNTHETIC})
+    public String caseName;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private VisionFixture fixture;
+    private ImageRecognition recognition;
+    private Mat roiScreen;
+    private Mat coarseScreen;
+    private Mat coarseTemplate;
+
+    @Setup
+    public void setUp() throws IOException {
+        // 桌面端由 openpnp 解压并加载原生库，ImageRecognition 的加载逻辑会复用它
+        nu.pattern.OpenCV.loadLocally();
+        fixture = VisionFixture.load(caseName);
+        recognition = new ImageRecognition(parallelism);
+        roiScreen = fixture.screen.submat(fixture.roi);
+        coarseScreen = new Mat();
+        coarseTemplate = new Mat();
+        Imgproc.pyrDown(fixture.screen, coarseScreen);
+        Imgproc.pyrDown(fixture.templates.get(0), coarseTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        roiScreen.release();
+        coarseScreen.release();
+        coarseTemplate.release();
+        fixture.release();
+    }
+
+    @Benchmark
+    public List<TemplateMatch> fullFrame() {
+        return recognition.findAllTemplates(fixture.screen, fixture.templates.get(0), fixture.threshold, 1);
+    }
+
+    @Benchmark
+    public List<TemplateMatch> roi() {
+        return recognition.findAllTemplates(roiScreen, fixture.templates.get(0), fixture.threshold, 1);
+    }
+
+    /**
+     * 半分辨率粗定位，再在原图上以模板大小为边距的窗口内精确匹配。
+     */
+    @Benchmark
+    public Point pyramid() {
+        Mat template = fixture.templates.get(0);
+        Point coarse = recognition.findTemplate(coarseScreen, coarseTemplate, fixture.threshold * 0.9);
+        if (coarse == null) {
+            return null;
+        }
+        int left = Math.max(0, (int) (coarse.x * 2) - template.cols());
+        int top = Math.max(0, (int) (coarse.y * 2) - template.rows());
+        int right = Math.min(fixture.screen.cols(), (int) (coarse.x * 2) + template.cols());
+        int bottom = Math.min(fixture.screen.rows(), (int) (coarse.y * 2) + template.rows());
+        Mat window = fixture.screen.submat(new Rect(left, top, right - left, bottom - top));
+        try {
+            Point fine = recognition.findTemplate(window, template, fixture.threshold);
+            return fine != null ? new Point(fine.x + left, fine.y + top) : null;
+        } finally {
+            window.release();
+        }
+    }
+
+    @Benchmark
+    public void batch(Blackhole blackhole) {
+        for (Mat template : fixture.templates) {
+            blackhole.consume(recognition.findAllTemplates(fixture.screen, template, fixture.threshold, 1));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.automation.bench.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 基准测试用的一组录制数据：一张截图、若干模板与可选的搜索区域。
+ * <p>
+ * 目录结构见 fixtures/README.md；名称为 {@value #SYNTHETIC} 时生成合成数据，不依赖录制文件。
+ */
+final class VisionFixture {
+
+    static final String SYNTHETIC = "synthetic";
+    static final String FIXTURES_PROPERTY = "vision.fixtures";
+
+    final String name;
+    final Mat screen;
+    final List<Mat> templates;
+    final Rect roi;
+    final double threshold;
+
+    private VisionFixture(String name, Mat screen, List<Mat> templates, Rect roi, double threshold) {
+        this.name = name;
+        this.screen = screen;
+        this.templates = templates;
+        this.roi = roi;
+        this.threshold = threshold;
+    }
+
+    static VisionFixture load(String name) throws IOException {
+        if (SYNTHETIC.equals(name)) {
+            return synthetic();
+        }
+        File dir = new File(System.getProperty(FIXTURES_PROPERTY, "fixtures"), name);
+        Mat screen = Imgcodecs.imread(new File(dir, "screen.png").getAbsolutePath());
+        if (screen.empty()) {
+            throw new IOException("缺少截图: " + new File(dir, "screen.png"));
+        }
+        File[] files = dir.listFiles((d, file) -> file.startsWith("template") && file.endsWith(".png"));
+        if (files == null || files.length == 0) {
+            throw new IOException("缺少模板: " + dir);
+        }
+        Arrays.sort(files);
+        List<Mat> templates = new ArrayList<>(files.length);
+        for (File file : files) {
+            templates.add(Imgcodecs.imread(file.getAbsolutePath()));
+        }
+        Properties properties = new Properties();
+        File config = new File(dir, "case.properties");
+        if (config.isFile()) {
+            try (InputStream in = new FileInputStream(config)) {
+                properties.load(in);
+            }
+        }
+        Rect roi = parseRoi(properties.getProperty("roi"), screen);
+        double threshold = Double.parseDouble(properties.getProperty("threshold", "0.8"));
+        return new VisionFixture(name, screen, templates, roi, threshold);
+    }
+
+    void release() {
+        screen.release();
+        for (Mat template : templates) {
+            template.release();
+        }
+    }
+
+    private static Rect parseRoi(String raw, Mat screen) {
+        if (raw == null || raw.isBlank()) {
+            // 缺省取屏幕中部一半高度，近似列表可视区
+            return new Rect(0, screen.rows() / 4, screen.cols(), screen.rows() / 2);
+        }
+        String[] parts = raw.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("roi 需为 left,top,right,bottom: " + raw);
+        }
+        int left = Integer.parseInt(parts[0].trim());
+        int top = Integer.parseInt(parts[1].trim());
+        int right = Integer.parseInt(parts[2].trim());
+        int bottom = Integer.parseInt(parts[3].trim());
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * 1080x2400 的合成画面：模糊噪声背景上散布色块，模板直接从画面中截取。
+     */
+    private static VisionFixture synthetic() {
+        Mat screen = new Mat(2400, 1080, CvType.CV_8UC3);
+        Core.setRNGSeed(42);
+        Core.randu(screen, 0, 255);
+        Imgproc.GaussianBlur(screen, screen, new Size(7, 7), 3);
+        for (int i = 0; i < 40; i++) {
+            int x = (i * 211) % 960;
+            int y = (i * 397) % 2280;
+            Imgproc.rectangle(screen, new Point(x, y), new Point(x + 90, y + 90),
+                    new Scalar((i * 53) % 255, (i * 97) % 255, (i * 31) % 255), -1);
+            Imgproc.circle(screen, new Point(x + 45, y + 45), 25, new Scalar(255 - i * 5, 40, i * 6), -1);
+        }
+        List<Mat> templates = new ArrayList<>();
+        int[][] crops = {{300, 1500, 96, 96}, {40, 700, 160, 64}, {820, 2100, 120, 120}, {500, 1100, 48, 48}};
+        for (int[] crop : crops) {
+            templates.add(screen.submat(new Rect(crop[0], crop[1], crop[2], crop[3])).clone());
+        }
+        return new VisionFixture(SYNTHETIC, screen, templates, new Rect(0, 1200, 1080, 600), 0.8);
+    }
+}